@@ -35,9 +35,11 @@ import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
+import org.opencms.main.CmsClusterEventManager;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsClusterEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsUUID;
@@ -60,7 +62,7 @@ import org.apache.commons.logging.Log;
  * If you need to cache e.g. a single configuration file with a known, fixed path, using {@link org.opencms.cache.CmsVfsMemoryObjectCache} is
  * easier.<p>
  */
-public class CmsGlobalConfigurationCacheEventHandler implements I_CmsEventListener {
+public class CmsGlobalConfigurationCacheEventHandler implements I_CmsClusterEventListener {
 
     /**
      * A pair of cache instances, one for the offline mode and one for the online mode.<p>
@@ -159,6 +161,11 @@ public class CmsGlobalConfigurationCacheEventHandler implements I_CmsEventListen
         List<Object> irrelevantChangeTypes = new ArrayList<Object>();
         irrelevantChangeTypes.add(Integer.valueOf(CmsDriverManager.NOTHING_CHANGED));
         irrelevantChangeTypes.add(Integer.valueOf(CmsDriverManager.CHANGED_PROJECT));
+        if (CmsClusterEventManager.isRemoteEvent(event) && isResourceEvent(event.getType())) {
+            // the changed resources are not replicated to other cluster nodes
+            offlineCacheClear();
+            return;
+        }
         //System.out.println();
         switch (event.getType()) {
             case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
@@ -251,6 +258,29 @@ public class CmsGlobalConfigurationCacheEventHandler implements I_CmsEventListen
         }
     }
 
+    /**
+     * Checks if the given event type is one of the resource modification events handled by this class.<p>
+     *
+     * @param eventType the event type
+     *
+     * @return <code>true</code> if the given event type is a resource modification event
+     */
+    protected boolean isResourceEvent(int eventType) {
+
+        switch (eventType) {
+            case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+            case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+            case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+            case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Clears the offline caches.<p>
      */
@@ -0,0 +1,413 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsLog;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Implements an LRU cache with the cost model of {@link CmsLruCache} that can be touched without a global lock.<p>
+ *
+ * In {@link CmsLruCache}, every touch moves the object to the head of the LRU list while holding the monitor of
+ * the cache, which makes the monitor a hot spot if many threads read from the cache at the same time.
+ * This implementation only records touches in a lock free access buffer. The recorded accesses are applied
+ * to the LRU list in batches by the thread that manages to acquire the eviction lock, other threads just go on.
+ * If the access buffer is full, further touches are dropped until it was drained, so the LRU order is only
+ * approximated under high load, which is fine for a cache.<p>
+ *
+ * Adding and removing objects still acquires the eviction lock, since these operations change the costs
+ * of the cache and may evict other objects. The recorded accesses are always applied before, so the
+ * eviction order takes all touches into account that were not dropped.<p>
+ *
+ * The costs of the cached objects are treated exactly as in {@link CmsLruCache}: objects with higher costs than
+ * the max. object costs are rejected, and if the costs of all objects exceed the max. cache costs, the least
+ * recently used objects are removed until the costs are below the average cache costs.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsConcurrentLruCache extends CmsLruCache {
+
+    /** The number of recorded accesses that triggers an attempt to drain the access buffer. */
+    public static final int DRAIN_THRESHOLD = 64;
+
+    /** The maximum number of recorded accesses, further touches are dropped until the buffer is drained. */
+    public static final int MAX_PENDING_ACCESSES = 4096;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsConcurrentLruCache.class);
+
+    /** The recorded accesses that have not been applied to the LRU list yet. */
+    private Queue<I_CmsLruCacheObject> m_accessBuffer = new ConcurrentLinkedQueue<I_CmsLruCacheObject>();
+
+    /** The cached objects, used for the lock free checks if an object is cached. */
+    private Map<I_CmsLruCacheObject, Boolean> m_entries = new ConcurrentHashMap<I_CmsLruCacheObject, Boolean>();
+
+    /** The lock guarding the LRU list and the cache costs. */
+    private ReentrantLock m_evictionLock = new ReentrantLock();
+
+    /** The head of the list of double linked LRU cache objects, i.e. the most recently used object. */
+    private I_CmsLruCacheObject m_listHead;
+
+    /** The tail of the list of double linked LRU cache objects, i.e. the least recently used object. */
+    private I_CmsLruCacheObject m_listTail;
+
+    /** The costs of all cached objects. */
+    private volatile int m_objectCosts;
+
+    /** The number of recorded accesses in the access buffer. */
+    private AtomicInteger m_pendingAccesses = new AtomicInteger();
+
+    /**
+     * The constructor with all options.<p>
+     *
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object. Set theMaxObjectCosts to -1 if you don't want to limit the max. allowed cache costs per object
+     */
+    public CmsConcurrentLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts) {
+
+        super(theMaxCacheCosts, theAvgCacheCosts, theMaxObjectCosts);
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#add(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            // null can't be added or touched in the cache
+            return false;
+        }
+
+        // only objects with cache costs < the max. allowed object cache costs can be cached!
+        if (isTooExpensive(theCacheObject)) {
+            return false;
+        }
+
+        m_evictionLock.lock();
+        try {
+            drainAccessBuffer();
+            if (m_entries.containsKey(theCacheObject)) {
+                moveToHead(theCacheObject);
+            } else {
+                addHead(theCacheObject);
+            }
+            // check if the cache has to trash the last-recently-used objects
+            if (m_objectCosts > getMaxCacheCosts()) {
+                gc();
+            }
+        } finally {
+            m_evictionLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#clear()
+     */
+    @Override
+    public void clear() {
+
+        m_evictionLock.lock();
+        try {
+            m_accessBuffer.clear();
+            m_pendingAccesses.set(0);
+            while (m_listTail != null) {
+                removeTail();
+            }
+        } finally {
+            m_evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#getObjectCosts()
+     */
+    @Override
+    public int getObjectCosts() {
+
+        return m_objectCosts;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#remove(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+
+        if ((theCacheObject == null) || !m_entries.containsKey(theCacheObject)) {
+            // theCacheObject is null or not inside the cache
+            return null;
+        }
+        m_evictionLock.lock();
+        try {
+            if (!m_entries.containsKey(theCacheObject)) {
+                // removed concurrently
+                return null;
+            }
+            unlink(theCacheObject);
+            decreaseCache(theCacheObject);
+            return theCacheObject;
+        } finally {
+            m_evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#size()
+     */
+    @Override
+    public int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer buf = new StringBuffer();
+        buf.append("max. costs: " + getMaxCacheCosts()).append(", ");
+        buf.append("avg. costs: " + getAvgCacheCosts()).append(", ");
+        buf.append("max. costs/object: " + getMaxObjectCosts()).append(", ");
+        buf.append("costs: " + m_objectCosts).append(", ");
+        buf.append("count: " + size());
+        return buf.toString();
+    }
+
+    /**
+     * Records an access to an existing object in this cache, without acquiring a global lock.<p>
+     *
+     * The "last-recently-used" state of the object is updated the next time the access buffer is drained.<p>
+     *
+     * @see org.opencms.cache.CmsLruCache#touch(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
+
+        if ((theCacheObject == null) || !m_entries.containsKey(theCacheObject)) {
+            return false;
+        }
+
+        // only objects with cache costs < the max. allowed object cache costs can be cached!
+        if (isTooExpensive(theCacheObject)) {
+            remove(theCacheObject);
+            return false;
+        }
+
+        if (m_pendingAccesses.incrementAndGet() > MAX_PENDING_ACCESSES) {
+            // the buffer is full, drop this access
+            m_pendingAccesses.decrementAndGet();
+        } else {
+            m_accessBuffer.offer(theCacheObject);
+        }
+        if ((m_pendingAccesses.get() >= DRAIN_THRESHOLD) && m_evictionLock.tryLock()) {
+            // only drain if no other thread holds the lock, otherwise just go on
+            try {
+                drainAccessBuffer();
+            } finally {
+                m_evictionLock.unlock();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a cache object as the new head to the LRU list.<p>
+     *
+     * Must be called with the eviction lock held.<p>
+     *
+     * @param theCacheObject the object being added as the new head
+     */
+    private void addHead(I_CmsLruCacheObject theCacheObject) {
+
+        linkHead(theCacheObject);
+        m_entries.put(theCacheObject, Boolean.TRUE);
+
+        // notify the object that it was now added to the cache
+        theCacheObject.addToLruCache();
+        m_objectCosts += theCacheObject.getLruCacheCosts();
+    }
+
+    /**
+     * Decreases the costs of this cache and notifies the cached object that it was removed.<p>
+     *
+     * Must be called with the eviction lock held, after the object was unlinked from the LRU list.<p>
+     *
+     * @param theCacheObject the object being notified that it was removed from the cache
+     */
+    private void decreaseCache(I_CmsLruCacheObject theCacheObject) {
+
+        m_entries.remove(theCacheObject);
+        // notify the object that it was now removed from the cache
+        theCacheObject.removeFromLruCache();
+        m_objectCosts -= theCacheObject.getLruCacheCosts();
+    }
+
+    /**
+     * Applies the recorded accesses to the LRU list.<p>
+     *
+     * Must be called with the eviction lock held.<p>
+     */
+    private void drainAccessBuffer() {
+
+        I_CmsLruCacheObject touched;
+        while ((touched = m_accessBuffer.poll()) != null) {
+            m_pendingAccesses.decrementAndGet();
+            if (m_entries.containsKey(touched)) {
+                moveToHead(touched);
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently used objects as long as the costs of all cached objects
+     * are higher than the allowed avg. costs of the cache.<p>
+     *
+     * Must be called with the eviction lock held.<p>
+     */
+    private void gc() {
+
+        while ((m_listTail != null) && (m_objectCosts >= getAvgCacheCosts())) {
+            removeTail();
+        }
+    }
+
+    /**
+     * Checks if the costs of the given object are higher than the max. allowed costs per object.<p>
+     *
+     * @param theCacheObject the object to check
+     *
+     * @return <code>true</code> if the object is too expensive to be cached
+     */
+    private boolean isTooExpensive(I_CmsLruCacheObject theCacheObject) {
+
+        int maxObjectCosts = getMaxObjectCosts();
+        if ((maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > maxObjectCosts)) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
+                        Integer.valueOf(theCacheObject.getLruCacheCosts()),
+                        Integer.valueOf(maxObjectCosts)));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Links the given object as the new head of the LRU list.<p>
+     *
+     * Must be called with the eviction lock held.<p>
+     *
+     * @param theCacheObject the object to link
+     */
+    private void linkHead(I_CmsLruCacheObject theCacheObject) {
+
+        I_CmsLruCacheObject oldHead = m_listHead;
+        theCacheObject.setNextLruObject(null);
+        theCacheObject.setPreviousLruObject(oldHead);
+        if (oldHead != null) {
+            oldHead.setNextLruObject(theCacheObject);
+        } else {
+            // it is the first object in the list
+            m_listTail = theCacheObject;
+        }
+        m_listHead = theCacheObject;
+    }
+
+    /**
+     * Moves a cached object to the head of the LRU list.<p>
+     *
+     * Must be called with the eviction lock held.<p>
+     *
+     * @param theCacheObject the object to move
+     */
+    private void moveToHead(I_CmsLruCacheObject theCacheObject) {
+
+        if (m_listHead == theCacheObject) {
+            // the object is already at the head pos.
+            return;
+        }
+        unlink(theCacheObject);
+        linkHead(theCacheObject);
+    }
+
+    /**
+     * Removes the least recently used object from the cache.<p>
+     *
+     * Must be called with the eviction lock held.<p>
+     */
+    private void removeTail() {
+
+        I_CmsLruCacheObject oldTail = m_listTail;
+        if (oldTail != null) {
+            unlink(oldTail);
+            decreaseCache(oldTail);
+        }
+    }
+
+    /**
+     * Unlinks the given object from the LRU list.<p>
+     *
+     * Must be called with the eviction lock held.<p>
+     *
+     * @param theCacheObject the object to unlink
+     */
+    private void unlink(I_CmsLruCacheObject theCacheObject) {
+
+        // "next" points towards the head, "previous" towards the tail
+        I_CmsLruCacheObject next = theCacheObject.getNextLruObject();
+        I_CmsLruCacheObject prev = theCacheObject.getPreviousLruObject();
+        if (next != null) {
+            next.setPreviousLruObject(prev);
+        } else {
+            m_listHead = prev;
+        }
+        if (prev != null) {
+            prev.setNextLruObject(next);
+        } else {
+            m_listTail = next;
+        }
+        theCacheObject.setNextLruObject(null);
+        theCacheObject.setPreviousLruObject(null);
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsLog;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Cache for byte contents that keeps the cached data outside of the Java heap.<p>
+ *
+ * Each cached content is copied into a direct {@link ByteBuffer}, so large binaries or XML contents
+ * do not inflate the heap and do not need to be traversed by the garbage collector. Only the small
+ * buffer objects and the keys stay on the heap.<p>
+ *
+ * The cache is limited by the total number of cached bytes. If adding a content exceeds this limit,
+ * the least recently used contents are evicted. Contents larger than a tenth of the limit are not cached at all,
+ * so a single large file can not flush the whole cache. A cache with a limit of 0 is disabled.<p>
+ *
+ * Please note that the size of the direct memory of the JVM is limited with the <code>-XX:MaxDirectMemorySize</code>
+ * option. If a buffer can not be allocated, the content is just not cached.<p>
+ *
+ * The cache is thread safe.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsOffHeapContentCache {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsOffHeapContentCache.class);
+
+    /** The cached contents, in access order. */
+    private Map<String, ByteBuffer> m_buffers;
+
+    /** The number of cache hits. */
+    private AtomicLong m_hits = new AtomicLong();
+
+    /** The maximum number of bytes cached. */
+    private long m_maxBytes;
+
+    /** The maximum number of bytes of a single cached content. */
+    private long m_maxEntryBytes;
+
+    /** The number of cache misses. */
+    private AtomicLong m_misses = new AtomicLong();
+
+    /** The number of currently cached bytes. */
+    private long m_size;
+
+    /**
+     * Creates a new off-heap content cache.<p>
+     *
+     * @param maxBytes the maximum number of bytes cached, 0 disables the cache
+     */
+    public CmsOffHeapContentCache(long maxBytes) {
+
+        m_maxBytes = Math.max(0, maxBytes);
+        m_maxEntryBytes = m_maxBytes / 10;
+        m_buffers = new LinkedHashMap<String, ByteBuffer>(64, 0.75f, true);
+    }
+
+    /**
+     * Removes all contents from the cache and resets the statistics.<p>
+     */
+    public synchronized void clear() {
+
+        m_buffers.clear();
+        m_size = 0;
+        m_hits.set(0);
+        m_misses.set(0);
+    }
+
+    /**
+     * Returns a copy of the cached content for the given key.<p>
+     *
+     * @param key the key of the content
+     *
+     * @return a copy of the cached content, or <code>null</code> if the content is not cached
+     */
+    public byte[] get(String key) {
+
+        if (!isEnabled()) {
+            return null;
+        }
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = m_buffers.get(key);
+        }
+        if (buffer == null) {
+            m_misses.incrementAndGet();
+            return null;
+        }
+        m_hits.incrementAndGet();
+        // duplicate the buffer, so concurrent readers do not share the position
+        byte[] result = new byte[buffer.capacity()];
+        buffer.duplicate().get(result);
+        return result;
+    }
+
+    /**
+     * Returns the number of cache hits.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the hit ratio of this cache in percent.<p>
+     *
+     * @return the hit ratio in percent, or 0 if the cache has not been used yet
+     */
+    public int getHitRatio() {
+
+        long hits = m_hits.get();
+        long total = hits + m_misses.get();
+        return total == 0 ? 0 : (int)((hits * 100) / total);
+    }
+
+    /**
+     * Returns the maximum number of bytes cached.<p>
+     *
+     * @return the maximum number of bytes cached
+     */
+    public long getMaxBytes() {
+
+        return m_maxBytes;
+    }
+
+    /**
+     * Returns the number of cache misses.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Returns the number of currently cached bytes.<p>
+     *
+     * @return the number of currently cached bytes
+     */
+    public synchronized long getSize() {
+
+        return m_size;
+    }
+
+    /**
+     * Returns <code>true</code> if this cache is enabled.<p>
+     *
+     * @return <code>true</code> if this cache is enabled
+     */
+    public boolean isEnabled() {
+
+        return m_maxBytes > 0;
+    }
+
+    /**
+     * Caches a copy of the given content.<p>
+     *
+     * Contents that are empty or larger than a tenth of the cache size are not cached.<p>
+     *
+     * @param key the key of the content
+     * @param content the content to cache
+     */
+    public void put(String key, byte[] content) {
+
+        if (!isEnabled() || (content == null) || (content.length == 0) || (content.length > m_maxEntryBytes)) {
+            return;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.allocateDirect(content.length);
+        } catch (OutOfMemoryError e) {
+            // direct memory is exhausted, just don't cache the content
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_CONTENT_CACHE_ALLOCATION_FAILED_2,
+                    key,
+                    Integer.valueOf(content.length)),
+                e);
+            return;
+        }
+        buffer.put(content);
+        buffer.flip();
+        synchronized (this) {
+            ByteBuffer old = m_buffers.put(key, buffer);
+            if (old != null) {
+                m_size -= old.capacity();
+            }
+            m_size += buffer.capacity();
+            // evict the least recently used contents
+            Iterator<ByteBuffer> it = m_buffers.values().iterator();
+            while ((m_size > m_maxBytes) && it.hasNext()) {
+                m_size -= it.next().capacity();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the content with the given key from the cache.<p>
+     *
+     * @param key the key of the content
+     */
+    public synchronized void remove(String key) {
+
+        ByteBuffer old = m_buffers.remove(key);
+        if (old != null) {
+            m_size -= old.capacity();
+        }
+    }
+
+    /**
+     * Returns the number of cached contents.<p>
+     *
+     * @return the number of cached contents
+     */
+    public synchronized int size() {
+
+        return m_buffers.size();
+    }
+}
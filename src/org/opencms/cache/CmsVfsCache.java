@@ -29,7 +29,9 @@ package org.opencms.cache;
 
 import org.opencms.db.CmsDriverManager;
 import org.opencms.file.CmsResource;
+import org.opencms.main.CmsClusterEventManager;
 import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsClusterEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsCollectionsGenericWrapper;
@@ -39,9 +41,12 @@ import java.util.List;
 /**
  * Configurable VFS based cache, for caching objects related to offline/online resources.<p>
  *
+ * The cache also processes events replicated from other cluster nodes. Since the changed resources are not
+ * replicated, the offline cache is flushed completely for replicated resource events.<p>
+ *
  * @since 7.6
  */
-public abstract class CmsVfsCache implements I_CmsEventListener {
+public abstract class CmsVfsCache implements I_CmsClusterEventListener {
 
     /**
      * Initializes the cache. Only intended to be called during startup.<p>
@@ -67,6 +72,11 @@ public abstract class CmsVfsCache implements I_CmsEventListener {
                     // skip lock & unlock
                     return;
                 }
+                if (CmsClusterEventManager.isRemoteEvent(event)) {
+                    // the resource is not replicated from the other cluster node
+                    flush(false);
+                    break;
+                }
                 // a resource has been modified in a way that it *IS NOT* necessary also to clear
                 // lists of cached sub-resources where the specified resource might be contained inside.
                 resource = (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE);
@@ -75,6 +85,10 @@ public abstract class CmsVfsCache implements I_CmsEventListener {
 
             case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
                 // a list of resources and all of their properties have been modified
+                if (CmsClusterEventManager.isRemoteEvent(event)) {
+                    flush(false);
+                    break;
+                }
                 resources = CmsCollectionsGenericWrapper.list(event.getData().get(I_CmsEventListener.KEY_RESOURCES));
                 uncacheResources(resources);
                 break;
@@ -83,6 +97,10 @@ public abstract class CmsVfsCache implements I_CmsEventListener {
             case I_CmsEventListener.EVENT_RESOURCE_DELETED:
             case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
                 // a list of resources has been modified
+                if (CmsClusterEventManager.isRemoteEvent(event)) {
+                    flush(false);
+                    break;
+                }
                 resources = CmsCollectionsGenericWrapper.list(event.getData().get(I_CmsEventListener.KEY_RESOURCES));
                 uncacheResources(resources);
                 break;
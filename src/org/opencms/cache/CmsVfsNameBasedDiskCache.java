@@ -84,13 +84,8 @@ public class CmsVfsNameBasedDiskCache {
     public byte[] getCacheContent(String rfsName) {
 
         try {
-            File f = new File(rfsName);
-            if (f.exists()) {
-                long age = f.lastModified();
-                if ((System.currentTimeMillis() - age) > 3600000) {
-                    // file has not been touched for 1 hour, touch the file with the current date
-                    f.setLastModified(System.currentTimeMillis());
-                }
+            File f = getCacheFile(rfsName);
+            if (f != null) {
                 return CmsFileUtil.readFile(f);
             }
         } catch (IOException e) {
@@ -100,6 +95,29 @@ public class CmsVfsNameBasedDiskCache {
         return null;
     }
 
+    /**
+     * Returns the file in the RFS with the given name, or <code>null</code> if the file does not exist in the cache.<p>
+     *
+     * The returned file can be used for delivering the cached content without reading it into memory.<p>
+     *
+     * @param rfsName the RFS name of the file to get
+     *
+     * @return the file in the RFS with the given name, or <code>null</code> if the file does not exist
+     */
+    public File getCacheFile(String rfsName) {
+
+        File f = new File(rfsName);
+        if (!f.isFile()) {
+            return null;
+        }
+        long age = f.lastModified();
+        if ((System.currentTimeMillis() - age) > 3600000) {
+            // file has not been touched for 1 hour, touch the file with the current date
+            f.setLastModified(System.currentTimeMillis());
+        }
+        return f;
+    }
+
     /**
      * Returns the RFS name to use for caching the given VFS resource with parameters in the disk cache.<p>
      *
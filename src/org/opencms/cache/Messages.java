@@ -40,6 +40,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CACHE_COSTS_TOO_HIGH_2 = "LOG_CACHE_COSTS_TOO_HIGH_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CONTENT_CACHE_ALLOCATION_FAILED_2 = "LOG_CONTENT_CACHE_ALLOCATION_FAILED_2";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.cache.messages";
 
@@ -88,6 +88,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /** The node name of the defaultexporttimestamps sub-configuration. */
     public static final String N_EXPORT_DEFAULTTIMESTAMPMODES = "defaulttimestampmodes";
 
+    /** The node name of the number of worker threads reading the exported files. */
+    public static final String N_EXPORT_EXPORTWORKERS = "exportworkers";
+
     /** The node name of the resourcetype sub-configuration. */
     public static final String N_EXPORT_RESOURCETYPENAME = "resourcetypename";
 
@@ -247,6 +250,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export exporturl node. */
     public static final String N_STATICEXPORT_EXPORTURL = "exporturl";
 
+    /**  The node name of the static export exportworkers node. */
+    public static final String N_STATICEXPORT_EXPORTWORKERS = "exportworkers";
+
     /**  The node name of the static export exportworkpath node. */
     public static final String N_STATICEXPORT_EXPORTWORKPATH = "exportworkpath";
 
@@ -472,6 +478,11 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
                 + N_EXPORT_RESOURCETYPENAME,
             0);
 
+        digester.addCallMethod(
+            "*/" + N_IMPORTEXPORT + "/" + N_EXPORT + "/" + N_EXPORT_EXPORTWORKERS,
+            "setExportWorkers",
+            0);
+
         digester.addCallMethod("*/" + N_IMPORTEXPORT + "/" + N_TEMP_EXPORTPONT_PATH, "addTempExportpointPath", 1);
         digester.addCallParam("*/" + N_IMPORTEXPORT + "/" + N_TEMP_EXPORTPONT_PATH, 0);
 
@@ -495,6 +506,7 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTWORKPATH, "setExportWorkPath", 0);
         // exportbackups rule
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTBACKUPS, "setExportBackups", 0);
+        digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTWORKERS, "setExportWorkers", 0);
         // default property rule
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_DEFAULT, "setDefault", 0);
         // export suffix rule
@@ -902,6 +914,12 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             }
         }
 
+        // <exportworkers>
+        if (m_importExportManager.getExportWorkers() > 1) {
+            exportElement.addElement(N_EXPORT_EXPORTWORKERS).addText(
+                String.valueOf(m_importExportManager.getExportWorkers()));
+        }
+
         List<String> tempExportpointPaths = m_importExportManager.getTempExportPointPaths();
         for (String path : tempExportpointPaths) {
             importexportElement.addElement(N_TEMP_EXPORTPONT_PATH).addText(path);
@@ -943,6 +961,12 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             staticexportElement.addElement(N_STATICEXPORT_EXPORTBACKUPS).addText(exportBackupsUnmodified);
         }
 
+        // <exportworkers> node
+        if (m_staticExportManager.getExportWorkers().intValue() > 1) {
+            String exportWorkers = String.valueOf(m_staticExportManager.getExportWorkers());
+            staticexportElement.addElement(N_STATICEXPORT_EXPORTWORKERS).addText(exportWorkers);
+        }
+
         // <defaultpropertyvalue> node
         staticexportElement.addElement(N_STATICEXPORT_DEFAULT).addText(m_staticExportManager.getDefault());
 
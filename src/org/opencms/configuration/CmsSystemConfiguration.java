@@ -445,6 +445,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the publish list remove mode. */
     public static final String N_PUBLISH_LIST_REMOVE_MODE = "publish-list-remove-mode";
 
+    /** The node name for the number of publish workers. */
+    public static final String N_PUBLISH_WORKERS = "publish-workers";
+
     /** The node name for the "publishhistory" section. */
     public static final String N_PUBLISHMANAGER = "publishmanager";
 
@@ -541,6 +544,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for projects. */
     public static final String N_SIZE_PROJECTS = "size-projects";
 
+    /** The maximum number of bytes of the memory monitor's off-heap cache for file contents. */
+    public static final String N_SIZE_CONTENTS = "size-contents";
+
     /** The size of the memory monitor's cache for properties. */
     public static final String N_SIZE_PROPERTIES = "size-properties";
 
@@ -625,6 +631,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the workflow configuration. */
     public static final String N_WORKFLOW = "workflow";
 
+    /** The node name for the XML content cache sizes of the ADE cache. */
+    public static final String N_XMLCONTENTS = "xmlcontents";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSystemConfiguration.class);
 
@@ -805,8 +814,29 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
      */
     public void addEventManager(String clazz) {
 
+        addEventManager(clazz, new CmsParameterConfiguration());
+    }
+
+    /**
+     * Adds the event manager class with the given parameters.<p>
+     *
+     * The parameters are only used if the event manager implements {@link I_CmsConfigurationParameterHandler}.<p>
+     *
+     * @param clazz the class name of event manager class  to instantiate and add
+     * @param params the parameters of the event manager
+     */
+    public void addEventManager(String clazz, CmsParameterConfiguration params) {
+
         try {
-            m_eventManager = (CmsEventManager)Class.forName(clazz).newInstance();
+            CmsEventManager eventManager = (CmsEventManager)Class.forName(clazz).newInstance();
+            if (eventManager instanceof I_CmsConfigurationParameterHandler) {
+                I_CmsConfigurationParameterHandler handler = (I_CmsConfigurationParameterHandler)eventManager;
+                for (String key : params.keySet()) {
+                    handler.addConfigurationParameter(key, params.get(key));
+                }
+                handler.initConfiguration();
+            }
+            m_eventManager = eventManager;
             if (CmsLog.INIT.isInfoEnabled()) {
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(Messages.INIT_EVENTMANAGER_CLASS_SUCCESS_1, m_eventManager));
@@ -929,8 +959,48 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_MAIL + "/" + N_MAILHOST, 8, A_MAILFROM);
 
         // add event classes
-        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, "addEventManager", 1);
-        digester.addCallParam("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, 0, A_CLASS);
+        CmsParameterConfiguration[] eventManagerParams = new CmsParameterConfiguration[] {null};
+        digester.addRule("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, new Rule() {
+
+            private String m_class;
+
+            @Override
+            public void begin(String namespace, String name, Attributes attributes) throws Exception {
+
+                m_class = attributes.getValue(A_CLASS);
+                eventManagerParams[0] = new CmsParameterConfiguration();
+            }
+
+            @Override
+            public void end(String namespace, String name) throws Exception {
+
+                addEventManager(m_class, eventManagerParams[0]);
+            }
+        });
+        digester.addRule("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER + "/" + N_PARAM, new Rule() {
+
+            private String m_name;
+            private String m_value;
+
+            @Override
+            public void begin(String namespace, String name, Attributes attributes) throws Exception {
+
+                m_name = attributes.getValue(A_NAME);
+                m_value = null;
+            }
+
+            @Override
+            public void body(String namespace, String name, String text) throws Exception {
+
+                m_value = text;
+            }
+
+            @Override
+            public void end(String namespace, String name) throws Exception {
+
+                eventManagerParams[0].add(m_name, m_value);
+            }
+        });
 
         // use array so we can modify it in the inner class and give each resource init handler a fresh CmsParameterConfiguration instance
         CmsParameterConfiguration resourceHandlerParams[] = new CmsParameterConfiguration[] {null};
@@ -1210,6 +1280,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_PERMISSIONS,
             "setPermissionCacheSize",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTENTS,
+            "setContentCacheSize",
+            0);
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTAINERPAGE_OFFLINE,
             "setContainerPageOfflineSize",
@@ -1293,6 +1367,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_AUTO_CLEANUP_HISTORY_ENTRIES,
             "setAutoCleanupHistoryEntries",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISH_WORKERS,
+            "setPublishWorkers",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1335,6 +1413,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_OFFLINE);
         digester.addCallMethod(adeCachePath + "/" + N_GROUPCONTAINERS, "setGroupContainerOnlineSize", 1);
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_ONLINE);
+        // XML content cache
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOfflineSize", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_OFFLINE);
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOnlineSize", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_ONLINE);
         // set the settings
         digester.addSetNext(adeCachePath, "setAdeCacheSettings");
 
@@ -1500,6 +1583,13 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         Element eventsElement = systemElement.addElement(N_EVENTS);
         Element eventManagerElement = eventsElement.addElement(N_EVENTMANAGER);
         eventManagerElement.addAttribute(A_CLASS, m_eventManager.getClass().getName());
+        if (m_eventManager instanceof I_CmsConfigurationParameterHandler) {
+            CmsParameterConfiguration eventManagerParameters = ((I_CmsConfigurationParameterHandler)m_eventManager)
+                .getConfiguration();
+            if (eventManagerParameters != null) {
+                eventManagerParameters.appendToXml(eventManagerElement);
+            }
+        }
 
         // version history
         Element historyElement = systemElement.addElement(N_VERSIONHISTORY);
@@ -1738,6 +1828,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
         cacheElement.addElement(N_SIZE_ACLS).setText(Integer.toString(m_cacheSettings.getAclCacheSize()));
         cacheElement.addElement(N_SIZE_PERMISSIONS).setText(Integer.toString(m_cacheSettings.getPermissionCacheSize()));
+        if (m_cacheSettings.getContentCacheSize() > 0) {
+            cacheElement.addElement(N_SIZE_CONTENTS).setText(Long.toString(m_cacheSettings.getContentCacheSize()));
+        }
 
         // content notification settings
         if ((m_notificationTime != null) || (m_notificationProject != null)) {
@@ -1785,6 +1878,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
             pubHistElement.addElement(N_AUTO_CLEANUP_HISTORY_ENTRIES).setText(
                 String.valueOf(m_publishManager.isAutoCleanupHistoryEntries()));
+            if (m_publishManager.getPublishWorkers() > 1) {
+                pubHistElement.addElement(N_PUBLISH_WORKERS).setText(
+                    String.valueOf(m_publishManager.getPublishWorkers()));
+            }
         }
 
         // session storage provider
@@ -1847,6 +1944,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 groupContainerCacheElem.addAttribute(
                     A_ONLINE,
                     "" + getAdeCacheSettings().getGroupContainerOnlineSize());
+                // XML content cache
+                Element xmlContentCacheElem = cacheElem.addElement(N_XMLCONTENTS);
+                xmlContentCacheElem.addAttribute(A_OFFLINE, "" + getAdeCacheSettings().getXmlContentOfflineSize());
+                xmlContentCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getXmlContentOnlineSize());
             }
         }
 
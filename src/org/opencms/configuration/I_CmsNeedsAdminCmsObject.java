@@ -32,7 +32,7 @@ import org.opencms.file.CmsObject;
 /**
  * Interface for configured classes that need a CmsObject with admin privileges.
  *
- * <p>Currently, this is only supported for request handlers and resource init handlers.
+ * <p>Currently, this is only supported for request handlers, resource init handlers and resource loaders.
  */
 public interface I_CmsNeedsAdminCmsObject {
 
@@ -34,8 +34,11 @@ import org.opencms.gwt.shared.alias.CmsAliasImportStatus;
 import org.opencms.gwt.shared.alias.CmsAliasMode;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.lock.CmsLock;
+import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsClusterEventListener;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsStringUtil;
@@ -49,10 +52,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 
@@ -63,8 +70,12 @@ import au.com.bytecode.opencsv.CSVParser;
 
 /**
  * The alias manager provides access to the aliases stored in the database.<p>
+ *
+ * The rewrite alias matchers are cached per site root. The cache entry of a site is removed when the rewrite aliases
+ * of the site are saved or imported, which is signaled to all cluster nodes by the event
+ * {@link I_CmsEventListener#EVENT_REWRITE_ALIASES_MODIFIED}.<p>
  */
-public class CmsAliasManager {
+public class CmsAliasManager implements I_CmsClusterEventListener {
 
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsAliasManager.class);
@@ -72,6 +83,12 @@ public class CmsAliasManager {
     /** The security manager for accessing the database. */
     protected CmsSecurityManager m_securityManager;
 
+    /** The cached rewrite alias matchers, by site root. */
+    private Map<String, CmsRewriteAliasMatcher> m_rewriteAliasMatchers = new ConcurrentHashMap<>();
+
+    /** Counter which is incremented whenever cached rewrite alias matchers are removed. */
+    private AtomicLong m_rewriteAliasVersion = new AtomicLong();
+
     /**
      * Creates a new alias manager instance.<p>
      *
@@ -82,6 +99,28 @@ public class CmsAliasManager {
         m_securityManager = securityManager;
     }
 
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_REWRITE_ALIASES_MODIFIED:
+                Object siteRoot = event.getData().get(I_CmsEventListener.KEY_SITE_ROOT);
+                if (siteRoot instanceof String) {
+                    removeRewriteAliasMatcher((String)siteRoot);
+                } else {
+                    removeRewriteAliasMatcher(null);
+                }
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                removeRewriteAliasMatcher(null);
+                break;
+            default:
+                // no operation
+        }
+    }
+
     /**
      * Gets the list of aliases for a path in a given site.<p>
      *
@@ -171,8 +210,19 @@ public class CmsAliasManager {
      */
     public CmsRewriteAliasMatcher getRewriteAliasMatcher(CmsObject cms, String siteRoot) throws CmsException {
 
-        List<CmsRewriteAlias> aliases = getRewriteAliases(cms, siteRoot);
-        return new CmsRewriteAliasMatcher(aliases);
+        CmsRewriteAliasMatcher matcher = m_rewriteAliasMatchers.get(siteRoot);
+        if (matcher == null) {
+            long version = m_rewriteAliasVersion.get();
+            List<CmsRewriteAlias> aliases = getRewriteAliases(cms, siteRoot);
+            matcher = new CmsRewriteAliasMatcher(aliases);
+            synchronized (m_rewriteAliasMatchers) {
+                // don't cache the matcher if the aliases have been modified while reading them
+                if (version == m_rewriteAliasVersion.get()) {
+                    m_rewriteAliasMatchers.put(siteRoot, matcher);
+                }
+            }
+        }
+        return matcher;
     }
 
     /**
@@ -225,6 +275,7 @@ public class CmsAliasManager {
             }
             line = reader.readLine();
         }
+        fireRewriteAliasesModified(siteRoot);
         return totalResult;
     }
 
@@ -258,6 +309,7 @@ public class CmsAliasManager {
 
         checkPermissionsForMassEdit(cms, siteRoot);
         m_securityManager.saveRewriteAliases(cms.getRequestContext(), siteRoot, newAliases);
+        fireRewriteAliasesModified(siteRoot);
     }
 
     /**
@@ -520,6 +572,18 @@ public class CmsAliasManager {
         }
     }
 
+    /**
+     * Fires the event signaling that the rewrite aliases of a site have been modified.<p>
+     *
+     * @param siteRoot the root of the site whose rewrite aliases have been modified
+     */
+    private void fireRewriteAliasesModified(String siteRoot) {
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_SITE_ROOT, siteRoot);
+        OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_REWRITE_ALIASES_MODIFIED, data));
+    }
+
     /**
      * Message accessor.<p>
      *
@@ -615,6 +679,23 @@ public class CmsAliasManager {
 
     }
 
+    /**
+     * Removes cached rewrite alias matchers.<p>
+     *
+     * @param siteRoot the site root whose matcher should be removed, or <code>null</code> to remove all matchers
+     */
+    private void removeRewriteAliasMatcher(String siteRoot) {
+
+        synchronized (m_rewriteAliasMatchers) {
+            m_rewriteAliasVersion.incrementAndGet();
+            if (siteRoot == null) {
+                m_rewriteAliasMatchers.clear();
+            } else {
+                m_rewriteAliasMatchers.remove(siteRoot);
+            }
+        }
+    }
+
     /**
      * Tries to to touch a resource by setting its last modification date, but only if its state is 'unchanged'.<p>
      *
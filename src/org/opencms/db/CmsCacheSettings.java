@@ -40,6 +40,9 @@ public class CmsCacheSettings {
     /** The name of the class to generate cache keys. */
     private String m_cacheKeyGenerator;
 
+    /** The maximum number of bytes of the memory monitor's off-heap cache for file contents, 0 disables the cache. */
+    private long m_contentCacheSize; // this configuration entry is optional
+
     /** The size of the memory monitor's cache for groups. */
     private int m_groupCacheSize;
 
@@ -104,6 +107,18 @@ public class CmsCacheSettings {
         return m_cacheKeyGenerator;
     }
 
+    /**
+     * Returns the maximum number of bytes of the memory monitor's off-heap cache for file contents.<p>
+     *
+     * Is <code>0</code> if the cache is disabled, which is the default.<p>
+     *
+     * @return the maximum number of bytes of the memory monitor's off-heap cache for file contents
+     */
+    public long getContentCacheSize() {
+
+        return m_contentCacheSize;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for organizational units.<p>
      *
@@ -304,6 +319,20 @@ public class CmsCacheSettings {
         m_cacheKeyGenerator = classname;
     }
 
+    /**
+     * Sets the maximum number of bytes of the memory monitor's off-heap cache for file contents.<p>
+     *
+     * @param size the maximum number of bytes of the off-heap cache for file contents, 0 disables the cache
+     */
+    public void setContentCacheSize(String size) {
+
+        try {
+            m_contentCacheSize = Math.max(0, Long.parseLong(size.trim()));
+        } catch (NumberFormatException e) {
+            m_contentCacheSize = 0;
+        }
+    }
+
     /**
      * Sets the size of the memory monitor's cache for groups.<p>
      *
@@ -0,0 +1,199 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Collects the content of a file read from the database, so that the database connection can be released
+ * before the content is delivered.<p>
+ *
+ * Contents up to a given size are kept in memory. Larger contents are spooled to a temporary file,
+ * which is deleted when the stream returned by {@link #getInputStream()} is closed.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsContentSpool extends OutputStream {
+
+    /**
+     * Input stream over a temporary file, which deletes the file when it is closed.<p>
+     */
+    private static class TempFileInputStream extends FileInputStream {
+
+        /** The temporary file. */
+        private File m_file;
+
+        /**
+         * Creates a new stream over the given temporary file.<p>
+         *
+         * @param file the temporary file
+         *
+         * @throws IOException if the file can not be opened
+         */
+        TempFileInputStream(File file) throws IOException {
+
+            super(file);
+            m_file = file;
+        }
+
+        /**
+         * @see java.io.FileInputStream#close()
+         */
+        @Override
+        public void close() throws IOException {
+
+            try {
+                super.close();
+            } finally {
+                m_file.delete();
+            }
+        }
+    }
+
+    /** The prefix of the temporary files. */
+    private static final String TEMP_FILE_PREFIX = "ocms-content-";
+
+    /** The in-memory buffer, <code>null</code> once the content is spooled to a file. */
+    private ByteArrayOutputStream m_buffer;
+
+    /** The temporary file, <code>null</code> as long as the content is kept in memory. */
+    private File m_file;
+
+    /** The stream writing to the temporary file. */
+    private OutputStream m_fileOut;
+
+    /** The maximum size of contents kept in memory. */
+    private int m_memoryThreshold;
+
+    /**
+     * Creates a new content spool.<p>
+     *
+     * @param memoryThreshold the maximum size of contents kept in memory
+     */
+    public CmsContentSpool(int memoryThreshold) {
+
+        m_memoryThreshold = memoryThreshold;
+        m_buffer = new ByteArrayOutputStream();
+    }
+
+    /**
+     * @see java.io.OutputStream#close()
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (m_fileOut != null) {
+            m_fileOut.close();
+        }
+    }
+
+    /**
+     * Discards the collected content and deletes the temporary file, if any.<p>
+     *
+     * This must be called if the content is not read with {@link #getInputStream()}.<p>
+     */
+    public void discard() {
+
+        try {
+            close();
+        } catch (IOException e) {
+            // ignore, the file is deleted anyway
+        }
+        if (m_file != null) {
+            m_file.delete();
+            m_file = null;
+        }
+        m_buffer = null;
+    }
+
+    /**
+     * Returns a stream over the collected content.<p>
+     *
+     * No more content can be written afterwards. The stream must always be closed by the caller,
+     * which deletes the temporary file, if any.<p>
+     *
+     * @return a stream over the collected content
+     *
+     * @throws IOException if the temporary file can not be read
+     */
+    public InputStream getInputStream() throws IOException {
+
+        close();
+        if (m_file != null) {
+            return new TempFileInputStream(m_file);
+        }
+        return new ByteArrayInputStream(m_buffer.toByteArray());
+    }
+
+    /**
+     * Returns if the content has been spooled to a temporary file.<p>
+     *
+     * @return <code>true</code> if the content has been spooled to a temporary file
+     */
+    public boolean isSpooledToFile() {
+
+        return m_file != null;
+    }
+
+    /**
+     * @see java.io.OutputStream#write(byte[], int, int)
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+
+        if ((m_fileOut == null) && ((m_buffer.size() + len) > m_memoryThreshold)) {
+            // the content is too large to be kept in memory
+            m_file = File.createTempFile(TEMP_FILE_PREFIX, ".dat");
+            m_fileOut = new FileOutputStream(m_file);
+            m_buffer.writeTo(m_fileOut);
+            m_buffer = null;
+        }
+        if (m_fileOut != null) {
+            m_fileOut.write(b, off, len);
+        } else {
+            m_buffer.write(b, off, len);
+        }
+    }
+
+    /**
+     * @see java.io.OutputStream#write(int)
+     */
+    @Override
+    public void write(int b) throws IOException {
+
+        write(new byte[] {(byte)b}, 0, 1);
+    }
+}
@@ -38,6 +38,7 @@ import org.opencms.db.log.CmsLogEntryType;
 import org.opencms.db.log.CmsLogFilter;
 import org.opencms.db.timing.CmsDefaultProfilingHandler;
 import org.opencms.db.timing.CmsProfilingInvocationHandler;
+import org.opencms.db.timing.CmsSqlQueryStatistics;
 import org.opencms.db.urlname.CmsUrlNameMappingEntry;
 import org.opencms.db.urlname.CmsUrlNameMappingFilter;
 import org.opencms.db.userpublishlist.A_CmsLogPublishListConverter;
@@ -132,6 +133,8 @@ import org.opencms.util.PrintfFormat;
 import org.opencms.workflow.CmsDefaultWorkflowManager;
 import org.opencms.workplace.threads.A_CmsProgressThread;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -729,6 +732,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
             driverManager.newPoolInstance(config, name);
         }
 
+        // configure the statistics of the SQL queries executed by the drivers
+        CmsSqlQueryStatistics.INSTANCE.initialize(config);
+
         // initialize the runtime info factory with the generated driver manager
         runtimeInfoFactory.initialize(driverManager);
 
@@ -5433,25 +5439,31 @@ public final class CmsDriverManager implements I_CmsEventListener {
         List<CmsAccessControlEntry> acEntries)
     throws CmsException {
 
-        I_CmsUserDriver userDriver = getUserDriver(dbc);
-        userDriver.removeAccessControlEntries(dbc, dbc.currentProject(), resource.getResourceId());
-        List<CmsAccessControlEntry> fixedAces = new ArrayList<>();
-        for (CmsAccessControlEntry entry : acEntries) {
-            if (entry.getResource() == null) {
-                entry = new CmsAccessControlEntry(
-                    resource.getResourceId(),
-                    entry.getPrincipal(),
-                    entry.getPermissions(),
-                    entry.getFlags());
-            }
-            fixedAces.add(entry);
-        }
+        writeImportedAccessControlEntries(dbc, resource, acEntries);
+        m_monitor.clearAccessControlListCache();
+    }
 
-        Iterator<CmsAccessControlEntry> i = fixedAces.iterator();
-        while (i.hasNext()) {
-            userDriver.writeAccessControlEntry(dbc, dbc.currentProject(), i.next());
+    /**
+     * Writes the access control entries of several resources as new access control entries of these resources.<p>
+     *
+     * Already existing access control entries of the resources are removed before.
+     * The access control list cache is only cleared once after all entries have been written.<p>
+     *
+     * @param dbc the current database context
+     * @param acEntries the lists of <code>{@link CmsAccessControlEntry}</code> objects by resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importAccessControlEntries(CmsDbContext dbc, Map<CmsResource, List<CmsAccessControlEntry>> acEntries)
+    throws CmsException {
+
+        try {
+            for (Map.Entry<CmsResource, List<CmsAccessControlEntry>> entry : acEntries.entrySet()) {
+                writeImportedAccessControlEntries(dbc, entry.getKey(), entry.getValue());
+            }
+        } finally {
+            m_monitor.clearAccessControlListCache();
         }
-        m_monitor.clearAccessControlListCache();
     }
 
     /**
@@ -7089,6 +7101,46 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Opens a stream over the binary content of a file resource.<p>
+     *
+     * In contrast to {@link #readFile(CmsDbContext, CmsResource)}, the content of large files is not held in memory,
+     * but spooled to a temporary file. The stream must always be closed by the caller.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the file resource
+     *
+     * @return a stream over the content of the file
+     *
+     * @throws CmsException if operation was not successful
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsResource resource) throws CmsException {
+
+        if (resource.isFolder()) {
+            throw new CmsVfsResourceNotFoundException(
+                Messages.get().container(
+                    Messages.ERR_ACCESS_FOLDER_AS_FILE_1,
+                    dbc.removeSiteRoot(resource.getRootPath())));
+        }
+        if (resource instanceof I_CmsHistoryResource) {
+            // historical contents are not streamed
+            return new ByteArrayInputStream(readFile(dbc, resource).getContents());
+        }
+        CmsUUID projectId = dbc.currentProject().getUuid();
+        // use the same key as readFile, but don't put large streamed contents into the cache
+        String cacheKey = (projectId.equals(CmsProject.ONLINE_PROJECT_ID) ? "online_" : "offline_")
+            + resource.getResourceId()
+            + "_"
+            + resource.getDateContent()
+            + "_"
+            + resource.getLength();
+        byte[] content = m_monitor.getCachedContent(cacheKey);
+        if (content != null) {
+            return new ByteArrayInputStream(content);
+        }
+        return getVfsDriver(dbc).readContentStream(dbc, projectId, resource.getResourceId());
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -7343,6 +7395,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
                     dbc.removeSiteRoot(resource.getRootPath())));
         }
 
+        // the resource may have been read with another context, so the content read here must be tracked as well
+        updateContextDates(dbc, resource);
+
         CmsUUID projectId = dbc.currentProject().getUuid();
         CmsFile file = null;
         if (resource instanceof I_CmsHistoryResource) {
@@ -7354,7 +7409,19 @@ public final class CmsDriverManager implements I_CmsEventListener {
                     ((I_CmsHistoryResource)resource).getPublishTag()));
         } else {
             file = new CmsFile(resource);
-            file.setContents(getVfsDriver(dbc).readContent(dbc, projectId, resource.getResourceId()));
+            // the key contains the content date and size, so changed contents never match an old entry
+            String cacheKey = (projectId.equals(CmsProject.ONLINE_PROJECT_ID) ? "online_" : "offline_")
+                + resource.getResourceId()
+                + "_"
+                + resource.getDateContent()
+                + "_"
+                + resource.getLength();
+            byte[] content = m_monitor.getCachedContent(cacheKey);
+            if (content == null) {
+                content = getVfsDriver(dbc).readContent(dbc, projectId, resource.getResourceId());
+                m_monitor.cacheContent(cacheKey, content);
+            }
+            file.setContents(content);
         }
         return file;
     }
@@ -7982,6 +8049,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsResource resource, boolean search)
     throws CmsException {
 
+        updateContextDependencies(dbc, resource, search);
+
         // check if we have the result already cached
         CmsUUID projectId = getProjectIdForContext(dbc);
         String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, resource.getRootPath());
@@ -7991,35 +8060,32 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if ((properties == null) || !dbc.getProjectId().isNullUUID()) {
             // result not cached, let's look it up in the DB
             if (search) {
-                boolean cont;
-                properties = new ArrayList<CmsProperty>();
-                List<CmsProperty> parentProperties = null;
-
-                do {
+                // the inherited properties of the parent folder are cached as well, so resources
+                // sharing a parent only need to merge their own properties into the parent list
+                try {
+                    properties = readPropertyObjects(dbc, resource, false);
+                } catch (@SuppressWarnings("unused") CmsSecurityException se) {
+                    // a security exception (probably no read permission) we return the current result
+                    properties = new ArrayList<CmsProperty>();
+                }
+                if (resource.getRootPath().length() > 1) {
+                    // no permission check on parent folder is required since we must have "read"
+                    // permissions to read the child resource anyway
+                    CmsResource parent = readResource(
+                        dbc,
+                        CmsResource.getParentFolder(resource.getRootPath()),
+                        CmsResourceFilter.ALL);
                     try {
-                        parentProperties = readPropertyObjects(dbc, resource, false);
+                        List<CmsProperty> parentProperties = readPropertyObjects(dbc, parent, true);
 
                         // make sure properties from lower folders "overwrite" properties from upper folders
                         parentProperties.removeAll(properties);
                         parentProperties.addAll(properties);
-
-                        properties.clear();
-                        properties.addAll(parentProperties);
-
-                        cont = resource.getRootPath().length() > 1;
-                    } catch (CmsSecurityException se) {
+                        properties = parentProperties;
+                    } catch (@SuppressWarnings("unused") CmsSecurityException se) {
                         // a security exception (probably no read permission) we return the current result
-                        cont = false;
-                    }
-                    if (cont) {
-                        // no permission check on parent folder is required since we must have "read"
-                        // permissions to read the child resource anyway
-                        resource = readResource(
-                            dbc,
-                            CmsResource.getParentFolder(resource.getRootPath()),
-                            CmsResourceFilter.ALL);
                     }
-                } while (cont);
+                }
             } else {
                 properties = getVfsDriver(dbc).readPropertyObjects(dbc, dbc.currentProject(), resource);
                 //                for (CmsProperty prop : properties) {
@@ -8207,6 +8273,54 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return resource;
     }
 
+    /**
+     * Reads the resources with the given structure IDs that the current user is allowed to read,
+     * using the specified resource filter.<p>
+     *
+     * All resources are read with as few database statements as possible, and the read permissions
+     * are evaluated against the permission cache of the current user. Resources that do not exist, that
+     * do not match the filter or that can not be read are silently skipped.<p>
+     *
+     * @param dbc the current database context
+     * @param structureIds the structure IDs of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in no particular order
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readResources(Collection, CmsResourceFilter)
+     */
+    public List<CmsResource> readResources(
+        CmsDbContext dbc,
+        Collection<CmsUUID> structureIds,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        List<CmsResource> resources = getVfsDriver(dbc).readResources(
+            dbc,
+            projectId,
+            structureIds,
+            filter.includeDeleted());
+
+        List<CmsResource> result = new ArrayList<CmsResource>(resources.size());
+        for (CmsResource resource : resources) {
+            // the filter is applied as part of the permission check, including the time range
+            if (m_securityManager.hasPermissions(
+                dbc,
+                resource,
+                CmsPermissionSet.ACCESS_READ,
+                LockCheck.yes,
+                filter).isAllowed()) {
+                result.add(resource);
+            }
+        }
+
+        // context dates need to be updated
+        return updateContextDates(dbc, result);
+    }
+
     /**
      * Reads all resources below the given path matching the filter criteria,
      * including the full tree below the path only in case the <code>readTree</code>
@@ -10614,7 +10728,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            flushPropertyCaches(resource);
 
             // fire an event that a property of a resource has been modified
             Map<String, Object> data = new HashMap<String, Object>();
@@ -10698,7 +10812,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            flushPropertyCaches(resource);
 
             // fire an event that the properties of a resource have been modified
             OpenCms.fireCmsEvent(
@@ -11693,6 +11807,25 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Flushes the cached property lists affected by a property change on the given resource.<p>
+     *
+     * Since inherited properties are only cached for the resource and its descendants, only the
+     * subtree of the resource is removed from the cache, unless the resource has siblings which
+     * share its resource property values.<p>
+     *
+     * @param resource the resource whose properties have been changed
+     */
+    private void flushPropertyCaches(CmsResource resource) {
+
+        if (resource.isFile() && (resource.getSiblingCount() > 1)) {
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+        } else {
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY);
+            m_monitor.flushPropertyLists(resource.getRootPath());
+        }
+    }
+
     /**
      * Returns the access control list of a given resource.<p>
      *
@@ -12601,6 +12734,34 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Adds the resource the properties are read from to the dependencies tracked for the current users context.<p>
+     *
+     * If the properties are searched, the parent folders of the resource are added as well, because
+     * the result contains the properties inherited from them, even if it is taken from the cache.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource the properties are read from
+     * @param search <code>true</code> if the properties are searched on all parent folders of the resource
+     */
+    private void updateContextDependencies(CmsDbContext dbc, CmsResource resource, boolean search) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if ((info == null) || !info.isDependencyTracking()) {
+            return;
+        }
+        info.addDependency(resource);
+        if (search) {
+            List<String> parentFolders = new ArrayList<String>();
+            String parentFolder = CmsResource.getParentFolder(resource.getRootPath());
+            while (parentFolder != null) {
+                parentFolders.add(parentFolder);
+                parentFolder = CmsResource.getParentFolder(parentFolder);
+            }
+            info.addDependencies(parentFolders, Collections.<CmsUUID> emptyList());
+        }
+    }
+
     /**
      * Updates the state of a resource, depending on the <code>resourceState</code> parameter.<p>
      *
@@ -12644,4 +12805,39 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new CmsProfilingInvocationHandler(newDriverInstance, CmsDefaultProfilingHandler.INSTANCE));
     }
 
+
+    /**
+     * Removes the existing access control entries of a resource and writes the given entries instead.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource
+     * @param acEntries a list of <code>{@link CmsAccessControlEntry}</code> objects
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private void writeImportedAccessControlEntries(
+        CmsDbContext dbc,
+        CmsResource resource,
+        List<CmsAccessControlEntry> acEntries)
+    throws CmsException {
+
+        I_CmsUserDriver userDriver = getUserDriver(dbc);
+        userDriver.removeAccessControlEntries(dbc, dbc.currentProject(), resource.getResourceId());
+        List<CmsAccessControlEntry> fixedAces = new ArrayList<>();
+        for (CmsAccessControlEntry entry : acEntries) {
+            if (entry.getResource() == null) {
+                entry = new CmsAccessControlEntry(
+                    resource.getResourceId(),
+                    entry.getPrincipal(),
+                    entry.getPermissions(),
+                    entry.getFlags());
+            }
+            fixedAces.add(entry);
+        }
+
+        Iterator<CmsAccessControlEntry> i = fixedAces.iterator();
+        while (i.hasNext()) {
+            userDriver.writeAccessControlEntry(dbc, dbc.currentProject(), i.next());
+        }
+    }
 }
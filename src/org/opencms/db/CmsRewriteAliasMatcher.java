@@ -31,7 +31,10 @@ import org.opencms.main.CmsLog;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -89,41 +92,168 @@ public class CmsRewriteAliasMatcher {
 
     }
 
+    /**
+     * A rewrite alias together with its compiled pattern.<p>
+     */
+    private static class CompiledAlias {
+
+        /** The rewrite alias. */
+        CmsRewriteAlias m_alias;
+
+        /** The compiled pattern of the alias. */
+        Pattern m_pattern;
+
+        /**
+         * Creates a new instance.<p>
+         *
+         * @param alias the rewrite alias
+         * @param pattern the compiled pattern of the alias
+         */
+        CompiledAlias(CmsRewriteAlias alias, Pattern pattern) {
+
+            m_alias = alias;
+            m_pattern = pattern;
+        }
+    }
+
+    /**
+     * A node of the literal prefix index.<p>
+     */
+    private static class PrefixNode {
+
+        /** The child nodes, by the next character of the prefix. */
+        Map<Character, PrefixNode> m_children = new HashMap<Character, PrefixNode>();
+
+        /** The positions of the aliases whose literal prefix ends at this node. */
+        List<Integer> m_entries = new ArrayList<Integer>();
+    }
+
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsRewriteAliasMatcher.class);
 
+    /** The characters which have a special meaning in regular expressions. */
+    private static final String REGEX_SPECIAL_CHARS = ".[](){}*+?^$|";
+
     /** The list of rewrite aliases to use for matching. */
     private List<CmsRewriteAlias> m_aliases;
 
+    /** The rewrite aliases with valid patterns, in the order in which they are matched. */
+    private List<CompiledAlias> m_compiledAliases;
+
+    /** The root of the index of the literal prefixes of the alias patterns. */
+    private PrefixNode m_prefixIndex;
+
     /**
      * Creates a new matcher instance for the given list of rewrite aliases.<p>
      *
+     * The patterns of the aliases are compiled once, and indexed by their literal prefix, so that
+     * matching a path only has to check the aliases whose literal prefix is a prefix of the path.<p>
+     *
      * @param aliases the list of rewrite aliases to be used for matching
      */
     public CmsRewriteAliasMatcher(Collection<CmsRewriteAlias> aliases) {
 
         m_aliases = new ArrayList<CmsRewriteAlias>(aliases);
+        m_compiledAliases = new ArrayList<CompiledAlias>(m_aliases.size());
+        m_prefixIndex = new PrefixNode();
+        for (CmsRewriteAlias alias : m_aliases) {
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(alias.getPatternString());
+            } catch (PatternSyntaxException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+                continue;
+            }
+            PrefixNode node = m_prefixIndex;
+            String prefix = getLiteralPrefix(alias.getPatternString());
+            for (int i = 0; i < prefix.length(); i++) {
+                Character c = Character.valueOf(prefix.charAt(i));
+                PrefixNode child = node.m_children.get(c);
+                if (child == null) {
+                    child = new PrefixNode();
+                    node.m_children.put(c, child);
+                }
+                node = child;
+            }
+            node.m_entries.add(Integer.valueOf(m_compiledAliases.size()));
+            m_compiledAliases.add(new CompiledAlias(alias, pattern));
+        }
+    }
+
+    /**
+     * Returns the literal prefix of a regular expression, i.e. a string which is a prefix of every string matched by the expression.<p>
+     *
+     * The prefix is determined conservatively: if the expression contains an alternation or starts with
+     * a construct other than a literal character, the empty string is returned.<p>
+     *
+     * @param regex the regular expression
+     *
+     * @return the literal prefix of the regular expression
+     */
+    static String getLiteralPrefix(String regex) {
+
+        if (regex.indexOf('|') >= 0) {
+            // alternatives may have different prefixes
+            return "";
+        }
+        StringBuffer result = new StringBuffer();
+        int i = regex.startsWith("^") ? 1 : 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (((i + 1) < regex.length()) && !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    // escaped literal character
+                    result.append(regex.charAt(i + 1));
+                    i += 2;
+                    continue;
+                }
+                // character class, back reference or quotation
+                break;
+            }
+            if (REGEX_SPECIAL_CHARS.indexOf(c) >= 0) {
+                if (((c == '*') || (c == '?') || (c == '{')) && (result.length() > 0)) {
+                    // the last character is optional or may be repeated zero times
+                    result.setLength(result.length() - 1);
+                }
+                break;
+            }
+            result.append(c);
+            i++;
+        }
+        return result.toString();
     }
 
     /**
      * Tries to rewrite a given path, and either returns the rewrite result or null if no
      * rewrite alias matched the path.<p>
      *
+     * If multiple aliases match the path, the first one in the list of aliases is used.<p>
+     *
      * @param path the path to match
      * @return the rewrite result or null if no rewrite alias matched
      */
     public RewriteResult match(String path) {
 
-        for (CmsRewriteAlias alias : m_aliases) {
+        // collect the aliases whose literal prefix is a prefix of the path
+        List<Integer> candidates = new ArrayList<Integer>(m_prefixIndex.m_entries);
+        PrefixNode node = m_prefixIndex;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.m_children.get(Character.valueOf(path.charAt(i)));
+            if (node == null) {
+                break;
+            }
+            candidates.addAll(node.m_entries);
+        }
+        // keep the original order of the aliases
+        Collections.sort(candidates);
+        for (Integer position : candidates) {
+            CompiledAlias compiled = m_compiledAliases.get(position.intValue());
             try {
-                Pattern pattern = Pattern.compile(alias.getPatternString());
-                Matcher matcher = pattern.matcher(path);
+                Matcher matcher = compiled.m_pattern.matcher(path);
                 if (matcher.matches()) {
-                    String newPath = matcher.replaceFirst(alias.getReplacementString());
-                    return new RewriteResult(newPath, alias);
+                    String newPath = matcher.replaceFirst(compiled.m_alias.getReplacementString());
+                    return new RewriteResult(newPath, compiled.m_alias);
                 }
-            } catch (PatternSyntaxException e) {
-                LOG.warn(e.getLocalizedMessage(), e);
             } catch (IndexOutOfBoundsException e) {
                 LOG.warn(e.getLocalizedMessage(), e);
             }
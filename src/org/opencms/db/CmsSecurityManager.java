@@ -99,6 +99,7 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -3446,6 +3447,48 @@ public final class CmsSecurityManager {
         }
     }
 
+    /**
+     * Writes the access control entries of several resources as new access control entries of these resources,
+     * using a single database context.<p>
+     *
+     * Already existing access control entries of the resources are removed before.
+     * If the current user lacks the control permission on one of the resources, no entries are written.<p>
+     *
+     * @param context the current request context
+     * @param acEntries the lists of <code>{@link CmsAccessControlEntry}</code> objects by resource
+     *
+     * @throws CmsException if something goes wrong
+     * @throws CmsSecurityException if the required permissions are not satisfied
+     */
+    public void importAccessControlEntries(
+        CmsRequestContext context,
+        Map<CmsResource, List<CmsAccessControlEntry>> acEntries)
+    throws CmsException, CmsSecurityException {
+
+        try (CmsModificationContext modContext = CmsModificationContext.acquire(context)) {
+            CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+            try {
+                checkOfflineProject(dbc);
+                for (CmsResource resource : acEntries.keySet()) {
+                    checkPermissions(dbc, resource, CmsPermissionSet.ACCESS_CONTROL, true, CmsResourceFilter.ALL);
+                }
+                m_driverManager.importAccessControlEntries(dbc, acEntries);
+                for (CmsResource resource : acEntries.keySet()) {
+                    modContext.add(resource);
+                }
+            } catch (Exception e) {
+                dbc.report(
+                    null,
+                    Messages.get().container(
+                        Messages.ERR_IMPORT_ACL_ENTRIES_BATCH_1,
+                        Integer.valueOf(acEntries.size())),
+                    e);
+            } finally {
+                dbc.clear();
+            }
+        }
+    }
+
     /**
      * Creates a new resource with the provided content and properties.<p>
      *
@@ -4425,6 +4468,35 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Opens a stream over the binary content of a file resource.<p>
+     *
+     * The stream must always be closed by the caller.<p>
+     *
+     * @param context the current request context
+     * @param resource the file resource
+     *
+     * @return a stream over the content of the file
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readContentStream(CmsResource)
+     */
+    public InputStream readContentStream(CmsRequestContext context, CmsResource resource) throws CmsException {
+
+        InputStream result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            // the content is spooled completely, so the stream does not depend on the database context
+            result = m_driverManager.readContentStream(dbc, resource);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_READ_FILE_1, context.getSitePath(resource)), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -5366,6 +5438,42 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the resources with the given structure IDs that the current user is allowed to read,
+     * using the specified resource filter.<p>
+     *
+     * In contrast to {@link #readResource(CmsRequestContext, CmsUUID, CmsResourceFilter)}, resources that
+     * do not exist or can not be read are silently skipped instead of causing an exception.<p>
+     *
+     * @param context the current request context
+     * @param structureIds the structure IDs of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in no particular order
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readResources(
+        CmsRequestContext context,
+        Collection<CmsUUID> structureIds,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readResources(dbc, structureIds, filter);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_RESOURCES_FOR_IDS_1, Integer.valueOf(structureIds.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads all resources below the given path matching the filter criteria,
      * including the full tree below the path only in case the <code>readTree</code>
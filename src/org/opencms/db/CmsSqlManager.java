@@ -27,6 +27,8 @@
 
 package org.opencms.db;
 
+import org.opencms.db.timing.CmsSqlQueryStatistics;
+
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -92,7 +94,10 @@ public class CmsSqlManager {
      */
     public Connection getConnectionByUrl(String dbPoolUrl) throws SQLException {
 
-        return CmsDriverManager.m_pools.get(dbPoolUrl).getConnection();
+        long start = System.nanoTime();
+        Connection connection = CmsDriverManager.m_pools.get(dbPoolUrl).getConnection();
+        CmsSqlQueryStatistics.INSTANCE.addConnectionWait(dbPoolUrl, System.nanoTime() - start);
+        return connection;
     }
 
     /**
@@ -698,6 +698,20 @@ public interface I_CmsProjectDriver {
     void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, CmsPublishedResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Inserts the entries in the publish history for a list of published VFS resources.<p>
+     *
+     * Implementations should write the entries with as few database round trips as possible.<p>
+     *
+     * @param dbc the current database context
+     * @param publishId the ID of the current publishing process
+     * @param resources the states of the resources *before* they were published
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, List<CmsPublishedResource> resources)
+    throws CmsDataAccessException;
+
     /**
      * Writes a publish job.<p>
      *
@@ -43,6 +43,7 @@ import org.opencms.relations.CmsRelationFilter;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
@@ -470,6 +471,24 @@ public interface I_CmsVfsDriver {
      */
     byte[] readContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId) throws CmsDataAccessException;
 
+    /**
+     * Opens a stream over the content of a file specified by it's resource ID.<p>
+     *
+     * The content is read completely before this method returns, so no database connection is held
+     * while the stream is consumed. Large contents are spooled to a temporary file instead of being kept
+     * in memory, the file is deleted when the stream is closed, so it must always be closed by the caller.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceId the id of the resource
+     *
+     * @return a stream over the file content
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException;
+
     /**
      * Reads a folder specified by it's structure ID.<p>
      *
@@ -633,6 +652,27 @@ public interface I_CmsVfsDriver {
     CmsResource readResource(CmsDbContext dbc, CmsUUID projectId, String filename, boolean includeDeleted)
     throws CmsDataAccessException;
 
+    /**
+     * Reads the resources with the given structure IDs.<p>
+     *
+     * Structure IDs for which no resource exists are silently skipped, so the result
+     * may contain less resources than IDs were given. The order of the result is undefined.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the Id of the project
+     * @param structureIds the structure IDs of the resources to read
+     * @param includeDeleted true if already deleted files are included
+     *
+     * @return the resources that were read
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        boolean includeDeleted)
+    throws CmsDataAccessException;
+
     /**
      * Reads all resources inside a given project and with a given state.<p>
      *
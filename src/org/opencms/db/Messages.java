@@ -321,6 +321,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORT_ACL_ENTRIES_1 = "ERR_IMPORT_ACL_ENTRIES_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMPORT_ACL_ENTRIES_BATCH_1 = "ERR_IMPORT_ACL_ENTRIES_BATCH_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORT_FOLDER_1 = "ERR_IMPORT_FOLDER_1";
 
@@ -534,6 +537,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_RESOURCES_1 = "ERR_READ_RESOURCES_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_RESOURCES_FOR_IDS_1 = "ERR_READ_RESOURCES_FOR_IDS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_RESOURCES_FOR_PRINCIPAL_LOG_1 = "ERR_READ_RESOURCES_FOR_PRINCIPAL_LOG_1";
 
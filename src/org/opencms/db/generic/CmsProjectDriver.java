@@ -93,6 +93,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -189,15 +190,27 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
     }
 
+    /** Attribute name for the publish history entries collected during a publish process. */
+    public static final String DBC_ATTR_PUBLISH_HISTORY_BATCH = "DBC_ATTR_PUBLISH_HISTORY_BATCH";
+
     /** Attribute name for reading the project of a resource. */
     public static final String DBC_ATTR_READ_PROJECT_FOR_RESOURCE = "DBC_ATTR_READ_PROJECT_FOR_RESOURCE";
 
+    /** Configuration key for the number of resources committed in one chunk during publishing. */
+    public static final String CONFIGURATION_PUBLISH_BATCH_SIZE = "db.project.publish.batchsize";
+
+    /** The default number of resources committed in one chunk and of statements in one JDBC batch during publishing. */
+    public static final int DEFAULT_PUBLISH_BATCH_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsProjectDriver.class);
 
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
+    /** The number of resources committed in one chunk and of statements in one JDBC batch during publishing. */
+    protected int m_publishBatchSize = DEFAULT_PUBLISH_BATCH_SIZE;
+
     /** The SQL manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -924,6 +937,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         m_sqlManager.init(I_CmsProjectDriver.DRIVER_TYPE_ID, poolUrl);
 
         m_driverManager = driverManager;
+        m_publishBatchSize = Math.max(
+            1,
+            configuration.getInteger(CONFIGURATION_PUBLISH_BATCH_SIZE, DEFAULT_PUBLISH_BATCH_SIZE));
 
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_ASSIGNED_POOL_1, poolUrl));
@@ -1696,7 +1712,20 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
         Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
 
+        // collect the publish history entries and write them in batches
+        CmsUUID publishHistoryId = publishList.getPublishHistoryId();
+        List<CmsPublishedResource> publishHistoryBatch = new ArrayList<CmsPublishedResource>();
+        dbc.setAttribute(DBC_ATTR_PUBLISH_HISTORY_BATCH, publishHistoryBatch);
+
         try {
+            if (m_publishBatchSize > 1) {
+                try {
+                    // write the published resources in one transaction, which is committed in chunks of the batch size
+                    m_sqlManager.beginTransaction(dbc);
+                } catch (SQLException e) {
+                    LOG.warn(e.getLocalizedMessage(), e);
+                }
+            }
 
             ////////////////////////////////////////////////////////////////////////////////////////
             // write the historical project entry
@@ -1740,6 +1769,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             I_CmsHistoryDriver historyDriver = m_driverManager.getHistoryDriver(dbc);
             while (itFolders.hasNext()) {
                 CmsResource currentFolder = itFolders.next();
+                int publishHistorySize = publishHistoryBatch.size();
+                Savepoint savepoint = internalSetPublishSavepoint(dbc);
                 try {
                     if (currentFolder.getState().isNew() || currentFolder.getState().isChanged()) {
                         // bounce the current publish task through all project drivers
@@ -1808,11 +1839,13 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
                     dbc.pop();
                 } catch (Throwable t) {
+                    internalRollbackPublishedResource(dbc, savepoint, publishHistorySize);
                     dbc.report(
                         report,
                         Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FOLDER_1, currentFolder.getRootPath()),
                         t);
                 }
+                internalCommitPublishChunk(dbc, publishHistoryId);
             }
 
             if (foldersSize > 0) {
@@ -1848,6 +1881,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
             while (itFiles.hasNext()) {
                 CmsResource currentResource = itFiles.next();
+                int publishHistorySize = publishHistoryBatch.size();
+                Savepoint savepoint = internalSetPublishSavepoint(dbc);
                 try {
                     // bounce the current publish task through all project drivers
                     projectDriver.publishFile(
@@ -1889,11 +1924,13 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     publishedIds.add(currentResource.getStructureId());
                     dbc.pop();
                 } catch (Throwable t) {
+                    internalRollbackPublishedResource(dbc, savepoint, publishHistorySize);
                     dbc.report(
                         report,
                         Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
                         t);
                 }
+                internalCommitPublishChunk(dbc, publishHistoryId);
             }
 
             if (filesSize > 0) {
@@ -1919,7 +1956,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             Iterator<CmsResource> itDeletedFolders = deletedFolders.iterator();
             while (itDeletedFolders.hasNext()) {
                 CmsResource currentFolder = itDeletedFolders.next();
-
+                int publishHistorySize = publishHistoryBatch.size();
+                Savepoint savepoint = internalSetPublishSavepoint(dbc);
                 try {
                     // bounce the current publish task through all project drivers
                     projectDriver.publishDeletedFolder(
@@ -1957,6 +1995,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
                     dbc.pop();
                 } catch (Throwable t) {
+                    internalRollbackPublishedResource(dbc, savepoint, publishHistorySize);
                     dbc.report(
                         report,
                         Messages.get().container(
@@ -1964,6 +2003,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                             currentFolder.getRootPath()),
                         t);
                 }
+                internalCommitPublishChunk(dbc, publishHistoryId);
             }
 
             if (deletedFoldersSize > 0) {
@@ -1971,6 +2011,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     Messages.get().container(Messages.RPT_DELETE_FOLDERS_END_0),
                     I_CmsReport.FORMAT_HEADLINE);
             }
+
+            // write the remaining publish history entries
+            internalFlushPublishHistory(dbc, publishHistoryId);
         } catch (OutOfMemoryError o) {
             // clear all caches to reclaim memory
             OpenCms.fireCmsEvent(
@@ -1982,6 +2025,21 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
+            try {
+                // make sure the history of the resources published so far is not lost if publishing was aborted
+                internalFlushPublishHistory(dbc, publishHistoryId);
+            } catch (CmsDataAccessException e) {
+                LOG.error(
+                    Messages.get().getBundle().key(Messages.LOG_WRITING_PUBLISH_HISTORY_BATCH_1, publishHistoryId),
+                    e);
+            }
+            dbc.removeAttribute(DBC_ATTR_PUBLISH_HISTORY_BATCH);
+            try {
+                // commit the resources published so far, also if publishing was aborted
+                m_sqlManager.endTransaction(dbc);
+            } catch (SQLException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
             Object[] msgArgs = new Object[] {
@@ -2848,6 +2906,49 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsProjectDriver#writePublishHistory(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.List)
+     */
+    public void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, List<CmsPublishedResource> resources)
+    throws CmsDataAccessException {
+
+        if (resources.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
+            int count = 0;
+            for (CmsPublishedResource resource : resources) {
+                stmt.setInt(1, resource.getPublishTag());
+                stmt.setString(2, resource.getStructureId().toString());
+                stmt.setString(3, resource.getResourceId().toString());
+                stmt.setString(4, resource.getRootPath());
+                stmt.setInt(5, resource.getMovedState().getState());
+                stmt.setInt(6, resource.getType());
+                stmt.setString(7, publishId.toString());
+                stmt.setInt(8, resource.getSiblingCount());
+                stmt.addBatch();
+                count++;
+                if ((count % m_publishBatchSize) == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            if ((count % m_publishBatchSize) != 0) {
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsProjectDriver#writePublishJob(org.opencms.db.CmsDbContext, org.opencms.publish.CmsPublishJobInfoBean)
      */
@@ -3063,7 +3164,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         try {
             // write the resource to the publish history
-            m_driverManager.getProjectDriver(dbc).writePublishHistory(
+            internalWritePublishHistory(
                 dbc,
                 publishHistoryId,
                 new CmsPublishedResource(onlineResource, publishTag, CmsPublishedResource.STATE_MOVED_SOURCE));
@@ -3150,6 +3251,34 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return result;
     }
 
+    /**
+     * Commits the current chunk of published resources, if it has reached the configured batch size.<p>
+     *
+     * The publish history entries collected for the chunk are written before the transaction
+     * of the publish process is committed.<p>
+     *
+     * @param dbc the current database context
+     * @param publishHistoryId the current publish process id
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    @SuppressWarnings("unchecked")
+    protected void internalCommitPublishChunk(CmsDbContext dbc, CmsUUID publishHistoryId)
+    throws CmsDataAccessException {
+
+        List<CmsPublishedResource> batch = (List<CmsPublishedResource>)dbc.getAttribute(
+            DBC_ATTR_PUBLISH_HISTORY_BATCH);
+        if ((batch == null) || (batch.size() < m_publishBatchSize)) {
+            return;
+        }
+        internalFlushPublishHistory(dbc, publishHistoryId);
+        try {
+            m_sqlManager.commitTransaction(dbc);
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(Messages.ERR_GENERIC_SQL_0), e);
+        }
+    }
+
     /**
      * Creates a new project from the current row of the given result set.<p>
      *
@@ -3191,6 +3320,28 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return (CmsPublishList)oin.readObject();
     }
 
+    /**
+     * Writes the publish history entries collected in the current database context.<p>
+     *
+     * @param dbc the current database context
+     * @param publishHistoryId the current publish process id
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    @SuppressWarnings("unchecked")
+    protected void internalFlushPublishHistory(CmsDbContext dbc, CmsUUID publishHistoryId)
+    throws CmsDataAccessException {
+
+        List<CmsPublishedResource> batch = (List<CmsPublishedResource>)dbc.getAttribute(
+            DBC_ATTR_PUBLISH_HISTORY_BATCH);
+        if ((batch == null) || batch.isEmpty()) {
+            return;
+        }
+        List<CmsPublishedResource> entries = new ArrayList<CmsPublishedResource>(batch);
+        batch.clear();
+        m_driverManager.getProjectDriver(dbc).writePublishHistory(dbc, publishHistoryId, entries);
+    }
+
     /**
      * Creates a new {@link CmsLogEntry} object from the given result set entry.<p>
      *
@@ -3237,6 +3388,31 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Rolls back the changes of a resource which could not be published.<p>
+     *
+     * The changes written to the database since the given savepoint are rolled back, and the publish history entries
+     * collected for the resource are discarded, so that the resources published before can still be committed.<p>
+     *
+     * @param dbc the current database context
+     * @param savepoint the savepoint set before the resource was published, may be <code>null</code>
+     * @param publishHistorySize the number of publish history entries collected before the resource was published
+     */
+    @SuppressWarnings("unchecked")
+    protected void internalRollbackPublishedResource(CmsDbContext dbc, Savepoint savepoint, int publishHistorySize) {
+
+        List<CmsPublishedResource> batch = (List<CmsPublishedResource>)dbc.getAttribute(
+            DBC_ATTR_PUBLISH_HISTORY_BATCH);
+        if ((batch != null) && (batch.size() > publishHistorySize)) {
+            batch.subList(publishHistorySize, batch.size()).clear();
+        }
+        try {
+            m_sqlManager.rollbackTransaction(dbc, savepoint);
+        } catch (SQLException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+    }
+
     /**
      * Serialize publish list to write it as byte array to the database.<p>
      *
@@ -3254,6 +3430,24 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return bout.toByteArray();
     }
 
+    /**
+     * Sets a savepoint in the transaction of the publish process before a resource is published.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the savepoint, or <code>null</code> if publishing does not use a transaction
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected Savepoint internalSetPublishSavepoint(CmsDbContext dbc) throws CmsDataAccessException {
+
+        try {
+            return m_sqlManager.setTransactionSavepoint(dbc);
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(Messages.ERR_GENERIC_SQL_0), e);
+        }
+    }
+
     /**
      * Writes the needed history entries.<p>
      *
@@ -3287,10 +3481,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 m_driverManager.getHistoryDriver(dbc).writeResource(dbc, resource, properties, publishTag);
             }
             // write the resource to the publish history
-            m_driverManager.getProjectDriver(dbc).writePublishHistory(
-                dbc,
-                publishHistoryId,
-                new CmsPublishedResource(resource, publishTag, state));
+            internalWritePublishHistory(dbc, publishHistoryId, new CmsPublishedResource(resource, publishTag, state));
         } catch (CmsDataAccessException e) {
             if (LOG.isErrorEnabled()) {
                 LOG.error(
@@ -3301,6 +3492,35 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Writes a publish history entry.<p>
+     *
+     * If the entries are collected for the current publish process, the entry is added to the collected entries,
+     * which are written as a batch with the next chunk of published resources, see
+     * {@link #internalCommitPublishChunk(CmsDbContext, CmsUUID)}. Otherwise the entry is written immediately.<p>
+     *
+     * @param dbc the current database context
+     * @param publishHistoryId the current publish process id
+     * @param resource the published resource
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    @SuppressWarnings("unchecked")
+    protected void internalWritePublishHistory(
+        CmsDbContext dbc,
+        CmsUUID publishHistoryId,
+        CmsPublishedResource resource)
+    throws CmsDataAccessException {
+
+        List<CmsPublishedResource> batch = (List<CmsPublishedResource>)dbc.getAttribute(
+            DBC_ATTR_PUBLISH_HISTORY_BATCH);
+        if (batch == null) {
+            m_driverManager.getProjectDriver(dbc).writePublishHistory(dbc, publishHistoryId, resource);
+            return;
+        }
+        batch.add(resource);
+    }
+
     /**
      * Build the whole WHERE SQL statement part for the given log entry filter.<p>
      *
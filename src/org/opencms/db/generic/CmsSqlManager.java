@@ -28,18 +28,27 @@
 package org.opencms.db.generic;
 
 import org.opencms.db.CmsDbContext;
+import org.opencms.db.timing.CmsSqlQueryStatistics;
 import org.opencms.file.CmsProject;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
+import org.opencms.main.OpenCms;
+import org.opencms.publish.CmsPublishManager;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -56,9 +65,52 @@ import org.apache.commons.logging.Log;
  */
 public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
+    /**
+     * Invocation handler for the connection of a transaction, which keeps the connection open and in transaction mode
+     * until the transaction is ended.<p>
+     */
+    private static class TransactionConnectionHandler implements InvocationHandler {
+
+        /** The connection of the transaction. */
+        private Connection m_connection;
+
+        /**
+         * Creates a new handler instance.<p>
+         *
+         * @param connection the connection of the transaction
+         */
+        TransactionConnectionHandler(Connection connection) {
+
+            m_connection = connection;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if ("close".equals(name) || "setAutoCommit".equals(name)) {
+                // the connection is closed and switched back to auto commit mode when the transaction ends
+                return null;
+            }
+            try {
+                return method.invoke(m_connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
     /** A pattern being replaced in SQL queries to generate SQL queries to access online/offline tables. */
     protected static final String QUERY_PROJECT_SEARCH_PATTERN = "_${PROJECT}_";
 
+    /** Database context attribute which marks that the context has used a connection from a primary pool. */
+    private static final String ATTR_PRIMARY_POOL_USED = "__primaryPoolUsed";
+
+    /** Database context attribute which holds the connections of the open transactions by pool URL. */
+    private static final String ATTR_TRANSACTION_CONNECTIONS = "__transactionConnections";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSqlManager.class);
 
@@ -68,6 +120,9 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** A map to cache queries with replaced search patterns. */
     protected ConcurrentHashMap<String, String> m_cachedQueries;
 
+    /** The time of the last known change of the online project. */
+    protected volatile long m_lastOnlineChange;
+
     /** The type ID of the driver (vfs, user, project or history) from where this SQL manager is referenced. */
     protected int m_driverType;
 
@@ -77,6 +132,12 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** A map holding all SQL queries. */
     protected Map<String, String> m_queries;
 
+    /** The time in milliseconds after a change of the online project during which all reads use the primary pool. */
+    protected long m_readPoolLag;
+
+    /** The pool URL for read-only queries against the online project, <code>null</code> if not configured. */
+    protected String m_readPoolUrl;
+
     /**
      * Creates a new, empty SQL manager.<p>
      */
@@ -131,6 +192,41 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return CmsStringUtil.substitute(query, QUERY_PROJECT_SEARCH_PATTERN, replacePattern);
     }
 
+    /**
+     * Starts a transaction for the given database context.<p>
+     *
+     * Until the transaction is ended, all connections which are requested with {@link #getConnection(CmsDbContext)}
+     * for the given database context from the pool of this SQL manager, or of any other SQL manager
+     * using the same pool, share a single connection which does not commit its statements automatically.
+     * The statements are committed by {@link #commitTransaction(CmsDbContext)}
+     * and {@link #endTransaction(CmsDbContext)}.
+     * If a transaction for the pool of this SQL manager is already open, nothing happens.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void beginTransaction(CmsDbContext dbc) throws SQLException {
+
+        Map<String, Connection> connections = getTransactionConnections(dbc);
+        if (connections == null) {
+            connections = new HashMap<String, Connection>();
+            dbc.setAttribute(ATTR_TRANSACTION_CONNECTIONS, connections);
+        } else if (connections.containsKey(m_poolUrl)) {
+            return;
+        }
+        Connection conn = getConnectionByUrl(m_poolUrl);
+        try {
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        connections.put(m_poolUrl, conn);
+        // reads within the transaction have to see its uncommitted changes
+        dbc.setAttribute(ATTR_PRIMARY_POOL_USED, Boolean.TRUE);
+    }
+
     /**
      * Attempts to close the connection, statement and result set after a statement has been executed.<p>
      *
@@ -189,6 +285,74 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Commits the statements executed so far in the transaction of the given database context.<p>
+     *
+     * If no transaction is open for the pool of this SQL manager, nothing happens.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void commitTransaction(CmsDbContext dbc) throws SQLException {
+
+        Connection conn = getTransactionConnection(dbc);
+        if (conn != null) {
+            conn.commit();
+        }
+    }
+
+    /**
+     * Ends the transaction of the given database context.<p>
+     *
+     * The statements executed so far are committed, and the connection of the transaction is returned to the pool.
+     * If no transaction is open for the pool of this SQL manager, nothing happens.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void endTransaction(CmsDbContext dbc) throws SQLException {
+
+        Map<String, Connection> connections = getTransactionConnections(dbc);
+        Connection conn = connections != null ? connections.remove(m_poolUrl) : null;
+        if (conn == null) {
+            return;
+        }
+        if (connections.isEmpty()) {
+            dbc.removeAttribute(ATTR_TRANSACTION_CONNECTIONS);
+        }
+        try {
+            conn.commit();
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } finally {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current row of this ResultSet object as
+     * a stream of uninterpreted bytes.<p>
+     *
+     * In contrast to {@link #getBytes(ResultSet, String)}, the value is not read into memory at once,
+     * if the driver supports this. The stream is only valid as long as the result set is open.
+     * Overwrite this method if another database server requires a different handling of byte attributes in tables.<p>
+     *
+     * @param res the result set
+     * @param attributeName the name of the table attribute
+     *
+     * @return the column value as stream; if the value is SQL NULL, the value returned is null
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public InputStream getBinaryStream(ResultSet res, String attributeName) throws SQLException {
+
+        return res.getBinaryStream(attributeName);
+    }
+
     /**
      * Retrieves the value of the designated column in the current row of this ResultSet object as
      * a byte array in the Java programming language.<p>
@@ -211,7 +375,8 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /**
      * Returns a JDBC connection from the connection pool.<p>
      *
-     * Use this method to get a connection for reading/writing project independent data.<p>
+     * Use this method to get a connection for reading/writing project independent data.
+     * If a transaction is open for the given database context, the connection of the transaction is returned.<p>
      *
      * @param dbc the current database context
      *
@@ -223,6 +388,16 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
         if (dbc == null) {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
+        } else if (dbc.getAttribute(ATTR_PRIMARY_POOL_USED) == null) {
+            // the connection may be used for writing, so pin all further reads of the context to the primary pool
+            dbc.setAttribute(ATTR_PRIMARY_POOL_USED, Boolean.TRUE);
+        }
+        Connection transactionConnection = getTransactionConnection(dbc);
+        if (transactionConnection != null) {
+            return (Connection)Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new TransactionConnectionHandler(transactionConnection));
         }
         // match the ID to a JDBC pool URL of the OpenCms JDBC pools {online|offline|backup}
         return getConnectionByUrl(m_poolUrl);
@@ -262,7 +437,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     throws SQLException {
 
         String rawSql = readQuery(projectId, queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return getPreparedStatementForSql(con, rawSql, queryKey);
     }
 
     /**
@@ -276,7 +451,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     public PreparedStatement getPreparedStatement(Connection con, String queryKey) throws SQLException {
 
         String rawSql = readQuery(CmsUUID.getNullUUID(), queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return getPreparedStatementForSql(con, rawSql, queryKey);
     }
 
     /**
@@ -289,9 +464,71 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      */
     public PreparedStatement getPreparedStatementForSql(Connection con, String query) throws SQLException {
 
+        return getPreparedStatementForSql(con, query, null);
+    }
+
+    /**
+     * Returns a PreparedStatement for a JDBC connection specified by the SQL query,
+     * whose executions are counted in the statistics of the given query key.<p>
+     *
+     * Use this method for SQL built from a query of the query properties, e.g. by appending conditions.<p>
+     *
+     * @param con the JDBC connection
+     * @param query the SQL query
+     * @param queryKey the key of the SQL query the statement is built from, or <code>null</code>
+     * @return PreparedStatement a new PreparedStatement containing the pre-compiled SQL statement
+     * @throws SQLException if a database access error occurs
+     *
+     * @see CmsSqlQueryStatistics
+     */
+    public PreparedStatement getPreparedStatementForSql(Connection con, String query, String queryKey)
+    throws SQLException {
+
         // unfortunately, this wrapper is essential, because some JDBC driver
         // implementations don't accept the delegated objects of DBCP's connection pool.
-        return con.prepareStatement(query);
+        return CmsSqlQueryStatistics.INSTANCE.wrapStatement(con.prepareStatement(query), queryKey, query);
+    }
+
+    /**
+     * Returns a JDBC connection for read-only queries.<p>
+     *
+     * Reads from the online project are served by the configured read pool, unless the database context
+     * has already used the primary pool or a publish job is running. In all other cases, a connection
+     * of the primary pool is returned, as with {@link #getConnection(CmsDbContext)}.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the project to read from
+     *
+     * @return a JDBC connection
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public Connection getReadConnection(CmsDbContext dbc, CmsUUID projectId) throws SQLException {
+
+        if (usesReadPool(dbc, projectId)) {
+            return getConnectionByUrl(m_readPoolUrl);
+        }
+        return getConnection(dbc);
+    }
+
+    /**
+     * Returns the time after a change of the online project during which all reads use the primary pool.<p>
+     *
+     * @return the read pool lag in milliseconds
+     */
+    public long getReadPoolLag() {
+
+        return m_readPoolLag;
+    }
+
+    /**
+     * Returns the pool URL for read-only queries against the online project.<p>
+     *
+     * @return the read pool URL, or <code>null</code> if all queries use the primary pool
+     */
+    public String getReadPoolUrl() {
+
+        return m_readPoolUrl;
     }
 
     /**
@@ -307,6 +544,17 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Marks that the online project has changed, e.g. because a project has been published.<p>
+     *
+     * For the configured read pool lag after the change, all reads use the primary pool, so that
+     * no outdated data is read from a read replica which has not caught up with the change yet.<p>
+     */
+    public void markOnlineChange() {
+
+        m_lastOnlineChange = System.currentTimeMillis();
+    }
+
     /**
      * Searches for the SQL query with the specified key and CmsProject.<p>
      *
@@ -393,6 +641,24 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return value;
     }
 
+    /**
+     * Rolls the transaction of the given database context back to the given savepoint.<p>
+     *
+     * If no transaction is open for the pool of this SQL manager, nothing happens.<p>
+     *
+     * @param dbc the current database context
+     * @param savepoint the savepoint, as returned by {@link #setTransactionSavepoint(CmsDbContext)}
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void rollbackTransaction(CmsDbContext dbc, Savepoint savepoint) throws SQLException {
+
+        Connection conn = getTransactionConnection(dbc);
+        if ((conn != null) && (savepoint != null)) {
+            conn.rollback(savepoint);
+        }
+    }
+
     /**
      * Sets the designated parameter to the given Java array of bytes.<p>
      *
@@ -413,6 +679,46 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         }
     }
 
+    /**
+     * Sets the time after a change of the online project during which all reads use the primary pool.<p>
+     *
+     * This should be at least the maximum replication lag of the read pool.<p>
+     *
+     * @param readPoolLag the read pool lag in milliseconds
+     */
+    public void setReadPoolLag(long readPoolLag) {
+
+        m_readPoolLag = Math.max(0, readPoolLag);
+    }
+
+    /**
+     * Sets the pool URL for read-only queries against the online project.<p>
+     *
+     * The pool usually connects to a read replica of the database. If <code>null</code> or empty,
+     * all queries use the primary pool.<p>
+     *
+     * @param readPoolUrl the read pool URL
+     */
+    public void setReadPoolUrl(String readPoolUrl) {
+
+        m_readPoolUrl = CmsStringUtil.isEmptyOrWhitespaceOnly(readPoolUrl) ? null : readPoolUrl.trim();
+    }
+
+    /**
+     * Sets a savepoint in the transaction of the given database context.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the savepoint, or <code>null</code> if no transaction is open for the pool of this SQL manager
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public Savepoint setTransactionSavepoint(CmsDbContext dbc) throws SQLException {
+
+        Connection conn = getTransactionConnection(dbc);
+        return conn != null ? conn.setSavepoint() : null;
+    }
+
     /**
      * Replaces null or empty Strings with a String with one space character <code>" "</code>.<p>
      *
@@ -428,6 +734,32 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return " ";
     }
 
+    /**
+     * Returns the connection of the open transaction of the given database context for the pool of this SQL manager.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the connection of the open transaction, or <code>null</code> if there is none
+     */
+    protected Connection getTransactionConnection(CmsDbContext dbc) {
+
+        Map<String, Connection> connections = getTransactionConnections(dbc);
+        return connections != null ? connections.get(m_poolUrl) : null;
+    }
+
+    /**
+     * Returns the connections of the open transactions of the given database context by pool URL.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the connections of the open transactions, or <code>null</code> if there are none
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<String, Connection> getTransactionConnections(CmsDbContext dbc) {
+
+        return dbc != null ? (Map<String, Connection>)dbc.getAttribute(ATTR_TRANSACTION_CONNECTIONS) : null;
+    }
+
     /**
      * Loads a Java properties hash containing SQL queries.<p>
      *
@@ -489,4 +821,31 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
             m_queries.put(currentKey, currentValue);
         }
     }
+
+    /**
+     * Checks if a read-only query against the given project can use the read pool.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the project to read from
+     *
+     * @return <code>true</code> if the read pool can be used
+     */
+    protected boolean usesReadPool(CmsDbContext dbc, CmsUUID projectId) {
+
+        if ((m_readPoolUrl == null) || (dbc == null) || !CmsProject.ONLINE_PROJECT_ID.equals(projectId)) {
+            return false;
+        }
+        if (dbc.getAttribute(ATTR_PRIMARY_POOL_USED) != null) {
+            // the context may have written data which has not reached the read pool yet
+            return false;
+        }
+        CmsPublishManager publishManager = OpenCms.getPublishManager();
+        if ((publishManager != null) && publishManager.isRunning()) {
+            // the online project changes during publishing
+            markOnlineChange();
+            return false;
+        }
+        // the read pool may lag behind the last change of the online project
+        return System.currentTimeMillis() >= (m_lastOnlineChange + m_readPoolLag);
+    }
 }
@@ -1066,6 +1066,11 @@ public class CmsUserDriver implements I_CmsUserDriver {
             dbc).readAccessControlEntries(dbc, offlineProject, offlineId, false);
         dbc.setProjectId(dbcProjectId);
 
+        if (offlineId.equals(onlineId)) {
+            // the online entries have all been removed, so the entries can be inserted in one batch
+            internalCreateAccessControlEntries(dbc, onlineProject, aces);
+            return;
+        }
         for (CmsAccessControlEntry ace : aces) {
             m_driverManager.getUserDriver(dbc).writeAccessControlEntry(dbc, onlineProject, ace);
         }
@@ -2152,6 +2157,48 @@ public class CmsUserDriver implements I_CmsUserDriver {
         return new CmsUserQueryBuilder();
     }
 
+    /**
+     * Creates the given access control entries with a single batch statement.<p>
+     *
+     * @param dbc the current database context
+     * @param project the project to create the entries in
+     * @param aces the access control entries to create
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalCreateAccessControlEntries(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsAccessControlEntry> aces)
+    throws CmsDataAccessException {
+
+        if (aces.isEmpty()) {
+            return;
+        }
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_CREATE_5");
+            for (CmsAccessControlEntry ace : aces) {
+                stmt.setString(1, ace.getResource().toString());
+                stmt.setString(2, ace.getPrincipal().toString());
+                stmt.setInt(3, ace.getAllowedPermissions());
+                stmt.setInt(4, ace.getDeniedPermissions());
+                stmt.setInt(5, ace.getFlags());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * Internal helper method to create an access control entry from a database record.<p>
      *
@@ -31,9 +31,11 @@ import org.opencms.configuration.CmsConfigurationManager;
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.db.CmsAlias;
 import org.opencms.db.CmsAliasFilter;
+import org.opencms.db.CmsContentSpool;
 import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
+import org.opencms.db.CmsDbIoException;
 import org.opencms.db.CmsDbSqlException;
 import org.opencms.db.CmsDbUtil;
 import org.opencms.db.CmsDriverManager;
@@ -82,6 +84,10 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -105,12 +111,21 @@ import org.apache.commons.logging.Log;
  */
 public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
+    /** The default time in milliseconds after a publish during which online reads use the primary pool. */
+    protected static final int DEFAULT_READ_POOL_LAG = 5000;
+
+    /** The number of bytes read with one query when a content is streamed, smaller contents are kept in memory. */
+    protected static final int CONTENT_CHUNK_SIZE = 1024 * 1024;
+
     /** Contains the macro replacement value for the offline project. */
     protected static final String OFFLINE = "OFFLINE";
 
     /** Contains the macro replacement value for the online project. */
     protected static final String ONLINE = "ONLINE";
 
+    /** The maximum number of structure IDs read with a single statement, kept below the IN list limits of common databases. */
+    protected static final int READ_BY_IDS_BATCH_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsVfsDriver.class);
 
@@ -1170,7 +1185,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 queryBuf.append(m_sqlManager.readQuery(projectId, "C_DELETE_RELATIONS"));
                 queryBuf.append(prepareRelationConditions(projectId, filter, resource, params, true));
 
-                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString(), "C_DELETE_RELATIONS");
                 for (int i = 0; i < params.size(); i++) {
                     if (params.get(i) instanceof Integer) {
                         stmt.setInt(i + 1, ((Integer)params.get(i)).intValue());
@@ -1188,7 +1203,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 queryBuf.append(m_sqlManager.readQuery(projectId, "C_DELETE_RELATIONS"));
                 queryBuf.append(prepareRelationConditions(projectId, filter, resource, params, false));
 
-                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString(), "C_DELETE_RELATIONS");
                 for (int i = 0; i < params.size(); i++) {
                     if (params.get(i) instanceof Integer) {
                         stmt.setInt(i + 1, ((Integer)params.get(i)).intValue());
@@ -1296,7 +1311,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             conn = m_sqlManager.getConnection(dbc);
             stmt = m_sqlManager.getPreparedStatementForSql(
                 conn,
-                m_sqlManager.readQuery(projectId, "C_READ_RESOURCE_OUS"));
+                m_sqlManager.readQuery(projectId, "C_READ_RESOURCE_OUS"),
+                "C_READ_RESOURCE_OUS");
             stmt.setInt(1, CmsRelationType.OU_RESOURCE.getId());
             stmt.setString(2, resName);
             res = stmt.executeQuery();
@@ -1366,11 +1382,26 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         String classname = configuration.get("db.vfs.sqlmanager");
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsVfsDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setReadPoolUrl(configuration.get("db.vfs.pool.read"));
+        m_sqlManager.setReadPoolLag(configuration.getInteger("db.vfs.pool.read.lag", DEFAULT_READ_POOL_LAG));
+        if (m_sqlManager.getReadPoolUrl() != null) {
+            // pin the reads to the primary pool until the read pool has caught up with a publish
+            OpenCms.addCmsEventListener(
+                event -> m_sqlManager.markOnlineChange(),
+                new int[] {I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+        }
 
         m_driverManager = driverManager;
 
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_ASSIGNED_POOL_1, poolUrl));
+            if (m_sqlManager.getReadPoolUrl() != null) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_ASSIGNED_READ_POOL_2,
+                        m_sqlManager.getReadPoolUrl(),
+                        Long.valueOf(m_sqlManager.getReadPoolLag())));
+            }
         }
 
         if ((successiveDrivers != null) && !successiveDrivers.isEmpty()) {
@@ -1830,8 +1861,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         ResultSet res = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatementForSql(conn, query.toString());
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            stmt = m_sqlManager.getPreparedStatementForSql(conn, query.toString(), "C_RESOURCES_GET_SUBRESOURCES");
             stmt.setString(1, resource.getStructureId().toString());
             res = stmt.executeQuery();
 
@@ -1867,7 +1898,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         byte[] byteRes = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
             } else {
@@ -1899,6 +1930,29 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        // read the content completely, so the connection is released before the content is delivered
+        CmsContentSpool spool = new CmsContentSpool(CONTENT_CHUNK_SIZE);
+        boolean spooled = false;
+        try {
+            internalSpoolContent(dbc, projectId, resourceId, spool);
+            InputStream result = spool.getInputStream();
+            spooled = true;
+            return result;
+        } catch (IOException e) {
+            throw new CmsDbIoException(Messages.get().container(Messages.ERR_SPOOLING_CONTENT_1, resourceId), e);
+        } finally {
+            if (!spooled) {
+                spool.discard();
+            }
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -1910,7 +1964,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
             stmt.setString(1, folderId.toString());
             res = stmt.executeQuery();
@@ -1947,7 +2001,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         folderPath = CmsFileUtil.removeTrailingSeparator(folderPath);
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
 
             stmt.setString(1, folderPath);
@@ -2027,7 +2081,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         Connection conn = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ_PARENT_BY_ID");
             stmt.setString(1, structureId.toString());
             res = stmt.executeQuery();
@@ -2143,7 +2197,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int resultSize = 0;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READ");
 
             stmt.setString(1, key);
@@ -2216,7 +2270,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsProperty property;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READALL");
             stmt.setString(1, resource.getStructureId().toString());
             stmt.setString(2, resource.getResourceId().toString());
@@ -2283,7 +2337,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         ResultSet res = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (filter.isSource()) {
                 List<Object> params = new ArrayList<Object>(7);
 
@@ -2294,7 +2348,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                     LOG.debug(queryBuf.toString());
                 }
 
-                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString(), "C_READ_RELATIONS");
                 for (int i = 0; i < params.size(); i++) {
                     if (params.get(i) instanceof Integer) {
                         stmt.setInt(i + 1, ((Integer)params.get(i)).intValue());
@@ -2319,7 +2373,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                     LOG.debug(queryBuf.toString());
                 }
 
-                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString(), "C_READ_RELATIONS");
                 for (int i = 0; i < params.size(); i++) {
                     if (params.get(i) instanceof Integer) {
                         stmt.setInt(i + 1, ((Integer)params.get(i)).intValue());
@@ -2358,7 +2412,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
 
             stmt.setString(1, structureId.toString());
@@ -2409,7 +2463,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         boolean endsWithSlash = (len != path.length());
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
 
             stmt.setString(1, path);
@@ -2506,6 +2560,62 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        boolean includeDeleted)
+    throws CmsDataAccessException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>(structureIds.size());
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(new HashSet<CmsUUID>(structureIds));
+        for (int start = 0; start < ids.size(); start += READ_BY_IDS_BATCH_SIZE) {
+            List<CmsUUID> batch = ids.subList(start, Math.min(ids.size(), start + READ_BY_IDS_BATCH_SIZE));
+
+            ResultSet res = null;
+            PreparedStatement stmt = null;
+            Connection conn = null;
+
+            try {
+                StringBuffer conditions = new StringBuffer();
+                conditions.append(BEGIN_CONDITION);
+                for (int i = 0; i < batch.size(); i++) {
+                    if (i > 0) {
+                        conditions.append(", ");
+                    }
+                    conditions.append("?");
+                }
+                conditions.append(END_CONDITION);
+
+                conn = m_sqlManager.getReadConnection(dbc, projectId);
+                stmt = m_sqlManager.getPreparedStatementForSql(
+                    conn,
+                    m_sqlManager.readQuery(projectId, "C_RESOURCES_READBYIDS") + conditions.toString(),
+                    "C_RESOURCES_READBYIDS");
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setString(i + 1, batch.get(i).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    CmsResource resource = createResource(res, projectId);
+                    if (includeDeleted || !resource.getState().isDeleted()) {
+                        result.add(resource);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new CmsDbSqlException(
+                    Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                    e);
+            } finally {
+                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPrincipalACE(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
      */
@@ -2590,7 +2700,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (value == null) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_GET_RESOURCE_WITH_PROPERTYDEF");
                 stmt.setString(1, propertyDef.toString());
@@ -2665,13 +2775,13 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             StringBuffer queryBuf = new StringBuffer(256);
             queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_TREE"));
             queryBuf.append(conditions);
             queryBuf.append(" ");
             queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_ORDER_BY_PATH"));
-            stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+            stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString(), "C_RESOURCES_READ_TREE");
 
             for (int i = 0; i < params.size(); i++) {
                 if (params.get(i) instanceof Integer) {
@@ -2760,7 +2870,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         List<CmsResource> vfsLinks = new ArrayList<CmsResource>();
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
 
             if (includeDeleted) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_SELECT_VFS_SIBLINGS");
@@ -3138,9 +3248,17 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Iterator<CmsRelation> itRelations = m_driverManager.getVfsDriver(
             dbc).readRelations(dbc, projectId, offlineResource, CmsRelationFilter.TARGETS).iterator();
         dbc.setProjectId(dbcProjectId);
+        List<CmsRelation> relations = new ArrayList<CmsRelation>();
         while (itRelations.hasNext()) {
-            vfsDriver.createRelation(dbc, onlineProject.getUuid(), itRelations.next());
+            CmsRelation relation = itRelations.next();
+            if (relation.getType().getId() == CmsRelationType.LOCALE_VARIANT.getId()) {
+                // locale variant relations have to be normalized after they are created
+                vfsDriver.createRelation(dbc, onlineProject.getUuid(), relation);
+            } else {
+                relations.add(relation);
+            }
         }
+        internalCreateRelations(dbc, onlineProject.getUuid(), relations);
     }
 
     /**
@@ -3272,169 +3390,138 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     public void writePropertyObject(CmsDbContext dbc, CmsProject project, CmsResource resource, CmsProperty property)
     throws CmsDataAccessException {
 
+        writePropertyObjects(dbc, project, resource, Collections.singletonList(property));
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#writePropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, java.util.List)
+     */
+    public void writePropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource resource,
+        List<CmsProperty> properties)
+    throws CmsDataAccessException {
+
         CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
         ? project.getUuid()
         : dbc.getProjectId();
 
-        // TODO: check if we need autocreation for link property definition types too
-        CmsPropertyDefinition propertyDefinition = null;
+        // the parameters of the statements to execute, by query key
+        Map<String, List<List<I_CmsPreparedStatementParameter>>> batches = new HashMap<>();
+        Set<String> writtenNames = new HashSet<String>();
+
         try {
-            // read the property definition
-            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
-        } catch (CmsDbEntryNotFoundException e) {
-            if (property.autoCreatePropertyDefinition()) {
-                propertyDefinition = createPropertyDefinition(
+            for (CmsProperty property : properties) {
+                // TODO: check if we need autocreation for link property definition types too
+                CmsPropertyDefinition propertyDefinition = internalReadOrCreatePropertyDefinition(
                     dbc,
                     projectId,
-                    property.getName(),
-                    CmsPropertyDefinition.TYPE_NORMAL);
-                try {
-                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
-                } catch (CmsDataAccessException e1) {
-                    createPropertyDefinition(
-                        dbc,
-                        CmsProject.ONLINE_PROJECT_ID,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                try {
-                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
-                } catch (CmsDataAccessException e1) {
-                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
-                        dbc,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                OpenCms.fireCmsEvent(
-                    new CmsEvent(
-                        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
-                        Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
+                    property);
 
-            } else {
-                throw new CmsDbEntryNotFoundException(
-                    Messages.get().container(Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1, property.getName()));
-            }
-        }
-
-        PreparedStatement stmt = null;
-        Connection conn = null;
+                if (!writtenNames.add(propertyDefinition.getName())) {
+                    // the property is written twice, so write the first values before reading the existing values
+                    internalExecuteBatches(dbc, projectId, batches);
+                }
 
-        try {
-            // read the existing property to test if we need the
-            // insert or update query to write a property value
-            CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
+                // read the existing property to test if we need the
+                // insert or update query to write a property value
+                CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
 
-            if (existingProperty.isIdentical(property)) {
-                // property already has the identical values set, no write required
-                return;
-            }
+                if (existingProperty.isIdentical(property)) {
+                    // property already has the identical values set, no write required
+                    continue;
+                }
 
-            conn = m_sqlManager.getConnection(dbc);
+                for (int i = 0; i < 2; i++) {
+                    int mappingType = -1;
+                    String value = null;
+                    CmsUUID id = null;
+                    boolean existsPropertyValue = false;
+                    boolean deletePropertyValue = false;
 
-            for (int i = 0; i < 2; i++) {
-                int mappingType = -1;
-                String value = null;
-                CmsUUID id = null;
-                boolean existsPropertyValue = false;
-                boolean deletePropertyValue = false;
+                    // 1) take any required decisions to choose and fill the correct SQL query
 
-                // 1) take any required decisions to choose and fill the correct SQL query
-
-                if (i == 0) {
-                    // write/delete the *structure value* on the first cycle
-                    if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getStructureValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no structure value set or the structure value is an empty string,
-                            // continue with the resource value
-                            continue;
+                    if (i == 0) {
+                        // write/delete the *structure value* on the first cycle
+                        if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
+                            // this property value is marked to be deleted
+                            deletePropertyValue = true;
+                        } else {
+                            value = property.getStructureValue();
+                            if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                                // no structure value set or the structure value is an empty string,
+                                // continue with the resource value
+                                continue;
+                            }
                         }
-                    }
 
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
-                    id = resource.getStructureId();
-                    existsPropertyValue = existingProperty.getStructureValue() != null;
-                } else {
-                    // write/delete the *resource value* on the second cycle
-                    if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
+                        // set the vars to be written to the database
+                        mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
+                        id = resource.getStructureId();
+                        existsPropertyValue = existingProperty.getStructureValue() != null;
                     } else {
-                        value = property.getResourceValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no resource value set or the resource value is an empty string,
-                            // break out of the loop
-                            break;
+                        // write/delete the *resource value* on the second cycle
+                        if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
+                            // this property value is marked to be deleted
+                            deletePropertyValue = true;
+                        } else {
+                            value = property.getResourceValue();
+                            if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                                // no resource value set or the resource value is an empty string,
+                                // break out of the loop
+                                break;
+                            }
                         }
-                    }
 
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
-                    id = resource.getResourceId();
-                    existsPropertyValue = existingProperty.getResourceValue() != null;
-                }
+                        // set the vars to be written to the database
+                        mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
+                        id = resource.getResourceId();
+                        existsPropertyValue = existingProperty.getResourceValue() != null;
+                    }
 
-                // 2) execute the SQL query
-                try {
+                    // 2) collect the parameters of the SQL query, all queries are executed in batches at the end
+                    String queryKey;
+                    List<I_CmsPreparedStatementParameter> params = new ArrayList<I_CmsPreparedStatementParameter>();
                     if (!deletePropertyValue) {
                         // insert/update the property value
                         if (existsPropertyValue) {
                             // {structure|resource} property value already exists- use update statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_UPDATE");
-                            stmt.setString(1, m_sqlManager.validateEmpty(value));
-                            stmt.setString(2, id.toString());
-                            stmt.setInt(3, mappingType);
-                            stmt.setString(4, propertyDefinition.getId().toString());
+                            queryKey = "C_PROPERTIES_UPDATE";
+                            params.add(new CmsPreparedStatementStringParameter(m_sqlManager.validateEmpty(value)));
+                            params.add(new CmsPreparedStatementStringParameter(id.toString()));
+                            params.add(new CmsPreparedStatementIntParameter(mappingType));
+                            params.add(new CmsPreparedStatementStringParameter(propertyDefinition.getId().toString()));
                         } else {
                             // {structure|resource} property value doesn't exist- use create statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_CREATE");
-                            stmt.setString(1, new CmsUUID().toString());
-                            stmt.setString(2, propertyDefinition.getId().toString());
-                            stmt.setString(3, id.toString());
-                            stmt.setInt(4, mappingType);
-                            stmt.setString(5, m_sqlManager.validateEmpty(value));
+                            queryKey = "C_PROPERTIES_CREATE";
+                            params.add(new CmsPreparedStatementStringParameter(new CmsUUID().toString()));
+                            params.add(new CmsPreparedStatementStringParameter(propertyDefinition.getId().toString()));
+                            params.add(new CmsPreparedStatementStringParameter(id.toString()));
+                            params.add(new CmsPreparedStatementIntParameter(mappingType));
+                            params.add(new CmsPreparedStatementStringParameter(m_sqlManager.validateEmpty(value)));
                         }
                     } else {
                         // {structure|resource} property value marked as deleted- use delete statement
-                        stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_DELETE");
-                        stmt.setString(1, propertyDefinition.getId().toString());
-                        stmt.setString(2, id.toString());
-                        stmt.setInt(3, mappingType);
+                        queryKey = "C_PROPERTIES_DELETE";
+                        params.add(new CmsPreparedStatementStringParameter(propertyDefinition.getId().toString()));
+                        params.add(new CmsPreparedStatementStringParameter(id.toString()));
+                        params.add(new CmsPreparedStatementIntParameter(mappingType));
                     }
-                    stmt.executeUpdate();
-                } finally {
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    List<List<I_CmsPreparedStatementParameter>> batch = batches.get(queryKey);
+                    if (batch == null) {
+                        batch = new ArrayList<List<I_CmsPreparedStatementParameter>>();
+                        batches.put(queryKey, batch);
+                    }
+                    batch.add(params);
                 }
             }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
-        }
-    }
-
-    /**
-     * @see org.opencms.db.I_CmsVfsDriver#writePropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, java.util.List)
-     */
-    public void writePropertyObjects(
-        CmsDbContext dbc,
-        CmsProject project,
-        CmsResource resource,
-        List<CmsProperty> properties)
-    throws CmsDataAccessException {
-
-        CmsProperty property = null;
-
-        for (int i = 0; i < properties.size(); i++) {
-            property = properties.get(i);
-            writePropertyObject(dbc, project, resource, property);
+        } catch (CmsDataAccessException e) {
+            // write the properties before the failed one
+            internalExecuteBatches(dbc, projectId, batches);
+            throw e;
         }
+        internalExecuteBatches(dbc, projectId, batches);
     }
 
     /**
@@ -3774,6 +3861,48 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Creates the given relations with a single batch statement.<p>
+     *
+     * Locale variant relations must not be created with this method, since they are not normalized,
+     * see {@link #createRelation(CmsDbContext, CmsUUID, CmsRelation)}.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the project to create the relations in
+     * @param relations the relations to create
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalCreateRelations(CmsDbContext dbc, CmsUUID projectId, List<CmsRelation> relations)
+    throws CmsDataAccessException {
+
+        if (relations.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_CREATE_RELATION");
+            for (CmsRelation relation : relations) {
+                stmt.setString(1, relation.getSourceId().toString());
+                stmt.setString(2, relation.getSourcePath());
+                stmt.setString(3, relation.getTargetId().toString());
+                stmt.setString(4, relation.getTargetPath());
+                stmt.setInt(5, relation.getType().getId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * Creates an URL name mapping entry from a result set.<p>
      *
@@ -3792,6 +3921,53 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new CmsUrlNameMappingEntry(name, structureId, state, dateChanged, locale);
     }
 
+    /**
+     * Executes the given statements in batches and clears them.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the project in which the statements are executed
+     * @param batches the parameters of the statements to execute, by query key
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalExecuteBatches(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Map<String, List<List<I_CmsPreparedStatementParameter>>> batches)
+    throws CmsDataAccessException {
+
+        if (batches.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (Map.Entry<String, List<List<I_CmsPreparedStatementParameter>>> entry : batches.entrySet()) {
+                try {
+                    stmt = m_sqlManager.getPreparedStatement(conn, projectId, entry.getKey());
+                    for (List<I_CmsPreparedStatementParameter> params : entry.getValue()) {
+                        for (int i = 0; i < params.size(); i++) {
+                            params.get(i).insertIntoStatement(stmt, i + 1);
+                        }
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                } finally {
+                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, null, null);
+            batches.clear();
+        }
+    }
+
     /**
      * Increments a counter.<p>
      *
@@ -3941,6 +4117,64 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new CmsRelation(sourceId, sourcePath, targetId, targetPath, CmsRelationType.valueOf(type));
     }
 
+    /**
+     * Reads the definition of a property which is going to be written, and creates it if allowed by the property.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the project in which the property is written
+     * @param property the property which is going to be written
+     *
+     * @return the property definition
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected CmsPropertyDefinition internalReadOrCreatePropertyDefinition(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsProperty property)
+    throws CmsDataAccessException {
+
+        CmsPropertyDefinition propertyDefinition = null;
+        try {
+            // read the property definition
+            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
+        } catch (CmsDbEntryNotFoundException e) {
+            if (property.autoCreatePropertyDefinition()) {
+                propertyDefinition = createPropertyDefinition(
+                    dbc,
+                    projectId,
+                    property.getName(),
+                    CmsPropertyDefinition.TYPE_NORMAL);
+                try {
+                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
+                } catch (CmsDataAccessException e1) {
+                    createPropertyDefinition(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                try {
+                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
+                } catch (CmsDataAccessException e1) {
+                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
+                        dbc,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                OpenCms.fireCmsEvent(
+                    new CmsEvent(
+                        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
+                        Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
+
+            } else {
+                throw new CmsDbEntryNotFoundException(
+                    Messages.get().container(Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1, property.getName()));
+            }
+        }
+        return propertyDefinition;
+    }
+
     /**
      * Returns the resource state of the given resource.<p>
      *
@@ -4059,6 +4293,130 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Writes the content of a file to the given stream, reading it from the stream of the BLOB.<p>
+     *
+     * Drivers can use this instead of {@link #internalSpoolContent(CmsDbContext, CmsUUID, CmsUUID, OutputStream)}
+     * if their JDBC driver streams the content of a BLOB without loading it completely.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceId the id of the resource
+     * @param out the stream to write the content to
+     *
+     * @throws CmsDataAccessException if the content can not be read
+     * @throws IOException if writing to the stream fails
+     */
+    protected void internalSpoolBlobContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId, OutputStream out)
+    throws CmsDataAccessException, IOException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT");
+            }
+            stmt.setString(1, resourceId.toString());
+            res = stmt.executeQuery();
+            if (!res.next()) {
+                throw new CmsVfsResourceNotFoundException(
+                    Messages.get().container(
+                        Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                        resourceId,
+                        Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+            }
+            // the LOB locator streams the content, so it is never held in memory completely
+            Blob blob = res.getBlob(m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+            InputStream in = blob.getBinaryStream();
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
+    /**
+     * Writes the content of a file to the given stream.<p>
+     *
+     * The content is read in chunks of {@link #CONTENT_CHUNK_SIZE} bytes, so that the database driver
+     * does not need to hold the complete content in memory.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceId the id of the resource
+     * @param out the stream to write the content to
+     *
+     * @throws CmsDataAccessException if the content can not be read
+     * @throws IOException if writing to the stream fails
+     */
+    protected void internalSpoolContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId, OutputStream out)
+    throws CmsDataAccessException, IOException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT_PART");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT_PART");
+            }
+            int position = 1;
+            while (true) {
+                stmt.setInt(1, position);
+                stmt.setInt(2, CONTENT_CHUNK_SIZE);
+                stmt.setString(3, resourceId.toString());
+                res = stmt.executeQuery();
+                if (!res.next()) {
+                    throw new CmsVfsResourceNotFoundException(
+                        Messages.get().container(
+                            Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                            resourceId,
+                            Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+                }
+                byte[] chunk = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+                m_sqlManager.closeAll(dbc, null, null, res);
+                res = null;
+                int length = chunk != null ? chunk.length : 0;
+                if (length > 0) {
+                    out.write(chunk, 0, length);
+                }
+                if (length < CONTENT_CHUNK_SIZE) {
+                    // this was the last chunk
+                    break;
+                }
+                position += length;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
     /**
      * Updates the offline version numbers.<p>
      *
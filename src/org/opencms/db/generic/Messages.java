@@ -223,6 +223,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_SIBLING_WITH_NAME_ALREADY_EXISTS_1 = "ERR_SIBLING_WITH_NAME_ALREADY_EXISTS_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_SPOOLING_CONTENT_1 = "ERR_SPOOLING_CONTENT_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_SQLMANAGER_NOT_INITIALIZED_0 = "ERR_SQLMANAGER_NOT_INITIALIZED_0";
 
@@ -274,6 +277,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_ASSIGNED_POOL_1 = "INIT_ASSIGNED_POOL_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_ASSIGNED_READ_POOL_2 = "INIT_ASSIGNED_READ_POOL_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_DEFAULT_USERS_CREATED_0 = "INIT_DEFAULT_USERS_CREATED_0";
 
@@ -421,6 +427,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_WARN_FOLDER_WRONG_STATE_NC_1 = "LOG_WARN_FOLDER_WRONG_STATE_NC_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_WRITING_PUBLISH_HISTORY_BATCH_1 = "LOG_WRITING_PUBLISH_HISTORY_BATCH_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_WRITING_PUBLISHING_HISTORY_1 = "LOG_WRITING_PUBLISHING_HISTORY_1";
 
@@ -27,7 +27,13 @@
 
 package org.opencms.db.hsqldb;
 
+import org.opencms.db.CmsDbContext;
 import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.util.CmsUUID;
+
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * HSQLDB implementation of the VFS driver methods.<p>
@@ -44,4 +50,15 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
 
         return CmsSqlManager.getInstance(classname);
     }
+
+    /**
+     * @see org.opencms.db.generic.CmsVfsDriver#internalSpoolContent(CmsDbContext, CmsUUID, CmsUUID, OutputStream)
+     */
+    @Override
+    protected void internalSpoolContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId, OutputStream out)
+    throws CmsDataAccessException, IOException {
+
+        // HSQLDB fails on SUBSTRING for BLOBs with an offset, but the BLOB stream is read in blocks
+        internalSpoolBlobContent(dbc, projectId, resourceId, out);
+    }
 }
\ No newline at end of file
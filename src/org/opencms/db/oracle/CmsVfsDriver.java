@@ -171,6 +171,17 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
         internalWriteContent(dbc, dbc.currentProject().getUuid(), resourceId, content, -1);
     }
 
+    /**
+     * @see org.opencms.db.generic.CmsVfsDriver#internalSpoolContent(CmsDbContext, CmsUUID, CmsUUID, OutputStream)
+     */
+    @Override
+    protected void internalSpoolContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId, OutputStream out)
+    throws CmsDataAccessException, IOException {
+
+        // Oracle has no SUBSTRING for BLOBs, but the LOB locator streams the content
+        internalSpoolBlobContent(dbc, projectId, resourceId, out);
+    }
+
     /**
      * Writes the resource content with the specified resource id.<p>
      *
@@ -0,0 +1,411 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.timing;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsLog;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Collects statistics about the SQL queries executed by the drivers, and about the time spent waiting
+ * for connections of the database pools.<p>
+ *
+ * Queries are identified by their key in the <code>query.properties</code> files. Statements created for SQL
+ * without a query key are collected under {@link #KEY_UNNAMED}. Executions taking longer than the slow query
+ * threshold are logged together with the bound parameters.<p>
+ *
+ * The statistics are configured with the following parameters in <code>opencms.properties</code>:
+ * <ul>
+ * <li><code>db.querystats.enabled</code>: enables or disables the statistics, default is <code>true</code></li>
+ * <li><code>db.querystats.slowquery</code>: the slow query threshold in milliseconds, 0 (the default) disables
+ * the slow query log</li>
+ * <li><code>db.querystats.slowquery.strings</code>: if <code>true</code>, the values of string parameters are
+ * written to the slow query log; by default they are redacted, since they may contain user data such as
+ * password hashes or email addresses</li>
+ * </ul>
+ *
+ * @since 20.0.0
+ */
+public class CmsSqlQueryStatistics {
+
+    /** The singleton instance. */
+    public static final CmsSqlQueryStatistics INSTANCE = new CmsSqlQueryStatistics();
+
+    /** The key under which statements without query key are collected. */
+    public static final String KEY_UNNAMED = "(unnamed)";
+
+    /** Configuration parameter to enable or disable the statistics. */
+    public static final String PARAM_ENABLED = "db.querystats.enabled";
+
+    /** Configuration parameter for the slow query threshold in milliseconds. */
+    public static final String PARAM_SLOW_QUERY = "db.querystats.slowquery";
+
+    /** Configuration parameter to write the values of string parameters to the slow query log. */
+    public static final String PARAM_SLOW_QUERY_STRINGS = "db.querystats.slowquery.strings";
+
+    /** The logger instance for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSqlQueryStatistics.class);
+
+    /** The maximum length of a parameter value in the slow query log. */
+    private static final int MAX_PARAMETER_LENGTH = 200;
+
+    /** The connection wait statistics by pool URL. */
+    private ConcurrentHashMap<String, CmsSqlQueryStats> m_connectionWaits =
+        new ConcurrentHashMap<String, CmsSqlQueryStats>();
+
+    /** Flag which indicates whether the statistics are collected. */
+    private volatile boolean m_enabled = true;
+
+    /** The query statistics by query key. */
+    private ConcurrentHashMap<String, CmsSqlQueryStats> m_queries = new ConcurrentHashMap<String, CmsSqlQueryStats>();
+
+    /** Flag which indicates whether the values of string parameters are written to the slow query log. */
+    private volatile boolean m_logStringParameters;
+
+    /** The slow query threshold in milliseconds, 0 if the slow query log is disabled. */
+    private volatile long m_slowQueryThreshold;
+
+    /**
+     * Hidden default constructor.<p>
+     */
+    protected CmsSqlQueryStatistics() {
+        // do nothing
+    }
+
+    /**
+     * Adds the time spent waiting for a connection of a pool.<p>
+     *
+     * @param poolUrl the pool URL
+     * @param nanos the time spent waiting in nanoseconds
+     */
+    public void addConnectionWait(String poolUrl, long nanos) {
+
+        if (m_enabled) {
+            getStats(m_connectionWaits, poolUrl).add(nanos, false);
+        }
+    }
+
+    /**
+     * Logs the execution of a query if it took longer than the slow query threshold.<p>
+     *
+     * @param queryKey the query key
+     * @param sql the SQL of the query
+     * @param parameters the bound parameters by index, may be <code>null</code>
+     * @param nanos the duration of the execution in nanoseconds
+     */
+    public void checkSlowQuery(String queryKey, String sql, Map<Integer, Object> parameters, long nanos) {
+
+        long threshold = m_slowQueryThreshold;
+        if ((threshold <= 0) || (nanos < (threshold * 1000000L)) || !LOG.isWarnEnabled()) {
+            return;
+        }
+        StringBuffer message = new StringBuffer(256);
+        message.append("Slow query ").append(queryKey).append(" took ").append(nanos / 1000000L).append(" ms: ");
+        message.append(sql);
+        if ((parameters != null) && !parameters.isEmpty()) {
+            message.append(" | parameters: ");
+            boolean first = true;
+            for (Map.Entry<Integer, Object> entry : parameters.entrySet()) {
+                if (!first) {
+                    message.append(", ");
+                }
+                first = false;
+                message.append(entry.getKey()).append('=').append(formatParameter(entry.getValue()));
+            }
+        }
+        LOG.warn(message.toString());
+    }
+
+    /**
+     * Returns the connection wait statistics of all pools.<p>
+     *
+     * @return the connection wait statistics, sorted by total wait time, descending
+     */
+    public List<CmsSqlQueryStats> getConnectionWaitStatistics() {
+
+        return sortByTotalTime(m_connectionWaits.values());
+    }
+
+    /**
+     * Returns the statistics of all executed queries.<p>
+     *
+     * @return the query statistics, sorted by total execution time, descending
+     */
+    public List<CmsSqlQueryStats> getQueryStatistics() {
+
+        return sortByTotalTime(m_queries.values());
+    }
+
+    /**
+     * Returns a textual report of the collected statistics.<p>
+     *
+     * @return the report
+     */
+    public String getReport() {
+
+        StringBuffer result = new StringBuffer(4096);
+        result.append("Query statistics (enabled: ").append(m_enabled);
+        result.append(", slow query threshold: ").append(m_slowQueryThreshold).append(" ms)\n\n");
+        result.append(
+            String.format(
+                Locale.ENGLISH,
+                "%-50s %10s %12s %10s %10s %8s %12s %8s  %s%n",
+                "Query",
+                "Count",
+                "Total ms",
+                "Avg ms",
+                "Max ms",
+                "p95 ms",
+                "Rows",
+                "Errors",
+                "Histogram " + formatHistogramBounds()));
+        for (CmsSqlQueryStats stats : getQueryStatistics()) {
+            appendStats(result, stats);
+        }
+        result.append("\nConnection wait statistics\n\n");
+        for (CmsSqlQueryStats stats : getConnectionWaitStatistics()) {
+            appendStats(result, stats);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the slow query threshold.<p>
+     *
+     * @return the slow query threshold in milliseconds, 0 if the slow query log is disabled
+     */
+    public long getSlowQueryThreshold() {
+
+        return m_slowQueryThreshold;
+    }
+
+    /**
+     * Configures the statistics from the given configuration.<p>
+     *
+     * @param configuration the configuration from <code>opencms.properties</code>
+     */
+    public void initialize(CmsParameterConfiguration configuration) {
+
+        setEnabled(configuration.getBoolean(PARAM_ENABLED, true));
+        setSlowQueryThreshold(configuration.getInteger(PARAM_SLOW_QUERY, 0));
+        setLogStringParameters(configuration.getBoolean(PARAM_SLOW_QUERY_STRINGS, false));
+    }
+
+    /**
+     * Checks if the statistics are collected.<p>
+     *
+     * @return <code>true</code> if the statistics are collected
+     */
+    public boolean isEnabled() {
+
+        return m_enabled;
+    }
+
+    /**
+     * Checks if the values of string parameters are written to the slow query log.<p>
+     *
+     * @return <code>true</code> if the values of string parameters are logged, <code>false</code> if they are redacted
+     */
+    public boolean isLogStringParameters() {
+
+        return m_logStringParameters;
+    }
+
+    /**
+     * Removes all collected statistics.<p>
+     */
+    public void reset() {
+
+        m_queries.clear();
+        m_connectionWaits.clear();
+    }
+
+    /**
+     * Enables or disables the statistics.<p>
+     *
+     * @param enabled <code>true</code> if the statistics should be collected
+     */
+    public void setEnabled(boolean enabled) {
+
+        m_enabled = enabled;
+    }
+
+    /**
+     * Enables or disables writing the values of string parameters to the slow query log.<p>
+     *
+     * @param logStringParameters <code>true</code> to log the values, <code>false</code> to redact them
+     */
+    public void setLogStringParameters(boolean logStringParameters) {
+
+        m_logStringParameters = logStringParameters;
+    }
+
+    /**
+     * Sets the slow query threshold.<p>
+     *
+     * @param slowQueryThreshold the slow query threshold in milliseconds, 0 to disable the slow query log
+     */
+    public void setSlowQueryThreshold(long slowQueryThreshold) {
+
+        m_slowQueryThreshold = Math.max(0, slowQueryThreshold);
+    }
+
+    /**
+     * Wraps a prepared statement so its executions are measured.<p>
+     *
+     * @param statement the prepared statement
+     * @param queryKey the query key, or <code>null</code> if the statement was not created for a query key
+     * @param sql the SQL of the statement
+     *
+     * @return the wrapped statement, or the statement itself if the statistics are disabled
+     */
+    public PreparedStatement wrapStatement(PreparedStatement statement, String queryKey, String sql) {
+
+        if (!m_enabled) {
+            return statement;
+        }
+        CmsSqlQueryStats stats = getStats(m_queries, queryKey != null ? queryKey : KEY_UNNAMED);
+        return (PreparedStatement)Proxy.newProxyInstance(
+            CmsSqlQueryStatistics.class.getClassLoader(),
+            new Class[] {PreparedStatement.class},
+            new CmsSqlStatementInvocationHandler(statement, sql, stats, m_slowQueryThreshold > 0));
+    }
+
+    /**
+     * Appends a line for the given statistics to the report.<p>
+     *
+     * @param result the report
+     * @param stats the statistics
+     */
+    private void appendStats(StringBuffer result, CmsSqlQueryStats stats) {
+
+        long p95 = stats.getPercentileBoundMillis(95);
+        StringBuffer histogram = new StringBuffer();
+        for (long count : stats.getHistogram()) {
+            histogram.append(histogram.length() > 0 ? "/" : "").append(count);
+        }
+        result.append(
+            String.format(
+                Locale.ENGLISH,
+                "%-50s %10d %12.1f %10.3f %10.1f %8s %12d %8d  %s%n",
+                stats.getKey(),
+                Long.valueOf(stats.getCount()),
+                Double.valueOf(stats.getTotalMillis()),
+                Double.valueOf(stats.getAverageMillis()),
+                Double.valueOf(stats.getMaxMillis()),
+                p95 < 0 ? "more" : "<" + p95,
+                Long.valueOf(stats.getRows()),
+                Long.valueOf(stats.getErrors()),
+                histogram));
+    }
+
+    /**
+     * Formats the histogram bucket bounds for the report header.<p>
+     *
+     * @return the formatted bucket bounds
+     */
+    private String formatHistogramBounds() {
+
+        StringBuffer result = new StringBuffer();
+        for (long bound : CmsSqlQueryStats.HISTOGRAM_BOUNDS_MILLIS) {
+            result.append(result.length() > 0 ? "/" : "").append('<').append(bound);
+        }
+        return result.append("/more (ms)").toString();
+    }
+
+    /**
+     * Formats a bound parameter for the slow query log.<p>
+     *
+     * @param value the parameter value
+     *
+     * @return the formatted value
+     */
+    private String formatParameter(Object value) {
+
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof byte[]) {
+            return "byte[" + ((byte[])value).length + "]";
+        }
+        if ((value instanceof Number) || (value instanceof Boolean)) {
+            return value.toString();
+        }
+        String str = value.toString();
+        if (!m_logStringParameters) {
+            return "<redacted, length " + str.length() + ">";
+        }
+        if (str.length() > MAX_PARAMETER_LENGTH) {
+            str = str.substring(0, MAX_PARAMETER_LENGTH) + "...";
+        }
+        return "'" + str + "'";
+    }
+
+    /**
+     * Gets the statistics for the given key, creating them if necessary.<p>
+     *
+     * @param statsMap the map containing the statistics
+     * @param key the key
+     *
+     * @return the statistics
+     */
+    private CmsSqlQueryStats getStats(ConcurrentHashMap<String, CmsSqlQueryStats> statsMap, String key) {
+
+        CmsSqlQueryStats stats = statsMap.get(key);
+        if (stats == null) {
+            stats = statsMap.computeIfAbsent(key, k -> new CmsSqlQueryStats(k));
+        }
+        return stats;
+    }
+
+    /**
+     * Sorts statistics by their total time.<p>
+     *
+     * @param stats the statistics to sort
+     *
+     * @return the sorted statistics, in descending order
+     */
+    private List<CmsSqlQueryStats> sortByTotalTime(Collection<CmsSqlQueryStats> stats) {
+
+        List<CmsSqlQueryStats> result = new ArrayList<CmsSqlQueryStats>(stats);
+        result.sort((a, b) -> Double.compare(b.getTotalMillis(), a.getTotalMillis()));
+        return result;
+    }
+
+}
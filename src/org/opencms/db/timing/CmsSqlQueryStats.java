@@ -0,0 +1,229 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.timing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics for the executions of a single SQL query, or for the connections taken from a single pool.<p>
+ *
+ * Durations are collected in a histogram with the fixed bucket bounds {@link #HISTOGRAM_BOUNDS_MILLIS}, so
+ * adding a measurement never allocates and never blocks.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsSqlQueryStats {
+
+    /** The upper bounds (exclusive) of the histogram buckets in milliseconds; the last bucket has no upper bound. */
+    public static final long[] HISTOGRAM_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    /** The number of measurements. */
+    private LongAdder m_count = new LongAdder();
+
+    /** The number of failed executions. */
+    private LongAdder m_errors = new LongAdder();
+
+    /** The histogram buckets. */
+    private LongAdder[] m_histogram;
+
+    /** The query key or pool URL. */
+    private String m_key;
+
+    /** The maximum duration in nanoseconds. */
+    private AtomicLong m_maxNanos = new AtomicLong();
+
+    /** The number of rows read or written. */
+    private LongAdder m_rows = new LongAdder();
+
+    /** The total duration in nanoseconds. */
+    private LongAdder m_totalNanos = new LongAdder();
+
+    /**
+     * Creates a new statistics object.<p>
+     *
+     * @param key the query key or pool URL
+     */
+    public CmsSqlQueryStats(String key) {
+
+        m_key = key;
+        m_histogram = new LongAdder[HISTOGRAM_BOUNDS_MILLIS.length + 1];
+        for (int i = 0; i < m_histogram.length; i++) {
+            m_histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds a measurement.<p>
+     *
+     * @param nanos the duration in nanoseconds
+     * @param error <code>true</code> if the execution failed
+     */
+    public void add(long nanos, boolean error) {
+
+        m_count.increment();
+        m_totalNanos.add(nanos);
+        if (error) {
+            m_errors.increment();
+        }
+        long max = m_maxNanos.get();
+        while ((nanos > max) && !m_maxNanos.compareAndSet(max, nanos)) {
+            max = m_maxNanos.get();
+        }
+        long millis = nanos / 1000000L;
+        int bucket = 0;
+        while ((bucket < HISTOGRAM_BOUNDS_MILLIS.length) && (millis >= HISTOGRAM_BOUNDS_MILLIS[bucket])) {
+            bucket++;
+        }
+        m_histogram[bucket].increment();
+    }
+
+    /**
+     * Adds to the number of rows read or written.<p>
+     *
+     * @param rows the number of rows
+     */
+    public void addRows(long rows) {
+
+        if (rows > 0) {
+            m_rows.add(rows);
+        }
+    }
+
+    /**
+     * Returns the average duration in milliseconds.<p>
+     *
+     * @return the average duration in milliseconds
+     */
+    public double getAverageMillis() {
+
+        long count = m_count.sum();
+        return count == 0 ? 0 : (m_totalNanos.sum() / 1000000.0) / count;
+    }
+
+    /**
+     * Returns the number of measurements.<p>
+     *
+     * @return the number of measurements
+     */
+    public long getCount() {
+
+        return m_count.sum();
+    }
+
+    /**
+     * Returns the number of failed executions.<p>
+     *
+     * @return the number of failed executions
+     */
+    public long getErrors() {
+
+        return m_errors.sum();
+    }
+
+    /**
+     * Returns the counts of the histogram buckets.<p>
+     *
+     * @return the counts of the histogram buckets, one more than {@link #HISTOGRAM_BOUNDS_MILLIS}
+     */
+    public long[] getHistogram() {
+
+        long[] result = new long[m_histogram.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = m_histogram[i].sum();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the query key or pool URL.<p>
+     *
+     * @return the query key or pool URL
+     */
+    public String getKey() {
+
+        return m_key;
+    }
+
+    /**
+     * Returns the maximum duration in milliseconds.<p>
+     *
+     * @return the maximum duration in milliseconds
+     */
+    public double getMaxMillis() {
+
+        return m_maxNanos.get() / 1000000.0;
+    }
+
+    /**
+     * Returns the upper bound of the histogram bucket containing the given percentile.<p>
+     *
+     * @param percentile the percentile, between 0 and 100
+     *
+     * @return the upper bound in milliseconds, or -1 if the percentile lies in the last, unbounded bucket
+     */
+    public long getPercentileBoundMillis(double percentile) {
+
+        long[] histogram = getHistogram();
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        long threshold = (long)Math.ceil((total * percentile) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < HISTOGRAM_BOUNDS_MILLIS.length; i++) {
+            seen += histogram[i];
+            if (seen >= threshold) {
+                return HISTOGRAM_BOUNDS_MILLIS[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of rows read or written.<p>
+     *
+     * @return the number of rows
+     */
+    public long getRows() {
+
+        return m_rows.sum();
+    }
+
+    /**
+     * Returns the total duration in milliseconds.<p>
+     *
+     * @return the total duration in milliseconds
+     */
+    public double getTotalMillis() {
+
+        return m_totalNanos.sum() / 1000000.0;
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.timing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Invocation handler for prepared statements which measures the executions of the statement.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsSqlStatementInvocationHandler implements InvocationHandler {
+
+    /**
+     * Invocation handler for result sets which counts the rows read.<p>
+     */
+    private static class ResultSetHandler implements InvocationHandler {
+
+        /** The number of rows read. */
+        private long m_rows;
+
+        /** The statistics to which the rows are added. */
+        private CmsSqlQueryStats m_stats;
+
+        /** The result set which we are proxying. */
+        private ResultSet m_target;
+
+        /**
+         * Creates a new handler instance.<p>
+         *
+         * @param target the result set
+         * @param stats the statistics to which the rows are added
+         */
+        ResultSetHandler(ResultSet target, CmsSqlQueryStats stats) {
+
+            m_target = target;
+            m_stats = stats;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            Object result = invokeTarget(m_target, method, args);
+            String name = method.getName();
+            if ("next".equals(name)) {
+                if (Boolean.TRUE.equals(result)) {
+                    m_rows++;
+                }
+            } else if ("close".equals(name)) {
+                flushRows();
+            }
+            return result;
+        }
+
+        /**
+         * Adds the rows read so far to the statistics.<p>
+         */
+        void flushRows() {
+
+            m_stats.addRows(m_rows);
+            m_rows = 0;
+        }
+    }
+
+    /** The bound parameters by index, <code>null</code> if parameters are not recorded. */
+    private Map<Integer, Object> m_parameters;
+
+    /** The handler of the current result set. */
+    private ResultSetHandler m_resultSetHandler;
+
+    /** The SQL of the statement. */
+    private String m_sql;
+
+    /** The statistics for the statement's query key. */
+    private CmsSqlQueryStats m_stats;
+
+    /** The statement which we are proxying. */
+    private Object m_target;
+
+    /**
+     * Creates a new handler instance.<p>
+     *
+     * @param target the statement
+     * @param sql the SQL of the statement
+     * @param stats the statistics for the statement's query key
+     * @param recordParameters <code>true</code> if the bound parameters should be recorded for the slow query log
+     */
+    public CmsSqlStatementInvocationHandler(
+        Object target,
+        String sql,
+        CmsSqlQueryStats stats,
+        boolean recordParameters) {
+
+        m_target = target;
+        m_sql = sql;
+        m_stats = stats;
+        if (recordParameters) {
+            m_parameters = new TreeMap<Integer, Object>();
+        }
+    }
+
+    /**
+     * Invokes a method on the target object, unwrapping exceptions thrown by the method.<p>
+     *
+     * @param target the target object
+     * @param method the method
+     * @param args the arguments
+     *
+     * @return the result of the method
+     *
+     * @throws Throwable if the method throws an exception
+     */
+    static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause != null) {
+                throw cause;
+            } else {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        String name = method.getName();
+        if (!name.startsWith("execute")) {
+            if ((m_parameters != null)
+                && name.startsWith("set")
+                && (args != null)
+                && (args.length >= 2)
+                && (args[0] instanceof Integer)) {
+                m_parameters.put((Integer)args[0], args[1]);
+            } else if ((m_parameters != null) && "clearParameters".equals(name)) {
+                m_parameters.clear();
+            } else if ("getResultSet".equals(name)) {
+                return wrapResultSet((ResultSet)invokeTarget(m_target, method, args));
+            } else if ("close".equals(name) && (m_resultSetHandler != null)) {
+                m_resultSetHandler.flushRows();
+            }
+            return invokeTarget(m_target, method, args);
+        }
+        boolean error = true;
+        long start = System.nanoTime();
+        try {
+            Object result = invokeTarget(m_target, method, args);
+            error = false;
+            if (result instanceof ResultSet) {
+                result = wrapResultSet((ResultSet)result);
+            } else if (result instanceof Integer) {
+                m_stats.addRows(((Integer)result).intValue());
+            } else if (result instanceof Long) {
+                m_stats.addRows(((Long)result).longValue());
+            } else if (result instanceof int[]) {
+                for (int count : (int[])result) {
+                    m_stats.addRows(count);
+                }
+            }
+            return result;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            m_stats.add(nanos, error);
+            CmsSqlQueryStatistics.INSTANCE.checkSlowQuery(m_stats.getKey(), m_sql, m_parameters, nanos);
+        }
+    }
+
+    /**
+     * Wraps a result set of the statement in a proxy which counts the rows read.<p>
+     *
+     * @param resultSet the result set
+     *
+     * @return the proxy
+     */
+    private ResultSet wrapResultSet(ResultSet resultSet) {
+
+        if (resultSet == null) {
+            return null;
+        }
+        if (m_resultSetHandler != null) {
+            m_resultSetHandler.flushRows();
+        }
+        m_resultSetHandler = new ResultSetHandler(resultSet, m_stats);
+        return (ResultSet)Proxy.newProxyInstance(
+            CmsSqlStatementInvocationHandler.class.getClassLoader(),
+            new Class[] {ResultSet.class},
+            m_resultSetHandler);
+    }
+
+}
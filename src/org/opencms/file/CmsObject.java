@@ -74,7 +74,10 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -2049,6 +2052,23 @@ public final class CmsObject {
         m_securityManager.importAccessControlEntries(m_context, resource, acEntries);
     }
 
+    /**
+     * Writes the access control entries of several resources as new access control entries of these resources.<p>
+     *
+     * Already existing access control entries of the resources are removed before.
+     * This is faster than importing the entries resource by resource, since all entries
+     * are written with a single database context.<p>
+     *
+     * @param acEntries the lists of <code>{@link CmsAccessControlEntry}</code> objects by resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importAccessControlEntries(Map<CmsResource, List<CmsAccessControlEntry>> acEntries)
+    throws CmsException {
+
+        m_securityManager.importAccessControlEntries(m_context, acEntries);
+    }
+
     /**
      * Imports a new relation to the given resource.<p>
      *
@@ -2523,6 +2543,34 @@ public final class CmsObject {
         return m_securityManager.readBestUrlName(m_context, id, locale, defaultLocales);
     }
 
+    /**
+     * Opens a stream over the binary content of a file resource.<p>
+     *
+     * In contrast to {@link #readFile(CmsResource)}, the content of large files is not held in memory,
+     * but spooled to a temporary file, so this should be used to deliver or copy the contents of large files.
+     * The stream must always be closed by the caller.<p>
+     *
+     * No resource filter is applied when reading the content, since we already have
+     * a full resource instance.<p>
+     *
+     * @param resource the file resource to read the content from
+     *
+     * @return a stream over the content of the file
+     *
+     * @throws CmsException if the content could not be read for any reason
+     */
+    public InputStream readContentStream(CmsResource resource) throws CmsException {
+
+        if (resource instanceof CmsFile) {
+            byte[] contents = ((CmsFile)resource).getContents();
+            if ((contents != null) && (contents.length > 0)) {
+                // the content is already available
+                return new ByteArrayInputStream(contents);
+            }
+        }
+        return m_securityManager.readContentStream(m_context, resource);
+    }
+
     /**
      * Returns the default resource for the given folder.<p>
      * <ol>
@@ -3375,6 +3423,27 @@ public final class CmsObject {
         return m_securityManager.readResource(m_context, addSiteRoot(resourcename), filter);
     }
 
+    /**
+     * Reads the resources with the given structure IDs, using the specified resource filter.<p>
+     *
+     * This is the bulk version of {@link #readResource(CmsUUID, CmsResourceFilter)}: the resources
+     * are read with as few database statements as possible. Resources that do not exist,
+     * that do not match the filter or that the current user is not allowed to read are
+     * not contained in the result, no exception is thrown for them.<p>
+     *
+     * @param structureIds the structure IDs of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in no particular order
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readResources(Collection<CmsUUID> structureIds, CmsResourceFilter filter)
+    throws CmsException {
+
+        return m_securityManager.readResources(m_context, structureIds, filter);
+    }
+
     /**
      * Reads all resources below the given resource matching the filter criteria,
      * including the full tree below the path only in case the <code>readTree</code>
@@ -141,6 +141,9 @@ public class CmsFlexBucketConfiguration {
     /** Configuration key for the list of folders for which the whole flex cache should be purged when a resource in them is published. */
     public static final String KEY_CLEAR_ALL = "clearAll";
 
+    /** Configuration key for enabling the dependency based invalidation of flex cache entries on publish. */
+    public static final String KEY_DEPENDENCY_TRACKING = "dependencyTracking";
+
     /** The configuration key prefix used to define a bucket. */
     public static final String KEY_PREFIX_BUCKET = "bucket.";
 
@@ -156,6 +159,9 @@ public class CmsFlexBucketConfiguration {
     /** A list of paths for which the flex cache should be cleared completely if any resources below them are published. */
     private List<String> m_clearAll = Lists.newArrayList("/system/modules");
 
+    /** Flag indicating whether flex cache entries should be invalidated based on their tracked dependencies. */
+    private boolean m_dependencyTracking;
+
     /** Flag which, when set, prevents further modification of this configuration object. */
     private boolean m_frozen;
 
@@ -169,6 +175,7 @@ public class CmsFlexBucketConfiguration {
 
         ArrayListMultimap<String, String> multimap = ArrayListMultimap.create();
         List<String> clearAll = Lists.newArrayList();
+        boolean dependencyTracking = false;
         for (Object keyObj : properties.keySet()) {
             String key = (String)keyObj;
             key = key.trim();
@@ -179,9 +186,12 @@ public class CmsFlexBucketConfiguration {
                 multimap.putAll(bucketName, Arrays.asList(value.trim().split(" *, *")));
             } else if (KEY_CLEAR_ALL.equals(key)) {
                 clearAll = Arrays.asList(value.trim().split(" *, *"));
+            } else if (KEY_DEPENDENCY_TRACKING.equals(key)) {
+                dependencyTracking = Boolean.parseBoolean(value);
             }
         }
         CmsFlexBucketConfiguration result = new CmsFlexBucketConfiguration();
+        result.setDependencyTracking(dependencyTracking);
         if (!clearAll.isEmpty()) {
             result.setClearAll(clearAll);
         }
@@ -292,6 +302,16 @@ public class CmsFlexBucketConfiguration {
         return new BucketSet(bucketNames);
     }
 
+    /**
+     * Returns true if flex cache entries should be invalidated based on the resources they were generated from.<p>
+     *
+     * @return true if dependency tracking is enabled
+     */
+    public boolean isDependencyTracking() {
+
+        return m_dependencyTracking;
+    }
+
     /**
      * Sets the 'clear all' list, a list of paths for which the complete Flex cache should be cleared if any resource
      * below them is published.<p>
@@ -306,6 +326,19 @@ public class CmsFlexBucketConfiguration {
         m_clearAll = Collections.unmodifiableList(clearAll);
     }
 
+    /**
+     * Enables or disables the dependency based invalidation of flex cache entries.<p>
+     *
+     * @param dependencyTracking true if dependency tracking should be enabled
+     */
+    public void setDependencyTracking(boolean dependencyTracking) {
+
+        if (m_frozen) {
+            throw new IllegalStateException("Can not modify frozen CmsFlexBucketConfiguration");
+        }
+        m_dependencyTracking = dependencyTracking;
+    }
+
     /**
      * Returns true if for the given set of published paths, the complete Flex cache should be cleared based on this configuration.<p>
      *
@@ -27,6 +27,7 @@
 
 package org.opencms.flex;
 
+import org.opencms.cache.CmsConcurrentLruCache;
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
 import org.opencms.db.CmsModificationContext;
@@ -36,28 +37,27 @@ import org.opencms.flex.CmsFlexBucketConfiguration.BucketSet;
 import org.opencms.loader.CmsJspLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsClusterEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
 import com.google.common.collect.Lists;
@@ -84,6 +84,10 @@ import com.google.common.collect.Lists;
  * This class is a simple data type that contains of a Map of CmsFlexCacheEntries,
  * with variations - Strings as keys.<p>
  *
+ * Both levels are concurrent maps, so cache lookups never block. Clearing the cache
+ * replaces the affected maps first and then releases the removed entries one by one,
+ * so requests reading the cache never have to wait for a clear operation to finish.<p>
+ *
  * Here's a short summary of used terms:
  * <ul>
  * <li><b>key:</b>
@@ -100,7 +104,9 @@ import com.google.common.collect.Lists;
  *
  * Cache clearing is handled using events.
  * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT}
- * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.<p>
+ * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.
+ * These events are also processed if they were replicated from another cluster node,
+ * since the cache is cleared based on the published resources read from the database.<p>
  *
  * @since 6.0.0
  *
@@ -109,7 +115,7 @@ import com.google.common.collect.Lists;
  * @see org.opencms.cache.CmsLruCache
  * @see org.opencms.cache.I_CmsLruCacheObject
  */
-public class CmsFlexCache extends Object implements I_CmsEventListener {
+public class CmsFlexCache extends Object implements I_CmsClusterEventListener {
 
     /**
      * A simple data container class for the FlexCache variations.<p>
@@ -120,7 +126,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheKey m_key;
 
         /** Maps variations to CmsFlexCacheEntries. */
-        public Map<String, I_CmsLruCacheObject> m_map;
+        public volatile Map<String, I_CmsLruCacheObject> m_map;
+
+        /** The time (in nanoseconds) this variation was last accessed, used for evicting keys. */
+        volatile long m_lastAccess;
 
         /**
          * Generates a new instance of CmsFlexCacheVariation.<p>
@@ -130,61 +139,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheVariation(CmsFlexCacheKey theKey) {
 
             m_key = theKey;
-            m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            m_map = createVariationMap();
+            m_lastAccess = System.nanoTime();
         }
-    }
-
-    /**
-     * Extended LRUMap that handles the variations in case a key is removed.<p>
-     */
-    class CmsFlexKeyMap extends LRUMap {
-
-        /** Serial version UID required for safe serialization. */
-        private static final long serialVersionUID = 6931995916013396902L;
 
         /**
-         * Initialize the map with the given size.<p>
-         *
-         * @param maxSize the maximum number of key to cache
+         * Marks this variation as accessed.<p>
          */
-        public CmsFlexKeyMap(int maxSize) {
-
-            super(maxSize);
-        }
-
-        /**
-         * Ensures that all variations that referenced by this key are released
-         * if the key is released.<p>
-         *
-         * @param entry the entry to remove
-         *
-         * @return <code>true</code> to actually delete the entry
-         *
-         * @see LRUMap#removeLRU(LinkEntry)
-         */
-        @Override
-        protected boolean removeLRU(LinkEntry entry) {
-
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
-            if (v == null) {
-                return true;
-            }
-            Map<String, I_CmsLruCacheObject> m = v.m_map;
-            if ((m == null) || (m.size() == 0)) {
-                return true;
-            }
+        void touch() {
 
-            // make a copy to safely iterate over because the line "m_variationCache.remove(e)" modifies the variation map for the key
-            Collection<I_CmsLruCacheObject> entries = new ArrayList<I_CmsLruCacheObject>(m.values());
-            synchronized (m_variationCache) {
-                for (I_CmsLruCacheObject e : entries) {
-                    m_variationCache.remove(e);
-                }
-                v.m_map.clear();
-                v.m_map = null;
-                v.m_key = null;
-            }
-            return true;
+            m_lastAccess = System.nanoTime();
         }
     }
 
@@ -245,11 +209,20 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** The CMS object used for VFS operations. */
     private CmsObject m_cmsObject;
 
+    /** The index of the cache entries by the resources they depend on, used if dependency tracking is enabled. */
+    private final CmsFlexCacheDependencyIndex m_dependencyIndex = new CmsFlexCacheDependencyIndex();
+
     /** Indicates if the cache is enabled or not. */
     private boolean m_enabled;
 
+    /** Lock to make sure only one thread at a time evicts keys. */
+    private final ReentrantLock m_evictionLock = new ReentrantLock();
+
     /** Map to store the entries for fast lookup. */
-    private Map<String, CmsFlexCacheVariation> m_keyCache;
+    private volatile Map<String, CmsFlexCacheVariation> m_keyCache;
+
+    /** The maximum number of keys in the cache. */
+    private int m_maxKeys;
 
     /** Counter for the size. */
     private int m_size;
@@ -279,14 +252,13 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         int maxEntryBytes = configuration.getMaxEntryBytes();
         int maxKeys = configuration.getMaxKeys();
 
-        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+        m_variationCache = new CmsConcurrentLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
-            CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(
-                CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
-            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            m_maxKeys = Math.max(1, maxKeys);
+            m_keyCache = new ConcurrentHashMap<String, CmsFlexCacheVariation>(INITIAL_CAPACITY_CACHE);
+            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", m_keyCache);
 
             OpenCms.addCmsEventListener(
                 this,
@@ -307,37 +279,13 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     }
 
     /**
-     * Copies the key set of a map while synchronizing on the map.<p>
+     * Creates a new, empty map for the variations of a key.<p>
      *
-     * @param map the map whose key set should be copied
-     * @return the copied key set
+     * @return a new variation map
      */
-    private static <K, V> Set<K> synchronizedCopyKeys(Map<K, V> map) {
+    static Map<String, I_CmsLruCacheObject> createVariationMap() {
 
-        if (map == null) {
-            return new HashSet<K>();
-        }
-        synchronized (map) {
-            return new HashSet<K>(map.keySet());
-        }
-    }
-
-    /**
-     * Copies a map while synchronizing on it.<p>
-     *
-     * @param map the map to copy
-     * @return the copied map
-     */
-    private static <K, V> Map<K, V> synchronizedCopyMap(Map<K, V> map) {
-
-        if (map == null) {
-            return new HashMap<K, V>();
-        }
-
-        synchronized (map) {
-
-            return new HashMap<K, V>(map);
-        }
+        return new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
     }
 
     /**
@@ -421,6 +369,8 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                                         CmsModificationContext.getOnlineFolderOptions().getFlexCacheDelay(),
                                         TimeUnit.MILLISECONDS);
                                 }
+                            } else if (isDependencyTracking()) {
+                                clearForPublishedResources(publishId, publishedResources);
                             } else {
                                 clearBucketsForPublishList(publishId, paths);
                             }
@@ -498,21 +448,19 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     public void dumpKeys(StringBuffer buffer) {
 
-        synchronized (this) {
-            for (Map.Entry<String, CmsFlexCacheVariation> entry : synchronizedCopyMap(m_keyCache).entrySet()) {
-                String key = entry.getKey();
-                CmsFlexCacheVariation variations = entry.getValue();
-                Map<String, I_CmsLruCacheObject> variationMap = variations.m_map;
-                for (Map.Entry<String, I_CmsLruCacheObject> varEntry : variationMap.entrySet()) {
-                    String varKey = varEntry.getKey();
-                    I_CmsLruCacheObject value = varEntry.getValue();
-                    buffer.append(key + " VAR " + varKey + "\n");
-                    if (value instanceof CmsFlexCacheEntry) {
-                        CmsFlexCacheEntry singleCacheEntry = (CmsFlexCacheEntry)value;
-                        BucketSet buckets = singleCacheEntry.getBucketSet();
-                        if (buckets != null) {
-                            buffer.append("buckets = " + buckets.toString() + "\n");
-                        }
+        for (Map.Entry<String, CmsFlexCacheVariation> entry : m_keyCache.entrySet()) {
+            String key = entry.getKey();
+            CmsFlexCacheVariation variations = entry.getValue();
+            Map<String, I_CmsLruCacheObject> variationMap = variations.m_map;
+            for (Map.Entry<String, I_CmsLruCacheObject> varEntry : variationMap.entrySet()) {
+                String varKey = varEntry.getKey();
+                I_CmsLruCacheObject value = varEntry.getValue();
+                buffer.append(key + " VAR " + varKey + "\n");
+                if (value instanceof CmsFlexCacheEntry) {
+                    CmsFlexCacheEntry singleCacheEntry = (CmsFlexCacheEntry)value;
+                    BucketSet buckets = singleCacheEntry.getBucketSet();
+                    if (buckets != null) {
+                        buffer.append("buckets = " + buckets.toString() + "\n");
                     }
                 }
             }
@@ -562,7 +510,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled() || !OpenCms.getRoleManager().hasRole(cms, CmsRole.WORKPLACE_MANAGER)) {
             return null;
         }
-        return synchronizedCopyKeys(m_keyCache);
+        return new HashSet<String>(m_keyCache.keySet());
     }
 
     /**
@@ -586,7 +534,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
         Object o = m_keyCache.get(key);
         if (o != null) {
-            return synchronizedCopyKeys(((CmsFlexCacheVariation)o).m_map);
+            return new HashSet<String>(((CmsFlexCacheVariation)o).m_map.keySet());
         }
         return null;
     }
@@ -624,6 +572,21 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Indicates if the dependencies of cache entries are tracked, so that entries
+     * can be invalidated selectively when a resource they were generated from is published.<p>
+     *
+     * Dependency tracking is enabled with the <code>dependencyTracking</code> key
+     * in the Flex bucket configuration.<p>
+     *
+     * @return true if the dependencies of cache entries are tracked
+     */
+    public boolean isDependencyTracking() {
+
+        CmsFlexBucketConfiguration bucketConfig = m_bucketConfiguration;
+        return isEnabled() && (bucketConfig != null) && bucketConfig.isDependencyTracking();
+    }
+
     /**
      * Indicates if the cache is enabled (i.e. actually
      * caching entries) or not.<p>
@@ -684,23 +647,29 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 // requested resource is not cacheable
                 return null;
             }
-            CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
-            if (entry == null) {
-                // no cache entry available for variation
-                return null;
-            }
-            if (entry.getDateExpires() < System.currentTimeMillis()) {
-                // cache entry avaiable but expired, remove entry
-                m_variationCache.remove(entry);
-                return null;
-            }
-            // return the found cache entry
-            return entry;
+            return getEntry(v, variation);
         } else {
             return null;
         }
     }
 
+    /**
+     * Looks up a specific entry in the cache by the resource key name and the variation.<p>
+     *
+     * @param resource the resource key name, including the online / offline suffix
+     * @param variation the variation
+     *
+     * @return the entry found, or null if there is no such entry in the cache
+     */
+    CmsFlexCacheEntry get(String resource, String variation) {
+
+        if (!isEnabled()) {
+            return null;
+        }
+        CmsFlexCacheVariation v = m_keyCache.get(resource);
+        return v != null ? getEntry(v, variation) : null;
+    }
+
     /**
      * Returns the CmsFlexCacheKey data structure for a given resource name.<p>
      *
@@ -811,9 +780,11 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (o == null) {
             // No variation map for this resource yet, so create one
             CmsFlexCacheVariation variationMap = new CmsFlexCacheVariation(key);
-            m_keyCache.put(key.getResource(), variationMap);
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
+            if (m_keyCache.putIfAbsent(key.getResource(), variationMap) == null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
+                }
+                evictKeys();
             }
         }
         // If != null the key is already in the cache, so we just do nothing
@@ -822,15 +793,24 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /**
      * Empties the cache completely.<p>
      */
-    private synchronized void clear() {
+    private void clear() {
 
         if (!isEnabled()) {
             return;
         }
-        m_keyCache.clear();
+        // replace the key cache first, so that readers immediately see the empty cache
+        Map<String, CmsFlexCacheVariation> oldKeyCache = m_keyCache;
+        Map<String, CmsFlexCacheVariation> newKeyCache = new ConcurrentHashMap<String, CmsFlexCacheVariation>(
+            INITIAL_CAPACITY_CACHE);
+        OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", newKeyCache);
+        m_keyCache = newKeyCache;
         m_size = 0;
 
-        m_variationCache.clear();
+        // now release the entries of the old key cache
+        for (CmsFlexCacheVariation v : oldKeyCache.values()) {
+            releaseEntries(v.m_map);
+        }
+        oldKeyCache.clear();
 
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_0));
@@ -849,38 +829,25 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      * @param entriesOnly if <code>true</code>, only entries will be cleared, otherwise
      *         the entries and the keys will be cleared
      */
-    private synchronized void clearAccordingToSuffix(String suffix, boolean entriesOnly) {
+    private void clearAccordingToSuffix(String suffix, boolean entriesOnly) {
 
-        Set<String> keys = synchronizedCopyKeys(m_keyCache);
-        Iterator<String> i = keys.iterator();
+        Map<String, CmsFlexCacheVariation> keyCache = m_keyCache;
+        // iterating a concurrent map is safe while other threads modify it
+        Iterator<Map.Entry<String, CmsFlexCacheVariation>> i = keyCache.entrySet().iterator();
         while (i.hasNext()) {
-            String s = i.next();
-            if (s.endsWith(suffix)) {
-                CmsFlexCacheVariation v = m_keyCache.get(s);
+            Map.Entry<String, CmsFlexCacheVariation> entry = i.next();
+            if (entry.getKey().endsWith(suffix)) {
+                CmsFlexCacheVariation v = entry.getValue();
+                Map<String, I_CmsLruCacheObject> oldMap = v.m_map;
                 if (entriesOnly) {
                     // Clear only entry
-                    m_size -= v.m_map.size();
-                    Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
-                    while (allEntries.hasNext()) {
-                        I_CmsLruCacheObject nextObject = allEntries.next();
-                        allEntries.remove();
-                        m_variationCache.remove(nextObject);
-                    }
-                    v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+                    v.m_map = createVariationMap();
                 } else {
                     // Clear key and entry
-                    m_size -= v.m_map.size();
-                    Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
-                    while (allEntries.hasNext()) {
-                        I_CmsLruCacheObject nextObject = allEntries.next();
-                        allEntries.remove();
-                        m_variationCache.remove(nextObject);
-                    }
-
-                    v.m_map = null;
-                    v.m_key = null;
-                    m_keyCache.remove(s);
+                    keyCache.remove(entry.getKey(), v);
                 }
+                m_size -= oldMap.size();
+                releaseEntries(oldMap);
             }
         }
         if (LOG.isInfoEnabled()) {
@@ -892,6 +859,64 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Clears the Flex cache entries depending on the resources of the given publish list.<p>
+     *
+     * Only structural changes (new, deleted or moved resources and folders) can affect entries which did not
+     * read the published resources themselves, e.g. navigations or lists. For these, the bucket based cleanup
+     * is used as before. All other entries are only removed if they were generated from one of the published
+     * resources, or if their dependencies are unknown.<p>
+     *
+     * @param publishId the publish id
+     * @param publishedResources the published resources
+     */
+    private void clearForPublishedResources(CmsUUID publishId, List<CmsPublishedResource> publishedResources) {
+
+        long startTime = System.currentTimeMillis();
+        String p = "[" + publishId + "] "; // Prefix for log messages
+        try {
+            CmsFlexBucketConfiguration bucketConfig = m_bucketConfiguration;
+            if ((bucketConfig == null) || bucketConfig.shouldClearAll(publishedResources)) {
+                LOG.info(p + "Clearing Flex cache completely based on Flex bucket configuration.");
+                clear();
+                return;
+            }
+            Set<String> structuralPaths = new HashSet<>();
+            for (CmsPublishedResource pubRes : publishedResources) {
+                if (pubRes.isFolder()
+                    || pubRes.isMoved()
+                    || pubRes.getState().isNew()
+                    || pubRes.getState().isDeleted()) {
+                    structuralPaths.add(pubRes.getRootPath());
+                }
+            }
+            if (!structuralPaths.isEmpty()) {
+                LOG.debug(p + "Publish list contains structural changes, using bucket-based flex entry cleanup");
+                clearBucketsForPublishList(publishId, structuralPaths);
+            }
+            int removedEntries = 0;
+            for (CmsFlexCacheEntry entry : m_dependencyIndex.getDependentEntries(publishedResources)) {
+                if (m_variationCache.remove(entry) != null) {
+                    removedEntries += 1;
+                }
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    p
+                        + "Removed "
+                        + removedEntries
+                        + " dependent Flex cache entries for "
+                        + publishedResources.size()
+                        + " published resources, took "
+                        + (System.currentTimeMillis() - startTime)
+                        + " milliseconds");
+            }
+        } catch (Exception e) {
+            LOG.error(p + "Exception while trying to selectively purge flex cache: " + e.getLocalizedMessage(), e);
+            clear();
+        }
+    }
+
     /**
      * Clears the Flex cache buckets matching the given publish list.<p>
      *
@@ -923,47 +948,44 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 if (LOG.isInfoEnabled()) {
                     LOG.info(p + "Flex cache buckets for publish list: " + publishListBucketSet.toString());
                 }
-                synchronized (this) {
-                    List<CmsFlexCacheEntry> entriesToDelete = Lists.newArrayList();
-                    for (Map.Entry<String, CmsFlexCacheVariation> entry : synchronizedCopyMap(m_keyCache).entrySet()) {
-                        CmsFlexCacheVariation variation = entry.getValue();
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug(p + "Processing entries for " + entry.getKey());
-                        }
-                        entriesToDelete.clear();
-
-                        for (Map.Entry<String, I_CmsLruCacheObject> variationEntry : synchronizedCopyMap(
-                            variation.m_map).entrySet()) {
-                            CmsFlexCacheEntry flexEntry = (CmsFlexCacheEntry)(variationEntry.getValue());
-                            totalEntries += 1;
-                            BucketSet entryBucketSet = flexEntry.getBucketSet();
-                            if (publishListBucketSet.matchForDeletion(entryBucketSet)) {
-                                entriesToDelete.add(flexEntry);
-                                if (LOG.isInfoEnabled()) {
-                                    LOG.info(p + "Match: " + variationEntry.getKey());
-                                }
-                            } else {
-                                if (LOG.isDebugEnabled()) {
-                                    LOG.debug(p + "No match: " + variationEntry.getKey());
-                                }
+                List<CmsFlexCacheEntry> entriesToDelete = Lists.newArrayList();
+                for (Map.Entry<String, CmsFlexCacheVariation> entry : m_keyCache.entrySet()) {
+                    CmsFlexCacheVariation variation = entry.getValue();
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(p + "Processing entries for " + entry.getKey());
+                    }
+                    entriesToDelete.clear();
+
+                    for (Map.Entry<String, I_CmsLruCacheObject> variationEntry : variation.m_map.entrySet()) {
+                        CmsFlexCacheEntry flexEntry = (CmsFlexCacheEntry)(variationEntry.getValue());
+                        totalEntries += 1;
+                        BucketSet entryBucketSet = flexEntry.getBucketSet();
+                        if (publishListBucketSet.matchForDeletion(entryBucketSet)) {
+                            entriesToDelete.add(flexEntry);
+                            if (LOG.isInfoEnabled()) {
+                                LOG.info(p + "Match: " + variationEntry.getKey());
+                            }
+                        } else {
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug(p + "No match: " + variationEntry.getKey());
                             }
                         }
-                        for (CmsFlexCacheEntry entryToDelete : entriesToDelete) {
-                            m_variationCache.remove(entryToDelete);
-                            removedEntries += 1;
-                        }
                     }
-                    long endTime = System.currentTimeMillis();
-                    LOG.info(
-                        p
-                            + "Removed "
-                            + removedEntries
-                            + " of "
-                            + totalEntries
-                            + " Flex cache entries, took "
-                            + (endTime - startTime)
-                            + " milliseconds");
+                    for (CmsFlexCacheEntry entryToDelete : entriesToDelete) {
+                        m_variationCache.remove(entryToDelete);
+                        removedEntries += 1;
+                    }
                 }
+                long endTime = System.currentTimeMillis();
+                LOG.info(
+                    p
+                        + "Removed "
+                        + removedEntries
+                        + " of "
+                        + totalEntries
+                        + " Flex cache entries, took "
+                        + (endTime - startTime)
+                        + " milliseconds");
             }
         } catch (Exception e) {
             LOG.error(p + "Exception while trying to selectively purge flex cache: " + e.getLocalizedMessage(), e);
@@ -979,7 +1001,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      * Only users with administrator permissions are allowed
      * to perform this operation.<p>
      */
-    private synchronized void clearEntries() {
+    private void clearEntries() {
 
         if (!isEnabled()) {
             return;
@@ -987,22 +1009,51 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_ALL_0));
         }
-        // create new set to avoid ConcurrentModificationExceptions
-        Set<String> cacheKeys = synchronizedCopyKeys(m_keyCache);
-        Iterator<String> i = cacheKeys.iterator();
-        while (i.hasNext()) {
-            CmsFlexCacheVariation v = m_keyCache.get(i.next());
-            Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
-            while (allEntries.hasNext()) {
-                I_CmsLruCacheObject nextObject = allEntries.next();
-                allEntries.remove();
-                m_variationCache.remove(nextObject);
-            }
-            v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+        for (CmsFlexCacheVariation v : m_keyCache.values()) {
+            Map<String, I_CmsLruCacheObject> oldMap = v.m_map;
+            v.m_map = createVariationMap();
+            releaseEntries(oldMap);
         }
         m_size = 0;
     }
 
+    /**
+     * Removes keys from the cache if the maximum number of keys is exceeded.<p>
+     *
+     * The least recently used keys are removed, together with all their variations.
+     * Some additional keys are removed, so that the eviction does not need to run again for every new key.
+     * If another thread is already evicting keys, this method returns immediately.<p>
+     */
+    private void evictKeys() {
+
+        Map<String, CmsFlexCacheVariation> keyCache = m_keyCache;
+        if ((keyCache.size() <= m_maxKeys) || !m_evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int toRemove = (keyCache.size() - m_maxKeys) + Math.max(1, m_maxKeys / 16);
+            // keep only the least recently used keys, with the most recently used of them at the head of the queue
+            Comparator<Map.Entry<String, CmsFlexCacheVariation>> byLastAccess = Comparator.comparingLong(
+                entry -> entry.getValue().m_lastAccess);
+            PriorityQueue<Map.Entry<String, CmsFlexCacheVariation>> oldest = new PriorityQueue<>(
+                toRemove + 1,
+                byLastAccess.reversed());
+            for (Map.Entry<String, CmsFlexCacheVariation> entry : keyCache.entrySet()) {
+                oldest.offer(entry);
+                if (oldest.size() > toRemove) {
+                    oldest.poll();
+                }
+            }
+            for (Map.Entry<String, CmsFlexCacheVariation> entry : oldest) {
+                if (keyCache.remove(entry.getKey(), entry.getValue())) {
+                    releaseEntries(entry.getValue().m_map);
+                }
+            }
+        } finally {
+            m_evictionLock.unlock();
+        }
+    }
+
     /**
      * Clears all entries and all keys from offline projects in the cache.<p>
      *
@@ -1106,6 +1157,31 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         });
     }
 
+    /**
+     * Returns the entry for the given variation, removing it from the cache if it is expired.<p>
+     *
+     * @param v the variations of a resource
+     * @param variation the variation
+     *
+     * @return the entry, or null if no valid entry for the variation is cached
+     */
+    private CmsFlexCacheEntry getEntry(CmsFlexCacheVariation v, String variation) {
+
+        v.touch();
+        CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
+        if (entry == null) {
+            // no cache entry available for variation
+            return null;
+        }
+        if (entry.getDateExpires() < System.currentTimeMillis()) {
+            // cache entry avaiable but expired, remove entry
+            m_variationCache.remove(entry);
+            return null;
+        }
+        // return the found cache entry
+        return entry;
+    }
+
     /**
      * Save a value to the cache.<p>
      *
@@ -1115,33 +1191,45 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     private void put(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry, String variation) {
 
-        CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
-        if (o != null) {
-            // We already have a variation map for this resource
-            Map<String, I_CmsLruCacheObject> m = o.m_map;
-            boolean wasAdded = true;
-            if (!m.containsKey(variation)) {
-                wasAdded = m_variationCache.add(theCacheEntry);
-            } else {
-                wasAdded = m_variationCache.touch(theCacheEntry);
-            }
-
-            if (wasAdded) {
-                theCacheEntry.setVariationData(variation, m);
-                m.put(variation, theCacheEntry);
-            }
-        } else {
+        Map<String, CmsFlexCacheVariation> keyCache = m_keyCache;
+        CmsFlexCacheVariation o = keyCache.get(key.getResource());
+        if (o == null) {
             // No variation map for this resource yet, so create one
             CmsFlexCacheVariation list = new CmsFlexCacheVariation(key);
+            o = keyCache.putIfAbsent(key.getResource(), list);
+            if (o == null) {
+                o = list;
+                evictKeys();
+            }
+        }
+        Map<String, I_CmsLruCacheObject> m = o.m_map;
+        boolean tracking = isDependencyTracking();
+        if (tracking) {
+            // register before adding to the LRU cache, which may remove the entry (and unregister it) right away
+            theCacheEntry.setDependencyIndex(m_dependencyIndex);
+            m_dependencyIndex.add(theCacheEntry);
+        }
+        boolean wasAdded = true;
+        if (!m.containsKey(variation)) {
+            wasAdded = m_variationCache.add(theCacheEntry);
+        } else {
+            wasAdded = m_variationCache.touch(theCacheEntry);
+        }
 
-            boolean wasAdded = m_variationCache.add(theCacheEntry);
-
-            if (wasAdded) {
-                theCacheEntry.setVariationData(variation, list.m_map);
-                list.m_map.put(variation, theCacheEntry);
-                m_keyCache.put(key.getResource(), list);
+        if (wasAdded) {
+            theCacheEntry.setVariationData(variation, m);
+            m.put(variation, theCacheEntry);
+            // the clear operations first detach the key cache, a key or a variation map and then release
+            // its entries, so an entry added to a map detached in the meantime may have been missed
+            if ((m_keyCache != keyCache) || (keyCache.get(key.getResource()) != o) || (o.m_map != m)) {
+                m_variationCache.remove(theCacheEntry);
+                m.remove(variation, theCacheEntry);
+                wasAdded = false;
             }
         }
+        if (!wasAdded && tracking) {
+            m_dependencyIndex.remove(theCacheEntry);
+        }
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(
@@ -1153,4 +1241,20 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADDED_ENTRY_1, theCacheEntry.toString()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Removes the entries of the given variation map from the LRU cache.<p>
+     *
+     * The entries are removed one by one, so other threads using the cache are never blocked for long.<p>
+     *
+     * @param variationMap the variation map whose entries should be released
+     */
+    private void releaseEntries(Map<String, I_CmsLruCacheObject> variationMap) {
+
+        // removing an entry from the LRU cache also removes it from the (concurrent) variation map
+        for (I_CmsLruCacheObject entry : variationMap.values()) {
+            m_variationCache.remove(entry);
+        }
+        variationMap.clear();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from resources to the Flex cache entries generated from them.<p>
+ *
+ * Every entry put in the Flex cache with dependency tracking enabled is registered here under
+ * the root paths and the structure / resource ids of the resources that were read while the entry
+ * was generated. On publish, this allows to look up and remove only those entries which actually depend
+ * on one of the published resources. Entries with unknown dependencies are kept in a separate set
+ * and are always considered to be affected by a publish.<p>
+ *
+ * The index is thread safe.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsFlexCacheDependencyIndex {
+
+    /** The entries by the structure / resource ids of their dependencies. */
+    private final Map<CmsUUID, Set<CmsFlexCacheEntry>> m_entriesById = new ConcurrentHashMap<CmsUUID, Set<CmsFlexCacheEntry>>();
+
+    /** The entries by the root paths of their dependencies. */
+    private final Map<String, Set<CmsFlexCacheEntry>> m_entriesByPath = new ConcurrentHashMap<String, Set<CmsFlexCacheEntry>>();
+
+    /** The entries with unknown dependencies. */
+    private final Set<CmsFlexCacheEntry> m_untracked = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Adds an entry to the index.<p>
+     *
+     * @param entry the entry to add
+     */
+    public void add(CmsFlexCacheEntry entry) {
+
+        Set<String> paths = entry.getDependencyPaths();
+        Set<CmsUUID> ids = entry.getDependencyIds();
+        if ((paths == null) || (ids == null)) {
+            m_untracked.add(entry);
+            return;
+        }
+        for (String path : paths) {
+            m_entriesByPath.computeIfAbsent(path, k -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+        for (CmsUUID id : ids) {
+            m_entriesById.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+    }
+
+    /**
+     * Returns the entries which depend on any of the given published resources.<p>
+     *
+     * The result always contains all entries with unknown dependencies.<p>
+     *
+     * @param publishedResources the published resources
+     *
+     * @return the dependent entries
+     */
+    public Set<CmsFlexCacheEntry> getDependentEntries(Collection<CmsPublishedResource> publishedResources) {
+
+        Set<CmsFlexCacheEntry> result = new HashSet<CmsFlexCacheEntry>(m_untracked);
+        for (CmsPublishedResource pubRes : publishedResources) {
+            addAll(result, m_entriesByPath.get(pubRes.getRootPath()));
+            addAll(result, m_entriesById.get(pubRes.getStructureId()));
+            addAll(result, m_entriesById.get(pubRes.getResourceId()));
+        }
+        return result;
+    }
+
+    /**
+     * Removes an entry from the index.<p>
+     *
+     * @param entry the entry to remove
+     */
+    public void remove(CmsFlexCacheEntry entry) {
+
+        Set<String> paths = entry.getDependencyPaths();
+        Set<CmsUUID> ids = entry.getDependencyIds();
+        if ((paths == null) || (ids == null)) {
+            m_untracked.remove(entry);
+            return;
+        }
+        for (String path : paths) {
+            removeFrom(m_entriesByPath, path, entry);
+        }
+        for (CmsUUID id : ids) {
+            removeFrom(m_entriesById, id, entry);
+        }
+    }
+
+    /**
+     * Returns the number of distinct resources (paths and ids) in the index.<p>
+     *
+     * @return the number of indexed resources
+     */
+    public int size() {
+
+        return m_entriesByPath.size() + m_entriesById.size();
+    }
+
+    /**
+     * Adds the given entries to the result, if not <code>null</code>.<p>
+     *
+     * @param result the result set
+     * @param entries the entries to add, may be <code>null</code>
+     */
+    private void addAll(Set<CmsFlexCacheEntry> result, Set<CmsFlexCacheEntry> entries) {
+
+        if (entries != null) {
+            result.addAll(entries);
+        }
+    }
+
+    /**
+     * Removes an entry from the set stored under the given key, and removes the set if it becomes empty.<p>
+     *
+     * @param map the map to remove the entry from
+     * @param key the key
+     * @param entry the entry to remove
+     */
+    private <K> void removeFrom(Map<K, Set<CmsFlexCacheEntry>> map, K key, CmsFlexCacheEntry entry) {
+
+        map.computeIfPresent(key, (k, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+}
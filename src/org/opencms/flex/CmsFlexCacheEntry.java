@@ -36,6 +36,7 @@ import org.opencms.main.CmsLog;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsUUID;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -45,6 +46,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.servlet.ServletException;
 
@@ -97,6 +99,15 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The "last modified" date for this Flex cache entry. */
     private long m_dateLastModified;
 
+    /** The structure / resource ids of the resources this entry was generated from, <code>null</code> if unknown. */
+    private Set<CmsUUID> m_dependencyIds;
+
+    /** The dependency index this entry is registered in, may be <code>null</code>. */
+    private CmsFlexCacheDependencyIndex m_dependencyIndex;
+
+    /** The root paths of the resources this entry was generated from, <code>null</code> if unknown. */
+    private Set<String> m_dependencyPaths;
+
     /** The list of items for this resource. */
     private List<Object> m_elements;
 
@@ -284,6 +295,26 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the structure / resource ids of the resources this entry was generated from.<p>
+     *
+     * @return the ids of the dependencies, or <code>null</code> if the dependencies are unknown
+     */
+    public Set<CmsUUID> getDependencyIds() {
+
+        return m_dependencyIds;
+    }
+
+    /**
+     * Returns the root paths of the resources this entry was generated from.<p>
+     *
+     * @return the root paths of the dependencies, or <code>null</code> if the dependencies are unknown
+     */
+    public Set<String> getDependencyPaths() {
+
+        return m_dependencyPaths;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
      */
@@ -344,6 +375,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         if ((m_variationMap != null) && (m_variationKey != null)) {
             m_variationMap.remove(m_variationKey);
         }
+        if (m_dependencyIndex != null) {
+            m_dependencyIndex.remove(this);
+        }
         if (LOG.isDebugEnabled()) {
             LOG.debug(
                 Messages.get().getBundle().key(
@@ -513,6 +547,37 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         setDateLastModified(now - (daytime % timeoutMinutes));
     }
 
+    /**
+     * Sets the dependencies of this entry, i.e. the resources it was generated from.<p>
+     *
+     * If either of the given sets is <code>null</code>, the dependencies are unknown.<p>
+     *
+     * @param paths the root paths of the dependencies
+     * @param ids the structure / resource ids of the dependencies
+     */
+    public void setDependencies(Set<String> paths, Set<CmsUUID> ids) {
+
+        if ((paths == null) || (ids == null)) {
+            m_dependencyPaths = null;
+            m_dependencyIds = null;
+        } else {
+            m_dependencyPaths = paths;
+            m_dependencyIds = ids;
+        }
+    }
+
+    /**
+     * Sets the dependency index this entry is registered in.<p>
+     *
+     * The entry removes itself from the index when it is removed from the LRU cache.<p>
+     *
+     * @param dependencyIndex the dependency index
+     */
+    void setDependencyIndex(CmsFlexCacheDependencyIndex dependencyIndex) {
+
+        m_dependencyIndex = dependencyIndex;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
      */
@@ -116,6 +116,12 @@ public class CmsFlexController {
 
     }
 
+    /**
+     * Request attribute for a dependency collector, if set the resources read while processing
+     * the request are tracked and merged into the collector when the controller is cleared.
+     */
+    public static final String ATTRIBUTE_DEPENDENCY_COLLECTOR = "org.opencms.flex.CmsFlexController.dependencyCollector";
+
     /** Constant for the controller request attribute name. */
     public static final String ATTRIBUTE_NAME = "org.opencms.flex.CmsFlexController";
 
@@ -502,6 +508,11 @@ public class CmsFlexController {
      */
     public void clear() {
 
+        CmsFlexRequestContextInfo collector = getDependencyCollector();
+        if ((collector != null) && (m_flexContextInfoList != null) && !m_flexContextInfoList.isEmpty()) {
+            // the top context contains the dependencies of all elements of the request
+            collector.mergeDependencies(m_flexContextInfoList.get(0));
+        }
         if (m_flexRequestList != null) {
             m_flexRequestList.clear();
         }
@@ -557,6 +568,23 @@ public class CmsFlexController {
         return m_resource;
     }
 
+    /**
+     * Returns the context info for the current include level.<p>
+     *
+     * The context info contains the dates and, if enabled, the dependencies
+     * collected for the element currently processed.<p>
+     *
+     * @return the context info for the current include level, or <code>null</code> if the stack is empty
+     */
+    public CmsFlexRequestContextInfo getCurrentContextInfo() {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if (pos < 0) {
+            return null;
+        }
+        return m_flexContextInfoList.get(pos);
+    }
+
     /**
      * Returns the current flex request.<p>
      *
@@ -689,6 +717,19 @@ public class CmsFlexController {
         return m_forwardMode;
     }
 
+    /**
+     * Returns <code>true</code> if the resources read while processing this request are tracked.<p>
+     *
+     * This is the case if the Flex cache tracks dependencies, or if a dependency collector
+     * was attached to the request.<p>
+     *
+     * @return <code>true</code> if the resources read while processing this request are tracked
+     */
+    public boolean isDependencyTracking() {
+
+        return ((m_cache != null) && m_cache.isDependencyTracking()) || (getDependencyCollector() != null);
+    }
+
     /**
      * Returns <code>true</code> if the generated output of the response should
      * be written to the stream directly.<p>
@@ -731,6 +772,8 @@ public class CmsFlexController {
             CmsFlexRequestContextInfo info = m_flexContextInfoList.remove(m_flexContextInfoList.size() - 1);
             if (m_flexContextInfoList.size() > 0) {
                 (m_flexContextInfoList.get(0)).merge(info);
+                // the including element depends on everything its included elements depend on
+                (m_flexContextInfoList.get(m_flexContextInfoList.size() - 1)).mergeDependencies(info);
                 updateRequestContextInfo();
             }
         }
@@ -746,7 +789,7 @@ public class CmsFlexController {
 
         m_flexRequestList.add(req);
         m_flexResponseList.add(res);
-        m_flexContextInfoList.add(new CmsFlexRequestContextInfo());
+        m_flexContextInfoList.add(new CmsFlexRequestContextInfo(isDependencyTracking()));
         updateRequestContextInfo();
     }
 
@@ -910,6 +953,20 @@ public class CmsFlexController {
         (m_flexContextInfoList.get(pos)).updateDates(dateLastModified, dateExpires);
     }
 
+    /**
+     * Returns the dependency collector attached to the request of this controller.<p>
+     *
+     * @return the dependency collector, or <code>null</code> if no collector is attached
+     */
+    private CmsFlexRequestContextInfo getDependencyCollector() {
+
+        if (m_req == null) {
+            return null;
+        }
+        Object collector = m_req.getAttribute(ATTRIBUTE_DEPENDENCY_COLLECTOR);
+        return collector instanceof CmsFlexRequestContextInfo ? (CmsFlexRequestContextInfo)collector : null;
+    }
+
     /**
      * Updates the context info of the request context.<p>
      */
@@ -27,7 +27,15 @@
 
 package org.opencms.flex;
 
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
+import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Contains information about the OpenCms request context required by the
@@ -38,23 +46,105 @@ import org.opencms.file.CmsResource;
  * Information about the "last modified" and "expire" times of VFS resources are
  * stored in this Object.<p>
  *
+ * If dependency tracking is enabled, the root paths and ids of the resources read through
+ * the security manager with this request context (or a copy of it) are collected as well,
+ * so that a cached element can later be invalidated selectively when one of the resources
+ * it was generated from is published. Code that reads resource data around the security manager,
+ * e.g. from a shared cache or a search index, must either add the resources itself or mark
+ * the context as untracked with {@link #setUntracked()}.<p>
+ *
  * @since 6.0.0
  */
 public class CmsFlexRequestContextInfo {
 
+    /** The maximum number of dependencies tracked for a single context, if exceeded the context becomes untracked. */
+    public static final int MAX_DEPENDENCIES = 1000;
+
     /** The currently calculated "expires" date for this request context .*/
     private long m_dateExpires;
 
     /** The currently calculated "last modified" date for this request context.  */
     private long m_dateLastModified;
 
+    /** The ids (structure and resource ids) of the resources this context depends on, <code>null</code> if untracked. */
+    private Set<CmsUUID> m_dependencyIds;
+
+    /** The root paths of the resources this context depends on, <code>null</code> if untracked. */
+    private Set<String> m_dependencyPaths;
+
     /**
      * Public constructor.<p>
      */
     public CmsFlexRequestContextInfo() {
 
+        this(false);
+    }
+
+    /**
+     * Creates a new context info.<p>
+     *
+     * @param trackDependencies if <code>true</code>, the resources read in this context are collected as dependencies
+     */
+    public CmsFlexRequestContextInfo(boolean trackDependencies) {
+
         // by default the expiration date is the max long value
         m_dateExpires = CmsResource.DATE_EXPIRED_DEFAULT;
+        if (trackDependencies) {
+            m_dependencyPaths = new HashSet<String>();
+            m_dependencyIds = new HashSet<CmsUUID>();
+        }
+    }
+
+    /**
+     * Returns the context info attached to the request context of the given CmsObject.<p>
+     *
+     * @param cms the current OpenCms user context
+     *
+     * @return the context info, or <code>null</code> if the request context has no context info attached
+     */
+    public static CmsFlexRequestContextInfo getContextInfo(CmsObject cms) {
+
+        Object info = cms.getRequestContext().getAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        return info instanceof CmsFlexRequestContextInfo ? (CmsFlexRequestContextInfo)info : null;
+    }
+
+    /**
+     * Adds the given dependencies to this context.<p>
+     *
+     * If either of the given collections is <code>null</code>, the dependencies are unknown
+     * and this context becomes untracked.<p>
+     *
+     * @param paths the root paths of the resources to add
+     * @param ids the structure / resource ids of the resources to add
+     */
+    public synchronized void addDependencies(Collection<String> paths, Collection<CmsUUID> ids) {
+
+        if (!isDependencyTracking()) {
+            return;
+        }
+        if ((paths == null) || (ids == null)) {
+            setUntracked();
+            return;
+        }
+        m_dependencyPaths.addAll(paths);
+        m_dependencyIds.addAll(ids);
+        checkDependencyLimit();
+    }
+
+    /**
+     * Adds the given resource to the dependencies of this context.<p>
+     *
+     * @param resource the resource to add
+     */
+    public synchronized void addDependency(CmsResource resource) {
+
+        if (!isDependencyTracking()) {
+            return;
+        }
+        m_dependencyPaths.add(resource.getRootPath());
+        m_dependencyIds.add(resource.getStructureId());
+        m_dependencyIds.add(resource.getResourceId());
+        checkDependencyLimit();
     }
 
     /**
@@ -77,6 +167,36 @@ public class CmsFlexRequestContextInfo {
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the structure / resource ids of the resources this context depends on.<p>
+     *
+     * @return the ids of the dependencies, or <code>null</code> if the dependencies are not tracked
+     */
+    public synchronized Set<CmsUUID> getDependencyIds() {
+
+        return m_dependencyIds == null ? null : Collections.unmodifiableSet(new HashSet<CmsUUID>(m_dependencyIds));
+    }
+
+    /**
+     * Returns the root paths of the resources this context depends on.<p>
+     *
+     * @return the root paths of the dependencies, or <code>null</code> if the dependencies are not tracked
+     */
+    public synchronized Set<String> getDependencyPaths() {
+
+        return m_dependencyPaths == null ? null : Collections.unmodifiableSet(new HashSet<String>(m_dependencyPaths));
+    }
+
+    /**
+     * Returns <code>true</code> if the dependencies of this context are tracked.<p>
+     *
+     * @return <code>true</code> if the dependencies of this context are tracked
+     */
+    public synchronized boolean isDependencyTracking() {
+
+        return m_dependencyPaths != null;
+    }
+
     /**
      * Merges this context info with the values from the other context info.<p>
      *
@@ -88,6 +208,27 @@ public class CmsFlexRequestContextInfo {
         updateDateExpires(other.getDateExpires());
     }
 
+    /**
+     * Merges the dependencies of the other context info into this context info.<p>
+     *
+     * @param other the context info to merge the dependencies from
+     */
+    public void mergeDependencies(CmsFlexRequestContextInfo other) {
+
+        addDependencies(other.getDependencyPaths(), other.getDependencyIds());
+    }
+
+    /**
+     * Marks the dependencies of this context as unknown.<p>
+     *
+     * A Flex cache entry generated with an untracked context is removed on every publish.<p>
+     */
+    public synchronized void setUntracked() {
+
+        m_dependencyPaths = null;
+        m_dependencyIds = null;
+    }
+
     /**
      * Updates the "expires" date for this context with the given value.<p>
      *
@@ -150,5 +291,16 @@ public class CmsFlexRequestContextInfo {
         // now use both release and expiration date from the resource to update the expires info
         updateDateExpires(resource.getDateReleased());
         updateDateExpires(resource.getDateExpired());
+        addDependency(resource);
+    }
+
+    /**
+     * Switches this context to untracked mode if the maximum number of dependencies is exceeded.<p>
+     */
+    private void checkDependencyLimit() {
+
+        if (m_dependencyPaths.size() > MAX_DEPENDENCIES) {
+            setUntracked();
+        }
     }
 }
@@ -317,6 +317,11 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                                     m_vfsTarget));
                         }
                         controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
+                        CmsFlexRequestContextInfo info = controller.getCurrentContextInfo();
+                        if (info != null) {
+                            // the including element depends on whatever the cached element was generated from
+                            info.addDependencies(entry.getDependencyPaths(), entry.getDependencyIds());
+                        }
                         entry.service(w_req, w_res);
                     } catch (CmsException e) {
                         Throwable t;
@@ -417,6 +422,11 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                                 Integer.valueOf(resource.getTypeId())));
                     }
                     loader = OpenCms.getResourceManager().getLoader(resource);
+                    CmsFlexRequestContextInfo info = controller.getCurrentContextInfo();
+                    if (info != null) {
+                        // the resource may have been read before the context info for this element was created
+                        info.addDependency(resource);
+                    }
                 } catch (ClassCastException e) {
                     controller.setThrowable(e, m_vfsTarget);
                     throw new ServletException(
@@ -468,6 +478,10 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                         entry.setDateLastModified(controller.getDateLastModified());
                         entry.setDateExpires(controller.getDateExpires());
                     }
+                    CmsFlexRequestContextInfo info = controller.getCurrentContextInfo();
+                    if (info != null) {
+                        entry.setDependencies(info.getDependencyPaths(), info.getDependencyIds());
+                    }
                     cache.put(w_res.getCmsCacheKey(), entry, variation, w_req.getCmsCacheKey());
                 } else if (!ignore) {
                     // result can not be cached, do not use "last modified" optimization
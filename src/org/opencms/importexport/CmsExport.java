@@ -43,6 +43,7 @@ import org.opencms.file.CmsVfsException;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.importexport.CmsExportResourceReader.CmsExportResourceData;
 import org.opencms.importexport.CmsImportExportManager.TimestampMode;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
@@ -103,6 +104,9 @@ public class CmsExport {
     /** The cms context. */
     private CmsObject m_cms;
 
+    /** The file currently exported, with the meta data read ahead by the resource reader. */
+    private CmsExportResourceData m_currentResourceData;
+
     /** Counter for the export. */
     private int m_exportCount;
 
@@ -118,6 +122,9 @@ public class CmsExport {
     /** The report. */
     private I_CmsReport m_report;
 
+    /** Reads the exported files and their meta data ahead of the manifest output. */
+    private CmsExportResourceReader m_resourceReader;
+
     /** The top level file node where all resources are appended to. */
     private Element m_resourceNode;
 
@@ -232,6 +239,10 @@ public class CmsExport {
 
             throw new CmsImportExportException(message, ioe);
         } finally {
+            if (m_resourceReader != null) {
+                m_resourceReader.close();
+                m_resourceReader = null;
+            }
             if (m_exportWriter != null) {
                 m_exportWriter.ensureZipStreamClosed();
             }
@@ -255,7 +266,8 @@ public class CmsExport {
             // get all files in folder
             List<CmsResource> subFiles = getCms().getFilesInFolder(folderName, CmsResourceFilter.IGNORE_EXPIRATION);
 
-            // walk through all files and export them
+            // walk through all files and collect the ones to export
+            List<String> exportFiles = new ArrayList<String>();
             for (int i = 0; i < subFiles.size(); i++) {
                 CmsResource file = subFiles.get(i);
                 CmsResourceState state = file.getState();
@@ -273,7 +285,7 @@ public class CmsExport {
                         String export = getCms().getSitePath(file);
                         if (checkExportResource(export)) {
                             if (isInExportableProject(file)) {
-                                exportFile(getCms().readFile(export, CmsResourceFilter.IGNORE_EXPIRATION));
+                                exportFiles.add(export);
                             }
                         }
                     }
@@ -281,9 +293,16 @@ public class CmsExport {
                 // release file header memory
                 subFiles.set(i, null);
             }
-            // all files are exported, release memory
+            // all files are collected, release memory
             subFiles = null;
 
+            // read the files, possibly ahead by several workers, and export them in order
+            CmsExportResourceReader reader = getResourceReader();
+            reader.read(exportFiles);
+            while (reader.hasNext()) {
+                exportFile(reader.next());
+            }
+
             // walk through all subfolders and export them
             for (int i = 0; i < subFolders.size(); i++) {
                 CmsResource folder = subFolders.get(i);
@@ -337,18 +356,21 @@ public class CmsExport {
     protected void addFiles(List<String> fileNames) throws CmsImportExportException, IOException, SAXException {
 
         if (fileNames != null) {
+            CmsExportResourceReader reader = getResourceReader();
+            reader.read(fileNames);
             for (int i = 0; i < fileNames.size(); i++) {
                 String fileName = fileNames.get(i);
 
                 try {
-                    CmsFile file = getCms().readFile(fileName, CmsResourceFilter.IGNORE_EXPIRATION);
+                    CmsExportResourceData data = reader.next();
+                    CmsFile file = data.getFile();
                     if (!file.getState().isDeleted() && !CmsWorkplace.isTemporaryFile(file)) {
                         if (checkExportResource(fileName)) {
                             if (m_parameters.isRecursive()) {
                                 addParentFolders(fileName);
                             }
                             if (isInExportableProject(file)) {
-                                exportFile(file);
+                                exportFile(data);
                             }
                         }
                     }
@@ -632,7 +654,7 @@ public class CmsExport {
 
                 // write the properties to the manifest
                 Element propertiesElement = fileElement.addElement(CmsImportVersion10.N_PROPERTIES);
-                List<CmsProperty> properties = getCms().readPropertyObjects(getCms().getSitePath(resource), false);
+                List<CmsProperty> properties = readPropertiesForExport(resource);
                 CmsProperty exportTypeProp = CmsProperty.get(CmsPropertyDefinition.PROPERTY_EXPORT_TYPE, properties);
                 String exportType = exportTypeProp.getValue();
                 if ((exportType != null) && CmsResourceTypePlain.getStaticTypeName().equals(typeElem.getText())) {
@@ -650,9 +672,7 @@ public class CmsExport {
                 }
 
                 // Write the relations to the manifest
-                List<CmsRelation> relations = getCms().getRelationsForResource(
-                    resource,
-                    CmsRelationFilter.TARGETS.filterNotDefinedInContent());
+                List<CmsRelation> relations = readRelationsForExport(resource);
                 Element relationsElement = fileElement.addElement(CmsImportVersion10.N_RELATIONS);
                 // iterate over the relations
                 for (CmsRelation relation : relations) {
@@ -682,9 +702,7 @@ public class CmsExport {
                 Element acl = fileElement.addElement(CmsImportVersion10.N_ACCESSCONTROL_ENTRIES);
 
                 // read the access control entries
-                List<CmsAccessControlEntry> fileAcEntries = getCms().getAccessControlEntries(
-                    getCms().getSitePath(resource),
-                    false);
+                List<CmsAccessControlEntry> fileAcEntries = readAccessControlEntriesForExport(resource);
                 Iterator<CmsAccessControlEntry> i = fileAcEntries.iterator();
 
                 // create xml elements for each access control entry
@@ -903,6 +921,25 @@ public class CmsExport {
         m_resourceNode = null;
     }
 
+    /**
+     * Exports one single file, using the meta data read together with the file.<p>
+     *
+     * @param data the file to be exported, with its meta data
+     *
+     * @throws CmsImportExportException if something goes wrong
+     * @throws SAXException if something goes wrong processing the manifest.xml
+     * @throws IOException if the ZIP entry for the file could be appended to the ZIP archive
+     */
+    protected void exportFile(CmsExportResourceData data) throws CmsImportExportException, SAXException, IOException {
+
+        m_currentResourceData = data;
+        try {
+            exportFile(data.getFile());
+        } finally {
+            m_currentResourceData = null;
+        }
+    }
+
     /**
      * Exports one single file with all its data and content.<p>
      *
@@ -1449,6 +1486,23 @@ public class CmsExport {
         return "files";
     }
 
+    /**
+     * Returns the reader for the exported files, creating it if required.<p>
+     *
+     * @return the reader for the exported files
+     */
+    protected CmsExportResourceReader getResourceReader() {
+
+        if (m_resourceReader == null) {
+            int workers = m_parameters != null ? m_parameters.getExportWorkers() : 0;
+            if (workers < 1) {
+                workers = OpenCms.getImportExportManager().getExportWorkers();
+            }
+            m_resourceReader = new CmsExportResourceReader(getCms(), workers);
+        }
+        return m_resourceReader;
+    }
+
     /**
      * Returns the SAX based xml writer to write the XML output to.<p>
      *
@@ -1549,6 +1603,61 @@ public class CmsExport {
         return exportNode;
     }
 
+    /**
+     * Reads the access control entries of a resource for the manifest.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the access control entries of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected List<CmsAccessControlEntry> readAccessControlEntriesForExport(CmsResource resource)
+    throws CmsException {
+
+        CmsExportResourceData data = getCurrentResourceData(resource);
+        if ((data != null) && (data.getAccessControlEntries() != null)) {
+            return data.getAccessControlEntries();
+        }
+        return getCms().getAccessControlEntries(getCms().getSitePath(resource), false);
+    }
+
+    /**
+     * Reads the properties of a resource for the manifest.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the properties of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected List<CmsProperty> readPropertiesForExport(CmsResource resource) throws CmsException {
+
+        CmsExportResourceData data = getCurrentResourceData(resource);
+        if ((data != null) && (data.getProperties() != null)) {
+            return data.getProperties();
+        }
+        return getCms().readPropertyObjects(getCms().getSitePath(resource), false);
+    }
+
+    /**
+     * Reads the relations of a resource which are not defined in its content for the manifest.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the relations of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected List<CmsRelation> readRelationsForExport(CmsResource resource) throws CmsException {
+
+        CmsExportResourceData data = getCurrentResourceData(resource);
+        if ((data != null) && (data.getRelations() != null)) {
+            return data.getRelations();
+        }
+        return getCms().getRelationsForResource(resource, CmsRelationFilter.TARGETS.filterNotDefinedInContent());
+    }
+
     /**
      * Sets the SAX based XML writer to write the XML output to.<p>
      *
@@ -1577,6 +1686,22 @@ public class CmsExport {
         return resourceName;
     }
 
+    /**
+     * Returns the data read ahead for the given resource, if it is the file currently exported.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the data read ahead for the resource, or <code>null</code>
+     */
+    private CmsExportResourceData getCurrentResourceData(CmsResource resource) {
+
+        if ((m_currentResourceData != null)
+            && m_currentResourceData.getFile().getStructureId().equals(resource.getStructureId())) {
+            return m_currentResourceData;
+        }
+        return null;
+    }
+
     /** Returns the manifest entry for the <code>&lt;datelastmodified&gt;</code> node of the resource.
      * Depending on the export.timestamp property, the time stamp from the VFS (default) or
      * special macros are used.
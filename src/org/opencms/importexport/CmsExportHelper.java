@@ -34,12 +34,14 @@ import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsXmlSaxWriter;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.file.Files;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -55,14 +57,14 @@ import org.xml.sax.SAXException;
  */
 public class CmsExportHelper {
 
-    /** Length that can be safely written to ZIP output. */
-    private static final int SUB_LENGTH = 4096;
-
     private static final Log LOG = CmsLog.getLog(CmsExportHelper.class);
 
     /** The main export path. */
     private String m_exportPath;
 
+    /** The temporary file the manifest is written to in case of a ZIP export. */
+    private File m_manifestFile;
+
     /** The export ZIP stream to write resources to. */
     private ZipOutputStream m_exportZipStream;
 
@@ -105,8 +107,12 @@ public class CmsExportHelper {
             rfsFile.getParentFile().mkdirs();
             // create the export ZIP stream
             m_exportZipStream = new ZipOutputStream(new FileOutputStream(m_exportPath));
-            // delegate writing to a String writer
-            writer = new StringWriter(SUB_LENGTH);
+            // the manifest must be a single ZIP entry, but the files are written while it is generated,
+            // so spool it to a temporary file instead of keeping it in memory
+            m_manifestFile = File.createTempFile("manifest", ".xml.tmp", rfsFile.getParentFile());
+            writer = new OutputStreamWriter(
+                new BufferedOutputStream(new FileOutputStream(m_manifestFile)),
+                OpenCms.getSystemInfo().getDefaultEncoding());
         }
 
         // generate the SAX XML writer
@@ -140,6 +146,7 @@ public class CmsExportHelper {
                 LOG.info(e.getLocalizedMessage(), e);
             }
         }
+        deleteManifestFile();
     }
 
     /**
@@ -282,7 +289,7 @@ public class CmsExportHelper {
     /**
      * Writes the OpenCms manifest.xml file to the ZIP export.<p>
      *
-     * In case of the ZIP export the manifest is written to an internal StringBuffer
+     * In case of the ZIP export the manifest is written to a temporary file
      * first, which is then stored in the ZIP file when this method is called.<p>
      *
      * @param xmlSaxWriter the SAX writer to use
@@ -300,25 +307,24 @@ public class CmsExportHelper {
         ZipEntry entry = new ZipEntry(CmsImportExportManager.EXPORT_MANIFEST);
         m_exportZipStream.putNextEntry(entry);
 
-        // complex substring operation is required to ensure handling for very large export manifest files
-        StringBuffer result = ((StringWriter)xmlSaxWriter.getWriter()).getBuffer();
-        int steps = result.length() / SUB_LENGTH;
-        int rest = result.length() % SUB_LENGTH;
-        int pos = 0;
-        for (int i = 0; i < steps; i++) {
-            String sub = result.substring(pos, pos + SUB_LENGTH);
-            m_exportZipStream.write(sub.getBytes(OpenCms.getSystemInfo().getDefaultEncoding()));
-            pos += SUB_LENGTH;
-        }
-        if (rest > 0) {
-            String sub = result.substring(pos, pos + rest);
-            m_exportZipStream.write(sub.getBytes(OpenCms.getSystemInfo().getDefaultEncoding()));
-        }
+        // copy the spooled manifest, this does not depend on the size of the manifest
+        Files.copy(m_manifestFile.toPath(), m_exportZipStream);
 
         // close the zip entry for the manifest XML document
         m_exportZipStream.closeEntry();
 
         // finally close the zip stream
         m_exportZipStream.close();
+        deleteManifestFile();
+    }
+
+    /**
+     * Deletes the temporary manifest file of a ZIP export, if there is one.<p>
+     */
+    private void deleteManifestFile() {
+
+        if ((m_manifestFile != null) && m_manifestFile.exists() && !m_manifestFile.delete()) {
+            LOG.warn("Could not delete temporary manifest file " + m_manifestFile.getAbsolutePath());
+        }
     }
 }
\ No newline at end of file
@@ -67,6 +67,9 @@ public class CmsExportParameters {
     /** If the resource data should be exported. */
     private boolean m_exportResourceData = true;
 
+    /** The number of worker threads reading the exported files. */
+    private int m_exportWorkers;
+
     /** If the system folder should be included in the export.*/
     private boolean m_includeSystemFolder = true;
 
@@ -253,6 +256,20 @@ public class CmsExportParameters {
         return m_exportMode;
     }
 
+    /**
+     * Returns the number of worker threads reading the exported files.<p>
+     *
+     * With more than one worker, file contents and meta data are read concurrently,
+     * while the export output is still written in the same order as with a single worker.<p>
+     *
+     * @return the number of worker threads reading the exported files, or 0 if the default configured
+     *      with {@link CmsImportExportManager#getExportWorkers()} is used
+     */
+    public int getExportWorkers() {
+
+        return m_exportWorkers;
+    }
+
     /**
      * Returns the module informations if to export a module.<p>
      *
@@ -470,6 +487,16 @@ public class CmsExportParameters {
         m_exportMode = null != exportMode ? exportMode : ExportMode.DEFAULT;
     }
 
+    /**
+     * Sets the number of worker threads reading the exported files.<p>
+     *
+     * @param exportWorkers the number of worker threads, values below 1 select the configured default
+     */
+    public void setExportWorkers(int exportWorkers) {
+
+        m_exportWorkers = Math.max(0, exportWorkers);
+    }
+
     /**
      * Sets if to export project data.<p>
      *
@@ -0,0 +1,324 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.importexport;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
+import org.opencms.relations.CmsRelationFilter;
+import org.opencms.security.CmsAccessControlEntry;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reads the files of an export together with their meta data, using a pool of worker threads.<p>
+ *
+ * The files are returned in the order in which they were requested, so the manifest written from
+ * them does not depend on the number of workers. Only a limited number of files are read ahead,
+ * so the memory needed for the export does not depend on the number of exported resources.<p>
+ *
+ * With a single worker, all files are read by the calling thread when they are requested.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsExportResourceReader implements AutoCloseable {
+
+    /**
+     * A file read for the export, with the meta data written to the manifest.<p>
+     */
+    public static class CmsExportResourceData {
+
+        /** The access control entries of the file. */
+        private List<CmsAccessControlEntry> m_accessControlEntries;
+
+        /** The file, including its content. */
+        private CmsFile m_file;
+
+        /** The properties of the file. */
+        private List<CmsProperty> m_properties;
+
+        /** The relations of the file which are not defined in its content. */
+        private List<CmsRelation> m_relations;
+
+        /**
+         * Creates a new export resource data object.<p>
+         *
+         * @param file the file, including its content
+         * @param properties the properties of the file, or <code>null</code> if not read
+         * @param relations the relations of the file, or <code>null</code> if not read
+         * @param accessControlEntries the access control entries of the file, or <code>null</code> if not read
+         */
+        public CmsExportResourceData(
+            CmsFile file,
+            List<CmsProperty> properties,
+            List<CmsRelation> relations,
+            List<CmsAccessControlEntry> accessControlEntries) {
+
+            m_file = file;
+            m_properties = properties;
+            m_relations = relations;
+            m_accessControlEntries = accessControlEntries;
+        }
+
+        /**
+         * Returns the access control entries of the file.<p>
+         *
+         * @return the access control entries of the file, or <code>null</code> if they were not read
+         */
+        public List<CmsAccessControlEntry> getAccessControlEntries() {
+
+            return m_accessControlEntries;
+        }
+
+        /**
+         * Returns the file, including its content.<p>
+         *
+         * @return the file
+         */
+        public CmsFile getFile() {
+
+            return m_file;
+        }
+
+        /**
+         * Returns the properties of the file.<p>
+         *
+         * @return the properties of the file, or <code>null</code> if they were not read
+         */
+        public List<CmsProperty> getProperties() {
+
+            return m_properties;
+        }
+
+        /**
+         * Returns the relations of the file which are not defined in its content.<p>
+         *
+         * @return the relations of the file, or <code>null</code> if they were not read
+         */
+        public List<CmsRelation> getRelations() {
+
+            return m_relations;
+        }
+    }
+
+    /** The number of files read ahead per worker thread. */
+    private static final int READ_AHEAD_PER_WORKER = 4;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsExportResourceReader.class);
+
+    /** The context used to read the files. */
+    private CmsObject m_cms;
+
+    /** The executor for the worker threads, <code>null</code> if the files are read by the calling thread. */
+    private ExecutorService m_executor;
+
+    /** The index of the next file to read. */
+    private int m_next;
+
+    /** The site paths of the files to read. */
+    private List<String> m_paths = Collections.emptyList();
+
+    /** The files which are currently being read ahead, in the requested order. */
+    private Deque<Future<CmsExportResourceData>> m_pending = new ArrayDeque<Future<CmsExportResourceData>>();
+
+    /** The site paths of the files which are currently being read ahead, in the requested order. */
+    private Deque<String> m_pendingPaths = new ArrayDeque<String>();
+
+    /** The maximum number of files read ahead. */
+    private int m_readAhead;
+
+    /**
+     * Creates a new export resource reader.<p>
+     *
+     * @param cms the context used to read the files
+     * @param workers the number of worker threads
+     */
+    public CmsExportResourceReader(CmsObject cms, int workers) {
+
+        m_cms = cms;
+        if (workers > 1) {
+            m_readAhead = workers * READ_AHEAD_PER_WORKER;
+            m_executor = Executors.newFixedThreadPool(
+                workers,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("export-resource-reader-%d").build());
+        }
+    }
+
+    /**
+     * Reads a file for the export, together with its meta data.<p>
+     *
+     * @param cms the context to use
+     * @param sitePath the site path of the file
+     *
+     * @return the file with its meta data
+     *
+     * @throws CmsException if the file could not be read
+     */
+    protected static CmsExportResourceData readResourceData(CmsObject cms, String sitePath) throws CmsException {
+
+        CmsFile file = cms.readFile(sitePath, CmsResourceFilter.IGNORE_EXPIRATION);
+        if (file.getState().isDeleted()) {
+            // deleted files are not exported, so their meta data is not needed
+            return new CmsExportResourceData(file, null, null, null);
+        }
+        List<CmsProperty> properties = cms.readPropertyObjects(file, false);
+        List<CmsRelation> relations = cms.getRelationsForResource(
+            file,
+            CmsRelationFilter.TARGETS.filterNotDefinedInContent());
+        List<CmsAccessControlEntry> aces = cms.getAccessControlEntries(cms.getSitePath(file), false);
+        return new CmsExportResourceData(file, properties, relations, aces);
+    }
+
+    /**
+     * Stops the worker threads.<p>
+     *
+     * @see java.lang.AutoCloseable#close()
+     */
+    public void close() {
+
+        cancelPending();
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns if there are more files to read.<p>
+     *
+     * @return <code>true</code> if there are more files to read
+     */
+    public boolean hasNext() {
+
+        return !m_pending.isEmpty() || (m_next < m_paths.size());
+    }
+
+    /**
+     * Returns the next file, in the order of the site paths given to {@link #read(List)}.<p>
+     *
+     * @return the next file with its meta data
+     *
+     * @throws CmsException if the file could not be read
+     */
+    public CmsExportResourceData next() throws CmsException {
+
+        if (m_executor == null) {
+            String path = m_paths.get(m_next);
+            m_next++;
+            return readResourceData(m_cms, path);
+        }
+        Future<CmsExportResourceData> future = m_pending.poll();
+        String path = m_pendingPaths.poll();
+        submitReadAhead();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmsImportExportException(Messages.get().container(Messages.ERR_EXPORT_INTERRUPTED_0), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new CmsImportExportException(
+                Messages.get().container(Messages.ERR_IMPORTEXPORT_ERROR_ADDING_FILE_1, path),
+                cause);
+        }
+    }
+
+    /**
+     * Starts reading the given files.<p>
+     *
+     * Files of a previous call which have not been requested yet are discarded.<p>
+     *
+     * @param sitePaths the site paths of the files to read, in the order in which they are requested
+     */
+    public void read(List<String> sitePaths) {
+
+        cancelPending();
+        m_paths = sitePaths;
+        m_next = 0;
+        submitReadAhead();
+    }
+
+    /**
+     * Cancels the files which are currently read ahead.<p>
+     */
+    private void cancelPending() {
+
+        for (Future<CmsExportResourceData> future : m_pending) {
+            future.cancel(true);
+        }
+        m_pending.clear();
+        m_pendingPaths.clear();
+    }
+
+    /**
+     * Submits the next files to the worker threads, until the read ahead limit is reached.<p>
+     */
+    private void submitReadAhead() {
+
+        if (m_executor == null) {
+            return;
+        }
+        while ((m_pending.size() < m_readAhead) && (m_next < m_paths.size())) {
+            final String path = m_paths.get(m_next);
+            m_next++;
+            m_pendingPaths.add(path);
+            m_pending.add(m_executor.submit(() -> {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Reading " + path + " for export");
+                }
+                return readResourceData(OpenCms.initCmsObject(m_cms), path);
+            }));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.importexport;
+
+import org.opencms.main.CmsLog;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reads the contents of the files of an import ahead of time, using a pool of worker threads.<p>
+ *
+ * The files are read in the order in which they appear in the manifest, so the content of the
+ * next resource to import is usually available when the resource is created in the VFS. Reading
+ * and inflating the zip entries thus overlaps with the database writes of the import.<p>
+ *
+ * The file names are taken from an iterator which usually reads the manifest while the import
+ * proceeds, see {@link CmsImportManifestReader#getSources()}. Only a limited number of files are
+ * read ahead, and large files are not read ahead at all but read when they are requested, so the
+ * memory needed for the import does not depend on its size.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsImportContentPrefetcher implements AutoCloseable {
+
+    /** The default number of worker threads. */
+    public static final int DEFAULT_WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /** Files larger than this number of bytes are not read ahead. */
+    public static final long MAX_PREFETCH_SIZE = 4L * 1024L * 1024L;
+
+    /** The number of files read ahead per worker thread. */
+    private static final int READ_AHEAD_PER_WORKER = 8;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsImportContentPrefetcher.class);
+
+    /** The executor for the worker threads. */
+    private ExecutorService m_executor;
+
+    /** The import helper used to read the files. */
+    private CmsImportHelper m_helper;
+
+    /** The next files in manifest order, with <code>null</code> values for files which are not read ahead. */
+    private Map<String, Future<byte[]>> m_pending;
+
+    /** The maximum number of files read ahead. */
+    private int m_readAhead;
+
+    /** The remaining files of the import, in manifest order. */
+    private Iterator<String> m_sources;
+
+    /**
+     * Creates a new content prefetcher.<p>
+     *
+     * @param helper the import helper used to read the files
+     * @param sources the names of the files of the import, in manifest order
+     * @param workers the number of worker threads
+     */
+    public CmsImportContentPrefetcher(CmsImportHelper helper, Iterator<String> sources, int workers) {
+
+        m_helper = helper;
+        m_sources = sources;
+        m_readAhead = Math.max(1, workers) * READ_AHEAD_PER_WORKER;
+        m_pending = new LinkedHashMap<String, Future<byte[]>>();
+        m_executor = Executors.newFixedThreadPool(
+            Math.max(1, workers),
+            new ThreadFactoryBuilder().setNameFormat("import-content-reader-%d").setDaemon(true).build());
+        readAhead();
+    }
+
+    /**
+     * Stops reading ahead and discards all files read ahead.<p>
+     */
+    public synchronized void close() {
+
+        m_executor.shutdownNow();
+        m_pending.clear();
+    }
+
+    /**
+     * Returns the content of a file of the import.<p>
+     *
+     * The files are expected to be requested in manifest order. All files before the requested
+     * file which were read ahead but not requested are discarded, since the resources they belong
+     * to have been skipped. If the requested file is not among the files read ahead, the files
+     * up to the requested file are skipped.<p>
+     *
+     * @param source the name of the file, relative to the folder or zip file
+     *
+     * @return the content of the file
+     *
+     * @throws CmsImportExportException if the file could not be read
+     */
+    public synchronized byte[] getContent(String source) throws CmsImportExportException {
+
+        Future<byte[]> future = null;
+        if (m_pending.containsKey(source)) {
+            // discard the files of skipped resources
+            Iterator<Map.Entry<String, Future<byte[]>>> it = m_pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Future<byte[]>> entry = it.next();
+                it.remove();
+                if (entry.getKey().equals(source)) {
+                    future = entry.getValue();
+                    break;
+                }
+                discard(entry.getValue());
+            }
+        } else {
+            // the import is ahead of the files read so far, so all of them belong to skipped resources
+            for (Future<byte[]> pending : m_pending.values()) {
+                discard(pending);
+            }
+            m_pending.clear();
+            while (m_sources.hasNext() && !m_sources.next().equals(source)) {
+                // skip the files of skipped resources
+            }
+        }
+        readAhead();
+        if (future != null) {
+            try {
+                byte[] content = future.get();
+                if (content != null) {
+                    return content;
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CmsImportExportException) {
+                    throw (CmsImportExportException)e.getCause();
+                }
+                LOG.warn(e.getLocalizedMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // not read ahead, read it directly
+        return m_helper.getFileBytes(source);
+    }
+
+    /**
+     * Returns the number of files which are currently read ahead or have been read ahead.<p>
+     *
+     * @return the number of files read ahead
+     */
+    public synchronized int getPendingCount() {
+
+        int result = 0;
+        for (Future<byte[]> future : m_pending.values()) {
+            if (future != null) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Discards a file read ahead.<p>
+     *
+     * @param future the result of reading the file, may be <code>null</code>
+     */
+    private void discard(Future<byte[]> future) {
+
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Schedules the next files for reading until the read ahead limit is reached.<p>
+     */
+    private void readAhead() {
+
+        while ((m_pending.size() < m_readAhead) && !m_executor.isShutdown() && m_sources.hasNext()) {
+            final String source = m_sources.next();
+            if (m_pending.containsKey(source)) {
+                // listed twice in the manifest
+                continue;
+            }
+            long size = m_helper.getFileSize(source);
+            if ((size < 0) || (size > MAX_PREFETCH_SIZE)) {
+                // missing, or too large to keep it in memory, so it is read when it is requested
+                m_pending.put(source, null);
+            } else {
+                m_pending.put(source, m_executor.submit(() -> m_helper.getFileBytes(source)));
+            }
+        }
+    }
+}
@@ -414,6 +414,9 @@ public class CmsImportExportManager {
     /** Map from resource types to default timestamp modes. */
     private Map<String, TimestampMode> m_defaultTimestampModes;
 
+    /** The default number of worker threads reading the exported files. */
+    private int m_exportWorkers = 1;
+
     /** The default values of the HTML->OpenCms Template converter. */
     private CmsExtendedHtmlImportDefault m_extendedHtmlImportDefault;
 
@@ -693,6 +696,19 @@ public class CmsImportExportManager {
         return result;
     }
 
+    /**
+     * Returns the default number of worker threads reading the exported files of module and database exports.<p>
+     *
+     * This is used for exports whose parameters do not specify the number of workers,
+     * see {@link CmsExportParameters#getExportWorkers()}.<p>
+     *
+     * @return the default number of worker threads reading the exported files
+     */
+    public int getExportWorkers() {
+
+        return m_exportWorkers;
+    }
+
     /**
      * Returns the extendedHtmlImportDefault.<p>
      *
@@ -992,6 +1008,16 @@ public class CmsImportExportManager {
         setConvertToXmlPage(Boolean.valueOf(convertToXmlPage).booleanValue());
     }
 
+    /**
+     * Sets the default number of worker threads reading the exported files of module and database exports.<p>
+     *
+     * @param workers the number of worker threads, values below 1 are treated as 1
+     */
+    public void setExportWorkers(String workers) {
+
+        m_exportWorkers = Math.max(1, Integer.parseInt(workers.trim()));
+    }
+
     /**
      * Sets the extendedHtmlImportDefault.<p>
      *
@@ -222,6 +222,26 @@ public class CmsImportHelper {
         return result;
     }
 
+    /**
+     * Returns the size of a file in bytes, without reading its content.<p>
+     *
+     * @param filename the name of the file, relative to the folder or zip file
+     *
+     * @return the size of the file, or -1 if the file does not exist or the size is unknown
+     */
+    public long getFileSize(String filename) {
+
+        if (getZipFile() != null) {
+            try {
+                return getZipEntry(filename).getSize();
+            } catch (@SuppressWarnings("unused") ZipException e) {
+                return -1;
+            }
+        }
+        File file = getFile(filename);
+        return file.isFile() ? file.length() : -1;
+    }
+
     /**
      * Returns a stream for the content of the file.<p>
      *
@@ -302,6 +322,26 @@ public class CmsImportHelper {
         return m_zipFile;
     }
 
+    /**
+     * Checks if a file exists in the import, without reading its content.<p>
+     *
+     * @param filename the name of the file, relative to the folder or zip file
+     *
+     * @return <code>true</code> if the file exists
+     */
+    public boolean hasFile(String filename) {
+
+        if (getZipFile() != null) {
+            try {
+                getZipEntry(filename);
+                return true;
+            } catch (@SuppressWarnings("unused") ZipException e) {
+                return false;
+            }
+        }
+        return getFile(filename).isFile();
+    }
+
     /**
      * Opens the import file.<p>
      *
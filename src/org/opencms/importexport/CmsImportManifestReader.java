@@ -0,0 +1,200 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.importexport;
+
+import org.opencms.main.CmsLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.collect.AbstractIterator;
+
+/**
+ * Reads the file entries of an import manifest one by one, without building a document for the manifest.<p>
+ *
+ * Only the <code>source</code> and <code>uuidresource</code> values of the <code>export/files/file</code>
+ * entries are read. The manifest is not validated, this is left to the actual import.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsImportManifestReader implements AutoCloseable {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsImportManifestReader.class);
+
+    /** The depth of the current element, the root element has depth 1. */
+    private int m_depth;
+
+    /** Flag which indicates whether the current element is below the <code>export/files</code> element. */
+    private boolean m_inFiles;
+
+    /** The stream reader for the manifest. */
+    private XMLStreamReader m_reader;
+
+    /** The resource id of the current file entry. */
+    private String m_resourceId;
+
+    /** The source of the current file entry. */
+    private String m_source;
+
+    /**
+     * Creates a new manifest reader.<p>
+     *
+     * The stream is not closed by this reader.<p>
+     *
+     * @param manifest the stream of the manifest
+     *
+     * @throws IOException if the manifest can not be read
+     */
+    public CmsImportManifestReader(InputStream manifest)
+    throws IOException {
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // the DTD is neither needed nor available for reading the file entries
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        try {
+            m_reader = factory.createXMLStreamReader(manifest);
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Closes the reader.<p>
+     */
+    public void close() {
+
+        try {
+            m_reader.close();
+        } catch (XMLStreamException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the resource id of the current file entry.<p>
+     *
+     * @return the resource id of the current file entry, or <code>null</code> if the entry has none
+     */
+    public String getResourceId() {
+
+        return m_resourceId;
+    }
+
+    /**
+     * Returns the source of the current file entry.<p>
+     *
+     * @return the source of the current file entry, or <code>null</code> if the entry has no content, e.g. for folders
+     */
+    public String getSource() {
+
+        return m_source;
+    }
+
+    /**
+     * Returns the sources of the remaining file entries, in manifest order.<p>
+     *
+     * The manifest is read while iterating. If reading fails, the iteration ends.<p>
+     *
+     * @return the sources of the remaining file entries
+     */
+    public Iterator<String> getSources() {
+
+        return new AbstractIterator<String>() {
+
+            @Override
+            protected String computeNext() {
+
+                try {
+                    while (nextFile()) {
+                        if (getSource() != null) {
+                            return getSource();
+                        }
+                    }
+                } catch (IOException e) {
+                    LOG.warn(e.getLocalizedMessage(), e);
+                }
+                return endOfData();
+            }
+        };
+    }
+
+    /**
+     * Moves to the next file entry of the manifest.<p>
+     *
+     * @return <code>false</code> if there are no more file entries
+     *
+     * @throws IOException if the manifest can not be read
+     */
+    public boolean nextFile() throws IOException {
+
+        m_source = null;
+        m_resourceId = null;
+        boolean inFile = false;
+        try {
+            while (m_reader.hasNext()) {
+                int event = m_reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    m_depth++;
+                    String name = m_reader.getLocalName();
+                    if (m_depth == 2) {
+                        m_inFiles = CmsImportVersion10.N_FILES.equals(name);
+                    } else if ((m_depth == 3) && m_inFiles) {
+                        inFile = CmsImportVersion10.N_FILE.equals(name);
+                    } else if ((m_depth == 4) && inFile) {
+                        if (CmsImportVersion10.N_SOURCE.equals(name)) {
+                            m_source = m_reader.getElementText().trim();
+                            m_depth--;
+                        } else if (CmsImportVersion10.N_UUIDRESOURCE.equals(name)) {
+                            m_resourceId = m_reader.getElementText().trim();
+                            m_depth--;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    m_depth--;
+                    if ((m_depth == 2) && inFile) {
+                        return true;
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getLocalizedMessage(), e);
+        }
+        return false;
+    }
+}
@@ -128,7 +128,7 @@ public class CmsImportResourceDataReader extends CmsImportVersion10 {
             if (!resourceImmutable && !isExistingParent) {
                 byte[] content = null;
                 if (m_source != null) {
-                    content = m_helper.getFileBytes(m_source);
+                    content = getFileContent(m_source);
                 }
                 int size = 0;
                 if (content != null) {
@@ -88,6 +88,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -401,6 +402,9 @@ public class CmsImportVersion10 implements I_CmsImport {
     /** Constant for an unspecified last modification date. */
     protected static final long DATE_LAST_MODIFICATION_UNSPECIFIED = -2;
 
+    /** The maximum number of resources whose ACEs are written in one bulk operation. */
+    protected static final int ACE_IMPORT_CHUNK_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsImportVersion10.class);
 
@@ -585,6 +589,12 @@ public class CmsImportVersion10 implements I_CmsImport {
      */
     private Map<Integer, CmsUUID> m_indexToStructureId;
 
+    /** The ACEs of the imported resources which have not been written yet, written in chunks. */
+    private Map<CmsResource, List<CmsAccessControlEntry>> m_deferredAces;
+
+    /** Reads the file contents from the import file ahead of the resource import. */
+    private CmsImportContentPrefetcher m_prefetcher;
+
     /** Map to keep track of relation data for resources to be imported. */
     private Multimap<Integer, RelationData> m_relationData;
 
@@ -764,10 +774,9 @@ public class CmsImportVersion10 implements I_CmsImport {
     public void addContentFile(String source, String resourceId) {
 
         if ((source != null) && (resourceId != null)) {
-            try {
-                m_helper.getFileBytes(source);
+            if (m_helper.hasFile(source)) {
                 m_contentFiles.add(new CmsUUID(resourceId));
-            } catch (@SuppressWarnings("unused") CmsImportExportException e) {
+            } else {
                 LOG.info("File not found in import: " + source);
             }
         }
@@ -922,6 +931,7 @@ public class CmsImportVersion10 implements I_CmsImport {
 
                 m_indexToStructureId = new HashMap<>();
                 m_relationData = ArrayListMultimap.create();
+                m_deferredAces = new LinkedHashMap<>();
 
             }
         });
@@ -957,6 +967,8 @@ public class CmsImportVersion10 implements I_CmsImport {
 
         // and now the organizational unit resources
         digester.addCallMethod(CmsImportExportManager.N_EXPORT + "/" + N_FILES, "associateOrgUnitResources");
+        // end rules fire in reverse order, so the collected ACEs are written before the steps above
+        digester.addCallMethod(CmsImportExportManager.N_EXPORT + "/" + N_FILES, "importDeferredAccessControlEntries");
 
         // then projects
         xpath = CmsImportExportManager.N_EXPORT + "/" + N_PROJECTS + "/" + N_PROJECT + "/";
@@ -1573,7 +1585,15 @@ public class CmsImportVersion10 implements I_CmsImport {
         }
         // if the resource was imported add the access control entries if available
         try {
-            getCms().importAccessControlEntries(m_resource, m_aces);
+            if (m_deferredAces != null) {
+                // written together with the ACEs of other resources once the chunk is complete
+                m_deferredAces.put(m_resource, m_aces);
+                if (m_deferredAces.size() >= ACE_IMPORT_CHUNK_SIZE) {
+                    importDeferredAccessControlEntries();
+                }
+            } else {
+                getCms().importAccessControlEntries(m_resource, m_aces);
+            }
         } catch (@SuppressWarnings("unused") CmsException exc) {
             getReport().println(
                 Messages.get().container(Messages.RPT_IMPORT_ACL_DATA_FAILED_0),
@@ -1591,6 +1611,7 @@ public class CmsImportVersion10 implements I_CmsImport {
         m_cms = cms;
         m_report = report;
         m_parameters = parameters;
+        long start = System.currentTimeMillis();
 
         // instantiate Digester and enable XML validation
         Digester digester = new Digester();
@@ -1606,14 +1627,32 @@ public class CmsImportVersion10 implements I_CmsImport {
         addXmlDigesterRules(digester);
 
         InputStream stream = null;
+        InputStream prefetchStream = null;
+        CmsImportManifestReader prefetchReader = null;
         m_helper = new CmsImportHelper(m_parameters);
         try {
             m_helper.openFile();
             m_helper.cacheDtdSystemId(DTD_LOCATION, DTD_FILENAME, CmsConfigurationManager.DEFAULT_DTD_PREFIX);
             findContentFiles();
+            // a second reader streams the file names of the manifest ahead of the import
+            prefetchStream = m_helper.getFileStream(CmsImportExportManager.EXPORT_MANIFEST);
+            prefetchReader = new CmsImportManifestReader(prefetchStream);
+            m_prefetcher = new CmsImportContentPrefetcher(
+                m_helper,
+                prefetchReader.getSources(),
+                CmsImportContentPrefetcher.DEFAULT_WORKERS);
             // start the parsing process
             stream = m_helper.getFileStream(CmsImportExportManager.EXPORT_MANIFEST);
             digester.parse(stream);
+            long duration = Math.max(1, System.currentTimeMillis() - start);
+            int count = Math.max(0, m_fileCounter - 1);
+            getReport().println(
+                Messages.get().container(
+                    Messages.RPT_IMPORT_THROUGHPUT_3,
+                    String.valueOf(count),
+                    String.valueOf(duration),
+                    String.valueOf((count * 1000L) / duration)),
+                I_CmsReport.FORMAT_NOTE);
         } catch (Exception ioe) {
             if (LOG.isErrorEnabled()) {
                 LOG.error(
@@ -1624,6 +1663,13 @@ public class CmsImportVersion10 implements I_CmsImport {
             }
             getReport().println(ioe);
         } finally {
+            try {
+                // if the import has been aborted, the ACEs of the resources imported so far are still written
+                importDeferredAccessControlEntries();
+            } catch (Exception e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+            m_deferredAces = null;
             try {
                 if (stream != null) {
                     stream.close();
@@ -1631,10 +1677,43 @@ public class CmsImportVersion10 implements I_CmsImport {
             } catch (@SuppressWarnings("unused") Exception e) {
                 // noop
             }
+            if (m_prefetcher != null) {
+                m_prefetcher.close();
+                m_prefetcher = null;
+            }
+            if (prefetchReader != null) {
+                prefetchReader.close();
+            }
+            try {
+                if (prefetchStream != null) {
+                    prefetchStream.close();
+                }
+            } catch (@SuppressWarnings("unused") Exception e) {
+                // noop
+            }
             m_helper.closeFile();
         }
     }
 
+    /**
+     * Writes the access control entries collected for the imported resources which have not been written yet.<p>
+     *
+     * The entries are written with a single permission check and a single flush of the access control
+     * list cache. This is done whenever {@link #ACE_IMPORT_CHUNK_SIZE} resources have been collected,
+     * so only the ACEs of a limited number of resources are kept in memory.<p>
+     */
+    public void importDeferredAccessControlEntries() {
+
+        if ((m_deferredAces == null) || m_deferredAces.isEmpty()) {
+            return;
+        }
+        try {
+            importAccessControlEntryChunk(m_deferredAces);
+        } finally {
+            m_deferredAces.clear();
+        }
+    }
+
     /**
      * Import the current group from xml data.<p>
      */
@@ -2096,7 +2175,7 @@ public class CmsImportVersion10 implements I_CmsImport {
                 // get the file content
 
                 if (m_source != null) {
-                    content = m_helper.getFileBytes(m_source);
+                    content = getFileContent(m_source);
                 }
                 int size = 0;
                 if (content != null) {
@@ -3528,33 +3607,47 @@ public class CmsImportVersion10 implements I_CmsImport {
      *
      * @throws CmsImportExportException thrown when the manifest.xml can't be opened as stream.
      * @throws IOException thrown if the manifest.xml stream causes problems during parsing and/or closing.
-     * @throws SAXException thrown if parsing the manifest.xml fails
+     * @throws SAXException not thrown by this implementation, but may be thrown by overriding implementations
      */
     protected void findContentFiles() throws CmsImportExportException, IOException, SAXException {
 
-        Digester digester = new Digester();
-        digester.setUseContextClassLoader(true);
-        digester.setValidating(false);
-        digester.setEntityResolver(new CmsXmlEntityResolver(null));
-        digester.setRuleNamespaceURI(null);
-        digester.setErrorHandler(new CmsXmlErrorHandler(CmsImportExportManager.EXPORT_MANIFEST));
-
-        digester.addCallMethod("export/files/file", "addContentFile", 2);
-        digester.addCallParam("export/files/file/source", 0);
-        digester.addCallParam("export/files/file/uuidresource", 1);
         m_contentFiles.clear();
-        digester.push(this);
         InputStream stream = null;
+        CmsImportManifestReader reader = null;
         try {
             stream = m_helper.getFileStream(CmsImportExportManager.EXPORT_MANIFEST);
-            digester.parse(stream);
+            // only the file entries are needed, so the manifest is streamed instead of using a digester
+            reader = new CmsImportManifestReader(stream);
+            while (reader.nextFile()) {
+                addContentFile(reader.getSource(), reader.getResourceId());
+            }
         } finally {
+            if (reader != null) {
+                reader.close();
+            }
             if (stream != null) {
                 stream.close();
             }
         }
     }
 
+    /**
+     * Returns the content of a file from the import file.<p>
+     *
+     * @param source the path of the file in the import file
+     *
+     * @return the file content
+     *
+     * @throws CmsImportExportException if the file could not be read
+     */
+    protected byte[] getFileContent(String source) throws CmsImportExportException {
+
+        if (m_prefetcher != null) {
+            return m_prefetcher.getContent(source);
+        }
+        return m_helper.getFileBytes(source);
+    }
+
     /**
      * Gets the import helper instance.<p>
      *
@@ -3686,6 +3779,32 @@ public class CmsImportVersion10 implements I_CmsImport {
         }
     }
 
+    /**
+     * Writes the ACEs of a chunk of imported resources, falling back to single imports if the bulk import fails.<p>
+     *
+     * @param chunk the ACEs to write, by resource
+     */
+    protected void importAccessControlEntryChunk(Map<CmsResource, List<CmsAccessControlEntry>> chunk) {
+
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            getCms().importAccessControlEntries(chunk);
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            for (Entry<CmsResource, List<CmsAccessControlEntry>> entry : chunk.entrySet()) {
+                try {
+                    getCms().importAccessControlEntries(entry.getKey(), entry.getValue());
+                } catch (@SuppressWarnings("unused") CmsException exc) {
+                    getReport().println(
+                        Messages.get().container(Messages.RPT_IMPORT_ACL_DATA_FAILED_0),
+                        I_CmsReport.FORMAT_WARNING);
+                }
+            }
+        }
+    }
+
     /**
      * Checks whether the content for the resource being imported exists either in the VFS or in the import file.<p>
      *
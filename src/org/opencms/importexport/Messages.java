@@ -46,6 +46,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_BODY_CONTENT_NOT_FOUND_0 = "ERR_BODY_CONTENT_NOT_FOUND_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_EXPORT_INTERRUPTED_0 = "ERR_EXPORT_INTERRUPTED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORTEXPORT_ERROR_ADDING_CHILD_RESOURCES_1 = "ERR_IMPORTEXPORT_ERROR_ADDING_CHILD_RESOURCES_1";
 
@@ -333,6 +336,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_IMPORT_PROJECT_0 = "RPT_IMPORT_PROJECT_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_IMPORT_THROUGHPUT_3 = "RPT_IMPORT_THROUGHPUT_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_IMPORT_USER_0 = "RPT_IMPORT_USER_0";
 
@@ -37,6 +37,7 @@ import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
 import org.opencms.util.CmsFileUtil;
 
 import java.util.ArrayList;
@@ -156,6 +157,9 @@ public class CmsJspNavBuilder {
     /** The current request folder. */
     protected String m_requestUriFolder;
 
+    /** The resources of the navigation tree currently built, <code>null</code> if resources are read one by one. */
+    private CmsJspNavResourceTree m_resourceTree;
+
     /**
      * Empty constructor, so that this bean can be initialized from a JSP.<p>
      */
@@ -545,7 +549,7 @@ public class CmsJspNavBuilder {
         List<CmsResource> resources = null;
         try {
 
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
+            resources = readNavigationResources(folder, resourceFilter);
         } catch (Exception e) {
             // should never happen
             LOG.error(e.getLocalizedMessage(), e);
@@ -651,32 +655,40 @@ public class CmsJspNavBuilder {
         List<CmsJspNavElement> result = new ArrayList<CmsJspNavElement>();
         float parentcount = 0;
 
-        for (int i = startlevel; i <= endlevel; i++) {
-            String currentfolder = CmsResource.getPathPart(folder, i);
-            List<CmsJspNavElement> entries = getNavigationForFolder(currentfolder);
-            // Check for parent folder
-            if (parentcount > 0) {
-                for (CmsJspNavElement e : entries) {
-                    e.setNavPosition(e.getNavPosition() + parentcount);
+        // share the resources read for all levels, only the folders on the path are read
+        boolean ownsResourceTree = initResourceTree(CmsResource.getPathPart(folder, startlevel), false);
+        try {
+            for (int i = startlevel; i <= endlevel; i++) {
+                String currentfolder = CmsResource.getPathPart(folder, i);
+                List<CmsJspNavElement> entries = getNavigationForFolder(currentfolder);
+                // Check for parent folder
+                if (parentcount > 0) {
+                    for (CmsJspNavElement e : entries) {
+                        e.setNavPosition(e.getNavPosition() + parentcount);
+                    }
                 }
-            }
-            // Add new entries to result
-            result.addAll(entries);
-            Collections.sort(result);
-            // Finally spread the values of the navigation items so that there is enough room for further items
-            float pos = 0;
-            int count = 0;
-            String nextfolder = CmsResource.getPathPart(folder, i + 1);
-            parentcount = 0;
-            for (CmsJspNavElement e : result) {
-                pos = 10000 * (++count);
-                e.setNavPosition(pos);
-                if (e.getResourceName().startsWith(nextfolder)) {
+                // Add new entries to result
+                result.addAll(entries);
+                Collections.sort(result);
+                // Finally spread the values of the navigation items so that there is enough room for further items
+                float pos = 0;
+                int count = 0;
+                String nextfolder = CmsResource.getPathPart(folder, i + 1);
+                parentcount = 0;
+                for (CmsJspNavElement e : result) {
+                    pos = 10000 * (++count);
+                    e.setNavPosition(pos);
+                    if (e.getResourceName().startsWith(nextfolder)) {
+                        parentcount = pos;
+                    }
+                }
+                if (parentcount == 0) {
                     parentcount = pos;
                 }
             }
-            if (parentcount == 0) {
-                parentcount = pos;
+        } finally {
+            if (ownsResourceTree) {
+                m_resourceTree = null;
             }
         }
         return result;
@@ -727,20 +739,28 @@ public class CmsJspNavBuilder {
             noLimit = true;
         }
         List<CmsJspNavElement> list = new ArrayList<CmsJspNavElement>();
-        // get the navigation for this folder
-        List<CmsJspNavElement> curnav = getNavigationForFolder(folder, visibility, CmsResourceFilter.DEFAULT);
-        // loop through all navigation entries
-        for (CmsJspNavElement ne : curnav) {
-            // add the navigation entry to the result list
-            list.add(ne);
-            // check if navigation entry is a folder or navigation level and below the max level -> if so, get the navigation from this folder as well
-            if ((ne.isFolderLink() || ne.isNavigationLevel()) && (noLimit || (ne.getNavTreeLevel() < endLevel))) {
-                List<CmsJspNavElement> subnav = getSiteNavigation(
-                    m_cms.getSitePath(ne.getResource()),
-                    visibility,
-                    endLevel);
-                // copy the result of the subfolder to the result list
-                list.addAll(subnav);
+        // use the resource tree for all sub navigations, read it at once if the complete tree is needed
+        boolean ownsResourceTree = initResourceTree(folder, noLimit);
+        try {
+            // get the navigation for this folder
+            List<CmsJspNavElement> curnav = getNavigationForFolder(folder, visibility, CmsResourceFilter.DEFAULT);
+            // loop through all navigation entries
+            for (CmsJspNavElement ne : curnav) {
+                // add the navigation entry to the result list
+                list.add(ne);
+                // check if navigation entry is a folder or navigation level and below the max level -> if so, get the navigation from this folder as well
+                if ((ne.isFolderLink() || ne.isNavigationLevel()) && (noLimit || (ne.getNavTreeLevel() < endLevel))) {
+                    List<CmsJspNavElement> subnav = getSiteNavigation(
+                        m_cms.getSitePath(ne.getResource()),
+                        visibility,
+                        endLevel);
+                    // copy the result of the subfolder to the result list
+                    list.addAll(subnav);
+                }
+            }
+        } finally {
+            if (ownsResourceTree) {
+                m_resourceTree = null;
             }
         }
         return list;
@@ -803,7 +823,7 @@ public class CmsJspNavBuilder {
 
         List<CmsResource> resources;
         try {
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
+            resources = readNavigationResources(folder, resourceFilter);
         } catch (Exception e) {
             // should never happen
             LOG.error(e.getLocalizedMessage(), e);
@@ -842,15 +862,18 @@ public class CmsJspNavBuilder {
             level--;
         }
         try {
-            resource = m_cms.readResource(sitePath, resourceFilter);
-            List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
+            resource = readNavigationResource(sitePath, resourceFilter);
+            List<CmsProperty> properties = readNavigationProperties(resource);
             propertiesMap = CmsProperty.toMap(properties);
             if (resource.isFolder()) {
                 if (resourceFilter.equals(CmsResourceFilter.DEFAULT)
                     && !NAVIGATION_LEVEL_FOLDER.equals(
                         propertiesMap.get(CmsPropertyDefinition.PROPERTY_DEFAULT_FILE))) {
                     try {
-                        CmsResource defaultFile = m_cms.readDefaultFile(resource, resourceFilter);
+                        CmsResource defaultFile = readNavigationDefaultFile(
+                            resource,
+                            propertiesMap.get(CmsPropertyDefinition.PROPERTY_DEFAULT_FILE),
+                            resourceFilter);
                         if ((defaultFile != null)
                             && !defaultFile.isReleasedAndNotExpired(m_cms.getRequestContext().getRequestTime())) {
                             // do not show navigation entries for unreleased or expired resources
@@ -883,4 +906,169 @@ public class CmsJspNavBuilder {
 
         return new CmsJspNavElement(sitePath, resource, propertiesMap, level, m_locale);
     }
+
+    /**
+     * Initializes the resource tree below the given folder, if no resource tree is used yet.<p>
+     *
+     * @param folder the site path of the root folder of the navigation
+     * @param readSubtree <code>true</code> to read the complete subtree at once, otherwise only the folders
+     *      visited by the navigation are read
+     *
+     * @return <code>true</code> if the resource tree was initialized by this call, so the caller has to release it
+     */
+    private boolean initResourceTree(String folder, boolean readSubtree) {
+
+        if (m_resourceTree != null) {
+            return false;
+        }
+        try {
+            CmsJspNavResourceTree tree = CmsJspNavResourceTreeCache.getInstance().getTree(
+                m_cms,
+                folder,
+                CmsResourceFilter.DEFAULT);
+            if (readSubtree) {
+                tree.readSubtree();
+            }
+            m_resourceTree = tree;
+            return true;
+        } catch (CmsException e) {
+            // fall back to reading the resources one by one
+            LOG.warn(e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Checks if a resource taken from the resource tree may be used by the navigation of the current user.<p>
+     *
+     * @param resource the resource from the resource tree
+     * @param resourceFilter the resource filter
+     *
+     * @return <code>true</code> if the resource matches the filter and the current user may read it
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private boolean isNavigationResourceVisible(CmsResource resource, CmsResourceFilter resourceFilter)
+    throws CmsException {
+
+        if (m_resourceTree.isShared()) {
+            // the shared tree contains all resources, so check the permissions of the current user
+            return m_cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, false, resourceFilter);
+        }
+        return resourceFilter.isValid(m_cms.getRequestContext(), resource);
+    }
+
+    /**
+     * Returns the default file of a folder, using the resource tree if possible.<p>
+     *
+     * @param folder the folder
+     * @param defaultFileName the value of the default file property of the folder
+     * @param resourceFilter the resource filter
+     *
+     * @return the default file, or <code>null</code> if the folder has no default file
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsResource readNavigationDefaultFile(
+        CmsResource folder,
+        String defaultFileName,
+        CmsResourceFilter resourceFilter)
+    throws CmsException {
+
+        if ((m_resourceTree == null)
+            || !resourceFilter.equals(m_resourceTree.getFilter())
+            || !m_resourceTree.isFolderRead(folder.getRootPath())) {
+            // don't read the contents of folders below the levels visited by the navigation
+            return m_cms.readDefaultFile(folder, resourceFilter);
+        }
+        List<String> names = new ArrayList<String>();
+        if (defaultFileName != null) {
+            if (defaultFileName.contains("..")) {
+                // may point outside of the resource tree
+                return m_cms.readDefaultFile(folder, resourceFilter);
+            }
+            names.add(defaultFileName);
+        }
+        names.addAll(OpenCms.getDefaultFiles());
+        CmsResourceFilter fileFilter = resourceFilter.addRequireFile();
+        String folderPath = CmsFileUtil.addTrailingSeparator(folder.getRootPath());
+        for (String name : names) {
+            CmsResource defaultFile = m_resourceTree.getResource(folderPath + name);
+            if ((defaultFile != null) && isNavigationResourceVisible(defaultFile, fileFilter)) {
+                return defaultFile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the properties directly attached to a navigation resource, using the resource tree if possible.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the properties of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsProperty> readNavigationProperties(CmsResource resource) throws CmsException {
+
+        if ((m_resourceTree != null) && m_resourceTree.isInside(resource.getRootPath())) {
+            return m_resourceTree.getProperties(resource);
+        }
+        return m_cms.readPropertyObjects(resource, false);
+    }
+
+    /**
+     * Reads a navigation resource, using the resource tree if possible.<p>
+     *
+     * @param sitePath the site path of the resource
+     * @param resourceFilter the resource filter
+     *
+     * @return the resource
+     *
+     * @throws CmsException if the resource could not be read
+     */
+    private CmsResource readNavigationResource(String sitePath, CmsResourceFilter resourceFilter)
+    throws CmsException {
+
+        if ((m_resourceTree != null) && resourceFilter.equals(m_resourceTree.getFilter())) {
+            String rootPath = m_cms.getRequestContext().addSiteRoot(sitePath);
+            if (m_resourceTree.isInside(rootPath)) {
+                CmsResource resource = m_resourceTree.getResource(rootPath);
+                if ((resource != null) && isNavigationResourceVisible(resource, resourceFilter)) {
+                    return resource;
+                }
+            }
+        }
+        // not in the resource tree, read the resource to get the usual exception
+        return m_cms.readResource(sitePath, resourceFilter);
+    }
+
+    /**
+     * Reads the resources of a navigation folder, using the resource tree if possible.<p>
+     *
+     * @param folder the site path of the folder
+     * @param resourceFilter the resource filter
+     *
+     * @return the resources in the folder
+     *
+     * @throws CmsException if the resources could not be read
+     */
+    private List<CmsResource> readNavigationResources(String folder, CmsResourceFilter resourceFilter)
+    throws CmsException {
+
+        if ((m_resourceTree != null) && resourceFilter.equals(m_resourceTree.getFilter())) {
+            String rootPath = m_cms.getRequestContext().addSiteRoot(folder);
+            if (m_resourceTree.isInside(rootPath)) {
+                List<CmsResource> result = new ArrayList<CmsResource>();
+                for (CmsResource resource : m_resourceTree.getChildren(rootPath)) {
+                    if (isNavigationResourceVisible(resource, resourceFilter)) {
+                        result.add(resource);
+                    }
+                }
+                return result;
+            }
+        }
+        return m_cms.getResourcesInFolder(folder, resourceFilter);
+    }
 }
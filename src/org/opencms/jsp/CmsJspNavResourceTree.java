@@ -0,0 +1,350 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The resources of a navigation subtree, read from the VFS folder by folder when they are first needed.<p>
+ *
+ * Only the folders the navigation actually visits are read, so a navigation with a limited depth does not read
+ * the complete subtree. A complete site navigation can read the whole subtree with a single tree query,
+ * see {@link #readSubtree()}.<p>
+ *
+ * The resources are read ignoring their release and expiration dates, so the same tree can be
+ * used for all request times. The navigation builder applies the time range of its resource filter
+ * when it reads from the tree. The properties of the resources are read when they are first needed.<p>
+ *
+ * A tree which is not shared only contains the resources the user it was read for may read.
+ * A shared tree is read with an administrator context and contains all resources, so the navigation
+ * builder has to check the permissions of the current user for every resource it takes from the tree.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsJspNavResourceTree {
+
+    /** The child resources of the folders read so far, by root path of the folder without trailing separator. */
+    private Map<String, List<CmsResource>> m_children = new ConcurrentHashMap<String, List<CmsResource>>();
+
+    /** The cms context used to read the resources, with the root site as site root. */
+    private CmsObject m_cms;
+
+    /** The resource filter the tree was read with, including the time range check. */
+    private CmsResourceFilter m_filter;
+
+    /** The id of the project the tree was read in. */
+    private CmsUUID m_projectId;
+
+    /** The properties of the resources, by root path without trailing separator. */
+    private Map<String, List<CmsProperty>> m_properties = new ConcurrentHashMap<String, List<CmsProperty>>();
+
+    /** The resources read so far, by root path without trailing separator. */
+    private Map<String, CmsResource> m_resources = new ConcurrentHashMap<String, CmsResource>();
+
+    /** The root path of the root folder of the tree, with trailing separator. */
+    private String m_rootPath;
+
+    /** Indicates if the tree is shared by all users. */
+    private boolean m_shared;
+
+    /** Indicates if the complete subtree has been read. */
+    private volatile boolean m_subtreeRead;
+
+    /**
+     * Creates a new navigation resource tree.<p>
+     *
+     * @param cms the cms context used to read the resources, with the root site as site root
+     * @param root the root folder of the tree
+     * @param filter the resource filter used by the navigation
+     * @param shared <code>true</code> if the tree is shared by all users
+     */
+    protected CmsJspNavResourceTree(CmsObject cms, CmsResource root, CmsResourceFilter filter, boolean shared) {
+
+        m_cms = cms;
+        m_rootPath = CmsFileUtil.addTrailingSeparator(root.getRootPath());
+        m_projectId = cms.getRequestContext().getCurrentProject().getUuid();
+        m_filter = filter;
+        m_shared = shared;
+        m_resources.put(CmsFileUtil.removeTrailingSeparator(m_rootPath), root);
+    }
+
+    /**
+     * Reads the root folder of a navigation resource tree.<p>
+     *
+     * The resources below the root folder are read when they are first needed.<p>
+     *
+     * @param cms the cms context used to read the resources, the tree uses its own copy of it
+     * @param rootPath the root path of the root folder of the tree
+     * @param filter the resource filter used by the navigation
+     * @param shared <code>true</code> if the tree is read with an administrator context and shared by all users
+     *
+     * @return the navigation resource tree
+     *
+     * @throws CmsException if the root folder could not be read
+     */
+    public static CmsJspNavResourceTree read(
+        CmsObject cms,
+        String rootPath,
+        CmsResourceFilter filter,
+        boolean shared)
+    throws CmsException {
+
+        CmsObject treeCms = OpenCms.initCmsObject(cms);
+        treeCms.getRequestContext().setSiteRoot("");
+        CmsResource root = treeCms.readResource(rootPath, filter.addExcludeTimerange());
+        return new CmsJspNavResourceTree(treeCms, root, filter, shared);
+    }
+
+    /**
+     * Returns the child resources of a folder in this tree, reading them if the folder has not been read yet.<p>
+     *
+     * @param rootPath the root path of the folder
+     *
+     * @return the child resources of the folder, ordered by path
+     *
+     * @throws CmsException if the resources could not be read
+     */
+    public List<CmsResource> getChildren(String rootPath) throws CmsException {
+
+        String path = CmsFileUtil.removeTrailingSeparator(rootPath);
+        List<CmsResource> children = m_children.get(path);
+        if (children == null) {
+            List<CmsResource> resources = m_cms.readResources(
+                CmsFileUtil.addTrailingSeparator(path),
+                m_filter.addExcludeTimerange(),
+                false);
+            children = addChildren(path, resources);
+        }
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Returns the resource filter used by the navigation this tree was read for.<p>
+     *
+     * @return the resource filter used by the navigation
+     */
+    public CmsResourceFilter getFilter() {
+
+        return m_filter;
+    }
+
+    /**
+     * Returns the id of the project the tree was read in.<p>
+     *
+     * @return the id of the project the tree was read in
+     */
+    public CmsUUID getProjectId() {
+
+        return m_projectId;
+    }
+
+    /**
+     * Returns the properties directly attached to a resource of this tree.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the properties of the resource
+     *
+     * @throws CmsException if the properties could not be read
+     */
+    public List<CmsProperty> getProperties(CmsResource resource) throws CmsException {
+
+        String path = CmsFileUtil.removeTrailingSeparator(resource.getRootPath());
+        List<CmsProperty> properties = m_properties.get(path);
+        if (properties == null) {
+            properties = Collections.unmodifiableList(m_cms.readPropertyObjects(resource, false));
+            m_properties.put(path, properties);
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the resource with the given root path from this tree, reading its parent folder if required.<p>
+     *
+     * @param rootPath the root path of the resource, with or without trailing separator for folders
+     *
+     * @return the resource, or <code>null</code> if the resource does not exist or is not contained in this tree
+     *
+     * @throws CmsException if the resources of the parent folder could not be read
+     */
+    public CmsResource getResource(String rootPath) throws CmsException {
+
+        String path = CmsFileUtil.removeTrailingSeparator(rootPath);
+        CmsResource resource = m_resources.get(path);
+        if ((resource == null) && isInside(path) && !m_rootPath.equals(CmsFileUtil.addTrailingSeparator(path))) {
+            String parent = CmsFileUtil.removeTrailingSeparator(CmsResource.getParentFolder(path));
+            if (!m_children.containsKey(parent)) {
+                getChildren(parent);
+                resource = m_resources.get(path);
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * Returns the root path of the root folder of this tree.<p>
+     *
+     * @return the root path of the root folder, with trailing separator
+     */
+    public String getRootPath() {
+
+        return m_rootPath;
+    }
+
+    /**
+     * Returns the number of resources read into this tree so far.<p>
+     *
+     * @return the number of resources read into this tree
+     */
+    public int getSize() {
+
+        return m_resources.size();
+    }
+
+    /**
+     * Removes a changed resource from this tree, so that it and the contents of its parent folder are read again.<p>
+     *
+     * @param rootPath the root path of the changed resource
+     */
+    public void invalidate(String rootPath) {
+
+        String path = CmsFileUtil.removeTrailingSeparator(rootPath);
+        m_properties.remove(path);
+        m_children.remove(path);
+        m_resources.remove(path);
+        m_children.remove(CmsFileUtil.removeTrailingSeparator(CmsResource.getParentFolder(path)));
+    }
+
+    /**
+     * Checks if the children of a folder have already been read into this tree.<p>
+     *
+     * @param rootPath the root path of the folder
+     *
+     * @return <code>true</code> if the children of the folder have already been read
+     */
+    public boolean isFolderRead(String rootPath) {
+
+        return m_children.containsKey(CmsFileUtil.removeTrailingSeparator(rootPath));
+    }
+
+    /**
+     * Checks if a root path is inside this tree, i.e. if the tree can tell whether the resource exists.<p>
+     *
+     * @param rootPath the root path to check
+     *
+     * @return <code>true</code> if the root path is the root folder of this tree or below it
+     */
+    public boolean isInside(String rootPath) {
+
+        return CmsFileUtil.addTrailingSeparator(rootPath).startsWith(m_rootPath);
+    }
+
+    /**
+     * Returns if this tree is shared by all users.<p>
+     *
+     * If so, the tree contains resources the current user may not read, and the permissions
+     * must be checked for every resource taken from the tree.<p>
+     *
+     * @return <code>true</code> if this tree is shared by all users
+     */
+    public boolean isShared() {
+
+        return m_shared;
+    }
+
+    /**
+     * Reads all resources of this tree with a single tree query, unless this has already been done.<p>
+     *
+     * @throws CmsException if the resources could not be read
+     */
+    public void readSubtree() throws CmsException {
+
+        if (m_subtreeRead) {
+            return;
+        }
+        List<CmsResource> resources = m_cms.readResources(m_rootPath, m_filter.addExcludeTimerange(), true);
+        Map<String, List<CmsResource>> children = new HashMap<String, List<CmsResource>>();
+        children.put(CmsFileUtil.removeTrailingSeparator(m_rootPath), new ArrayList<CmsResource>());
+        for (CmsResource resource : resources) {
+            String path = CmsFileUtil.removeTrailingSeparator(resource.getRootPath());
+            if (resource.isFolder() && !children.containsKey(path)) {
+                children.put(path, new ArrayList<CmsResource>());
+            }
+            String parent = CmsFileUtil.removeTrailingSeparator(CmsResource.getParentFolder(path));
+            List<CmsResource> siblings = children.get(parent);
+            if (siblings == null) {
+                siblings = new ArrayList<CmsResource>();
+                children.put(parent, siblings);
+            }
+            siblings.add(resource);
+        }
+        for (Map.Entry<String, List<CmsResource>> entry : children.entrySet()) {
+            addChildren(entry.getKey(), entry.getValue());
+        }
+        m_subtreeRead = true;
+    }
+
+    /**
+     * Adds the children of a folder to this tree.<p>
+     *
+     * @param path the root path of the folder, without trailing separator
+     * @param resources the child resources of the folder
+     *
+     * @return the sorted child resources
+     */
+    private List<CmsResource> addChildren(String path, List<CmsResource> resources) {
+
+        List<CmsResource> children = new ArrayList<CmsResource>(resources);
+        Collections.sort(children, (a, b) -> a.getRootPath().compareTo(b.getRootPath()));
+        List<CmsResource> previous = m_children.put(path, children);
+        if (previous != null) {
+            // children which have been removed must not be found anymore
+            for (CmsResource resource : previous) {
+                m_resources.remove(CmsFileUtil.removeTrailingSeparator(resource.getRootPath()));
+            }
+        }
+        for (CmsResource resource : children) {
+            m_resources.put(CmsFileUtil.removeTrailingSeparator(resource.getRootPath()), resource);
+        }
+        return children;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.jsp;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.flex.CmsFlexRequestContextInfo;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsClusterEventListener;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Caches the navigation resource trees read by the navigation builder.<p>
+ *
+ * Trees of the online project are read with an administrator context and shared by all users, the navigation
+ * builder checks the permissions of the current user when it reads from them. They are cached per resource
+ * filter and root folder. When a resource inside such a tree is published, only that resource and the contents
+ * of its parent folder are read again; the tree is removed when one of its parent folders is published.<p>
+ *
+ * Trees of offline projects, or all trees if no administrator context has been set, are cached per project,
+ * user, resource filter and root folder. Trees of offline projects are removed whenever a resource or property
+ * is changed.<p>
+ *
+ * The cache also processes events replicated from other cluster nodes. Published resources are read from the
+ * publish history in the shared database, all other events are handled without the replicated resources.<p>
+ *
+ * @since 20.0.0
+ */
+public final class CmsJspNavResourceTreeCache implements I_CmsClusterEventListener {
+
+    /** The maximum number of cached trees. */
+    private static final int CACHE_SIZE = 64;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspNavResourceTreeCache.class);
+
+    /** The administrator context used to read the shared trees of the online project. */
+    private static CmsObject m_adminCms;
+
+    /** The singleton instance. */
+    private static CmsJspNavResourceTreeCache m_instance;
+
+    /** The cached trees. */
+    private Map<String, CmsJspNavResourceTree> m_trees;
+
+    /**
+     * Hidden constructor, use {@link #getInstance()}.<p>
+     */
+    private CmsJspNavResourceTreeCache() {
+
+        m_trees = CmsMemoryMonitor.createLRUCacheMap(CACHE_SIZE);
+        if (OpenCms.getMemoryMonitor() != null) {
+            OpenCms.getMemoryMonitor().register(CmsJspNavResourceTreeCache.class.getName() + ".trees", m_trees);
+        }
+        OpenCms.addCmsEventListener(
+            this,
+            new int[] {
+                I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+                I_CmsEventListener.EVENT_GROUP_MODIFIED,
+                I_CmsEventListener.EVENT_OU_MODIFIED,
+                I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+                I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+                I_CmsEventListener.EVENT_RESOURCE_COPIED,
+                I_CmsEventListener.EVENT_RESOURCE_CREATED,
+                I_CmsEventListener.EVENT_RESOURCE_DELETED,
+                I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+                I_CmsEventListener.EVENT_RESOURCE_MOVED,
+                I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+                I_CmsEventListener.EVENT_RESOURCES_MODIFIED,
+                I_CmsEventListener.EVENT_USER_MODIFIED});
+    }
+
+    /**
+     * Returns the navigation resource tree cache.<p>
+     *
+     * @return the navigation resource tree cache
+     */
+    public static synchronized CmsJspNavResourceTreeCache getInstance() {
+
+        if (m_instance == null) {
+            m_instance = new CmsJspNavResourceTreeCache();
+        }
+        return m_instance;
+    }
+
+    /**
+     * Sets the administrator context used to read the shared trees of the online project.<p>
+     *
+     * @param adminCms the administrator context
+     */
+    public static void setAdminCms(CmsObject adminCms) {
+
+        m_adminCms = adminCms;
+    }
+
+    /**
+     * Removes all cached trees.<p>
+     */
+    public void clear() {
+
+        m_trees.clear();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                removeOffline();
+                removePublished((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+                removeOnline();
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                clear();
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
+            case I_CmsEventListener.EVENT_GROUP_MODIFIED:
+            case I_CmsEventListener.EVENT_OU_MODIFIED:
+            case I_CmsEventListener.EVENT_USER_MODIFIED:
+                // the permissions of the users may have changed, shared trees do not depend on them
+                removeUnshared();
+                break;
+            default:
+                // all other events change resources or properties in an offline project
+                removeOffline();
+        }
+    }
+
+    /**
+     * Returns the navigation resource tree for a folder, reading it if it is not cached.<p>
+     *
+     * The resources of a cached tree are not read through the security manager again, so the Flex cache
+     * dependencies of the current request are marked as untracked.<p>
+     *
+     * @param cms the current cms context
+     * @param folder the site path of the root folder of the tree
+     * @param filter the resource filter used by the navigation
+     *
+     * @return the navigation resource tree
+     *
+     * @throws CmsException if the resources could not be read
+     */
+    public CmsJspNavResourceTree getTree(CmsObject cms, String folder, CmsResourceFilter filter)
+    throws CmsException {
+
+        String rootPath = cms.getRequestContext().addSiteRoot(folder);
+        CmsObject adminCms = m_adminCms;
+        boolean shared = (adminCms != null) && cms.getRequestContext().getCurrentProject().isOnlineProject();
+        String key;
+        if (shared) {
+            key = "shared_" + filter.getCacheId() + "_" + rootPath;
+        } else {
+            key = cms.getRequestContext().getCurrentProject().getUuid()
+                + "_"
+                + cms.getRequestContext().getCurrentUser().getId()
+                + "_"
+                + filter.getCacheId()
+                + "_"
+                + rootPath;
+        }
+        CmsJspNavResourceTree tree = m_trees.get(key);
+        if (tree == null) {
+            long start = System.currentTimeMillis();
+            CmsObject readCms = cms;
+            if (shared) {
+                readCms = OpenCms.initCmsObject(adminCms);
+                readCms.getRequestContext().setCurrentProject(readCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+            }
+            tree = CmsJspNavResourceTree.read(readCms, rootPath, filter, shared);
+            m_trees.put(key, tree);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    "Read navigation tree "
+                        + key
+                        + " with "
+                        + tree.getSize()
+                        + " resources in "
+                        + (System.currentTimeMillis() - start)
+                        + " ms");
+            }
+        }
+        CmsFlexRequestContextInfo info = CmsFlexRequestContextInfo.getContextInfo(cms);
+        if (info != null) {
+            info.setUntracked();
+        }
+        return tree;
+    }
+
+    /**
+     * Removes the trees of all offline projects.<p>
+     */
+    private void removeOffline() {
+
+        Iterator<CmsJspNavResourceTree> it = m_trees.values().iterator();
+        while (it.hasNext()) {
+            if (!CmsProject.isOnlineProject(it.next().getProjectId())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the trees of the online project.<p>
+     */
+    private void removeOnline() {
+
+        Iterator<CmsJspNavResourceTree> it = m_trees.values().iterator();
+        while (it.hasNext()) {
+            if (CmsProject.isOnlineProject(it.next().getProjectId())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes or updates the trees of the online project affected by a publish job.<p>
+     *
+     * @param publishIdStr the publish history id of the publish job
+     */
+    private void removePublished(String publishIdStr) {
+
+        if (!CmsUUID.isValidUUID(publishIdStr)) {
+            removeOnline();
+            return;
+        }
+        List<String> paths = new ArrayList<String>();
+        try {
+            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+            for (CmsPublishedResource pubRes : cms.readPublishedResources(new CmsUUID(publishIdStr))) {
+                if (pubRes.isMoved()) {
+                    // the original location of a moved resource is not known
+                    removeOnline();
+                    return;
+                }
+                paths.add(pubRes.getRootPath());
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            removeOnline();
+            return;
+        }
+        Iterator<CmsJspNavResourceTree> it = m_trees.values().iterator();
+        while (it.hasNext()) {
+            CmsJspNavResourceTree tree = it.next();
+            if (CmsProject.isOnlineProject(tree.getProjectId())) {
+                for (String path : paths) {
+                    if (tree.getRootPath().startsWith(CmsFileUtil.addTrailingSeparator(path))) {
+                        // the root folder of the tree or one of its parent folders has been published
+                        it.remove();
+                        break;
+                    } else if (tree.isInside(path)) {
+                        tree.invalidate(path);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the trees which are not shared by all users.<p>
+     */
+    private void removeUnshared() {
+
+        Iterator<CmsJspNavResourceTree> it = m_trees.values().iterator();
+        while (it.hasNext()) {
+            if (!it.next().isShared()) {
+                it.remove();
+            }
+        }
+    }
+}
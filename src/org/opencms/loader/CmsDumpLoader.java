@@ -39,7 +39,14 @@ import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.workplace.CmsWorkplaceManager;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
 import java.util.Locale;
 
@@ -61,6 +68,12 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 1;
 
+    /** The unit of byte ranges in HTTP "Range" headers. */
+    public static final String RANGE_UNIT_BYTES = "bytes";
+
+    /** The size of the buffer used for streaming contents to the response. */
+    public static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     /** The maximum age for dumped contents in the clients cache. */
     private static long m_clientCacheMaxAge;
 
@@ -228,35 +241,18 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
             return;
         }
 
-        // make sure we have the file contents available
-        CmsFile file = cms.readFile(resource);
-
-        // set response status to "200 - OK" (required for static export "on-demand")
-        res.setStatus(HttpServletResponse.SC_OK);
-        // set content length header
-        res.setContentLength(file.getContents().length);
-
-        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
-            // prevent caching for Workplace users
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
-            CmsRequestUtil.setNoCacheHeaders(res);
-        } else {
-            // set date last modified header
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, file.getDateLastModified());
-
-            // set "Expires" only if cache control is not already set
-            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
-                long expireTime = resource.getDateExpired();
-                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
-                    expireTime--;
-                    // flex controller will automatically reduce this to a reasonable value
-                }
-                // now set "Expires" header
-                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
-            }
+        long[] range = prepareResponse(resource, getContentLength(resource), req, res);
+        if (range == null) {
+            // the requested range can not be satisfied
+            return;
+        }
+        // stream the content, so large files are not read into memory at once
+        InputStream in = cms.readContentStream(resource);
+        try {
+            copyRange(in, res.getOutputStream(), range[0], (range[1] - range[0]) + 1);
+        } finally {
+            in.close();
         }
-
-        service(cms, file, req, res);
     }
 
     /**
@@ -265,7 +261,12 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
     public void service(CmsObject cms, CmsResource resource, ServletRequest req, ServletResponse res)
     throws CmsException, IOException {
 
-        res.getOutputStream().write(cms.readFile(resource).getContents());
+        InputStream in = cms.readContentStream(resource);
+        try {
+            copyRange(in, res.getOutputStream(), 0, -1);
+        } finally {
+            in.close();
+        }
     }
 
     /**
@@ -300,4 +301,243 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Copies a range of bytes from the given input stream to the given output stream.<p>
+     *
+     * @param in the stream to read from
+     * @param out the stream to write to
+     * @param offset the number of bytes to skip in the input stream
+     * @param count the number of bytes to copy, or -1 to copy everything after the offset
+     *
+     * @return the number of bytes copied
+     *
+     * @throws IOException if reading or writing fails
+     */
+    protected static long copyRange(InputStream in, OutputStream out, long offset, long count) throws IOException {
+
+        long skipped = 0;
+        while (skipped < offset) {
+            long n = in.skip(offset - skipped);
+            if (n <= 0) {
+                if (in.read() < 0) {
+                    return 0;
+                }
+                n = 1;
+            }
+            skipped += n;
+        }
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        long copied = 0;
+        while ((count < 0) || (copied < count)) {
+            int len = count < 0 ? buffer.length : (int)Math.min(buffer.length, count - copied);
+            int n = in.read(buffer, 0, len);
+            if (n < 0) {
+                break;
+            }
+            out.write(buffer, 0, n);
+            copied += n;
+        }
+        return copied;
+    }
+
+    /**
+     * Parses the value of a HTTP "Range" header for a content of the given length.<p>
+     *
+     * Only single byte ranges are supported. Multiple ranges or invalid headers are ignored, so the
+     * complete content is delivered in this case, which is allowed by the HTTP specification.<p>
+     *
+     * @param rangeHeader the value of the "Range" header, may be <code>null</code>
+     * @param length the length of the content
+     *
+     * @return the first and last byte position of the range, <code>null</code> if the complete content should be delivered,
+     *      or an empty array if the range can not be satisfied
+     */
+    protected static long[] parseRange(String rangeHeader, long length) {
+
+        if ((rangeHeader == null) || !rangeHeader.startsWith(RANGE_UNIT_BYTES + "=")) {
+            return null;
+        }
+        String spec = rangeHeader.substring(RANGE_UNIT_BYTES.length() + 1).trim();
+        int dash = spec.indexOf('-');
+        if ((dash < 0) || (spec.indexOf(',') >= 0)) {
+            // invalid or multiple ranges
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            if (first.length() == 0) {
+                // suffix range, e.g. "bytes=-500" for the last 500 bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                return new long[] {Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.length() == 0 ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if ((last.length() > 0) && (Long.parseLong(last) < start)) {
+                // syntactically invalid
+                return null;
+            }
+            if (start >= length) {
+                return new long[0];
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Delivers the content of the given resource from a file in the real file system, e.g. from a disk cache.<p>
+     *
+     * The file is transferred to the response with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * so the content is not read into the Java heap. The same headers as in
+     * {@link #load(CmsObject, CmsResource, HttpServletRequest, HttpServletResponse)} are set.<p>
+     *
+     * @param resource the resource the file content belongs to
+     * @param file the file with the content
+     * @param req the current request
+     * @param res the current response
+     *
+     * @throws IOException if reading the file or writing the response fails
+     */
+    protected void loadFromFile(CmsResource resource, File file, HttpServletRequest req, HttpServletResponse res)
+    throws IOException {
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long[] range = prepareResponse(resource, channel.size(), req, res);
+            if (range == null) {
+                // the requested range can not be satisfied
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            long position = range[0];
+            long remaining = (range[1] - range[0]) + 1;
+            while (remaining > 0) {
+                long n = channel.transferTo(position, remaining, out);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+                remaining -= n;
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Sets the status and the headers of the response for delivering the content of the given resource.<p>
+     *
+     * If the request contains a satisfiable "Range" header, and the "If-Range" header matches the resource if present,
+     * the status is set to "206 - partial content" and only the requested range should be delivered.<p>
+     *
+     * @param resource the resource to deliver
+     * @param length the length of the content
+     * @param req the current request
+     * @param res the current response
+     *
+     * @return the first and last byte position of the content to deliver,
+     *      or <code>null</code> if nothing must be delivered since the requested range can not be satisfied
+     */
+    protected long[] prepareResponse(CmsResource resource, long length, HttpServletRequest req, HttpServletResponse res) {
+
+        res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, RANGE_UNIT_BYTES);
+        long[] range = null;
+        if ((length > 0) && isRangeApplicable(resource, req)) {
+            range = parseRange(req.getHeader(CmsRequestUtil.HEADER_RANGE), length);
+        }
+        if ((range != null) && (range.length == 0)) {
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, RANGE_UNIT_BYTES + " */" + length);
+            res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return null;
+        }
+
+        if (range == null) {
+            // set response status to "200 - OK" (required for static export "on-demand")
+            res.setStatus(HttpServletResponse.SC_OK);
+            range = new long[] {0, length - 1};
+        } else {
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            res.setHeader(
+                CmsRequestUtil.HEADER_CONTENT_RANGE,
+                RANGE_UNIT_BYTES + " " + range[0] + "-" + range[1] + "/" + length);
+        }
+        // set content length header
+        long contentLength = (range[1] - range[0]) + 1;
+        if (contentLength <= Integer.MAX_VALUE) {
+            res.setContentLength((int)contentLength);
+        } else {
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_LENGTH, String.valueOf(contentLength));
+        }
+
+        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
+            // prevent caching for Workplace users
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
+            CmsRequestUtil.setNoCacheHeaders(res);
+        } else {
+            // set date last modified header
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, resource.getDateLastModified());
+
+            // set "Expires" only if cache control is not already set
+            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
+                long expireTime = resource.getDateExpired();
+                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
+                    expireTime--;
+                    // flex controller will automatically reduce this to a reasonable value
+                }
+                // now set "Expires" header
+                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Returns the length of the content of the given resource.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the length of the content
+     */
+    private long getContentLength(CmsResource resource) {
+
+        if (resource instanceof CmsFile) {
+            byte[] contents = ((CmsFile)resource).getContents();
+            if ((contents != null) && (contents.length > 0)) {
+                // the content may have been modified, e.g. by scaling an image
+                return contents.length;
+            }
+        }
+        return resource.getLength();
+    }
+
+    /**
+     * Checks if a "Range" header of the request should be applied, based on the "If-Range" header.<p>
+     *
+     * Since this loader does not send entity tags, only dates in the "If-Range" header can match.<p>
+     *
+     * @param resource the requested resource
+     * @param req the current request
+     *
+     * @return <code>true</code> if a "Range" header should be applied
+     */
+    private boolean isRangeApplicable(CmsResource resource, HttpServletRequest req) {
+
+        if (req.getHeader(CmsRequestUtil.HEADER_IF_RANGE) == null) {
+            return true;
+        }
+        try {
+            long ifRange = req.getDateHeader(CmsRequestUtil.HEADER_IF_RANGE);
+            // HTTP dates have a precision of seconds
+            return (ifRange / 1000) == (resource.getDateLastModified() / 1000);
+        } catch (IllegalArgumentException e) {
+            // the header contains an entity tag
+            return false;
+        }
+    }
+}
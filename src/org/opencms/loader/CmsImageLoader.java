@@ -30,9 +30,13 @@ package org.opencms.loader;
 import org.opencms.ade.galleries.CmsPreviewService;
 import org.opencms.cache.CmsVfsNameBasedDiskCache;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.configuration.I_CmsNeedsAdminCmsObject;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeImage;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
@@ -40,9 +44,20 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -59,9 +74,13 @@ import org.apache.commons.logging.Log;
  * For example, to scale an image to exact 800x600 pixel with center fitting and a background color of grey,
  * the following parameter String can be used: <code>w:800,h:600,t:0,c:c0c0c0</code>.<p>
  *
+ * Concurrent requests for the same image version which is not yet in the disk cache are coalesced,
+ * so the image is scaled only once. Optionally, the versions configured with {@link #CONFIGURATION_PREGENERATE}
+ * are created in the background after an image has been published.<p>
+ *
  * @since 6.2.0
  */
-public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener {
+public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener, I_CmsNeedsAdminCmsObject {
 
     /** Controls max number of threads that are allowed to scale images concurrently. */
     public static final String CONFIGURATION_CONCURRENCY = "image.scaling.concurrency";
@@ -78,6 +97,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to set the maximum image scale size. */
     public static final String CONFIGURATION_MAX_SCALE_SIZE = "image.scaling.maxsize";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the scale parameters of the image versions created after publishing, separated by '|'. */
+    public static final String CONFIGURATION_PREGENERATE = "image.scaling.pregenerate";
+
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
@@ -102,15 +124,27 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width * height) to apply image blurring when down scaling (setting this to high may cause "out of memory" errors). */
     protected static int m_maxBlurSize = CmsImageScaler.SCALE_DEFAULT_MAX_BLUR_SIZE;
 
+    /** The currently running scaling operations, by the name of the cache file they create. */
+    protected static Map<String, FutureTask<byte[]>> m_scalingTasks = new ConcurrentHashMap<>();
+
     /** The disk cache to use for saving scaled image versions. */
     protected static CmsVfsNameBasedDiskCache m_vfsDiskCache;
 
+    /** The admin CMS context used for creating image versions after publishing. */
+    protected CmsObject m_adminCms;
+
     /** The name of the configured image cache repository. */
     protected String m_imageRepositoryFolder;
 
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** The scale parameters of the image versions to create after publishing. */
+    protected List<String> m_pregenerateParams = Collections.emptyList();
+
+    /** The executor used for creating image versions after publishing. */
+    private ExecutorService m_pregenerateExecutor;
+
     /**
      * Creates a new image loader.<p>
      */
@@ -204,6 +238,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_PREGENERATE.equals(paramName)) {
+                m_pregenerateParams = CmsStringUtil.splitAsList(paramValue, '|', true);
+            }
 
             if (CONFIGURATION_CONCURRENCY.equals(paramName)) {
                 int concurrency = CmsStringUtil.getIntValue(paramValue, CmsImageScaler.DEFAULT_CONCURRENCY, paramName);
@@ -223,8 +260,22 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         if (event == null) {
             return;
         }
-        // only react on the clear caches event
         int type = event.getType();
+        if (type == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            Object publishHistoryId = event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+            if ((m_pregenerateExecutor != null) && (publishHistoryId instanceof String)) {
+                final CmsUUID id = new CmsUUID((String)publishHistoryId);
+                m_pregenerateExecutor.execute(new Runnable() {
+
+                    public void run() {
+
+                        pregenerateImages(id);
+                    }
+                });
+            }
+            return;
+        }
+        // otherwise only react on the clear caches event
         if (type != I_CmsEventListener.EVENT_CLEAR_CACHES) {
             return;
         }
@@ -255,6 +306,10 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         m_enabled = false;
         m_imageRepositoryFolder = null;
         m_vfsDiskCache = null;
+        if (m_pregenerateExecutor != null) {
+            m_pregenerateExecutor.shutdownNow();
+            m_pregenerateExecutor = null;
+        }
     }
 
     /**
@@ -297,6 +352,19 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
+        if (m_enabled && !m_pregenerateParams.isEmpty()) {
+            // a single low priority thread, so creating image versions does not compete with requests
+            m_pregenerateExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: Image scaling after publish");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
         OpenCms.addCmsEventListener(this);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -323,6 +391,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // get the scale information from the request
             CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
+            if (!(resource instanceof CmsFile)) {
+                // deliver an already cached version directly from the disk cache without reading it into memory
+                String cacheParam = scaler.isValid() ? scaler.toString() : null;
+                File cachedFile = m_vfsDiskCache.getCacheFile(m_vfsDiskCache.getCacheName(resource, cacheParam));
+                if (cachedFile != null) {
+                    loadFromFile(resource, cachedFile, req, res);
+                    return;
+                }
+            }
             // load the file from the cache
             CmsFile file = getScaledImage(cms, resource, scaler);
             // now perform standard load operation inherited from dump loader
@@ -333,6 +410,93 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
     }
 
+    /**
+     * @see org.opencms.configuration.I_CmsNeedsAdminCmsObject#setAdminCmsObject(org.opencms.file.CmsObject)
+     */
+    public void setAdminCmsObject(CmsObject adminCms) {
+
+        m_adminCms = adminCms;
+    }
+
+    /**
+     * Returns the content of a scaled version of the given OpenCms VFS image resource, which is not in the disk cache yet.<p>
+     *
+     * The scaled version is created and saved in the disk cache. If another request is already creating the same version,
+     * this method waits for it and returns its result, so the image is scaled only once.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param cacheName the name of the disk cache file of the scaled version
+     *
+     * @return the content of the scaled version
+     *
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    protected byte[] getScaledContent(
+        final CmsObject cms,
+        final CmsResource resource,
+        final CmsImageScaler scaler,
+        final String cacheName)
+    throws IOException, CmsException {
+
+        FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                // another request may have just finished scaling the image
+                byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
+                if (content != null) {
+                    return content;
+                }
+                // we must read the content from the VFS (if this has not been done yet)
+                CmsFile file = cms.readFile(resource);
+                content = file.getContents();
+                if (scaler.isValid()) {
+                    if (scaler.getType() == 8) {
+                        // only need the focal point for mode 8
+                        scaler.setFocalPoint(CmsPreviewService.readFocalPoint(cms, resource));
+                    }
+                    // valid scaling parameters found, scale the content
+                    content = scaler.scaleImage(file);
+                }
+                // save the content in the cache
+                m_vfsDiskCache.saveCacheFile(cacheName, content);
+                return content;
+            }
+        });
+        FutureTask<byte[]> running = m_scalingTasks.putIfAbsent(cacheName, task);
+        if (running == null) {
+            try {
+                task.run();
+            } finally {
+                m_scalingTasks.remove(cacheName, task);
+            }
+            running = task;
+        } else {
+            CmsImageScaler.getScalingStatistics().addCoalescedRequest();
+        }
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
     /**
      * Returns a scaled version of the given OpenCms VFS image resource.<p>
      *
@@ -356,34 +520,55 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
         byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
 
+        if (content == null) {
+            // the version is not cached yet, scale the image or wait for a request which is already scaling it
+            content = getScaledContent(cms, resource, scaler, cacheName);
+        }
         CmsFile file;
-        if (content != null) {
-            if (resource instanceof CmsFile) {
-                // the original file content must be modified (required e.g. for static export)
-                file = (CmsFile)resource;
-            } else {
-                // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
-                file = new CmsFile(resource);
-            }
-            // save the content in the file
-            file.setContents(content);
+        if (resource instanceof CmsFile) {
+            // the original file content must be modified (required e.g. for static export)
+            file = (CmsFile)resource;
         } else {
-            // we must read the content from the VFS (if this has not been done yet)
-            file = cms.readFile(resource);
-            // upgrade the file (load the content)
-            if (scaler.isValid()) {
-                if (scaler.getType() == 8) {
-                    // only need the focal point for mode 8
-                    scaler.setFocalPoint(CmsPreviewService.readFocalPoint(cms, resource));
+            // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
+            file = new CmsFile(resource);
+        }
+        // save the content in the file
+        file.setContents(content);
+        return file;
+    }
+
+    /**
+     * Creates the configured image versions of the images published with the given publish job.<p>
+     *
+     * @param publishHistoryId the publish history id of the publish job
+     */
+    protected void pregenerateImages(CmsUUID publishHistoryId) {
+
+        if ((m_adminCms == null) || (m_vfsDiskCache == null)) {
+            return;
+        }
+        try {
+            CmsObject cms = OpenCms.initCmsObject(m_adminCms);
+            for (CmsPublishedResource published : cms.readPublishedResources(publishHistoryId)) {
+                if ((published.getType() != CmsResourceTypeImage.getStaticTypeId())
+                    || published.getState().isDeleted()) {
+                    continue;
+                }
+                CmsResource resource = cms.readResource(published.getStructureId(), CmsResourceFilter.ALL);
+                for (String params : m_pregenerateParams) {
+                    CmsImageScaler scaler = new CmsImageScaler(params);
+                    scaler.setMaxBlurSize(m_maxBlurSize);
+                    if (!scaler.isValid()) {
+                        continue;
+                    }
+                    String cacheName = m_vfsDiskCache.getCacheName(resource, scaler.toString());
+                    if (m_vfsDiskCache.getCacheFile(cacheName) == null) {
+                        getScaledContent(cms, resource, scaler, cacheName);
+                    }
                 }
-                // valid scaling parameters found, scale the content
-                content = scaler.scaleImage(file);
-                // exchange the content of the file with the scaled version
-                file.setContents(content);
             }
-            // save the file content in the cache
-            m_vfsDiskCache.saveCacheFile(cacheName, file.getContents());
+        } catch (Exception e) {
+            LOG.warn(e.getLocalizedMessage(), e);
         }
-        return file;
     }
-}
\ No newline at end of file
+}
@@ -138,6 +138,9 @@ public class CmsImageScaler {
     /** Atomic counter for concurrent image scaling operations. */
     private static final AtomicInteger concurrentRequests = new AtomicInteger(0);
 
+    /** The statistics of the image scaling operations. */
+    private static final CmsImageScalingStatistics statistics = new CmsImageScalingStatistics();
+
     /** Controls access to the semaphore. */
     private static final Object sync = new Object();
 
@@ -378,6 +381,16 @@ public class CmsImageScaler {
         return result;
     }
 
+    /**
+     * Returns the number of image scaling operations which are currently running.<p>
+     *
+     * @return the number of running image scaling operations
+     */
+    public static int getConcurrentScalings() {
+
+        return concurrentRequests.get();
+    }
+
     /**
      * Gets image dimensions for given file
      * @param imgFile image file
@@ -413,6 +426,28 @@ public class CmsImageScaler {
         return null;
     }
 
+    /**
+     * Returns the number of image scaling operations waiting for a free slot.<p>
+     *
+     * The number of slots is set with {@link #setConcurrency(int)}.<p>
+     *
+     * @return the number of waiting image scaling operations
+     */
+    public static int getScalingQueueLength() {
+
+        return semaphore.getQueueLength();
+    }
+
+    /**
+     * Returns the statistics of the image scaling operations.<p>
+     *
+     * @return the statistics of the image scaling operations
+     */
+    public static CmsImageScalingStatistics getScalingStatistics() {
+
+        return statistics;
+    }
+
     /**
      * Sets the image scaling concurrency level, i.e. the maximum number of threads allowed to scale images concurrently.
      *
@@ -1210,7 +1245,9 @@ public class CmsImageScaler {
     public byte[] scaleImage(byte[] content, BufferedImage image, String rootPath) {
 
         try {
+            long queued = System.nanoTime();
             acquireSemaphore();
+            long started = System.nanoTime();
             try {
                 byte[] result = content;
                 // flag for processed image
@@ -1423,6 +1460,7 @@ public class CmsImageScaler {
                 return result;
             } finally {
                 releaseSemaphore();
+                statistics.addScaling(started - queued, System.nanoTime() - started);
             }
         } catch (InterruptedException e) {
             LOG.warn("Waiting on image scaling semaphore was interrupted", e);
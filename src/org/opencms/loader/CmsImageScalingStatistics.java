@@ -0,0 +1,134 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects statistics about the image scaling operations, e.g. for the memory monitor.<p>
+ *
+ * All times are measured in nanoseconds and returned in milliseconds.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsImageScalingStatistics {
+
+    /** The number of requests which have waited for a scaling operation started by another request. */
+    private AtomicLong m_coalescedCount = new AtomicLong();
+
+    /** The number of scaling operations. */
+    private AtomicLong m_count = new AtomicLong();
+
+    /** The maximum time a scaling operation has waited for a free slot. */
+    private AtomicLong m_maxQueueTime = new AtomicLong();
+
+    /** The total time the scaling operations have waited for a free slot. */
+    private AtomicLong m_queueTime = new AtomicLong();
+
+    /** The total time of the scaling operations, without the queue time. */
+    private AtomicLong m_scalingTime = new AtomicLong();
+
+    /**
+     * Records a request which has waited for a scaling operation started by another request.<p>
+     */
+    public void addCoalescedRequest() {
+
+        m_coalescedCount.incrementAndGet();
+    }
+
+    /**
+     * Records a scaling operation.<p>
+     *
+     * @param queueTime the time in nanoseconds the operation has waited for a free slot
+     * @param scalingTime the time in nanoseconds the operation took
+     */
+    public void addScaling(long queueTime, long scalingTime) {
+
+        m_count.incrementAndGet();
+        m_queueTime.addAndGet(queueTime);
+        m_scalingTime.addAndGet(scalingTime);
+        long max = m_maxQueueTime.get();
+        while ((queueTime > max) && !m_maxQueueTime.compareAndSet(max, queueTime)) {
+            max = m_maxQueueTime.get();
+        }
+    }
+
+    /**
+     * Returns the average time in milliseconds a scaling operation has waited for a free slot.<p>
+     *
+     * @return the average queue time in milliseconds
+     */
+    public long getAverageQueueTime() {
+
+        long count = m_count.get();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(m_queueTime.get() / count) : 0;
+    }
+
+    /**
+     * Returns the average time in milliseconds of a scaling operation, without the queue time.<p>
+     *
+     * @return the average scaling time in milliseconds
+     */
+    public long getAverageScalingTime() {
+
+        long count = m_count.get();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(m_scalingTime.get() / count) : 0;
+    }
+
+    /**
+     * Returns the number of requests which have waited for a scaling operation started by another request.<p>
+     *
+     * @return the number of coalesced requests
+     */
+    public long getCoalescedCount() {
+
+        return m_coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of scaling operations.<p>
+     *
+     * @return the number of scaling operations
+     */
+    public long getCount() {
+
+        return m_count.get();
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a scaling operation has waited for a free slot.<p>
+     *
+     * @return the maximum queue time in milliseconds
+     */
+    public long getMaxQueueTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_maxQueueTime.get());
+    }
+}
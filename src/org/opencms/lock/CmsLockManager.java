@@ -130,13 +130,8 @@ public final class CmsLockManager {
         // handle collisions with exclusive locked sub-resources in case of a folder
         if (resource.isFolder() && newLock.getSystemLock().isUnlocked() && !type.isShallow()) {
             String resourceName = resource.getRootPath();
-            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
-            while (itLocks.hasNext()) {
-                CmsLock lock = itLocks.next();
-                String lockedPath = lock.getResourceName();
-                if (lockedPath.startsWith(resourceName) && !lockedPath.equals(resourceName)) {
-                    unlockResource(lockedPath, false);
-                }
+            for (CmsLock lock : OpenCms.getMemoryMonitor().getCachedSubtreeLocks(resourceName, false)) {
+                unlockResource(lock.getResourceName(), false);
             }
         }
     }
@@ -235,7 +230,7 @@ public final class CmsLockManager {
     throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -288,7 +283,7 @@ public final class CmsLockManager {
     throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -363,7 +358,7 @@ public final class CmsLockManager {
     public List<CmsLock> getLocks(CmsDbContext dbc, String resourceName, CmsLockFilter filter) throws CmsException {
 
         List<CmsLock> locks = new ArrayList<CmsLock>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resourceName, filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (filter.isSharedExclusive()) {
@@ -409,7 +404,9 @@ public final class CmsLockManager {
         if (resource == null) {
             return false;
         }
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedSubtreeLocks(
+            resource.getRootPath(),
+            true).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (lock.getSystemLock().isUnlocked()) {
@@ -581,13 +578,9 @@ public final class CmsLockManager {
             if (resource.isFolder() && !lock.getType().isShallow()) {
                 // in case of a folder, remove any exclusive locks on sub-resources that probably have
                 // been upgraded from an inherited lock when the user edited a resource
-                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
-                while (itLocks.hasNext()) {
-                    String lockedPath = (itLocks.next()).getResourceName();
-                    if (lockedPath.startsWith(resourcename) && !lockedPath.equals(resourcename)) {
-                        // remove the exclusive locked sub-resource
-                        unlockResource(lockedPath, false);
-                    }
+                for (CmsLock subLock : OpenCms.getMemoryMonitor().getCachedSubtreeLocks(resourcename, false)) {
+                    // remove the exclusive locked sub-resource
+                    unlockResource(subLock.getResourceName(), false);
                 }
             }
             if (removeSystemLock) {
@@ -751,6 +744,38 @@ public final class CmsLockManager {
         }
     }
 
+    /**
+     * Returns the cached locks which may match the given filter for the given root path.<p>
+     *
+     * Uses the lock path index to avoid iterating over all cached locks where the filter allows it.<p>
+     *
+     * @param rootPath the root path to match the locks against
+     * @param filter the lock filter
+     *
+     * @return the candidate locks, a superset of the locks matching the filter
+     */
+    private List<CmsLock> getCandidateLocks(String rootPath, CmsLockFilter filter) {
+
+        if (filter.isSharedExclusive()) {
+            // siblings of matching resources may be locked anywhere
+            return OpenCms.getMemoryMonitor().getAllCachedLocks();
+        }
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        if (filter.isIncludeChildren()) {
+            result.addAll(OpenCms.getMemoryMonitor().getCachedSubtreeLocks(rootPath, true));
+        }
+        if (filter.isIncludeParent()) {
+            result.addAll(OpenCms.getMemoryMonitor().getCachedParentFolderLocks(rootPath));
+            if (!filter.isIncludeChildren() && rootPath.endsWith("/")) {
+                CmsLock lock = OpenCms.getMemoryMonitor().getCachedLock(rootPath);
+                if (lock != null) {
+                    result.add(lock);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the direct lock of a resource.<p>
      *
@@ -772,13 +797,8 @@ public final class CmsLockManager {
      */
     private CmsLock getParentFolderLock(String resourceName) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
-        while (itLocks.hasNext()) {
-            CmsLock lock = itLocks.next();
-            if (lock.getResourceName().endsWith("/")
-                && !lock.getType().isShallow()
-                && resourceName.startsWith(lock.getResourceName())
-                && !resourceName.equals(lock.getResourceName())) {
+        for (CmsLock lock : OpenCms.getMemoryMonitor().getCachedParentFolderLocks(resourceName)) {
+            if (lock.getResourceName().endsWith("/") && !lock.getType().isShallow()) {
                 // system locks does not get inherited
                 lock = lock.getEditionLock();
                 // check the lock
@@ -0,0 +1,367 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical index over the cached locks, keyed by the root path of the locked resources.<p>
+ *
+ * The index is a path tree where every node represents one path segment. Folder segments keep their
+ * trailing slash, so a folder <code>/a/b/</code> and a file <code>/a/b</code> are different nodes, and
+ * the content of a folder is always found below the folder node. This allows to look up the locks
+ * of a subtree or the locks of all parent folders in O(path depth + results) instead of scanning
+ * all cached locks.<p>
+ *
+ * The index is thread safe.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsLockPathIndex {
+
+    /**
+     * A node of the path tree.<p>
+     */
+    private static class Node {
+
+        /** The child nodes, lazily initialized. */
+        Map<String, Node> m_children;
+
+        /** The lock for the path of this node, may be <code>null</code>. */
+        CmsLock m_lock;
+
+        /** The parent node. */
+        Node m_parent;
+
+        /** The path segment of this node. */
+        String m_segment;
+
+        /**
+         * Creates a new node.<p>
+         *
+         * @param parent the parent node
+         * @param segment the path segment
+         */
+        Node(Node parent, String segment) {
+
+            m_parent = parent;
+            m_segment = segment;
+        }
+
+        /**
+         * Returns the child node for the given segment, or <code>null</code>.<p>
+         *
+         * @param segment the path segment
+         *
+         * @return the child node, or <code>null</code>
+         */
+        Node getChild(String segment) {
+
+            return m_children == null ? null : m_children.get(segment);
+        }
+
+        /**
+         * Returns <code>true</code> if this node neither holds a lock nor has any children.<p>
+         *
+         * @return <code>true</code> if this node is empty
+         */
+        boolean isEmpty() {
+
+            return (m_lock == null) && ((m_children == null) || m_children.isEmpty());
+        }
+    }
+
+    /** The read/write lock guarding the tree. */
+    private final ReadWriteLock m_guard = new ReentrantReadWriteLock();
+
+    /** The root node, representing the path "/". */
+    private Node m_root = new Node(null, "");
+
+    /** The number of locks in the index. */
+    private int m_size;
+
+    /**
+     * Splits the given root path into its segments.<p>
+     *
+     * Folder segments keep the trailing slash, e.g. <code>/sites/default/a.txt</code>
+     * results in <code>[sites/, default/, a.txt]</code>.<p>
+     *
+     * @param rootPath the root path to split
+     *
+     * @return the path segments
+     */
+    static List<String> getSegments(String rootPath) {
+
+        List<String> result = new ArrayList<String>();
+        int start = rootPath.startsWith("/") ? 1 : 0;
+        int length = rootPath.length();
+        while (start < length) {
+            int end = rootPath.indexOf('/', start);
+            if (end == -1) {
+                result.add(rootPath.substring(start));
+                break;
+            }
+            if (end > start) {
+                result.add(rootPath.substring(start, end + 1));
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Adds the given lock to the index, replacing any lock already indexed for the same path.<p>
+     *
+     * @param lock the lock to add
+     */
+    public void add(CmsLock lock) {
+
+        m_guard.writeLock().lock();
+        try {
+            Node node = m_root;
+            for (String segment : getSegments(lock.getResourceName())) {
+                Node child = node.getChild(segment);
+                if (child == null) {
+                    if (node.m_children == null) {
+                        node.m_children = new HashMap<String, Node>(4);
+                    }
+                    child = new Node(node, segment);
+                    node.m_children.put(segment, child);
+                }
+                node = child;
+            }
+            if (node.m_lock == null) {
+                m_size++;
+            }
+            node.m_lock = lock;
+        } finally {
+            m_guard.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all locks from the index.<p>
+     */
+    public void clear() {
+
+        m_guard.writeLock().lock();
+        try {
+            m_root = new Node(null, "");
+            m_size = 0;
+        } finally {
+            m_guard.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the lock indexed for exactly the given root path.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the lock, or <code>null</code> if no lock is indexed for the path
+     */
+    public CmsLock get(String rootPath) {
+
+        m_guard.readLock().lock();
+        try {
+            Node node = findNode(rootPath);
+            return node == null ? null : node.m_lock;
+        } finally {
+            m_guard.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the locks of all parent folders of the given root path,
+     * ordered from the top level folder down to the direct parent folder.<p>
+     *
+     * The lock for the given path itself is not included.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the locks of the parent folders
+     */
+    public List<CmsLock> getParentFolderLocks(String rootPath) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        m_guard.readLock().lock();
+        try {
+            Node node = m_root;
+            for (String segment : getSegments(rootPath)) {
+                if (node.m_lock != null) {
+                    result.add(node.m_lock);
+                }
+                node = node.getChild(segment);
+                if (node == null) {
+                    break;
+                }
+            }
+        } finally {
+            m_guard.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the locks in the subtree of the given root path.<p>
+     *
+     * For a folder, this includes the lock of the folder itself and the locks of all resources below it,
+     * for a file it is just the lock of the file itself, if any.<p>
+     *
+     * @param rootPath the root path
+     * @param includeSelf if the lock of the given path itself should be included
+     *
+     * @return the locks in the subtree
+     */
+    public List<CmsLock> getSubtreeLocks(String rootPath, boolean includeSelf) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        m_guard.readLock().lock();
+        try {
+            Node start = findNode(rootPath);
+            if (start != null) {
+                if (includeSelf && (start.m_lock != null)) {
+                    result.add(start.m_lock);
+                }
+                collectDescendants(start, result);
+            }
+        } finally {
+            m_guard.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Removes the lock for the given root path from the index.<p>
+     *
+     * @param rootPath the root path of the lock to remove
+     */
+    public void remove(String rootPath) {
+
+        m_guard.writeLock().lock();
+        try {
+            Node node = findNode(rootPath);
+            if ((node == null) || (node.m_lock == null)) {
+                return;
+            }
+            node.m_lock = null;
+            m_size--;
+            // prune nodes that are no longer needed
+            while ((node.m_parent != null) && node.isEmpty()) {
+                node.m_parent.m_children.remove(node.m_segment);
+                node = node.m_parent;
+            }
+        } finally {
+            m_guard.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the content of this index with the given locks.<p>
+     *
+     * @param locks the locks to index
+     */
+    public void reset(Collection<CmsLock> locks) {
+
+        m_guard.writeLock().lock();
+        try {
+            clear();
+            for (CmsLock lock : locks) {
+                add(lock);
+            }
+        } finally {
+            m_guard.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed locks.<p>
+     *
+     * @return the number of indexed locks
+     */
+    public int size() {
+
+        m_guard.readLock().lock();
+        try {
+            return m_size;
+        } finally {
+            m_guard.readLock().unlock();
+        }
+    }
+
+    /**
+     * Collects the locks of all descendants of the given node.<p>
+     *
+     * @param start the start node
+     * @param result the list to add the locks to
+     */
+    private void collectDescendants(Node start, List<CmsLock> result) {
+
+        Deque<Node> stack = new ArrayDeque<Node>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.m_children == null) {
+                continue;
+            }
+            for (Node child : node.m_children.values()) {
+                if (child.m_lock != null) {
+                    result.add(child.m_lock);
+                }
+                stack.push(child);
+            }
+        }
+    }
+
+    /**
+     * Finds the node for the given root path.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the node, or <code>null</code> if there is no node for the path
+     */
+    private Node findNode(String rootPath) {
+
+        Node node = m_root;
+        for (String segment : getSegments(rootPath)) {
+            node = node.getChild(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Event manager that replicates selected events to the other nodes of a cluster.<p>
+ *
+ * Events of the configured types that are fired on this node are collected and sent in batches
+ * to the other nodes with a pluggable {@link I_CmsClusterEventTransport}. Events received from other nodes
+ * are fired on this node, but only to listeners implementing {@link I_CmsClusterEventListener},
+ * so the caches of all nodes are invalidated without repeating the actions that caused the event.<p>
+ *
+ * The event manager is configured in <code>opencms-system.xml</code> with the following parameters,
+ * all other parameters are passed to the transport:<ul>
+ * <li><code>transport</code>: the class name of the transport, the default is {@link CmsFileClusterEventTransport}</li>
+ * <li><code>node</code>: the id of this node, must be unique in the cluster, the default is a random id</li>
+ * <li><code>events</code>: comma separated list of the replicated event types, either as numbers or as
+ *     names of the constants in {@link I_CmsEventListener}, the default is {@link #DEFAULT_EVENTS}</li>
+ * <li><code>interval</code>: the interval in milliseconds in which events are exchanged, the default is 1000</li>
+ * </ul><p>
+ *
+ * Only simple event data values (Strings, Booleans, Integers, Longs and UUIDs) are replicated,
+ * all other data values are dropped.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsClusterEventManager extends CmsEventManager implements I_CmsConfigurationParameterHandler {
+
+    /** The event types that are replicated by default. */
+    public static final int[] DEFAULT_EVENTS = new int[] {
+        I_CmsEventListener.EVENT_CLEAR_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+        I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+        I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY,
+        I_CmsEventListener.EVENT_GROUP_MODIFIED,
+        I_CmsEventListener.EVENT_OU_MODIFIED,
+        I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+        I_CmsEventListener.EVENT_REWRITE_ALIASES_MODIFIED,
+        I_CmsEventListener.EVENT_USER_MODIFIED};
+
+    /** The default exchange interval in milliseconds. */
+    public static final int DEFAULT_INTERVAL = 1000;
+
+    /** Parameter name for the replicated event types. */
+    public static final String PARAM_EVENTS = "events";
+
+    /** Parameter name for the exchange interval. */
+    public static final String PARAM_INTERVAL = "interval";
+
+    /** Parameter name for the node id. */
+    public static final String PARAM_NODE = "node";
+
+    /** Parameter name for the transport class. */
+    public static final String PARAM_TRANSPORT = "transport";
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsClusterEventManager.class);
+
+    /** Type prefix for encoded Boolean values. */
+    private static final String TYPE_BOOLEAN = "b:";
+
+    /** Type prefix for encoded Integer values. */
+    private static final String TYPE_INTEGER = "i:";
+
+    /** Type prefix for encoded Long values. */
+    private static final String TYPE_LONG = "l:";
+
+    /** Type prefix for encoded String values. */
+    private static final String TYPE_STRING = "s:";
+
+    /** Type prefix for encoded UUID values. */
+    private static final String TYPE_UUID = "u:";
+
+    /** The configuration parameters. */
+    private CmsParameterConfiguration m_configuration = new CmsParameterConfiguration();
+
+    /** The executor exchanging the events with the other nodes. */
+    private ScheduledExecutorService m_executor;
+
+    /** The exchange interval in milliseconds. */
+    private long m_interval = DEFAULT_INTERVAL;
+
+    /** The id of this node. */
+    private String m_nodeId;
+
+    /** The encoded events waiting to be sent to the other nodes. */
+    private Queue<CmsEvent> m_outgoing = new ConcurrentLinkedQueue<CmsEvent>();
+
+    /** The events taken from the outgoing queue that have not been sent yet, by event key. */
+    private Map<String, CmsEvent> m_pending = new LinkedHashMap<String, CmsEvent>();
+
+    /** The replicated event types. */
+    private Set<Integer> m_replicatedEvents = new HashSet<Integer>();
+
+    /** The transport used to exchange the events. */
+    private I_CmsClusterEventTransport m_transport;
+
+    /**
+     * Decodes event data that was encoded with {@link #encodeData(Map)}.<p>
+     *
+     * Values with an unknown encoding are dropped.<p>
+     *
+     * @param data the encoded event data
+     *
+     * @return the decoded event data
+     */
+    public static Map<String, Object> decodeData(Map<String, ?> data) {
+
+        Map<String, Object> result = new HashMap<String, Object>();
+        for (Map.Entry<String, ?> entry : data.entrySet()) {
+            if (!(entry.getValue() instanceof String)) {
+                continue;
+            }
+            String encoded = (String)entry.getValue();
+            String value = encoded.substring(Math.min(2, encoded.length()));
+            try {
+                if (encoded.startsWith(TYPE_STRING)) {
+                    result.put(entry.getKey(), value);
+                } else if (encoded.startsWith(TYPE_BOOLEAN)) {
+                    result.put(entry.getKey(), Boolean.valueOf(value));
+                } else if (encoded.startsWith(TYPE_INTEGER)) {
+                    result.put(entry.getKey(), Integer.valueOf(value));
+                } else if (encoded.startsWith(TYPE_LONG)) {
+                    result.put(entry.getKey(), Long.valueOf(value));
+                } else if (encoded.startsWith(TYPE_UUID)) {
+                    result.put(entry.getKey(), new CmsUUID(value));
+                }
+            } catch (NumberFormatException e) {
+                // drop the invalid value
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encodes the simple values of the given event data as Strings, so they can be sent to other nodes.<p>
+     *
+     * Strings, Booleans, Integers, Longs and UUIDs are encoded, all other values are dropped.<p>
+     *
+     * @param data the event data
+     *
+     * @return the encoded event data
+     */
+    public static Map<String, String> encodeData(Map<String, ?> data) {
+
+        Map<String, String> result = new TreeMap<String, String>();
+        if (data == null) {
+            return result;
+        }
+        for (Map.Entry<String, ?> entry : data.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                result.put(entry.getKey(), TYPE_STRING + value);
+            } else if (value instanceof Boolean) {
+                result.put(entry.getKey(), TYPE_BOOLEAN + value);
+            } else if (value instanceof Integer) {
+                result.put(entry.getKey(), TYPE_INTEGER + value);
+            } else if (value instanceof Long) {
+                result.put(entry.getKey(), TYPE_LONG + value);
+            } else if (value instanceof CmsUUID) {
+                result.put(entry.getKey(), TYPE_UUID + value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the given event was replicated from another cluster node.<p>
+     *
+     * @param event the event to check
+     *
+     * @return <code>true</code> if the given event was replicated from another cluster node
+     */
+    public static boolean isRemoteEvent(CmsEvent event) {
+
+        return (event.getData() != null) && event.getData().containsKey(I_CmsEventListener.KEY_CLUSTER_NODE);
+    }
+
+    /**
+     * Parses an event type given either as number or as name of a constant in {@link I_CmsEventListener}.<p>
+     *
+     * @param eventType the event type to parse
+     *
+     * @return the event type, or <code>null</code> if the event type is unknown
+     */
+    protected static Integer parseEventType(String eventType) {
+
+        String name = eventType.trim();
+        if (name.matches("[0-9]+")) {
+            return Integer.valueOf(name);
+        }
+        if (!name.startsWith("EVENT_")) {
+            name = "EVENT_" + name;
+        }
+        try {
+            Field field = I_CmsEventListener.class.getField(name);
+            if (field.getType() == int.class) {
+                return Integer.valueOf(field.getInt(null));
+            }
+        } catch (Exception e) {
+            // unknown event type
+        }
+        return null;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.add(paramName, paramValue);
+    }
+
+    /**
+     * Sends the collected events to the other nodes and fires the events received from the other nodes.<p>
+     *
+     * This is called periodically after the event manager was initialized.<p>
+     */
+    public void exchangeEvents() {
+
+        try {
+            sendEvents();
+            List<CmsEvent> received = m_transport.receive();
+            if (!received.isEmpty() && LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_CLUSTER_EVENTS_RECEIVED_1,
+                        Integer.valueOf(received.size())));
+            }
+            for (CmsEvent event : received) {
+                fireRemoteEvent(new CmsEvent(event.getType(), decodeData(event.getData())));
+            }
+        } catch (Throwable t) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_CLUSTER_EVENT_EXCHANGE_FAILED_0), t);
+        }
+    }
+
+    /**
+     * Fires the event on this node and queues it for replication if it is of a replicated event type.<p>
+     *
+     * @see org.opencms.main.CmsEventManager#fireEvent(org.opencms.main.CmsEvent)
+     */
+    @Override
+    public void fireEvent(CmsEvent event) {
+
+        if ((m_transport != null)
+            && m_replicatedEvents.contains(event.getTypeInteger())
+            && !isRemoteEvent(event)) {
+            // encode the data before the listeners can modify it
+            Map<String, Object> data = new HashMap<String, Object>(encodeData(event.getData()));
+            data.put(I_CmsEventListener.KEY_CLUSTER_NODE, TYPE_STRING + m_nodeId);
+            m_outgoing.add(new CmsEvent(event.getType(), data));
+        }
+        super.fireEvent(event);
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * Returns the id of this cluster node.<p>
+     *
+     * @return the id of this cluster node
+     */
+    public String getNodeId() {
+
+        return m_nodeId;
+    }
+
+    /**
+     * Returns the replicated event types.<p>
+     *
+     * @return the replicated event types
+     */
+    public Set<Integer> getReplicatedEvents() {
+
+        return m_replicatedEvents;
+    }
+
+    /**
+     * Returns the transport used to exchange the events.<p>
+     *
+     * @return the transport used to exchange the events
+     */
+    public I_CmsClusterEventTransport getTransport() {
+
+        return m_transport;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() throws CmsConfigurationException {
+
+        m_nodeId = m_configuration.getString(PARAM_NODE, UUID.randomUUID().toString());
+        m_interval = Math.max(10, m_configuration.getInteger(PARAM_INTERVAL, DEFAULT_INTERVAL));
+
+        m_replicatedEvents.clear();
+        String events = m_configuration.getString(PARAM_EVENTS, null);
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(events)) {
+            for (int eventType : DEFAULT_EVENTS) {
+                m_replicatedEvents.add(Integer.valueOf(eventType));
+            }
+        } else {
+            for (String eventName : CmsStringUtil.splitAsList(events, ',', true)) {
+                Integer eventType = parseEventType(eventName);
+                if (eventType != null) {
+                    m_replicatedEvents.add(eventType);
+                } else {
+                    LOG.warn(Messages.get().getBundle().key(Messages.LOG_CLUSTER_UNKNOWN_EVENT_1, eventName));
+                }
+            }
+        }
+
+        String transportClass = m_configuration.getString(
+            PARAM_TRANSPORT,
+            CmsFileClusterEventTransport.class.getName());
+        try {
+            m_transport = (I_CmsClusterEventTransport)Class.forName(transportClass).newInstance();
+        } catch (Throwable t) {
+            throw new CmsConfigurationException(
+                Messages.get().container(Messages.ERR_CLUSTER_TRANSPORT_INVALID_1, transportClass),
+                t);
+        }
+        List<String> ownParams = Arrays.asList(PARAM_EVENTS, PARAM_INTERVAL, PARAM_NODE, PARAM_TRANSPORT);
+        for (String key : m_configuration.keySet()) {
+            if (!ownParams.contains(key)) {
+                m_transport.addConfigurationParameter(key, m_configuration.get(key));
+            }
+        }
+        m_transport.initConfiguration();
+    }
+
+    /**
+     * Sends the remaining events to the other nodes and shuts down the transport.<p>
+     *
+     * @see org.opencms.main.CmsEventManager#shutDown()
+     */
+    @Override
+    public void shutDown() {
+
+        if (m_executor != null) {
+            m_executor.shutdown();
+            try {
+                m_executor.awaitTermination(m_interval, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            m_executor = null;
+        }
+        if (m_transport != null) {
+            try {
+                sendEvents();
+            } catch (Throwable t) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_CLUSTER_EVENT_EXCHANGE_FAILED_0), t);
+            }
+            m_transport.shutDown();
+        }
+    }
+
+    /**
+     * Fires an event received from another node to all listeners that can process replicated events.<p>
+     *
+     * @param event the decoded event
+     */
+    protected void fireRemoteEvent(CmsEvent event) {
+
+        fireEventHandler(getClusterEventListeners(event.getTypeInteger()), event);
+        fireEventHandler(getClusterEventListeners(I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS), event);
+    }
+
+    /**
+     * Initializes this event manager and starts exchanging events with the other nodes.<p>
+     *
+     * @see org.opencms.main.CmsEventManager#initialize(org.opencms.main.CmsEventManager)
+     */
+    @Override
+    protected void initialize(CmsEventManager base) {
+
+        super.initialize(base);
+        if (m_transport == null) {
+            try {
+                initConfiguration();
+            } catch (CmsConfigurationException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                return;
+            }
+        }
+        try {
+            m_transport.start(m_nodeId);
+        } catch (Exception e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            m_transport = null;
+            return;
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_CLUSTER_EVENTS_3,
+                    m_nodeId,
+                    m_transport.getClass().getName(),
+                    Integer.valueOf(m_replicatedEvents.size())));
+        }
+        m_executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("cluster-events-%d").setDaemon(true).build());
+        m_executor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+
+                exchangeEvents();
+            }
+        }, m_interval, m_interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the listeners for the given event type that can process replicated events.<p>
+     *
+     * @param eventType the event type
+     *
+     * @return the listeners for the given event type that can process replicated events
+     */
+    private List<I_CmsEventListener> getClusterEventListeners(Integer eventType) {
+
+        List<I_CmsEventListener> result = new ArrayList<I_CmsEventListener>();
+        List<I_CmsEventListener> listeners = getEventListeners().get(eventType);
+        if (listeners != null) {
+            for (I_CmsEventListener listener : listeners.toArray(EVENT_LIST)) {
+                if (listener instanceof I_CmsClusterEventListener) {
+                    result.add(listener);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sends the collected events to the other nodes, dropping duplicate events.<p>
+     *
+     * If sending fails, the events are kept and sent again with the next batch.<p>
+     *
+     * @throws Exception if sending the events fails
+     */
+    private synchronized void sendEvents() throws Exception {
+
+        CmsEvent event;
+        while ((event = m_outgoing.poll()) != null) {
+            String key = event.getType() + new TreeMap<String, Object>(event.getData()).toString();
+            if (!m_pending.containsKey(key)) {
+                m_pending.put(key, event);
+            }
+        }
+        if (!m_pending.isEmpty()) {
+            int size = m_pending.size();
+            m_transport.send(new ArrayList<CmsEvent>(m_pending.values()));
+            m_pending.clear();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_CLUSTER_EVENTS_SENT_1, Integer.valueOf(size)));
+            }
+        }
+    }
+}
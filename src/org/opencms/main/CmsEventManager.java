@@ -174,6 +174,16 @@ public class CmsEventManager {
         }
     }
 
+    /**
+     * Shuts down this event manager.<p>
+     *
+     * The default implementation does nothing.<p>
+     */
+    public void shutDown() {
+
+        // nothing to do by default
+    }
+
     /**
      * Fires the specified event to a list of event listeners.<p>
      *
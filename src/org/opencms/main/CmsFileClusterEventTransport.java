@@ -0,0 +1,303 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Cluster event transport that exchanges events through journal files in a directory shared by all nodes.<p>
+ *
+ * Each batch of events is written to a new journal file, which is named after the time it was written and the id
+ * of the node that wrote it. Every node reads the journal files of the other nodes it has not read yet. Journal files
+ * are deleted once they are older than the configured retention time.<p>
+ *
+ * The directory can be a network file system shared by several servers, or just a local directory for
+ * several JVMs running on the same machine, which is useful for testing.<p>
+ *
+ * The following parameters are supported:<ul>
+ * <li><code>directory</code>: the journal directory, required</li>
+ * <li><code>retention</code>: the time in milliseconds after which journal files are deleted, the default is one hour</li>
+ * </ul><p>
+ *
+ * @since 20.0.0
+ */
+public class CmsFileClusterEventTransport implements I_CmsClusterEventTransport {
+
+    /** The default retention time of journal files in milliseconds. */
+    public static final int DEFAULT_RETENTION = 60 * 60 * 1000;
+
+    /** Parameter name for the journal directory. */
+    public static final String PARAM_DIRECTORY = "directory";
+
+    /** Parameter name for the retention time of journal files. */
+    public static final String PARAM_RETENTION = "retention";
+
+    /** The file name suffix of journal files. */
+    public static final String SUFFIX_JOURNAL = ".events";
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFileClusterEventTransport.class);
+
+    /** Property name for the number of events in a journal file. */
+    private static final String PROPERTY_COUNT = "count";
+
+    /** Property name prefix for the data of an event in a journal file. */
+    private static final String PROPERTY_DATA = ".data.";
+
+    /** Property name prefix for the events in a journal file. */
+    private static final String PROPERTY_EVENT = "event.";
+
+    /** Property name suffix for the type of an event in a journal file. */
+    private static final String PROPERTY_TYPE = ".type";
+
+    /** The file name suffix of journal files that are still being written. */
+    private static final String SUFFIX_TEMP = ".tmp";
+
+    /** The configuration parameters. */
+    private CmsParameterConfiguration m_configuration = new CmsParameterConfiguration();
+
+    /** The journal directory. */
+    private File m_directory;
+
+    /** The id of the current node, as used in the journal file names. */
+    private String m_nodeId;
+
+    /** The names of the journal files that have already been read. */
+    private Set<String> m_processed = new HashSet<String>();
+
+    /** The retention time of journal files in milliseconds. */
+    private long m_retention = DEFAULT_RETENTION;
+
+    /** The sequence number of the next journal file written by this node. */
+    private int m_sequence;
+
+    /** The time this transport was started. */
+    private long m_startTime;
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.add(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * Returns the journal directory.<p>
+     *
+     * @return the journal directory
+     */
+    public File getDirectory() {
+
+        return m_directory;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() throws CmsConfigurationException {
+
+        String directory = m_configuration.getString(PARAM_DIRECTORY, null);
+        if (directory == null) {
+            throw new CmsConfigurationException(
+                Messages.get().container(Messages.ERR_CLUSTER_JOURNAL_DIRECTORY_MISSING_0));
+        }
+        m_directory = new File(directory);
+        m_retention = m_configuration.getInteger(PARAM_RETENTION, DEFAULT_RETENTION);
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsClusterEventTransport#receive()
+     */
+    public synchronized List<CmsEvent> receive() throws IOException {
+
+        List<CmsEvent> result = new ArrayList<CmsEvent>();
+        String[] names = m_directory.list();
+        if (names == null) {
+            return result;
+        }
+        Arrays.sort(names);
+        long now = System.currentTimeMillis();
+        Set<String> existing = new HashSet<String>();
+        for (String name : names) {
+            if (!name.endsWith(SUFFIX_JOURNAL)) {
+                continue;
+            }
+            String[] parts = name.substring(0, name.length() - SUFFIX_JOURNAL.length()).split("-");
+            if (parts.length != 3) {
+                continue;
+            }
+            long time;
+            try {
+                time = Long.parseLong(parts[0]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            File file = new File(m_directory, name);
+            if (time < (now - m_retention)) {
+                // the journal file is expired, every node may delete it
+                file.delete();
+                continue;
+            }
+            existing.add(name);
+            if (m_processed.contains(name)) {
+                continue;
+            }
+            m_processed.add(name);
+            if (m_nodeId.equals(parts[1]) || (time < m_startTime)) {
+                // skip own events and events sent before this node was started
+                continue;
+            }
+            try {
+                result.addAll(readJournal(file));
+            } catch (IOException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_CLUSTER_JOURNAL_READ_FAILED_1, file), e);
+            }
+        }
+        // forget the journal files that have been deleted
+        m_processed.retainAll(existing);
+        return result;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsClusterEventTransport#send(java.util.List)
+     */
+    public synchronized void send(List<CmsEvent> events) throws IOException {
+
+        Properties journal = new Properties();
+        journal.setProperty(PROPERTY_COUNT, String.valueOf(events.size()));
+        for (int i = 0; i < events.size(); i++) {
+            CmsEvent event = events.get(i);
+            journal.setProperty(PROPERTY_EVENT + i + PROPERTY_TYPE, String.valueOf(event.getType()));
+            for (Map.Entry<String, Object> entry : event.getData().entrySet()) {
+                journal.setProperty(PROPERTY_EVENT + i + PROPERTY_DATA + entry.getKey(), entry.getValue().toString());
+            }
+        }
+        String name = String.format("%013d-%s-%06d", Long.valueOf(System.currentTimeMillis()), m_nodeId, m_sequence);
+        m_sequence = (m_sequence + 1) % 1000000;
+        File temp = new File(m_directory, name + SUFFIX_TEMP);
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            journal.store(out, null);
+        } finally {
+            out.close();
+        }
+        // other nodes only read complete journal files
+        Files.move(
+            temp.toPath(),
+            new File(m_directory, name + SUFFIX_JOURNAL).toPath(),
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsClusterEventTransport#shutDown()
+     */
+    public void shutDown() {
+
+        // nothing to do, the journal files are deleted by the other nodes once they expire
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsClusterEventTransport#start(java.lang.String)
+     */
+    public synchronized void start(String nodeId) throws IOException {
+
+        // the node id is part of the journal file names
+        m_nodeId = nodeId.replaceAll("[^A-Za-z0-9_]", "_");
+        if (!m_directory.isDirectory() && !m_directory.mkdirs()) {
+            throw new IOException(m_directory.getAbsolutePath());
+        }
+        m_startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Reads the events from a journal file.<p>
+     *
+     * @param file the journal file
+     *
+     * @return the events read from the journal file
+     *
+     * @throws IOException if reading the file fails
+     */
+    private List<CmsEvent> readJournal(File file) throws IOException {
+
+        Properties journal = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            journal.load(in);
+        } finally {
+            in.close();
+        }
+        List<CmsEvent> result = new ArrayList<CmsEvent>();
+        int count = Integer.parseInt(journal.getProperty(PROPERTY_COUNT, "0"));
+        for (int i = 0; i < count; i++) {
+            String type = journal.getProperty(PROPERTY_EVENT + i + PROPERTY_TYPE);
+            if (type == null) {
+                continue;
+            }
+            String dataPrefix = PROPERTY_EVENT + i + PROPERTY_DATA;
+            Map<String, Object> data = new HashMap<String, Object>();
+            for (String key : journal.stringPropertyNames()) {
+                if (key.startsWith(dataPrefix)) {
+                    data.put(key.substring(dataPrefix.length()), journal.getProperty(key));
+                }
+            }
+            result.add(new CmsEvent(Integer.parseInt(type), data));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+/**
+ * Marker interface for event listeners that can process events replicated from other cluster nodes.<p>
+ *
+ * Events received from other nodes by the {@link CmsClusterEventManager} are only forwarded to listeners
+ * implementing this interface, since the replicated events only carry simple data values like Strings,
+ * numbers and UUIDs. Objects like resources, database contexts or reports are not replicated.
+ * Replicated events can be recognized with {@link CmsClusterEventManager#isRemoteEvent(CmsEvent)}.<p>
+ *
+ * Listeners should only invalidate their caches when receiving a replicated event, and must not repeat
+ * actions that have already been performed on the node where the event was fired, like writing export points.<p>
+ *
+ * @since 20.0.0
+ */
+public interface I_CmsClusterEventListener extends I_CmsEventListener {
+
+    // marker interface only
+}
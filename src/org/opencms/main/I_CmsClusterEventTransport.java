@@ -0,0 +1,82 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Transport used by the {@link CmsClusterEventManager} to exchange events with the other nodes of a cluster.<p>
+ *
+ * The events passed to and returned by a transport only contain String values in their data maps,
+ * the encoding and decoding of the event data is done by the event manager.
+ * The transport must not return the events that were sent by the same node.<p>
+ *
+ * Transports are configured with the parameters of the event manager that are not used by the event manager itself.<p>
+ *
+ * @since 20.0.0
+ */
+public interface I_CmsClusterEventTransport extends I_CmsConfigurationParameterHandler {
+
+    /**
+     * Returns the events that were sent by other nodes since the last call of this method.<p>
+     *
+     * @return the events received from other nodes, in the order they were sent
+     *
+     * @throws IOException if reading the events fails
+     */
+    List<CmsEvent> receive() throws IOException;
+
+    /**
+     * Sends a batch of events to all other nodes.<p>
+     *
+     * @param events the events to send
+     *
+     * @throws IOException if sending the events fails
+     */
+    void send(List<CmsEvent> events) throws IOException;
+
+    /**
+     * Shuts down this transport.<p>
+     */
+    void shutDown();
+
+    /**
+     * Starts this transport for the given node.<p>
+     *
+     * Only events sent after the transport was started need to be received.<p>
+     *
+     * @param nodeId the id of the current cluster node
+     *
+     * @throws IOException if the transport can not be started
+     */
+    void start(String nodeId) throws IOException;
+}
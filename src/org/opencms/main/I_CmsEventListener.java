@@ -348,6 +348,16 @@ public interface I_CmsEventListener {
      */
     int EVENT_RESOURCES_MODIFIED = 12;
 
+    /**
+     * Event "the rewrite aliases of a site have been modified".<p>
+     *
+     * Event data:
+     * <ul>
+     * <li><code>{@link #KEY_SITE_ROOT}</code>: the root of the site whose rewrite aliases have been modified</li>
+     * </ul>
+     */
+    int EVENT_REWRITE_ALIASES_MODIFIED = 36;
+
     /**
      * Event "a sitemap has been modified".<p>
      *
@@ -394,6 +404,9 @@ public interface I_CmsEventListener {
     /** Key name for passing a change int in the data map - see the <code>CHANGED_XXX</code> constants in {@link org.opencms.db.CmsDriverManager}. */
     String KEY_CHANGE = "change";
 
+    /** Key name for passing the id of the cluster node an event was replicated from - see {@link CmsClusterEventManager}. */
+    String KEY_CLUSTER_NODE = "clusterNode";
+
     /** Key name for passing a database context in the data map. */
     String KEY_DBCONTEXT = "dbContext";
 
@@ -439,6 +452,9 @@ public interface I_CmsEventListener {
     /** Key name for passing a List of {@link org.opencms.file.CmsResource} in the data map. */
     String KEY_RESOURCES = "resources";
 
+    /** Key name for passing a site root. */
+    String KEY_SITE_ROOT = "siteRoot";
+
     /** Key name for skipping searchindexing. */
     String KEY_SKIPINDEX = "skipindex";
 
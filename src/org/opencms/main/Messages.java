@@ -54,6 +54,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_CALLING_EVENT_LISTENER_FAILED_2 = "ERR_CALLING_EVENT_LISTENER_FAILED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_JOURNAL_DIRECTORY_MISSING_0 = "ERR_CLUSTER_JOURNAL_DIRECTORY_MISSING_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_TRANSPORT_INVALID_1 = "ERR_CLUSTER_TRANSPORT_INVALID_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_CONTEXT_INFO_FROZEN_0 = "ERR_CONTEXT_INFO_FROZEN_0";
 
@@ -282,6 +288,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_ADDED_REQUEST_HANDLER_2 = "INIT_ADDED_REQUEST_HANDLER_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_CLUSTER_EVENTS_3 = "INIT_CLUSTER_EVENTS_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_CURRENT_RUNLEVEL_1 = "INIT_CURRENT_RUNLEVEL_1";
 
@@ -372,6 +381,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WEBINF_PATH_1 = "INIT_WEBINF_PATH_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_EVENTS_RECEIVED_1 = "LOG_CLUSTER_EVENTS_RECEIVED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_EVENTS_SENT_1 = "LOG_CLUSTER_EVENTS_SENT_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_EVENT_EXCHANGE_FAILED_0 = "LOG_CLUSTER_EVENT_EXCHANGE_FAILED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_JOURNAL_READ_FAILED_1 = "LOG_CLUSTER_JOURNAL_READ_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_UNKNOWN_EVENT_1 = "LOG_CLUSTER_UNKNOWN_EVENT_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CONSOLE_TOTAL_RUNTIME_1 = "LOG_CONSOLE_TOTAL_RUNTIME_1";
 
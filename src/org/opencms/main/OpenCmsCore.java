@@ -68,6 +68,7 @@ import org.opencms.file.quota.CmsFolderSizeTracker;
 import org.opencms.flex.CmsFlexCache;
 import org.opencms.flex.CmsFlexCacheConfiguration;
 import org.opencms.flex.CmsFlexController;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.gwt.CmsGwtService;
 import org.opencms.gwt.CmsGwtServiceContext;
 import org.opencms.gwt.shared.CmsGwtConstants;
@@ -79,6 +80,7 @@ import org.opencms.i18n.CmsSingleTreeLocaleHandler;
 import org.opencms.i18n.CmsVfsBundleManager;
 import org.opencms.importexport.CmsImportExportManager;
 import org.opencms.json.JSONObject;
+import org.opencms.jsp.CmsJspNavResourceTreeCache;
 import org.opencms.jsp.jsonpart.CmsJsonPartFilter;
 import org.opencms.jsp.userdata.CmsUserDataRequestManager;
 import org.opencms.jsp.util.CmsJspStandardContextBean;
@@ -93,6 +95,7 @@ import org.opencms.module.CmsModuleManager;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.monitor.CmsMemoryMonitorConfiguration;
 import org.opencms.mx.CmsDiagnosticsMXBean;
+import org.opencms.mx.CmsSqlQueryStatisticsMXBean;
 import org.opencms.publish.CmsPublishEngine;
 import org.opencms.publish.CmsPublishManager;
 import org.opencms.repository.CmsRepositoryManager;
@@ -1158,6 +1161,9 @@ public final class OpenCmsCore {
      * The request time (<code>{@link CmsRequestContext#getRequestTime()}</code>)
      * is set to the current time.<p>
      *
+     * If the Flex cache tracks the resources read for the current request, the copy
+     * keeps adding the resources it reads to the same Flex request context info.<p>
+     *
      * @param cms the CmsObject to create a copy of
      *
      * @return an independent copy of the provided CmsObject
@@ -1187,6 +1193,10 @@ public final class OpenCmsCore {
             requestContext.getOuFqn(),
             requestContext.isForceAbsoluteLinks());
         context.setDetailResource(requestContext.getDetailResource());
+        CmsFlexRequestContextInfo info = CmsFlexRequestContextInfo.getContextInfo(cms);
+        if ((info != null) && info.isDependencyTracking()) {
+            context.setAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED, info);
+        }
         CmsObject result = new CmsObject(m_securityManager, context);
         return result;
     }
@@ -1764,6 +1774,9 @@ public final class OpenCmsCore {
         m_linkManager = new CmsLinkManager(m_staticExportManager.getLinkSubstitutionHandler());
 
         m_aliasManager = new CmsAliasManager(m_securityManager);
+        m_eventManager.addCmsEventListener(
+            m_aliasManager,
+            new int[] {I_CmsEventListener.EVENT_CLEAR_CACHES, I_CmsEventListener.EVENT_REWRITE_ALIASES_MODIFIED});
 
         // store the runtime properties
         m_runtimeProperties.putAll(systemConfiguration.getRuntimeProperties());
@@ -1842,6 +1855,7 @@ public final class OpenCmsCore {
             CmsFormatterConfiguration.initialize(adminCms);
             CmsPersistentLoginTokenHandler.setAdminCms(initCmsObject(adminCms));
             CmsLoginUI.setAdminCmsObject(initCmsObject(adminCms));
+            CmsJspNavResourceTreeCache.setAdminCms(initCmsObject(adminCms));
 
             // initialize ade manager
             m_adeManager = new CmsADEManager(initCmsObject(adminCms), m_memoryMonitor, systemConfiguration);
@@ -1883,6 +1897,11 @@ public final class OpenCmsCore {
                     ((I_CmsNeedsAdminCmsObject)requestHandler).setAdminCmsObject(adminCms);
                 }
             }
+            for (I_CmsResourceLoader loader : m_resourceManager.getLoaders()) {
+                if (loader instanceof I_CmsNeedsAdminCmsObject) {
+                    ((I_CmsNeedsAdminCmsObject)loader).setAdminCmsObject(adminCms);
+                }
+            }
 
             if (m_loginManager.getCustomLogin() != null) {
                 m_loginManager.getCustomLogin().initialize(initCmsObject(adminCms));
@@ -2472,6 +2491,14 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_EXPORT_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    // send the pending cluster events before the other managers are gone
+                    if (m_eventManager != null) {
+                        m_eventManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(e.getLocalizedMessage(), e);
+                }
                 try {
                     if (m_moduleManager != null) {
                         m_moduleManager.shutDown();
@@ -2826,6 +2853,12 @@ public final class OpenCmsCore {
             CmsLog.INIT.error(e.getLocalizedMessage(), e);
         }
 
+        try {
+            CmsSqlQueryStatisticsMXBean.register();
+        } catch (Throwable e) {
+            CmsLog.INIT.error(e.getLocalizedMessage(), e);
+        }
+
     }
 
     /**
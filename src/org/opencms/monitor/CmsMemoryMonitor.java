@@ -29,6 +29,7 @@ package org.opencms.monitor;
 
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.CmsMemoryObjectCache;
+import org.opencms.cache.CmsOffHeapContentCache;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.CmsCacheSettings;
@@ -49,11 +50,16 @@ import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.lock.CmsLock;
 import org.opencms.lock.CmsLockManager;
+import org.opencms.lock.CmsLockPathIndex;
+import org.opencms.loader.CmsImageScaler;
+import org.opencms.loader.CmsImageScalingStatistics;
 import org.opencms.mail.CmsMailTransport;
 import org.opencms.mail.CmsSimpleMail;
+import org.opencms.main.CmsClusterEventManager;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsSessionManager;
+import org.opencms.main.I_CmsClusterEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.publish.CmsPublishHistory;
@@ -71,6 +77,7 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.containerpage.CmsADECache;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -98,16 +105,19 @@ import com.google.common.cache.LoadingCache;
 /**
  * Monitors OpenCms memory consumption.<p>
  *
- * The memory monitor also provides all kind of caches used in the OpenCms core.<p>
+ * The memory monitor also provides all kind of caches used in the OpenCms core.
+ * The caches are also invalidated when events are replicated from other cluster nodes.<p>
  *
  * @since 6.0.0
  */
-public class CmsMemoryMonitor implements I_CmsScheduledJob {
+public class CmsMemoryMonitor implements I_CmsScheduledJob, I_CmsClusterEventListener {
 
     /** Cache types. */
     public enum CacheType {
         /** Access Control Lists cache. */
         ACL,
+        /** Off-heap file content cache. */
+        CONTENT,
         /** Content Definition cache. */
         CONTENT_DEFINITION,
         /** Group cache. */
@@ -176,6 +186,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for access control lists. */
     private Map<String, CmsAccessControlList> m_cacheAccessControlList;
 
+    /** Off-heap cache for file contents. */
+    private CmsOffHeapContentCache m_cacheContent = new CmsOffHeapContentCache(0);
+
     /** A temporary cache for XML content definitions. */
     private Map<String, CmsXmlContentDefinition> m_cacheContentDefinitions;
 
@@ -191,6 +204,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for the resource locks. */
     private Map<String, CmsLock> m_cacheLock;
 
+    /** Path index over the lock cache, also used to update the lock cache and the index together. */
+    private final CmsLockPathIndex m_lockIndex = new CmsLockPathIndex();
+
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
 
@@ -578,6 +594,22 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheAccessControlList.put(key, acl);
     }
 
+    /**
+     * Caches the given file content under the given cache key.<p>
+     *
+     * The content is copied to the off-heap content cache, nothing is cached if the cache is disabled.<p>
+     *
+     * @param key the cache key
+     * @param content the file content to cache
+     */
+    public void cacheContent(String key, byte[] content) {
+
+        if (m_disabled.get(CacheType.CONTENT) != null) {
+            return;
+        }
+        m_cacheContent.put(key, content);
+    }
+
     /**
      * Caches the given content definition under the given cache key.<p>
      *
@@ -635,7 +667,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (m_disabled.get(CacheType.LOCK) != null) {
             return;
         }
-        m_cacheLock.put(lock.getResourceName(), lock);
+        synchronized (m_lockIndex) {
+            m_cacheLock.put(lock.getResourceName(), lock);
+            m_lockIndex.add(lock);
+        }
     }
 
     /**
@@ -936,6 +971,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         flushCache(CacheType.PROPERTY_LIST);
         flushCache(CacheType.PROJECT_RESOURCES);
         flushCache(CacheType.PUBLISHED_RESOURCES);
+        flushCache(CacheType.CONTENT);
     }
 
     /**
@@ -999,6 +1035,49 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         flushCache(CacheType.RESOURCE_LIST);
     }
 
+    /**
+     * Invalidates the caches when an event replicated from another cluster node is received.<p>
+     *
+     * Events fired on this node are ignored, since the caches are already updated by the driver manager in that case.<p>
+     *
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        if (!CmsClusterEventManager.isRemoteEvent(event)) {
+            return;
+        }
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                clearCacheForPublishing();
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                clearCache();
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
+            case I_CmsEventListener.EVENT_GROUP_MODIFIED:
+            case I_CmsEventListener.EVENT_OU_MODIFIED:
+            case I_CmsEventListener.EVENT_USER_MODIFIED:
+                clearPrincipalsCache();
+                break;
+            case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_COPIED:
+            case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+            case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+            case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+                // the changed resources are not replicated, so flush all resource related caches
+                clearResourceCache();
+                flushCache(CacheType.PROPERTY, CacheType.PROPERTY_LIST);
+                break;
+            default:
+                // noop
+        }
+    }
+
     /**
      * Disables the given cache.<p>
      *
@@ -1057,6 +1136,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 case ACL:
                     m_cacheAccessControlList.clear();
                     break;
+                case CONTENT:
+                    m_cacheContent.clear();
+                    break;
                 case CONTENT_DEFINITION:
                     m_cacheContentDefinitions.clear();
                     break;
@@ -1070,7 +1152,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     m_cacheLocale.clear();
                     break;
                 case LOCK:
-                    m_cacheLock.clear();
+                    synchronized (m_lockIndex) {
+                        m_cacheLock.clear();
+                        m_lockIndex.clear();
+                    }
                     break;
                 case MEMORY_OBJECT:
                     m_cacheMemObject.clear();
@@ -1184,10 +1269,14 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         Map<String, CmsLock> newLockCache = new ConcurrentHashMap<String, CmsLock>(newLocks);
         // register it
         register(CmsLockManager.class.getName(), newLockCache);
-        // save the old cache
-        Map<String, CmsLock> oldCache = m_cacheLock;
-        // replace the old by the new cache
-        m_cacheLock = newLockCache;
+        Map<String, CmsLock> oldCache;
+        synchronized (m_lockIndex) {
+            // save the old cache
+            oldCache = m_cacheLock;
+            // replace the old by the new cache
+            m_cacheLock = newLockCache;
+            m_lockIndex.reset(newLockCache.values());
+        }
         // clean up the old cache
         oldCache.clear();
     }
@@ -1269,6 +1358,25 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         flushCache(CacheType.PROPERTY_LIST);
     }
 
+    /**
+     * Flushes the cached property lists of the resource with the given root path and of all resources below it.<p>
+     *
+     * The keys of the property list cache end with the root path of the resource the list belongs to.<p>
+     *
+     * @param rootPath the root path of the resource
+     */
+    public void flushPropertyLists(String rootPath) {
+
+        Iterator<String> keys = m_cachePropertyList.keySet().iterator();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            int pathStart = key.indexOf('/');
+            if ((pathStart >= 0) && key.startsWith(rootPath, pathStart)) {
+                keys.remove();
+            }
+        }
+    }
+
     /**
      * Flushes the published resources cache.<p>
      *
@@ -1432,6 +1540,32 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return new ArrayList<CmsLock>(m_cacheLock.values());
     }
 
+    /**
+     * Returns the cached locks of all parent folders of the given root path,
+     * ordered from the top level folder down to the direct parent folder.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedParentFolderLocks(String rootPath) {
+
+        return m_lockIndex.getParentFolderLocks(rootPath);
+    }
+
+    /**
+     * Returns the cached locks in the subtree of the given root path.<p>
+     *
+     * @param rootPath the root path
+     * @param includeSelf if the lock for the given root path itself should be included
+     *
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedSubtreeLocks(String rootPath, boolean includeSelf) {
+
+        return m_lockIndex.getSubtreeLocks(rootPath, includeSelf);
+    }
+
     /**
      * Returns all cached publish jobs in the queue as ordered list.<p>
      *
@@ -1466,6 +1600,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheAccessControlList.get(key);
     }
 
+    /**
+     * Returns a copy of the file content cached with the given cache key or <code>null</code> if not found.<p>
+     *
+     * @param key the cache key to look for
+     *
+     * @return the file content cached with the given cache key
+     */
+    public byte[] getCachedContent(String key) {
+
+        if (m_disabled.get(CacheType.CONTENT) != null) {
+            return null;
+        }
+        return m_cacheContent.get(key);
+    }
+
     /**
      * Returns the xml content definition cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1784,6 +1933,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_configuration;
     }
 
+    /**
+     * Returns the off-heap cache for file contents, e.g. to read its hit ratio and its byte usage.<p>
+     *
+     * @return the off-heap cache for file contents
+     */
+    public CmsOffHeapContentCache getContentCache() {
+
+        return m_cacheContent;
+    }
+
     /**
      * Returns the next publish job from the publish job queue.<p>
      *
@@ -1914,12 +2073,19 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheXmlPermanentEntity = new ConcurrentHashMap<String, byte[]>(32);
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
 
+        // off-heap file content cache
+        m_cacheContent = new CmsOffHeapContentCache(cacheSettings.getContentCacheSize());
+        register(CmsDriverManager.class.getName() + ".contentCache", m_cacheContent);
+
         // xml content definitions cache
         m_cacheContentDefinitions = createLRUCacheMap(64);
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
         // lock cache
-        m_cacheLock = new ConcurrentHashMap<String, CmsLock>();
+        synchronized (m_lockIndex) {
+            m_cacheLock = new ConcurrentHashMap<String, CmsLock>();
+            m_lockIndex.clear();
+        }
         register(CmsLockManager.class.getName(), m_cacheLock);
 
         // locale cache
@@ -2009,6 +2175,26 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheMemObject = new ConcurrentHashMap<String, Object>();
         register(CmsMemoryObjectCache.class.getName(), m_cacheMemObject);
 
+        // invalidate the caches when events are replicated from other cluster nodes
+        OpenCms.addCmsEventListener(
+            this,
+            new int[] {
+                I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+                I_CmsEventListener.EVENT_GROUP_MODIFIED,
+                I_CmsEventListener.EVENT_OU_MODIFIED,
+                I_CmsEventListener.EVENT_USER_MODIFIED,
+                I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+                I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+                I_CmsEventListener.EVENT_RESOURCE_COPIED,
+                I_CmsEventListener.EVENT_RESOURCE_CREATED,
+                I_CmsEventListener.EVENT_RESOURCE_DELETED,
+                I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+                I_CmsEventListener.EVENT_RESOURCE_MOVED,
+                I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+                I_CmsEventListener.EVENT_RESOURCES_MODIFIED});
+
         if (LOG.isDebugEnabled()) {
             // this will happen only once during system startup
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_MM_CREATED_1, new Date(System.currentTimeMillis())));
@@ -2282,7 +2468,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public void uncacheLock(String rootPath) {
 
-        m_cacheLock.remove(rootPath);
+        synchronized (m_lockIndex) {
+            m_cacheLock.remove(rootPath);
+            m_lockIndex.remove(rootPath);
+        }
     }
 
     /**
@@ -2426,6 +2615,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof CmsGroupListCache) {
             return "" + ((CmsGroupListCache)obj).size();
         }
+        if (obj instanceof CmsOffHeapContentCache) {
+            return Integer.toString(((CmsOffHeapContentCache)obj).size());
+        }
         return "-";
     }
 
@@ -2512,6 +2704,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof LRUMap) {
             return Integer.toString(((LRUMap)obj).maxSize());
         }
+        if (obj instanceof CmsOffHeapContentCache) {
+            return Long.toString(((CmsOffHeapContentCache)obj).getMaxBytes());
+        }
 
         return "-";
     }
@@ -2599,6 +2794,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
 
         sm = null;
 
+        CmsImageScalingStatistics scaling = CmsImageScaler.getScalingStatistics();
+        content += "Current status of the image scaling:\n\n";
+        content += "Scaling operations       : " + scaling.getCount() + "\n";
+        content += "Average scaling time     : " + scaling.getAverageScalingTime() + " ms\n";
+        content += "Average queue time       : " + scaling.getAverageQueueTime() + " ms\n";
+        content += "Maximum queue time       : " + scaling.getMaxQueueTime() + " ms\n";
+        content += "Currently queued         : " + CmsImageScaler.getScalingQueueLength() + "\n";
+        content += "Coalesced requests       : " + scaling.getCoalescedCount() + "\n\n\n";
+
         content += "Current status of the caches:\n\n";
         List<String> keyList = new ArrayList<String>(m_monitoredObjects.keySet());
         Collections.sort(keyList);
@@ -2761,6 +2965,49 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                         Long.valueOf(m_memoryAverage.getUsage()),
                         Integer.valueOf(m_memoryAverage.getCount())}));
 
+            if (m_cacheContent.isEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_MM_CONTENT_CACHE_STATUS_5,
+                        new Object[] {
+                            Integer.valueOf(m_cacheContent.size()),
+                            Long.valueOf(m_cacheContent.getSize()),
+                            Long.valueOf(m_cacheContent.getMaxBytes()),
+                            Long.valueOf(m_cacheContent.getHits()),
+                            Integer.valueOf(m_cacheContent.getHitRatio())}));
+            }
+
+            if ((OpenCms.getADEManager() != null) && (OpenCms.getADEManager().getCache() != null)) {
+                CmsADECache adeCache = OpenCms.getADEManager().getCache();
+                long hits = adeCache.getXmlContentCacheHits();
+                long misses = adeCache.getXmlContentCacheMisses();
+                if ((hits + misses) > 0) {
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_MM_XML_CONTENT_CACHE_STATUS_5,
+                            new Object[] {
+                                Integer.valueOf(adeCache.getXmlContentCacheSize(true)),
+                                Integer.valueOf(adeCache.getXmlContentCacheSize(false)),
+                                Long.valueOf(hits),
+                                Long.valueOf(misses),
+                                Long.valueOf((hits * 100) / (hits + misses))}));
+                }
+            }
+
+            CmsImageScalingStatistics scaling = CmsImageScaler.getScalingStatistics();
+            if ((scaling.getCount() > 0) || (CmsImageScaler.getScalingQueueLength() > 0)) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_MM_IMAGE_SCALING_STATUS_6,
+                        new Object[] {
+                            Long.valueOf(scaling.getCount()),
+                            Long.valueOf(scaling.getAverageScalingTime()),
+                            Long.valueOf(scaling.getAverageQueueTime()),
+                            Long.valueOf(scaling.getMaxQueueTime()),
+                            Integer.valueOf(CmsImageScaler.getScalingQueueLength()),
+                            Long.valueOf(scaling.getCoalescedCount())}));
+            }
+
             CmsSessionManager sm = OpenCms.getSessionManager();
 
             if (sm != null) {
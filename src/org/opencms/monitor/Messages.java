@@ -46,6 +46,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CONNECTIONS_3 = "LOG_MM_CONNECTIONS_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CONTENT_CACHE_STATUS_5 = "LOG_MM_CONTENT_CACHE_STATUS_5";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CREATED_1 = "LOG_MM_CREATED_1";
 
@@ -58,6 +61,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_EMAIL_SENDER_1 = "LOG_MM_EMAIL_SENDER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_IMAGE_SCALING_STATUS_6 = "LOG_MM_IMAGE_SCALING_STATUS_6";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_INTERVAL_EMAIL_1 = "LOG_MM_INTERVAL_EMAIL_1";
 
@@ -100,6 +106,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_WARNING_MEM_STATUS_AVG_6 = "LOG_MM_WARNING_MEM_STATUS_AVG_6";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_XML_CONTENT_CACHE_STATUS_5 = "LOG_MM_XML_CONTENT_CACHE_STATUS_5";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.monitor.messages";
 
@@ -0,0 +1,110 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.mx;
+
+import org.opencms.db.timing.CmsSqlQueryStatistics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Bean for the statistics of the SQL queries executed by the database drivers, retrievable via JMX.
+ *
+ * @since 20.0.0
+ */
+public class CmsSqlQueryStatisticsMXBean implements I_CmsSqlQueryStatisticsMXBean {
+
+    /** The instance. */
+    public static final CmsSqlQueryStatisticsMXBean INSTANCE = new CmsSqlQueryStatisticsMXBean();
+
+    /**
+     * Registers an MBean of this class.
+     *
+     * @throws Exception if registration fails
+     */
+    public static void register() throws Exception {
+
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        ObjectName mxbeanName = new ObjectName("org.opencms.mx:type=CmsSqlQueryStatisticsMXBean");
+        if (!mbs.isRegistered(mxbeanName)) {
+            mbs.registerMBean(INSTANCE, mxbeanName);
+        }
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsSqlQueryStatisticsMXBean#getSlowQueryThreshold()
+     */
+    public long getSlowQueryThreshold() {
+
+        return CmsSqlQueryStatistics.INSTANCE.getSlowQueryThreshold();
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsSqlQueryStatisticsMXBean#isEnabled()
+     */
+    public boolean isEnabled() {
+
+        return CmsSqlQueryStatistics.INSTANCE.isEnabled();
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsSqlQueryStatisticsMXBean#listQueryStatistics()
+     */
+    public String listQueryStatistics() {
+
+        return CmsSqlQueryStatistics.INSTANCE.getReport();
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsSqlQueryStatisticsMXBean#resetStatistics()
+     */
+    public void resetStatistics() {
+
+        CmsSqlQueryStatistics.INSTANCE.reset();
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsSqlQueryStatisticsMXBean#setEnabled(boolean)
+     */
+    public void setEnabled(boolean enabled) {
+
+        CmsSqlQueryStatistics.INSTANCE.setEnabled(enabled);
+    }
+
+    /**
+     * @see org.opencms.mx.I_CmsSqlQueryStatisticsMXBean#setSlowQueryThreshold(long)
+     */
+    public void setSlowQueryThreshold(long threshold) {
+
+        CmsSqlQueryStatistics.INSTANCE.setSlowQueryThreshold(threshold);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.mx;
+
+/**
+ * Bean interface for the statistics of the SQL queries executed by the database drivers, retrievable via JMX.
+ *
+ * @since 20.0.0
+ */
+public interface I_CmsSqlQueryStatisticsMXBean {
+
+    /**
+     * Gets the slow query threshold in milliseconds; executions taking longer are logged with their parameters.
+     *
+     * @return the slow query threshold in milliseconds, 0 if the slow query log is disabled
+     */
+    long getSlowQueryThreshold();
+
+    /**
+     * Checks if the statistics are collected.
+     *
+     * @return true if the statistics are collected
+     */
+    boolean isEnabled();
+
+    /**
+     * Contains a textual representation of the collected statistics.
+     * <p>
+     * For each query key, the execution count, the total, average and maximum execution time, the 95th percentile
+     * bucket, the rows read or written, the errors and the execution time histogram are listed, followed by
+     * the time spent waiting for connections of each database pool.
+     *
+     * @return a textual representation of the collected statistics
+     */
+    String listQueryStatistics();
+
+    /**
+     * Removes all collected statistics.
+     */
+    void resetStatistics();
+
+    /**
+     * Enables or disables the statistics.
+     *
+     * @param enabled true if the statistics should be collected
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Sets the slow query threshold in milliseconds.
+     *
+     * @param threshold the slow query threshold in milliseconds, 0 to disable the slow query log
+     */
+    void setSlowQueryThreshold(long threshold);
+
+}
@@ -0,0 +1,138 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.publish;
+
+import org.opencms.db.CmsPublishList;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The set of resources touched by a publish job, used to decide if two publish jobs may run concurrently.<p>
+ *
+ * Two publish jobs conflict if they share a resource (by structure id or path), a sibling (by resource id),
+ * or if a resource of one job is located below a folder published by the other job.<p>
+ *
+ * @since 20.0.0
+ */
+final class CmsPublishConflictSet {
+
+    /** The root paths of the resources. */
+    private final Set<String> m_paths = new HashSet<String>();
+
+    /** The resource ids of the resources, shared by all siblings. */
+    private final Set<CmsUUID> m_resourceIds = new HashSet<CmsUUID>();
+
+    /** The structure ids of the resources. */
+    private final Set<CmsUUID> m_structureIds = new HashSet<CmsUUID>();
+
+    /**
+     * Creates the conflict set for the given resources.<p>
+     *
+     * @param resources the resources touched by the publish job
+     */
+    CmsPublishConflictSet(Collection<CmsResource> resources) {
+
+        for (CmsResource resource : resources) {
+            m_paths.add(resource.getRootPath());
+            m_structureIds.add(resource.getStructureId());
+            m_resourceIds.add(resource.getResourceId());
+        }
+    }
+
+    /**
+     * Creates the conflict set for the given publish list.<p>
+     *
+     * @param publishList the publish list
+     */
+    CmsPublishConflictSet(CmsPublishList publishList) {
+
+        this(publishList.getAllResources());
+    }
+
+    /**
+     * Checks if this conflict set conflicts with the given one.<p>
+     *
+     * @param other the other conflict set
+     *
+     * @return <code>true</code> if the publish jobs of both sets must not run concurrently
+     */
+    boolean conflictsWith(CmsPublishConflictSet other) {
+
+        return intersects(m_structureIds, other.m_structureIds)
+            || intersects(m_resourceIds, other.m_resourceIds)
+            || containsPathOrParent(other.m_paths, m_paths)
+            || containsPathOrParent(m_paths, other.m_paths);
+    }
+
+    /**
+     * Checks if any of the given paths, or any of their parent folders, is contained in the given path set.<p>
+     *
+     * @param pathSet the path set to check
+     * @param paths the paths to look up
+     *
+     * @return <code>true</code> if a path or parent folder is contained in the path set
+     */
+    private boolean containsPathOrParent(Set<String> pathSet, Set<String> paths) {
+
+        for (String path : paths) {
+            String current = path;
+            while (current != null) {
+                if (pathSet.contains(current)) {
+                    return true;
+                }
+                current = CmsResource.getParentFolder(current);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the given sets have at least one common element.<p>
+     *
+     * @param first the first set
+     * @param second the second set
+     *
+     * @return <code>true</code> if the sets have a common element
+     */
+    private <T> boolean intersects(Set<T> first, Set<T> second) {
+
+        Set<T> smaller = first.size() <= second.size() ? first : second;
+        Set<T> larger = smaller == first ? second : first;
+        for (T element : smaller) {
+            if (larger.contains(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -51,16 +51,22 @@ import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.logging.Log;
 
 /**
  * This class is responsible for the publish process.<p>
  *
+ * By default, publish jobs are processed one after another. If more than one publish worker is configured,
+ * up to that number of publish jobs are processed concurrently, as long as their resources do not conflict.
+ * Conflicting publish jobs are always processed in the order they were enqueued.<p>
+ *
  * @since 6.5.5
  */
 public final class CmsPublishEngine {
@@ -71,9 +77,6 @@ public final class CmsPublishEngine {
     /** The id of the admin user. */
     private CmsUUID m_adminUserId;
 
-    /** The current running publish job. */
-    private CmsPublishThread m_currentPublishThread;
-
     /** The runtime info factory used during publishing. */
     private final I_CmsDbContextFactory m_dbContextFactory;
 
@@ -95,6 +98,12 @@ public final class CmsPublishEngine {
     /** The amount of time the system will wait for a running publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The maximum number of publish jobs processed concurrently. */
+    private int m_publishWorkers = 1;
+
+    /** The currently running publish threads, in the order they were started. */
+    private final List<CmsPublishThread> m_runningPublishThreads = new CopyOnWriteArrayList<CmsPublishThread>();
+
     /** Is set during shutdown. */
     private boolean m_shuttingDown;
 
@@ -133,30 +142,31 @@ public final class CmsPublishEngine {
     }
 
     /**
-     * Abandons the given publish thread.<p>
+     * Abandons the publish thread running the longest.<p>
      */
     public void abandonThread() {
 
-        if (!m_currentPublishThread.isAlive()) {
-            // thread is dead
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
-            }
-        } else {
-            // thread is not dead, and we suppose it hangs :(
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
-                        m_currentPublishThread.getName(),
-                        m_currentPublishThread.getUUID()));
+        CmsPublishThread thread = getCurrentPublishJob();
+        if (thread == null) {
+            checkCurrentPublishJobThread();
+            return;
+        }
+        abandonThread(thread);
+    }
+
+    /**
+     * Abandons the publish thread with the given id.<p>
+     *
+     * @param threadUUID the id of the publish thread to abandon
+     */
+    public void abandonThread(CmsUUID threadUUID) {
+
+        for (CmsPublishThread thread : m_runningPublishThreads) {
+            if (thread.getUUID().equals(threadUUID)) {
+                abandonThread(thread);
+                return;
             }
-            m_currentPublishThread.interrupt();
         }
-        // just throw it away
-        m_currentPublishThread = null;
-        // and try again
-        checkCurrentPublishJobThread();
     }
 
     /**
@@ -187,31 +197,40 @@ public final class CmsPublishEngine {
             return;
         }
 
-        // there is no running publish job
-        if (m_currentPublishThread == null) {
-            // but something is waiting in the queue
-            if (!m_publishQueue.isEmpty()) {
-                // start the next waiting publish job
-                CmsPublishJobInfoBean publishJob = m_publishQueue.next();
-                m_currentPublishThread = new CmsPublishThread(this, publishJob);
-                m_currentPublishThread.start();
-            } else {
-                // nothing to do
+        // clean up dead threads
+        for (CmsPublishThread thread : m_runningPublishThreads) {
+            if (!thread.isAlive()) {
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
                 }
+                m_runningPublishThreads.remove(thread);
             }
-            return;
         }
-        if (m_currentPublishThread.isAlive()) {
-            // normal running
-            // wait until it is finished
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
+
+        // start as many waiting publish jobs as allowed
+        while (m_runningPublishThreads.size() < m_publishWorkers) {
+            if (m_publishQueue.isEmpty()) {
+                if (m_runningPublishThreads.isEmpty() && LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+                }
+                return;
             }
-        } else {
-            // clean up the dead thread
-            abandonThread();
+            List<CmsPublishJobInfoBean> runningJobs = new ArrayList<CmsPublishJobInfoBean>();
+            for (CmsPublishThread thread : m_runningPublishThreads) {
+                runningJobs.add(thread.getPublishJob());
+            }
+            CmsPublishJobInfoBean publishJob = m_publishQueue.next(runningJobs);
+            if (publishJob == null) {
+                // all waiting jobs conflict with a running job
+                break;
+            }
+            CmsPublishThread thread = new CmsPublishThread(this, publishJob);
+            m_runningPublishThreads.add(thread);
+            thread.start();
+        }
+        if (LOG.isDebugEnabled()) {
+            // wait until a running job is finished
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
         }
     }
 
@@ -273,10 +292,11 @@ public final class CmsPublishEngine {
      */
     public CmsPublishJobBase getJobByPublishHistoryId(CmsUUID publishHistoryId) {
 
-        // try current running job
-        if ((m_currentPublishThread != null)
-            && m_currentPublishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
-            return new CmsPublishJobRunning(m_currentPublishThread.getPublishJob());
+        // try current running jobs
+        for (CmsPublishThread thread : m_runningPublishThreads) {
+            if (thread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
+                return new CmsPublishJobRunning(thread.getPublishJob());
+            }
         }
         // try enqueued jobs
         Iterator<CmsPublishJobEnqueued> itEnqueuedJobs = getPublishQueue().asList().iterator();
@@ -338,7 +358,7 @@ public final class CmsPublishEngine {
         // if a job is currently running,
         // wait the specified amount of time,
         // then write an abort message to the report
-        if (m_currentPublishThread != null) {
+        if (!m_runningPublishThreads.isEmpty()) {
 
             // if a shutdown time is defined, wait  if a publish process is running
             if (m_publishQueueShutdowntime > 0) {
@@ -351,8 +371,8 @@ public final class CmsPublishEngine {
                 }
             }
 
-            if (m_currentPublishThread != null) {
-                CmsPublishJobInfoBean publishJob = m_currentPublishThread.getPublishJob();
+            for (CmsPublishThread thread : m_runningPublishThreads) {
+                CmsPublishJobInfoBean publishJob = thread.getPublishJob();
                 try {
                     abortPublishJob(m_adminUserId, new CmsPublishJobEnqueued(publishJob), false);
                 } catch (CmsException e) {
@@ -399,9 +419,15 @@ public final class CmsPublishEngine {
         // abort event should be raised before the job is removed implicitly
         m_listeners.fireAbort(userId, publishJob);
 
-        if ((m_currentPublishThread == null)
-            || !publishJob.m_publishJob.equals(m_currentPublishThread.getPublishJob())) {
-            // engine is currently publishing another job or is not publishing
+        CmsPublishThread runningThread = null;
+        for (CmsPublishThread thread : m_runningPublishThreads) {
+            if (publishJob.m_publishJob.equals(thread.getPublishJob())) {
+                runningThread = thread;
+                break;
+            }
+        }
+        if (runningThread == null) {
+            // engine is currently publishing other jobs or is not publishing
             if (!m_publishQueue.abortPublishJob(publishJob.m_publishJob)) {
                 // job not found
                 throw new CmsPublishException(
@@ -409,10 +435,10 @@ public final class CmsPublishEngine {
             }
         } else if (!m_shuttingDown) {
             // engine is currently publishing the job to abort
-            m_currentPublishThread.abort();
-        } else if (m_shuttingDown && (m_currentPublishThread != null)) {
+            runningThread.abort();
+        } else {
             // aborting the current job during shut down
-            I_CmsReport report = m_currentPublishThread.getReport();
+            I_CmsReport report = runningThread.getReport();
             report.println();
             report.println();
             report.println(
@@ -460,7 +486,7 @@ public final class CmsPublishEngine {
 
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         // start publish job if jobs waiting
-        if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+        if (!m_publishQueue.isEmpty()) {
             checkCurrentPublishJobThread();
         }
     }
@@ -468,11 +494,14 @@ public final class CmsPublishEngine {
     /**
      * Returns the current running publish job.<p>
      *
+     * If several publish jobs are running, this is the one running the longest.<p>
+     *
      * @return the current running publish job
      */
     protected CmsPublishThread getCurrentPublishJob() {
 
-        return m_currentPublishThread;
+        Iterator<CmsPublishThread> it = m_runningPublishThreads.iterator();
+        return it.hasNext() ? it.next() : null;
     }
 
     /**
@@ -541,6 +570,16 @@ public final class CmsPublishEngine {
         return result;
     }
 
+    /**
+     * Returns the currently running publish jobs, in the order they were started.<p>
+     *
+     * @return the currently running publish jobs
+     */
+    protected List<CmsPublishThread> getRunningPublishJobs() {
+
+        return new ArrayList<CmsPublishThread>(m_runningPublishThreads);
+    }
+
     /**
      * Returns the user identified by the given id.<p>
      *
@@ -568,10 +607,15 @@ public final class CmsPublishEngine {
      * @param adminCms the admin cms
      * @param publishQueuePersistance flag if the queue is persisted
      * @param publishQueueShutdowntime amount of time to wait for a publish job during shutdown
+     * @param publishWorkers the maximum number of publish jobs processed concurrently
      *
      * @throws CmsException if something goes wrong
      */
-    protected void initialize(CmsObject adminCms, boolean publishQueuePersistance, int publishQueueShutdowntime)
+    protected void initialize(
+        CmsObject adminCms,
+        boolean publishQueuePersistance,
+        int publishQueueShutdowntime,
+        int publishWorkers)
     throws CmsException {
 
         // check the driver manager
@@ -580,6 +624,7 @@ public final class CmsPublishEngine {
         }
 
         m_publishQueueShutdowntime = publishQueueShutdowntime;
+        m_publishWorkers = Math.max(1, publishWorkers);
 
         // initially the engine is stopped, must be restartet after full system initialization
         m_engineState = CmsPublishEngineState.ENGINE_STOPPED;
@@ -599,7 +644,7 @@ public final class CmsPublishEngine {
     protected boolean isRunning() {
 
         return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty())
-            || (m_currentPublishThread != null));
+            || !m_runningPublishThreads.isEmpty());
     }
 
     /**
@@ -687,6 +732,16 @@ public final class CmsPublishEngine {
             // log failure, most likely a database problem
             LOG.error(t.getLocalizedMessage(), t);
         }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PUBLISH_JOB_FINISHED_4,
+                    new Object[] {
+                        publishJob.getPublishHistoryId(),
+                        Integer.valueOf(publishJob.getSize()),
+                        Long.valueOf(publishJob.getQueueWaitTime()),
+                        Long.valueOf(publishJob.getExecutionTime())}));
+        }
         try {
             // put the publish job into the history list
             m_publishHistory.add(publishJob);
@@ -694,10 +749,8 @@ public final class CmsPublishEngine {
             // log failure, most likely a database problem
             LOG.error(t.getLocalizedMessage(), t);
         }
-        if (Thread.currentThread() == m_currentPublishThread) {
-            // wipe the dead thread, only if this thread has not been abandoned
-            m_currentPublishThread = null;
-        }
+        // wipe the finished thread, has no effect if this thread has been abandoned
+        m_runningPublishThreads.remove(Thread.currentThread());
         // clear the published resources cache
         OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PUBLISHED_RESOURCES);
         // try to start a new publish job
@@ -772,7 +825,7 @@ public final class CmsPublishEngine {
         if (m_engineState != CmsPublishEngineState.ENGINE_STARTED) {
             m_engineState = CmsPublishEngineState.ENGINE_STARTED;
             // start publish job if jobs waiting
-            if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+            if (!m_publishQueue.isEmpty()) {
                 checkCurrentPublishJobThread();
             }
         }
@@ -813,6 +866,35 @@ public final class CmsPublishEngine {
         }
     }
 
+    /**
+     * Abandons the given publish thread and tries to start the next publish job.<p>
+     *
+     * @param thread the publish thread to abandon
+     */
+    private void abandonThread(CmsPublishThread thread) {
+
+        if (!thread.isAlive()) {
+            // thread is dead
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
+            }
+        } else {
+            // thread is not dead, and we suppose it hangs :(
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
+                        thread.getName(),
+                        thread.getUUID()));
+            }
+            thread.interrupt();
+        }
+        // just throw it away
+        m_runningPublishThreads.remove(thread);
+        // and try again
+        checkCurrentPublishJobThread();
+    }
+
     /**
      * Returns <code>true</code> if the login manager allows login.<p>
      *
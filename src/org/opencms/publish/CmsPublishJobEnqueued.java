@@ -77,6 +77,16 @@ public class CmsPublishJobEnqueued extends CmsPublishJobBase {
         return m_publishJob.getPublishList();
     }
 
+    /**
+     * Returns the time in milliseconds the publish job has been waiting in the queue.<p>
+     *
+     * @return the queue wait time in milliseconds
+     */
+    public long getQueueWaitTime() {
+
+        return m_publishJob.getQueueWaitTime();
+    }
+
     /**
      * Returns the report for this publish job.<p>
      *
@@ -54,6 +54,16 @@ public class CmsPublishJobFinished extends CmsPublishJobBase {
         return m_publishJob.getEnqueueTime();
     }
 
+    /**
+     * Returns the time in milliseconds the publish job did run.<p>
+     *
+     * @return the execution time in milliseconds
+     */
+    public long getExecutionTime() {
+
+        return m_publishJob.getExecutionTime();
+    }
+
     /**
      * Returns the time the publish job ends.<p>
      *
@@ -64,6 +74,16 @@ public class CmsPublishJobFinished extends CmsPublishJobBase {
         return m_publishJob.getFinishTime();
     }
 
+    /**
+     * Returns the time in milliseconds the publish job did wait in the queue.<p>
+     *
+     * @return the queue wait time in milliseconds
+     */
+    public long getQueueWaitTime() {
+
+        return m_publishJob.getQueueWaitTime();
+    }
+
     /**
      * Returns the time the publish job did actually start.<p>
      *
@@ -53,6 +53,9 @@ public final class CmsPublishJobInfoBean {
     /** The cms context to use for publishing, will be set to <code>null</code> after publishing. */
     private CmsObject m_cms;
 
+    /** The set of resources touched by this publish job, lazily initialized. */
+    private CmsPublishConflictSet m_conflictSet;
+
     /** If this is a "direct publish" operation. */
     private boolean m_directPublish;
 
@@ -177,6 +180,19 @@ public final class CmsPublishJobInfoBean {
         return m_enqueueTime;
     }
 
+    /**
+     * Returns the time in milliseconds the publish job has been running, or did run if it is already finished.<p>
+     *
+     * @return the execution time in milliseconds, or <code>0</code> if the job has not been started yet
+     */
+    public long getExecutionTime() {
+
+        if (m_startTime == 0L) {
+            return 0L;
+        }
+        return (m_finishTime == 0L ? System.currentTimeMillis() : m_finishTime) - m_startTime;
+    }
+
     /**
      * Returns the time the publish job ends.<p>
      *
@@ -283,6 +299,19 @@ public final class CmsPublishJobInfoBean {
         return m_publishReport;
     }
 
+    /**
+     * Returns the time in milliseconds the publish job has been waiting in the queue, or did wait if it is already started.<p>
+     *
+     * @return the queue wait time in milliseconds
+     */
+    public long getQueueWaitTime() {
+
+        if (m_enqueueTime == 0L) {
+            return 0L;
+        }
+        return (m_startTime == 0L ? System.currentTimeMillis() : m_startTime) - m_enqueueTime;
+    }
+
     /**
      * Returns the report for this publish job.<p>
      *
@@ -443,6 +472,19 @@ public final class CmsPublishJobInfoBean {
         return m_cms;
     }
 
+    /**
+     * Returns the set of resources touched by this publish job, used to detect conflicts with other publish jobs.<p>
+     *
+     * @return the conflict set, or <code>null</code> if the publish job has already been finished
+     */
+    protected synchronized CmsPublishConflictSet getConflictSet() {
+
+        if ((m_conflictSet == null) && (m_publishList != null)) {
+            m_conflictSet = new CmsPublishConflictSet(m_publishList);
+        }
+        return m_conflictSet;
+    }
+
     /**
      * Returns <code>true</code> if this is a "direct publish" operation.<p>
      *
@@ -58,6 +58,16 @@ public class CmsPublishJobRunning extends CmsPublishJobBase {
         return m_publishJob.getEnqueueTime();
     }
 
+    /**
+     * Returns the time in milliseconds the publish job has been running.<p>
+     *
+     * @return the execution time in milliseconds
+     */
+    public long getExecutionTime() {
+
+        return m_publishJob.getExecutionTime();
+    }
+
     /**
      * Returns the list of resources to publish.<p>
      *
@@ -78,6 +88,16 @@ public class CmsPublishJobRunning extends CmsPublishJobBase {
         return m_publishJob.getPublishList();
     }
 
+    /**
+     * Returns the time in milliseconds the publish job did wait in the queue.<p>
+     *
+     * @return the queue wait time in milliseconds
+     */
+    public long getQueueWaitTime() {
+
+        return m_publishJob.getQueueWaitTime();
+    }
+
     /**
      * Returns the report for this publish job.<p>
      *
@@ -116,6 +116,9 @@ public class CmsPublishManager {
     /** The amount of time to wait for a publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The maximum number of publish jobs processed concurrently. */
+    private int m_publishWorkers = 1;
+
     /** The security manager. */
     private CmsSecurityManager m_securityManager;
 
@@ -163,6 +166,16 @@ public class CmsPublishManager {
         m_publishEngine.abandonThread();
     }
 
+    /**
+     * Abandons the publish thread with the given id.<p>
+     *
+     * @param threadUUID the id of the publish thread to abandon
+     */
+    public void abandonThread(CmsUUID threadUUID) {
+
+        m_publishEngine.abandonThread(threadUUID);
+    }
+
     /**
      * Aborts the given publish job.<p>
      *
@@ -494,6 +507,16 @@ public class CmsPublishManager {
         return m_publishQueueShutdowntime;
     }
 
+    /**
+     * Returns the maximum number of publish jobs processed concurrently.<p>
+     *
+     * @return the maximum number of publish jobs processed concurrently
+     */
+    public int getPublishWorkers() {
+
+        return m_publishWorkers;
+    }
+
     /**
      * Returns a new publish list that contains the unpublished resources related
      * to all resources in the given publish list, the related resources exclude
@@ -527,6 +550,20 @@ public class CmsPublishManager {
         return m_publishEngine.getReportContents(publishJob);
     }
 
+    /**
+     * Returns the currently running publish jobs, in the order they were started.<p>
+     *
+     * @return the currently running publish jobs
+     */
+    public List<CmsPublishJobRunning> getRunningPublishJobs() {
+
+        List<CmsPublishJobRunning> result = new ArrayList<CmsPublishJobRunning>();
+        for (CmsPublishThread thread : m_publishEngine.getRunningPublishJobs()) {
+            result.add(new CmsPublishJobRunning(thread.getPublishJob()));
+        }
+        return result;
+    }
+
     /**
      * Returns the current user's publish list.<p>
      *
@@ -550,7 +587,7 @@ public class CmsPublishManager {
      */
     public void initialize(CmsObject cms) throws CmsException {
 
-        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime, m_publishWorkers);
         // Ensure publish history gets written to DB regularly,
         OpenCms.getExecutor().scheduleWithFixedDelay(new Runnable() {
 
@@ -831,6 +868,21 @@ public class CmsPublishManager {
         m_publishQueueShutdowntime = Integer.parseInt(publishQueueShutdowntime);
     }
 
+    /**
+     * Sets the maximum number of publish jobs processed concurrently.<p>
+     *
+     * Publish jobs with conflicting resources are never processed concurrently.<p>
+     *
+     * @param publishWorkers the number of publish workers, parsed as <code>int</code>
+     */
+    public void setPublishWorkers(String publishWorkers) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishWorkers = Math.max(1, Integer.parseInt(publishWorkers.trim()));
+    }
+
     /**
      * Sets the security manager during initialization.<p>
      *
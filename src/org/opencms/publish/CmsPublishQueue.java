@@ -36,6 +36,7 @@ import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -283,6 +284,52 @@ public class CmsPublishQueue {
         return publishJob;
     }
 
+    /**
+     * Returns the next publish job which can be published concurrently to the given running publish jobs,
+     * removing it from the queue, or <code>null</code> if there is no such publish job.<p>
+     *
+     * A waiting publish job may only be started before publish jobs enqueued earlier if it conflicts
+     * neither with the running publish jobs nor with these earlier publish jobs, so conflicting publish jobs
+     * are always published in the order they were enqueued.<p>
+     *
+     * @param runningJobs the currently running publish jobs
+     *
+     * @return the next publish job to be published
+     */
+    protected CmsPublishJobInfoBean next(Collection<CmsPublishJobInfoBean> runningJobs) {
+
+        if (runningJobs.isEmpty()) {
+            return next();
+        }
+        List<CmsPublishConflictSet> blocking = new ArrayList<CmsPublishConflictSet>();
+        for (CmsPublishJobInfoBean runningJob : runningJobs) {
+            CmsPublishConflictSet conflictSet = runningJob.getConflictSet();
+            if (conflictSet != null) {
+                blocking.add(conflictSet);
+            }
+        }
+        for (CmsPublishJobInfoBean publishJob : OpenCms.getMemoryMonitor().getAllCachedPublishJobs()) {
+            CmsPublishConflictSet conflictSet = publishJob.getConflictSet();
+            if (conflictSet == null) {
+                // without publish list we can not tell, so keep the queue order
+                return null;
+            }
+            boolean conflict = false;
+            for (CmsPublishConflictSet other : blocking) {
+                if (conflictSet.conflictsWith(other)) {
+                    conflict = true;
+                    break;
+                }
+            }
+            if (!conflict) {
+                OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
+                return publishJob;
+            }
+            blocking.add(conflictSet);
+        }
+        return null;
+    }
+
     /**
      * Removes the given job from the list.<p>
      *
@@ -151,6 +151,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_JOB_FINISH_0 = "LOG_PUBLISH_JOB_FINISH_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PUBLISH_JOB_FINISHED_4 = "LOG_PUBLISH_JOB_FINISHED_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_JOB_REMOVE_0 = "LOG_PUBLISH_JOB_REMOVE_0";
 
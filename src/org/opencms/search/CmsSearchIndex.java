@@ -1644,6 +1644,23 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
         return result;
     }
 
+    /**
+     * Returns the resource filter used to check if the resources referenced by the result documents can be read,
+     * depending on the "require view permission" and "ignore expiration" settings of this index.<p>
+     *
+     * @return the resource filter used for the permission check
+     */
+    protected CmsResourceFilter getPermissionCheckFilter() {
+
+        CmsResourceFilter filter = CmsResourceFilter.DEFAULT;
+        if (isRequireViewPermission()) {
+            filter = CmsResourceFilter.DEFAULT_ONLY_VISIBLE;
+        } else if (isIgnoreExpiration()) {
+            filter = CmsResourceFilter.IGNORE_EXPIRATION;
+        }
+        return filter;
+    }
+
     /**
      * Checks if the OpenCms resource referenced by the result document can be read
      * by the user of the given OpenCms context.
@@ -1660,14 +1677,7 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
 
         // check if the resource exits in the VFS,
         // this will implicitly check read permission and if the resource was deleted
-        CmsResourceFilter filter = CmsResourceFilter.DEFAULT;
-        if (isRequireViewPermission()) {
-            filter = CmsResourceFilter.DEFAULT_ONLY_VISIBLE;
-        } else if (isIgnoreExpiration()) {
-            filter = CmsResourceFilter.IGNORE_EXPIRATION;
-        }
-
-        return getResource(cms, doc, filter);
+        return getResource(cms, doc, getPermissionCheckFilter());
     }
 
     /**
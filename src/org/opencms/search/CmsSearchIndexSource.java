@@ -139,6 +139,30 @@ public class CmsSearchIndexSource implements Comparable<CmsSearchIndexSource>, S
         return m_name.compareTo(obj.m_name);
     }
 
+    /**
+     * Creates a copy of this index source that is restricted to a single one of its resources.<p>
+     *
+     * The copy shares the name, the indexer, the document types and the parameters of this index source.
+     * It is used to index the resources of an index source in separate partitions and must not be
+     * added to the search manager.<p>
+     *
+     * @param resourceName the resource name to restrict the copy to
+     *
+     * @return a copy of this index source that is restricted to the given resource
+     */
+    public CmsSearchIndexSource createPartition(String resourceName) {
+
+        CmsSearchIndexSource result = new CmsSearchIndexSource();
+        result.m_name = m_name;
+        result.m_indexer = m_indexer;
+        result.m_indexerClassName = m_indexerClassName;
+        result.m_params = m_params;
+        result.m_documentTypes = m_documentTypes;
+        result.m_documentFactories = m_documentFactories;
+        result.m_resourcesNames.add(resourceName);
+        return result;
+    }
+
     /**
      * Two index sources are considered equal if their names as returned by {@link #getName()} is equal.<p>
      *
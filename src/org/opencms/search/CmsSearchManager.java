@@ -103,11 +103,17 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
@@ -932,6 +938,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The Solr configuration. */
     private CmsSolrConfiguration m_solrConfig;
 
+    /** The resources changed during a shadow rebuild, keyed by the name of the rebuilt index. */
+    private final Map<String, List<CmsPublishedResource>> m_shadowRebuildChanges = new ConcurrentHashMap<>();
+
     /** Timeout for abandoning indexing thread. */
     private long m_timeout;
 
@@ -2228,10 +2237,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 m_coreContainer.unload(index.getCoreName(), false, false, true);
             }
             // ensure that all locks on the index are gone
-            ensureIndexIsUnlocked(index.getPath());
+            ensureIndexIsUnlocked(index.getDataDir());
 
             // load the core to the container
-            File dataDir = new File(index.getPath());
+            File dataDir = new File(index.getDataDir());
             if (!dataDir.exists()) {
                 dataDir.mkdirs();
                 if (CmsLog.INIT.isInfoEnabled()) {
@@ -2407,6 +2416,11 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         if (searchIndex instanceof CmsSolrIndex) {
             CmsSolrIndex solrIndex = (CmsSolrIndex)searchIndex;
             m_coreContainer.unload(solrIndex.getCoreName(), true, true, true);
+            try {
+                solrIndex.setDataDir(solrIndex.getPath());
+            } catch (IOException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
         }
         m_indexes.remove(searchIndex);
         initOfflineIndexes();
@@ -3251,6 +3265,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     throws CmsException {
 
         if (shouldUpdateAtAll(index)) {
+            if (((resourcesToIndex == null) || resourcesToIndex.isEmpty())
+                && (index instanceof CmsSolrIndex)
+                && ((CmsSolrIndex)index).isShadowRebuild()) {
+                // rebuild the complete index in a shadow core while the live core keeps serving
+                updateIndexInShadowCore((CmsSolrIndex)index, report);
+                return;
+            }
             CmsPriorityLock lock = I_CmsSearchIndex.REBUILD_MODE_OFFLINE.equals(index.getRebuildMode())
             ? OFFLINE_LOCK
             : ONLINE_LOCK;
@@ -3444,6 +3465,33 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         List<CmsPublishedResource> resourcesToIndex)
     throws CmsException {
 
+        List<CmsPublishedResource> shadowRebuildChanges = m_shadowRebuildChanges.get(index.getName());
+        if (shadowRebuildChanges != null) {
+            // the index is currently rebuilt in a shadow core, remember the changes to replay them there
+            shadowRebuildChanges.addAll(resourcesToIndex);
+        }
+        updateIndexIncremental(cms, index, report, resourcesToIndex, null);
+    }
+
+    /**
+     * Incrementally updates the given index, optionally writing to the given index writer.<p>
+     *
+     * @param cms the OpenCms user context to use for accessing the VFS
+     * @param index the index to update
+     * @param report the report to write output messages to
+     * @param resourcesToIndex a list of <code>{@link CmsPublishedResource}</code> objects to update in the index
+     * @param targetWriter the index writer to use, or <code>null</code> to use a new writer of the index
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void updateIndexIncremental(
+        CmsObject cms,
+        I_CmsSearchIndex index,
+        I_CmsReport report,
+        List<CmsPublishedResource> resourcesToIndex,
+        I_CmsIndexWriter targetWriter)
+    throws CmsException {
+
         CmsPriorityLock lock = I_CmsSearchIndex.REBUILD_MODE_OFFLINE.equals(index.getRebuildMode())
         ? OFFLINE_LOCK
         : ONLINE_LOCK;
@@ -3482,7 +3530,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 I_CmsIndexWriter writer = null;
                 try {
                     // obtain an index writer that updates the current index
-                    writer = index.getIndexWriter(report, false);
+                    writer = targetWriter != null ? targetWriter : index.getIndexWriter(report, false);
 
                     if (hasResourcesToDelete) {
                         // delete the resource from the index
@@ -3550,6 +3598,106 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Rebuilds the given Solr index completely in a shadow core and swaps it with the live core when finished.<p>
+     *
+     * The live core keeps serving search requests and receiving incremental updates while the shadow core is filled.
+     * The index sources are split into one partition for each configured resource, and the partitions are indexed
+     * in parallel. Resources changed while the shadow core is filled are recorded and replayed to the shadow core
+     * before the cores are swapped. If the rebuild fails, the shadow core is dropped and the live core is unchanged.<p>
+     *
+     * @param index the index to rebuild
+     * @param report the report to write output messages to
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void updateIndexInShadowCore(CmsSolrIndex index, I_CmsReport report) throws CmsException {
+
+        // copy the stored admin context for the indexing
+        CmsObject cms = OpenCms.initCmsObject(m_adminCms);
+        // make sure a report is available
+        if (report == null) {
+            report = new CmsLogReport(cms.getRequestContext().getLocale(), CmsSearchManager.class);
+        }
+
+        // check if the index has been configured correctly
+        if (!index.checkConfiguration(cms)) {
+            // the index is disabled
+            return;
+        }
+
+        // set site root and project for this index
+        cms.getRequestContext().setSiteRoot("/");
+        // switch to the index project
+        cms.getRequestContext().setCurrentProject(cms.readProject(index.getProject()));
+
+        List<CmsPublishedResource> changes = Collections.synchronizedList(new ArrayList<CmsPublishedResource>());
+        if (m_shadowRebuildChanges.putIfAbsent(index.getName(), changes) != null) {
+            report.println(
+                Messages.get().container(Messages.RPT_SEARCH_INDEXING_SHADOW_RUNNING_1, index.getName()),
+                I_CmsReport.FORMAT_WARNING);
+            return;
+        }
+
+        CmsPriorityLock lock = I_CmsSearchIndex.REBUILD_MODE_OFFLINE.equals(index.getRebuildMode())
+        ? OFFLINE_LOCK
+        : ONLINE_LOCK;
+        boolean locked = false;
+        try {
+            report.println(
+                Messages.get().container(
+                    Messages.RPT_SEARCH_INDEXING_SHADOW_BEGIN_3,
+                    index.getName(),
+                    index.getShadowCoreName(),
+                    Integer.valueOf(index.getShadowRebuildThreads())),
+                I_CmsReport.FORMAT_HEADLINE);
+
+            createShadowCore(index);
+            I_CmsIndexWriter writer = index.createShadowIndexWriter();
+            rebuildShadowCore(cms, index, writer, report);
+            writer.commit();
+
+            // block further updates of the index until the cores have been swapped
+            lock.lock(true);
+            locked = true;
+            m_shadowRebuildChanges.remove(index.getName());
+            List<CmsPublishedResource> replay;
+            synchronized (changes) {
+                replay = new ArrayList<CmsPublishedResource>(changes);
+            }
+            if (!replay.isEmpty()) {
+                report.println(
+                    Messages.get().container(
+                        Messages.RPT_SEARCH_INDEXING_SHADOW_REPLAY_1,
+                        Integer.valueOf(replay.size())));
+                updateIndexIncremental(cms, index, report, replay, writer);
+            }
+
+            report.println(
+                Messages.get().container(
+                    Messages.RPT_SEARCH_INDEXING_SHADOW_SWAP_2,
+                    index.getName(),
+                    index.getShadowCoreName()));
+            swapShadowCore(index);
+            index.onIndexChanged(true);
+
+            report.println(
+                Messages.get().container(Messages.RPT_SEARCH_INDEXING_REBUILD_END_1, index.getName()),
+                I_CmsReport.FORMAT_HEADLINE);
+        } catch (IOException e) {
+            throw new CmsIndexException(
+                Messages.get().container(Messages.ERR_SHADOW_REBUILD_FAILED_1, index.getName()),
+                e);
+        } finally {
+            m_shadowRebuildChanges.remove(index.getName(), changes);
+            // after a successful swap this removes the former live core, otherwise the unused shadow core
+            removeShadowCore(index);
+            if (locked) {
+                lock.unlock();
+            }
+        }
+    }
+
     /**
      * Updates the offline search indexes for the given list of resources.<p>
      *
@@ -3705,6 +3853,40 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
     }
 
+    /**
+     * Creates an empty shadow core for the given index.<p>
+     *
+     * A shadow core left over from an aborted rebuild is removed first.<p>
+     *
+     * @param index the index to create the shadow core for
+     */
+    private void createShadowCore(CmsSolrIndex index) {
+
+        String shadowCoreName = index.getShadowCoreName();
+        removeShadowCore(index);
+        File dataDir = new File(index.getShadowDataDir());
+        if (dataDir.exists()) {
+            CmsFileUtil.purgeDirectory(dataDir);
+        }
+        dataDir.mkdirs();
+
+        // the shadow core must not share the instance directory with the live core
+        File instanceDir = new File(
+            m_solrConfig.getHome() + FileSystems.getDefault().getSeparator() + index.getName());
+        CoreDescriptor liveDescriptor = m_coreContainer.getCoreDescriptor(index.getCoreName());
+        if ((liveDescriptor != null)
+            && instanceDir.toPath().toAbsolutePath().normalize().equals(
+                liveDescriptor.getInstanceDir().toAbsolutePath().normalize())) {
+            instanceDir = new File(instanceDir.getPath() + CmsSolrIndex.SHADOW_CORE_SUFFIX);
+        }
+        instanceDir.mkdirs();
+
+        Map<String, String> properties = new HashMap<String, String>(3);
+        properties.put(CoreDescriptor.CORE_DATADIR, dataDir.getAbsolutePath());
+        properties.put(CoreDescriptor.CORE_CONFIGSET, "default");
+        m_coreContainer.create(shadowCoreName, instanceDir.toPath(), properties, false);
+    }
+
     /**
      * Remove write.lock file in the data directory to ensure the index is unlocked.
      * @param dataDir the data directory of the Solr index that should be unlocked.
@@ -3793,6 +3975,147 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
     }
 
+    /**
+     * Fills the shadow core of the given index with all resources of the index sources.<p>
+     *
+     * The index sources are split into one partition for each configured resource,
+     * and the partitions are indexed in parallel with the configured number of threads.<p>
+     *
+     * @param cms the OpenCms user context to use for accessing the VFS
+     * @param index the index to rebuild
+     * @param writer the index writer for the shadow core
+     * @param report the report to write output messages to
+     *
+     * @throws CmsIndexException if indexing a partition fails
+     */
+    private void rebuildShadowCore(
+        final CmsObject cms,
+        final CmsSolrIndex index,
+        final I_CmsIndexWriter writer,
+        final I_CmsReport report)
+    throws CmsIndexException {
+
+        List<CmsSearchIndexSource> partitions = new ArrayList<CmsSearchIndexSource>();
+        for (CmsSearchIndexSource source : index.getSources()) {
+            for (String resourceName : source.getResourcesNames()) {
+                partitions.add(source.createPartition(resourceName));
+            }
+        }
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        final int total = partitions.size();
+        final long start = System.currentTimeMillis();
+        final AtomicInteger finished = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(index.getShadowRebuildThreads(), total),
+            new ThreadFactoryBuilder().setNameFormat("shadow-rebuild-" + index.getCoreName() + "-%d").build());
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(total);
+            for (final CmsSearchIndexSource partition : partitions) {
+                futures.add(executor.submit(() -> {
+                    // every partition uses its own context, indexer and thread manager
+                    CmsObject partitionCms = OpenCms.initCmsObject(cms);
+                    I_CmsIndexer indexer = partition.getIndexer().newInstance(partitionCms, report, index);
+                    CmsIndexingThreadManager threadManager = getThreadManager();
+                    indexer.rebuildIndex(writer, threadManager, partition);
+                    // wait for indexing threads to finish
+                    while (threadManager.isRunning()) {
+                        Thread.sleep(500);
+                    }
+                    int done = finished.incrementAndGet();
+                    long elapsed = System.currentTimeMillis() - start;
+                    long remaining = (elapsed / done) * (total - done);
+                    report.println(
+                        Messages.get().container(
+                            Messages.RPT_SEARCH_INDEXING_SHADOW_PROGRESS_4,
+                            new Object[] {
+                                Integer.valueOf(done),
+                                Integer.valueOf(total),
+                                partition.getResourcesNames().get(0),
+                                CmsStringUtil.formatRuntime(remaining)}),
+                        I_CmsReport.FORMAT_NOTE);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CmsIndexException(
+                        Messages.get().container(Messages.ERR_SHADOW_REBUILD_FAILED_1, index.getName()),
+                        e);
+                } catch (ExecutionException e) {
+                    throw new CmsIndexException(
+                        Messages.get().container(Messages.ERR_SHADOW_REBUILD_FAILED_1, index.getName()),
+                        e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Removes the shadow core of the given index, if it exists.<p>
+     *
+     * After a swap, the core registered with the shadow name is the former live core. A core that still uses
+     * the data directory the index is configured with is never removed, since it is the only usable copy.<p>
+     *
+     * @param index the index to remove the shadow core for
+     */
+    private void removeShadowCore(CmsSolrIndex index) {
+
+        try {
+            CoreDescriptor descriptor = m_coreContainer.getCoreDescriptor(index.getShadowCoreName());
+            if (descriptor == null) {
+                return;
+            }
+            if ((descriptor.getDataDir() != null)
+                && Paths.get(descriptor.getDataDir()).toAbsolutePath().normalize().equals(
+                    Paths.get(index.getDataDir()).toAbsolutePath().normalize())) {
+                // the core still uses the data the index is configured with, keep it as fallback
+                LOG.error(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_SHADOW_CORE_KEPT_2,
+                        index.getShadowCoreName(),
+                        descriptor.getDataDir()));
+                return;
+            }
+            m_coreContainer.unload(index.getShadowCoreName(), true, true, true);
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(Messages.LOG_SHADOW_CORE_REMOVE_FAILED_1, index.getShadowCoreName()),
+                e);
+        }
+    }
+
+    /**
+     * Swaps the shadow core of the given index with the live core.<p>
+     *
+     * The former live core stays registered with the shadow core name. If the data directory of the new
+     * live core can not be stored, the cores are swapped back, so the former live core keeps serving.
+     * The former live core is only removed after the swap has succeeded.<p>
+     *
+     * @param index the index to swap the cores for
+     *
+     * @throws IOException if the data directory of the new live core could not be stored
+     */
+    private void swapShadowCore(CmsSolrIndex index) throws IOException {
+
+        String shadowDataDir = index.getShadowDataDir();
+        m_coreContainer.swap(index.getCoreName(), index.getShadowCoreName());
+        try {
+            // store the new data directory, so a restart picks up the new live core
+            index.setDataDir(shadowDataDir);
+        } catch (IOException | RuntimeException e) {
+            m_coreContainer.swap(index.getCoreName(), index.getShadowCoreName());
+            throw e;
+        }
+    }
+
     /**
      * Shuts down the Solr core container.<p>
      */
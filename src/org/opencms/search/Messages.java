@@ -157,6 +157,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_SEARCHINDEX_CREATE_MISSING_NAME_0 = "ERR_SEARCHINDEX_CREATE_MISSING_NAME_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_SHADOW_REBUILD_FAILED_1 = "ERR_SHADOW_REBUILD_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_SOLR_CORE_CONTAINER_NOT_CREATED_1 = "ERR_SOLR_CORE_CONTAINER_NOT_CREATED_1";
 
@@ -429,6 +432,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SEARCHING_FAILED_0 = "LOG_SEARCHING_FAILED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SHADOW_CORE_KEPT_2 = "LOG_SHADOW_CORE_KEPT_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SHADOW_CORE_REMOVE_FAILED_1 = "LOG_SHADOW_CORE_REMOVE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SKIP_REBUILD_FOR_MODE_NEVER_1 = "LOG_SKIP_REBUILD_FOR_MODE_NEVER_1";
 
@@ -483,6 +492,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_SEARCH_INDEXING_REBUILD_END_1 = "RPT_SEARCH_INDEXING_REBUILD_END_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SEARCH_INDEXING_SHADOW_BEGIN_3 = "RPT_SEARCH_INDEXING_SHADOW_BEGIN_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SEARCH_INDEXING_SHADOW_PROGRESS_4 = "RPT_SEARCH_INDEXING_SHADOW_PROGRESS_4";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SEARCH_INDEXING_SHADOW_REPLAY_1 = "RPT_SEARCH_INDEXING_SHADOW_REPLAY_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SEARCH_INDEXING_SHADOW_RUNNING_1 = "RPT_SEARCH_INDEXING_SHADOW_RUNNING_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_SEARCH_INDEXING_SHADOW_SWAP_2 = "RPT_SEARCH_INDEXING_SHADOW_SWAP_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_SEARCH_INDEXING_STATS_4 = "RPT_SEARCH_INDEXING_STATS_4";
 
@@ -40,6 +40,7 @@ import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.main.CmsException;
@@ -65,18 +66,25 @@ import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -114,6 +122,146 @@ import com.google.common.base.Objects;
  */
 public class CmsSolrIndex extends CmsSearchIndex {
 
+    /**
+     * Per-request cache for the permission checks of the documents found by a search.<p>
+     *
+     * The resources referenced by the documents are not read and checked one by one, but in batches:
+     * when a document is checked that has not been resolved yet, the structure IDs of the next pending documents
+     * are collected and all these resources are read and permission checked with a single
+     * {@link CmsObject#readResources(java.util.Collection, CmsResourceFilter)} call. The results, including the
+     * negative ones, are kept for the rest of the request, so the result query does not check the documents again.<p>
+     */
+    private class PermissionCache {
+
+        /** The user context used for reading the resources. */
+        private CmsObject m_cms;
+
+        /** The resource filter passed to the search, may be <code>null</code>. */
+        private CmsResourceFilter m_filter;
+
+        /** The documents that may be checked, but have not been resolved yet. */
+        private Deque<CmsSolrDocument> m_pending = new ArrayDeque<CmsSolrDocument>();
+
+        /** The resolved resources by root path, a <code>null</code> value means the resource can not be read. */
+        private Map<String, CmsResource> m_resources = new HashMap<String, CmsResource>();
+
+        /**
+         * Creates a new permission cache.<p>
+         *
+         * @param cms the user context used for reading the resources
+         * @param filter the resource filter passed to the search, may be <code>null</code>
+         */
+        PermissionCache(CmsObject cms, CmsResourceFilter filter) {
+
+            m_cms = cms;
+            m_filter = filter;
+        }
+
+        /**
+         * Adds the documents of a check query response, in the order they will be checked.<p>
+         *
+         * @param docs the documents to add
+         */
+        void addCandidates(SolrDocumentList docs) {
+
+            for (SolrDocument doc : docs) {
+                CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
+                if (needsPermissionCheck(searchDoc) && !m_resources.containsKey(searchDoc.getPath())) {
+                    m_pending.add(searchDoc);
+                }
+            }
+        }
+
+        /**
+         * Returns the resource referenced by the given document, or <code>null</code> if it can not be read.<p>
+         *
+         * @param doc the document to check
+         *
+         * @return the referenced resource, or <code>null</code> if it can not be read
+         */
+        CmsResource getResource(CmsSolrDocument doc) {
+
+            String path = doc.getPath();
+            if (!m_resources.containsKey(path)) {
+                resolveNextBatch();
+            }
+            if (!m_resources.containsKey(path)) {
+                // the document was not announced as candidate
+                m_resources.put(path, readSingle(doc));
+            }
+            return m_resources.get(path);
+        }
+
+        /**
+         * Reads a single resource, in the same way as it is done without the cache.<p>
+         *
+         * @param doc the document to read the resource for
+         *
+         * @return the resource, or <code>null</code> if it can not be read
+         */
+        private CmsResource readSingle(CmsSolrDocument doc) {
+
+            return m_filter == null
+            ? CmsSolrIndex.this.getResource(m_cms, doc)
+            : CmsSolrIndex.this.getResource(m_cms, doc, m_filter);
+        }
+
+        /**
+         * Reads and checks the resources of the next batch of pending documents.<p>
+         */
+        private void resolveNextBatch() {
+
+            Map<CmsUUID, CmsSolrDocument> batch = new HashMap<CmsUUID, CmsSolrDocument>();
+            while (!m_pending.isEmpty() && (batch.size() < PERMISSION_CHECK_BATCH_SIZE)) {
+                CmsSolrDocument doc = m_pending.poll();
+                if (m_resources.containsKey(doc.getPath())) {
+                    continue;
+                }
+                String id = doc.getFieldValueAsString(CmsSearchField.FIELD_ID);
+                if (CmsUUID.isValidUUID(id)) {
+                    batch.put(new CmsUUID(id), doc);
+                } else {
+                    m_resources.put(doc.getPath(), readSingle(doc));
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<CmsResource> resources;
+            try {
+                resources = m_cms.readResources(
+                    batch.keySet(),
+                    m_filter == null ? getPermissionCheckFilter() : m_filter);
+            } catch (CmsException e) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_SOLR_PERMISSION_BATCH_FAILED_1,
+                        Integer.valueOf(batch.size())),
+                    e);
+                for (CmsSolrDocument doc : batch.values()) {
+                    m_resources.put(doc.getPath(), readSingle(doc));
+                }
+                return;
+            }
+            for (CmsResource resource : resources) {
+                CmsSolrDocument doc = batch.remove(resource.getStructureId());
+                if (doc == null) {
+                    continue;
+                }
+                if (resource.getRootPath().equals(doc.getPath())) {
+                    m_resources.put(doc.getPath(), resource);
+                } else {
+                    // the resource has been moved since it was indexed, check the indexed path as before
+                    m_resources.put(doc.getPath(), readSingle(doc));
+                }
+            }
+            for (CmsSolrDocument doc : batch.values()) {
+                // the resource does not exist, does not match the filter or can not be read
+                m_resources.put(doc.getPath(), null);
+            }
+        }
+    }
+
     /** The serial version id. */
     private static final long serialVersionUID = -1570077792574476721L;
 
@@ -156,6 +304,24 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** Constant for additional parameter to configure an external solr server specifically for the index. */
     private static final String SOLR_SERVER_URL = "server.url";
 
+    /** Constant for additional parameter to rebuild the index in a shadow core that replaces the live core when finished. */
+    public static final String SOLR_SHADOW_REBUILD = "search.solr.shadowRebuild";
+
+    /** Constant for additional parameter to set the number of threads used to fill the shadow core. */
+    public static final String SOLR_SHADOW_REBUILD_THREADS = "search.solr.shadowRebuildThreads";
+
+    /** The suffix for the name, the instance directory and the data directory of the shadow core. */
+    public static final String SHADOW_CORE_SUFFIX = "_shadow";
+
+    /** The default number of threads used to fill the shadow core. */
+    public static final int DEFAULT_SHADOW_REBUILD_THREADS = 4;
+
+    /** The suffix of the file that stores the data directory of the core if it differs from the index path. */
+    private static final String DATA_DIR_FILE_SUFFIX = ".datadir";
+
+    /** The number of search results whose resources are read and permission checked together. */
+    public static final int PERMISSION_CHECK_BATCH_SIZE = 200;
+
     /** The solr exclude property. */
     public static final String PROPERTY_SEARCH_EXCLUDE_VALUE_SOLR = "solr";
 
@@ -258,6 +424,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** Server URL to use specific for the index. If set, it overwrites all other server settings. */
     private String m_serverUrl;
 
+    /** Flag, indicating if a full rebuild fills a shadow core that is swapped with the live core when finished. */
+    private boolean m_shadowRebuild;
+
+    /** The number of threads used to fill the shadow core. */
+    private int m_shadowRebuildThreads = DEFAULT_SHADOW_REBUILD_THREADS;
+
     /**
      * Default constructor.<p>
      */
@@ -400,6 +572,27 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     m_serverUrl = value.trim();
                 }
                 break;
+            case SOLR_SHADOW_REBUILD:
+                if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(value)) {
+                    m_shadowRebuild = Boolean.parseBoolean(value.trim());
+                }
+                break;
+            case SOLR_SHADOW_REBUILD_THREADS:
+                if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(value)) {
+                    try {
+                        m_shadowRebuildThreads = Math.max(1, Integer.parseInt(value.trim()));
+                    } catch (NumberFormatException e) {
+                        LOG.warn(
+                            "Could not parse parameter \""
+                                + SOLR_SHADOW_REBUILD_THREADS
+                                + "\" for index \""
+                                + getName()
+                                + "\". The default of "
+                                + DEFAULT_SHADOW_REBUILD_THREADS
+                                + " threads will be used instead.");
+                    }
+                }
+                break;
             default:
                 super.addConfigurationParameter(key, value);
                 break;
@@ -450,6 +643,18 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return new CmsSolrIndexWriter(m_solr, this);
     }
 
+    /**
+     * Creates an index writer that writes to the shadow core of this index.<p>
+     *
+     * @return an index writer for the shadow core
+     *
+     * @see #getShadowCoreName()
+     */
+    public I_CmsIndexWriter createShadowIndexWriter() {
+
+        return new CmsSolrIndexWriter(m_solr, this, getShadowCoreName());
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#excludeFromIndex(CmsObject, CmsResource)
      */
@@ -559,6 +764,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
         if (getPostProcessor() != null) {
             result.put(POST_PROCESSOR, getPostProcessor().getClass().getName());
         }
+        if (m_shadowRebuild) {
+            result.put(SOLR_SHADOW_REBUILD, String.valueOf(m_shadowRebuild));
+        }
+        if (m_shadowRebuildThreads != DEFAULT_SHADOW_REBUILD_THREADS) {
+            result.put(SOLR_SHADOW_REBUILD_THREADS, String.valueOf(m_shadowRebuildThreads));
+        }
         return result;
     }
 
@@ -573,6 +784,30 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return m_coreName;
     }
 
+    /**
+     * Returns the data directory of the core of this index.<p>
+     *
+     * This is the index path, unless the index has been rebuilt in a shadow core,
+     * in which case the core keeps using the data directory of the former shadow core.<p>
+     *
+     * @return the data directory of the core of this index
+     */
+    public String getDataDir() {
+
+        File file = new File(getPath() + DATA_DIR_FILE_SUFFIX);
+        if (file.isFile()) {
+            try {
+                String dataDir = new String(Files.readAllBytes(file.toPath()), UTF8).trim();
+                if (new File(dataDir).isDirectory()) {
+                    return dataDir;
+                }
+            } catch (IOException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return getPath();
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#getDocument(java.lang.String, java.lang.String)
      */
@@ -677,6 +912,40 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return m_serverUrl;
     }
 
+    /**
+     * Returns the data directory used for the shadow core of this index.<p>
+     *
+     * The shadow core alternates between the index path and the index path with the shadow suffix,
+     * always using the directory that is not used by the live core.<p>
+     *
+     * @return the data directory used for the shadow core of this index
+     */
+    public String getShadowDataDir() {
+
+        String path = getPath();
+        return path.equals(getDataDir()) ? path + SHADOW_CORE_SUFFIX : path;
+    }
+
+    /**
+     * Returns the name of the shadow core that is filled during a shadow rebuild of this index.<p>
+     *
+     * @return the name of the shadow core
+     */
+    public String getShadowCoreName() {
+
+        return getCoreName() + SHADOW_CORE_SUFFIX;
+    }
+
+    /**
+     * Returns the number of threads used to fill the shadow core.<p>
+     *
+     * @return the number of threads used to fill the shadow core
+     */
+    public int getShadowRebuildThreads() {
+
+        return m_shadowRebuildThreads;
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#initialize()
      */
@@ -703,6 +972,19 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return null == m_solr;
     }
 
+    /**
+     * Returns <code>true</code> if a full rebuild of this index fills a shadow core
+     * that is swapped with the live core when finished.<p>
+     *
+     * This is only supported for the embedded Solr server.<p>
+     *
+     * @return <code>true</code> if a full rebuild of this index fills a shadow core
+     */
+    public boolean isShadowRebuild() {
+
+        return m_shadowRebuild && (m_solr instanceof EmbeddedSolrServer);
+    }
+
     /**
      * Not yet implemented for Solr.<p>
      *
@@ -917,6 +1199,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
         // check if the user is allowed to access this index
         checkOfflineAccess(cms);
 
+        // the result depends on resources which are not read through the security manager
+        CmsFlexRequestContextInfo contextInfo = CmsFlexRequestContextInfo.getContextInfo(cms);
+        if (contextInfo != null) {
+            contextInfo.setUntracked();
+        }
+
         if (!ignoreSearchExclude) {
             if (LOG.isInfoEnabled()) {
                 LOG.info(
@@ -1035,7 +1323,11 @@ public class CmsSolrIndex extends CmsSearchIndex {
             checkQuery.setRows(Integer.valueOf(Math.min(maxNumResults - processedResults, itemsToCheck)));
             checkQuery.setStart(Integer.valueOf(processedResults));
             // return only the fields required for the permission check and for scoring
-            checkQuery.setFields(CmsSearchField.FIELD_TYPE, CmsSearchField.FIELD_SOLR_ID, CmsSearchField.FIELD_PATH);
+            checkQuery.setFields(
+                CmsSearchField.FIELD_TYPE,
+                CmsSearchField.FIELD_SOLR_ID,
+                CmsSearchField.FIELD_PATH,
+                CmsSearchField.FIELD_ID);
             List<String> originalFields = Arrays.asList(query.getFields().split(","));
             if (originalFields.contains(CmsSearchField.FIELD_SCORE)) {
                 checkQuery.addField(CmsSearchField.FIELD_SCORE);
@@ -1049,6 +1341,10 @@ public class CmsSolrIndex extends CmsSearchIndex {
             solrCheckTime = System.currentTimeMillis() - solrCheckTime;
             solrPermissionTime += solrCheckTime;
 
+            // the resources of the found documents are read and checked in batches, and only once per request
+            PermissionCache permissionCache = new PermissionCache(searchCms, filter);
+            permissionCache.addCandidates(checkQueryResponse.getResults());
+
             // initialize the counts
             hitCount = checkQueryResponse.getResults().getNumFound();
             int maxToProcess = Long.valueOf(Math.min(hitCount, maxNumResults)).intValue();
@@ -1058,7 +1354,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
             for (SolrDocument doc : checkQueryResponse.getResults()) {
                 try {
                     CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
-                    if (needsPermissionCheck(searchDoc) && !hasPermissions(searchCms, searchDoc, filter)) {
+                    if (needsPermissionCheck(searchDoc) && (permissionCache.getResource(searchDoc) == null)) {
                         visibleHitCount--;
                     } else {
                         if (cnt >= start) {
@@ -1107,13 +1403,14 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     processedResults += secondCheckQueryResponse.getResults().size();
                     solrSecondCheckTime = System.currentTimeMillis() - solrSecondCheckTime;
                     solrPermissionTime += solrCheckTime;
+                    permissionCache.addCandidates(secondCheckQueryResponse.getResults());
 
                     // process found documents
                     for (SolrDocument doc : secondCheckQueryResponse.getResults()) {
                         try {
                             CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
                             String docSolrId = searchDoc.getFieldValueAsString(CmsSearchField.FIELD_SOLR_ID);
-                            if ((needsPermissionCheck(searchDoc) && !hasPermissions(searchCms, searchDoc, filter))
+                            if ((needsPermissionCheck(searchDoc) && (permissionCache.getResource(searchDoc) == null))
                                 || resultSolrIds.contains(docSolrId)) {
                                 visibleHitCount--;
                             } else {
@@ -1182,9 +1479,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 try {
                     CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
                     if (needsPermissionCheck(searchDoc)) {
-                        CmsResource resource = filter == null
-                        ? getResource(searchCms, searchDoc)
-                        : getResource(searchCms, searchDoc, filter);
+                        CmsResource resource = permissionCache.getResource(searchDoc);
                         if (null != resource) {
                             if (m_postProcessor != null) {
                                 doc = m_postProcessor.process(
@@ -1372,6 +1667,25 @@ public class CmsSolrIndex extends CmsSearchIndex {
         search(cms, query, ignoreMaxRows, response, false, filter);
     }
 
+    /**
+     * Sets the data directory of the core of this index.<p>
+     *
+     * @param dataDir the data directory of the core of this index
+     *
+     * @throws IOException if the data directory could not be stored
+     *
+     * @see #getDataDir()
+     */
+    public void setDataDir(String dataDir) throws IOException {
+
+        File file = new File(getPath() + DATA_DIR_FILE_SUFFIX);
+        if (getPath().equals(dataDir)) {
+            Files.deleteIfExists(file.toPath());
+        } else {
+            Files.write(file.toPath(), dataDir.getBytes(UTF8));
+        }
+    }
+
     /**
      * Sets the document transformer.<p>
      *
@@ -60,6 +60,9 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsSolrIndexWriter.class);
 
+    /** The name of the core to write to. */
+    private String m_coreName;
+
     /** The time to wait before a commit is sent to the Solr index.  */
     private int m_commitMs = Long.valueOf(
         OpenCms.getSearchManager().getSolrServerConfiguration().getSolrCommitMs()).intValue();
@@ -92,8 +95,23 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
      */
     public CmsSolrIndexWriter(SolrClient client, CmsSolrIndex index) {
 
+        this(client, index, index != null ? index.getCoreName() : null);
+    }
+
+    /**
+     * Creates a new index writer for the provided OpenCms search index instance that writes to the given core.<p>
+     *
+     * This is used to write to a shadow core while the core of the index is rebuilt.<p>
+     *
+     * @param client the Solr client to use
+     * @param index the OpenCms search index instance this writer to supposed to write to
+     * @param coreName the name of the core to write to
+     */
+    public CmsSolrIndexWriter(SolrClient client, CmsSolrIndex index, String coreName) {
+
         m_index = index;
         m_server = client;
+        m_coreName = coreName;
         if (m_index != null) {
             LOG.info(
                 Messages.get().getBundle().key(
@@ -123,7 +141,7 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
                         Messages.LOG_SOLR_WRITER_COMMIT_2,
                         m_index.getName(),
                         m_index.getPath()));
-                m_server.commit(m_index.getCoreName());
+                m_server.commit(m_coreName);
             } catch (SolrServerException e) {
                 throw new IOException(e.getLocalizedMessage(), e);
             }
@@ -142,7 +160,7 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
                         Messages.LOG_SOLR_WRITER_DELETE_ALL_2,
                         m_index.getName(),
                         m_index.getPath()));
-                m_server.deleteByQuery(m_index.getCoreName(), "*:*", m_commitMs);
+                m_server.deleteByQuery(m_coreName, "*:*", m_commitMs);
             } catch (SolrServerException e) {
                 throw new IOException(e.getLocalizedMessage(), e);
             }
@@ -162,7 +180,7 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
                         resource.getRootPath(),
                         m_index.getName(),
                         m_index.getPath()));
-                m_server.deleteByQuery(m_index.getCoreName(), "id:" + resource.getStructureId().toString(), m_commitMs);
+                m_server.deleteByQuery(m_coreName, "id:" + resource.getStructureId().toString(), m_commitMs);
             } catch (SolrServerException e) {
                 throw new IOException(e.getLocalizedMessage(), e);
             } catch (SolrException e) {
@@ -189,7 +207,7 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
 
         SolrInputDocument inputDoc = (SolrInputDocument)searchDocument.getDocument();
         try {
-            m_server.add(m_index.getCoreName(), inputDoc, m_commitMs);
+            m_server.add(m_coreName, inputDoc, m_commitMs);
         } catch (SolrServerException e) {
             LOG.error(e.getLocalizedMessage(), e);
         }
@@ -204,7 +222,7 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
 
             if (document.getDocument() != null) {
                 try {
-                    m_server.deleteByQuery(m_index.getCoreName(), "path:\"" + rootPath + "\"", m_commitMs);
+                    m_server.deleteByQuery(m_coreName, "path:\"" + rootPath + "\"", m_commitMs);
                 } catch (Exception e1) {
                     LOG.error(e1.getLocalizedMessage(), e1);
                 }
@@ -291,11 +309,11 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
                 //remove fields that should not be part of the index, but were used to transport extra-information on date series
                 inputDoc.removeField(CmsSearchField.FIELD_SERIESDATES_END);
                 inputDoc.removeField(CmsSearchField.FIELD_SERIESDATES_CURRENT_TILL);
-                m_server.add(m_index.getCoreName(), inputDoc, m_commitMs);
+                m_server.add(m_coreName, inputDoc, m_commitMs);
             }
         } else {
             inputDoc.setField(CmsSearchField.FIELD_SOLR_ID, id);
-            m_server.add(m_index.getCoreName(), inputDoc, m_commitMs);
+            m_server.add(m_coreName, inputDoc, m_commitMs);
         }
 
     }
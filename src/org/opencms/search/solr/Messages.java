@@ -97,6 +97,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_FIELD_NOT_FOUND_1 = "LOG_SOLR_FIELD_NOT_FOUND_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_PERMISSION_BATCH_FAILED_1 = "LOG_SOLR_PERMISSION_BATCH_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_SEARCH_EXECUTED_5 = "LOG_SOLR_SEARCH_EXECUTED_5";
 
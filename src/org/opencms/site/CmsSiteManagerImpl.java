@@ -146,6 +146,16 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
             return result;
         }
 
+        /**
+         * Gets the sites for the alternative site root mappings.
+         *
+         * @return the sites
+         */
+        public Collection<CmsSite> getSites() {
+
+            return Collections.unmodifiableCollection(m_alternativeSites.values());
+        }
+
         /**
          * Gets the site roots for the alternative site root mappings.
          *
@@ -195,9 +205,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /** The path to the "/sites/" folder. */
     private static final String SITES_FOLDER = "/sites/";
 
-    /** The length of the "/sites/" folder plus 1. */
-    private static final int SITES_FOLDER_POS = SITES_FOLDER.length() + 1;
-
     /** A list of additional site roots, that is site roots that are not below the "/sites/" folder. */
     private List<String> m_additionalSiteRoots;
 
@@ -237,6 +244,9 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /** Maps site matchers to sites. */
     private Map<CmsSiteMatcher, CmsSite> m_siteMatcherSites;
 
+    /** Index of all site roots, for finding the site of a root path; built on demand. */
+    private volatile CmsSitePathIndex m_sitePathIndex;
+
     /** Maps site roots to sites. */
     private Map<String, CmsSite> m_siteRootSites;
 
@@ -249,6 +259,9 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /** The workplace servers. */
     private Map<String, CmsSSLMode> m_workplaceServers;
 
+    /** Maps the site roots of sites nested under other sites to the sites. */
+    private volatile Map<String, CmsSite> m_nestedSiteRoots = new HashMap<>();
+
     /** Sites nested under other sites. */
     private volatile Map<CmsSiteMatcher, CmsSite> m_nestedSites = new HashMap<>();
 
@@ -467,6 +480,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         site.setAlternativeSiteRootMapping(alternativeSiteRootMapping);
         m_siteRootSites = new HashMap<String, CmsSite>(m_siteRootSites);
         m_siteRootSites.put(site.getSiteRoot(), site);
+        m_sitePathIndex = null;
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SITE_ROOT_ADDED_1, site.toString()));
         }
@@ -1005,24 +1019,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         if ((rootPath.length() > 0) && !rootPath.endsWith("/")) {
             rootPath = rootPath + "/";
         }
-        for (CmsSite site : m_nestedSites.values()) {
-            if (CmsStringUtil.isPrefixPath(site.getSiteRoot(), rootPath)) {
-                return site;
-            }
-        }
-
-        // most sites will be below the "/sites/" folder,
-        CmsSite result = lookupSitesFolder(rootPath);
-        if (result != null) {
-            return result;
-        }
-        // look through all folders that are not below "/sites/"
-        String siteRoot = lookupAdditionalSite(rootPath);
-        if (siteRoot != null) {
-            return getSiteForSiteRoot(siteRoot);
-        }
-        return m_alternativeSiteData.getSiteForRootPath(rootPath);
-
+        return getSitePathIndex().getSiteForRootPath(rootPath);
     }
 
     /**
@@ -1045,12 +1042,10 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         if (siteRoot == null) {
             return null;
         }
-        for (CmsSite site : m_nestedSites.values()) {
-            if (siteRoot.equals(site.getSiteRoot())) {
-                return site;
-            }
+        CmsSite result = m_nestedSiteRoots.get(siteRoot);
+        if (result == null) {
+            result = m_siteRootSites.get(siteRoot);
         }
-        CmsSite result = m_siteRootSites.get(siteRoot);
         if (result != null) {
             return result;
         } else {
@@ -1080,28 +1075,8 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
             rootPath = rootPath + "/";
         }
 
-        for (CmsSite site : m_nestedSites.values()) {
-            if (CmsStringUtil.isPrefixPath(site.getSiteRoot(), rootPath)) {
-                return site.getSiteRoot();
-            }
-        }
-
-        // most sites will be below the "/sites/" folder,
-        CmsSite site = lookupSitesFolder(rootPath);
-        if (site != null) {
-            return site.getSiteRoot();
-        }
-        // look through all folders that are not below "/sites/"
-        String result = lookupAdditionalSite(rootPath);
-        if (result != null) {
-            return result;
-        }
-        CmsSite extSite = m_alternativeSiteData.getSiteForRootPath(rootPath);
-        if (extSite != null) {
-            result = extSite.getSiteRoot();
-        }
-        return result;
-
+        CmsSite site = getSitePathIndex().getSiteForRootPath(rootPath);
+        return site != null ? site.getSiteRoot() : null;
     }
 
     /**
@@ -1437,7 +1412,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         if (CmsStringUtil.isEmpty(siteRoot)) {
             return false;
         }
-        return m_nestedSites.values().stream().anyMatch(site -> siteRoot.equals(site.getSiteRoot()));
+        return m_nestedSiteRoots.containsKey(siteRoot);
     }
 
     /**
@@ -1614,6 +1589,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         Map<String, CmsSite> siteRootSites = new HashMap<String, CmsSite>(m_siteRootSites);
         siteRootSites.remove(site.getSiteRoot());
         m_siteRootSites = Collections.unmodifiableMap(siteRootSites);
+        m_sitePathIndex = null;
 
         // re-initialize, will freeze the state when finished
         initialize(cms);
@@ -1866,6 +1842,34 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Creates the index of all site roots from the current site configuration.<p>
+     *
+     * @return the index of all site roots
+     */
+    private CmsSitePathIndex createSitePathIndex() {
+
+        CmsSitePathIndex index = new CmsSitePathIndex();
+        index.addAll(m_nestedSiteRoots.values(), CmsSitePathIndex.KIND_NESTED);
+        for (Map.Entry<String, CmsSite> entry : m_siteRootSites.entrySet()) {
+            String siteRoot = entry.getKey();
+            // most sites are directly below the "/sites/" folder
+            if (siteRoot.startsWith(SITES_FOLDER)
+                && (siteRoot.length() > SITES_FOLDER.length())
+                && (siteRoot.indexOf('/', SITES_FOLDER.length()) < 0)) {
+                index.add(siteRoot, entry.getValue(), CmsSitePathIndex.KIND_SITES_FOLDER);
+            }
+        }
+        for (String siteRoot : m_additionalSiteRoots) {
+            CmsSite site = getSiteForSiteRoot(siteRoot);
+            if (site != null) {
+                index.add(siteRoot, site, CmsSitePathIndex.KIND_ADDITIONAL);
+            }
+        }
+        index.addAll(m_alternativeSiteData.getSites(), CmsSitePathIndex.KIND_ALTERNATIVE);
+        return index;
+    }
+
     /**
      * Gets an offline project to read offline resources from.<p>
      *
@@ -1907,6 +1911,21 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         return m_siteMatchers.get(index);
     }
 
+    /**
+     * Returns the index of all site roots, creating it if the site configuration has changed.<p>
+     *
+     * @return the index of all site roots
+     */
+    private CmsSitePathIndex getSitePathIndex() {
+
+        CmsSitePathIndex index = m_sitePathIndex;
+        if (index == null) {
+            index = createSitePathIndex();
+            m_sitePathIndex = index;
+        }
+        return index;
+    }
+
     /**
      * Finds the configured extension folders for all normal sites and stores them in a separate list.
      */
@@ -1922,17 +1941,24 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         for (String siteRoot : m_alternativeSiteData.getSiteRoots()) {
             siteRoots.add(new CmsPath(siteRoot));
         }
-        m_nestedSites = new HashMap<>();
+        Map<CmsSiteMatcher, CmsSite> nestedSites = new HashMap<>();
+        Map<String, CmsSite> nestedSiteRoots = new HashMap<>();
         for (CmsSite site : m_siteMatcherSites.values()) {
             if (Boolean.parseBoolean(site.getParameters().get("isNestedSite"))) {
                 String parent = CmsResource.getParentFolder(site.getSiteRoot());
                 if (parent != null) {
                     if (siteRoots.contains(new CmsPath(parent))) {
-                        m_nestedSites.put(site.getSiteMatcher(), site);
+                        nestedSites.put(site.getSiteMatcher(), site);
+                        if (!nestedSiteRoots.containsKey(site.getSiteRoot())) {
+                            nestedSiteRoots.put(site.getSiteRoot(), site);
+                        }
                     }
                 }
             }
         }
+        m_nestedSites = nestedSites;
+        m_nestedSiteRoots = nestedSiteRoots;
+        m_sitePathIndex = createSitePathIndex();
         LOG.info("Nested sites: " + m_nestedSites);
     }
 
@@ -2001,44 +2027,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         return true;
     }
 
-    /**
-     * Returns <code>true</code> if the given root path matches any of the stored additional sites.<p>
-     *
-     * @param rootPath the root path to check
-     *
-     * @return <code>true</code> if the given root path matches any of the stored additional sites
-     */
-    private String lookupAdditionalSite(String rootPath) {
-
-        for (int i = 0, size = m_additionalSiteRoots.size(); i < size; i++) {
-            String siteRoot = m_additionalSiteRoots.get(i);
-            if (rootPath.startsWith(siteRoot + "/")) {
-                return siteRoot;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Returns the configured site if the given root path matches site in the "/sites/" folder,
-     * or <code>null</code> otherwise.<p>
-     *
-     * @param rootPath the root path to check
-     *
-     * @return the configured site if the given root path matches site in the "/sites/" folder,
-     *      or <code>null</code> otherwise
-     */
-    private CmsSite lookupSitesFolder(String rootPath) {
-
-        int pos = rootPath.indexOf('/', SITES_FOLDER_POS);
-        if (pos > 0) {
-            // this assumes that the root path may likely start with something like "/sites/default/"
-            // just cut the first 2 directories from the root path and do a direct lookup in the internal map
-            return m_siteRootSites.get(rootPath.substring(0, pos));
-        }
-        return null;
-    }
-
     /**
      * Sets the class member variables {@link #m_siteMatcherSites} and  {@link #m_siteMatchers}
      * from the provided map of configured site matchers.<p>
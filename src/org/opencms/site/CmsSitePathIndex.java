@@ -0,0 +1,225 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.site;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable index of all site roots, used for finding the site of a root path in time proportional to the depth of the path.<p>
+ *
+ * Site roots are stored in a tree of path segments. Since a root path may be below several site roots,
+ * each site root belongs to one of the following kinds, which are checked in this order:
+ * <ol>
+ * <li>nested sites</li>
+ * <li>sites directly below the "/sites/" folder</li>
+ * <li>additional sites, i.e. all other configured sites</li>
+ * <li>sites for alternative site root mappings</li>
+ * </ol>
+ * Within the same kind, the deepest site root wins.<p>
+ *
+ * @since 20.0.0
+ */
+final class CmsSitePathIndex {
+
+    /**
+     * A node of the index, representing a folder path.<p>
+     */
+    private static class Node {
+
+        /** The child nodes, by path segment. */
+        Map<String, Node> m_children = Collections.emptyMap();
+
+        /** The sites having the path of this node as site root, by kind. */
+        CmsSite[] m_sites;
+
+        /**
+         * Returns the child node for the given path segment, creating it if necessary.<p>
+         *
+         * @param segment the path segment
+         *
+         * @return the child node
+         */
+        Node getOrCreateChild(String segment) {
+
+            Node child = m_children.get(segment);
+            if (child == null) {
+                if (m_children.isEmpty()) {
+                    m_children = new HashMap<String, Node>(4);
+                }
+                child = new Node();
+                m_children.put(segment, child);
+            }
+            return child;
+        }
+    }
+
+    /** Kind for additional sites, which are not directly below the "/sites/" folder. */
+    static final int KIND_ADDITIONAL = 2;
+
+    /** Kind for sites for alternative site root mappings. */
+    static final int KIND_ALTERNATIVE = 3;
+
+    /** Kind for nested sites. */
+    static final int KIND_NESTED = 0;
+
+    /** Kind for sites directly below the "/sites/" folder. */
+    static final int KIND_SITES_FOLDER = 1;
+
+    /** The number of kinds. */
+    private static final int KIND_COUNT = 4;
+
+    /** The root node, representing the path "/". */
+    private Node m_root = new Node();
+
+    /**
+     * Creates an empty index.<p>
+     */
+    CmsSitePathIndex() {
+
+        // empty
+    }
+
+    /**
+     * Adds a site with the given site root to the index.<p>
+     *
+     * This must only be called while the index is built, before it is published to other threads.<p>
+     *
+     * @param siteRoot the site root
+     * @param site the site
+     * @param kind the kind of the site, one of the <code>KIND_</code> constants
+     */
+    void add(String siteRoot, CmsSite site, int kind) {
+
+        Node node = m_root;
+        int start = 0;
+        int length = siteRoot.length();
+        while (start < length) {
+            int end = siteRoot.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                node = node.getOrCreateChild(siteRoot.substring(start, end));
+            }
+            start = end + 1;
+        }
+        if (node.m_sites == null) {
+            node.m_sites = new CmsSite[KIND_COUNT];
+        }
+        if (node.m_sites[kind] == null) {
+            // keep the first site added for a site root, like a linear search would
+            node.m_sites[kind] = site;
+        }
+    }
+
+    /**
+     * Adds all given sites with the given kind to the index.<p>
+     *
+     * @param sites the sites to add
+     * @param kind the kind of the sites, one of the <code>KIND_</code> constants
+     */
+    void addAll(Collection<CmsSite> sites, int kind) {
+
+        for (CmsSite site : sites) {
+            if (site.getSiteRoot() != null) {
+                add(site.getSiteRoot(), site, kind);
+            }
+        }
+    }
+
+    /**
+     * Returns the site for the given root path, or <code>null</code> if the root path is not below any site root.<p>
+     *
+     * A root path is below a site root if it is equal to the site root followed by a slash, or starts with it.<p>
+     *
+     * @param rootPath the root path, which must end with a slash to match the site root itself
+     *
+     * @return the site for the root path, or <code>null</code>
+     */
+    CmsSite getSiteForRootPath(String rootPath) {
+
+        CmsSite[] best = null;
+        Node node = m_root;
+        if (rootPath.length() > 0) {
+            best = merge(best, node.m_sites);
+        }
+        int start = 0;
+        int length = rootPath.length();
+        while (start < length) {
+            int end = rootPath.indexOf('/', start);
+            if (end < 0) {
+                // the last segment is not followed by a slash, so it can not match a site root
+                break;
+            }
+            if (end > start) {
+                node = node.m_children.get(rootPath.substring(start, end));
+                if (node == null) {
+                    break;
+                }
+                best = merge(best, node.m_sites);
+            }
+            start = end + 1;
+        }
+        if (best != null) {
+            for (CmsSite site : best) {
+                if (site != null) {
+                    return site;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Merges the sites of a deeper node into the best sites found so far.<p>
+     *
+     * @param best the best sites found so far, may be <code>null</code>
+     * @param sites the sites of a deeper node, may be <code>null</code>
+     *
+     * @return the merged sites
+     */
+    private CmsSite[] merge(CmsSite[] best, CmsSite[] sites) {
+
+        if (sites == null) {
+            return best;
+        }
+        if (best == null) {
+            best = new CmsSite[KIND_COUNT];
+        }
+        for (int i = 0; i < KIND_COUNT; i++) {
+            if (sites[i] != null) {
+                best[i] = sites[i];
+            }
+        }
+        return best;
+    }
+}
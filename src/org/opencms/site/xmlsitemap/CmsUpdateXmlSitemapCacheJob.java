@@ -42,12 +42,18 @@ import org.apache.commons.logging.Log;
 
 /**
  * Scheduled job for updating the XML sitemap cache.<p>
+ *
+ * By default, only sitemaps which are not cached yet or which have been marked as stale by publish events
+ * are regenerated. Set the parameter <code>full</code> to <code>true</code> to regenerate all sitemaps.<p>
  */
 public class CmsUpdateXmlSitemapCacheJob implements I_CmsScheduledJob {
 
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsUpdateXmlSitemapCacheJob.class);
 
+    /** Parameter for regenerating all sitemaps, even if they are up to date. */
+    public static final String PARAM_FULL = "full";
+
     /**
      * @see org.opencms.scheduler.I_CmsScheduledJob#launch(org.opencms.file.CmsObject, java.util.Map)
      */
@@ -60,6 +66,7 @@ public class CmsUpdateXmlSitemapCacheJob implements I_CmsScheduledJob {
         if (parentFolder == null) {
             parentFolder = "/";
         }
+        boolean full = Boolean.parseBoolean(parameters.get(PARAM_FULL));
         I_CmsResourceType type = OpenCms.getResourceManager().getResourceType(CmsXmlSeoConfiguration.SEO_FILE_TYPE);
         List<CmsResource> resources = cms.readResources(
             parentFolder,
@@ -75,6 +82,10 @@ public class CmsUpdateXmlSitemapCacheJob implements I_CmsScheduledJob {
                     LOG.info("Ignoring file " + res.getRootPath());
                     continue;
                 }
+                if (!full && !CmsXmlSitemapCache.INSTANCE.needsUpdate(res.getRootPath())) {
+                    LOG.info("Sitemap for " + res.getRootPath() + " is up to date");
+                    continue;
+                }
                 CmsXmlSeoConfiguration config = new CmsXmlSeoConfiguration();
                 config.load(cms, res);
                 CmsXmlSitemapGenerator generator = null;
@@ -82,8 +93,8 @@ public class CmsUpdateXmlSitemapCacheJob implements I_CmsScheduledJob {
                     generator = CmsXmlSitemapActionElement.prepareSitemapGenerator(res, config);
                 }
                 if (generator != null) {
-                    String xml = generator.renderSitemap();
-                    CmsXmlSitemapCache.INSTANCE.put(res.getRootPath(), xml);
+                    CmsXmlSitemapCacheEntry entry = CmsXmlSitemapActionElement.generateSitemap(cms, res, generator);
+                    CmsXmlSitemapCache.INSTANCE.put(res.getRootPath(), entry);
                 } else {
                     LOG.info("Ignoring file " + res.getRootPath());
                 }
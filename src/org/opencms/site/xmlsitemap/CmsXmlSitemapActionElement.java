@@ -38,7 +38,11 @@ import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
@@ -58,6 +62,9 @@ public class CmsXmlSitemapActionElement extends CmsJspActionElement {
     /** Runtime property name for the default sitemap generator class. */
     private static final String PARAM_DEFAULT_SITEMAP_GENERATOR = "sitemap.generator";
 
+    /** Request parameter for selecting a single file of a sitemap consisting of more than one file. */
+    private static final String PARAM_PART = "part";
+
     /** The configuration bean. */
     protected CmsXmlSeoConfiguration m_configuration;
 
@@ -108,6 +115,87 @@ public class CmsXmlSitemapActionElement extends CmsJspActionElement {
         }
     }
 
+    /**
+     * Generates the XML sitemap for the given configuration file.<p>
+     *
+     * If the sitemap has more URLs than allowed in a single sitemap file, the result contains several files
+     * and a sitemap index referencing them via the 'part' parameter of the configuration file's link.<p>
+     *
+     * @param cms the current CMS context
+     * @param seoFile the sitemap XML file
+     * @param generator the sitemap generator prepared for the file
+     *
+     * @return the generated sitemap files
+     *
+     * @throws CmsException if something goes wrong
+     * @throws IOException if writing the sitemap files fails
+     */
+    public static CmsXmlSitemapCacheEntry generateSitemap(
+        CmsObject cms,
+        CmsResource seoFile,
+        CmsXmlSitemapGenerator generator)
+    throws CmsException, IOException {
+
+        return generateSitemap(cms, seoFile, generator, generator.generateSitemapBeans());
+    }
+
+    /**
+     * Gets the links of the single files of a sitemap consisting of more than one file.<p>
+     *
+     * @param sitemapLink the link of the sitemap configuration file
+     * @param count the number of sitemap files
+     *
+     * @return the links of the sitemap files, using the 'part' parameter
+     */
+    public static List<String> getPartLinks(String sitemapLink, int count) {
+
+        String separator = sitemapLink.contains("?") ? "&" : "?";
+        List<String> result = new ArrayList<String>(count);
+        for (int i = 1; i <= count; i++) {
+            result.add(sitemapLink + separator + PARAM_PART + "=" + i);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the sitemap files for the given URL beans to the RFS folder of the sitemap cache.<p>
+     *
+     * @param cms the current CMS context
+     * @param seoFile the sitemap XML file
+     * @param generator the sitemap generator prepared for the file
+     * @param urlBeans the URL beans generated for the sitemap
+     *
+     * @return the generated sitemap files
+     *
+     * @throws CmsException if something goes wrong
+     * @throws IOException if writing the sitemap files fails
+     */
+    private static CmsXmlSitemapCacheEntry generateSitemap(
+        CmsObject cms,
+        CmsResource seoFile,
+        CmsXmlSitemapGenerator generator,
+        List<CmsXmlSitemapUrlBean> urlBeans)
+    throws CmsException, IOException {
+
+        List<File> parts = generator.writeSitemapParts(urlBeans, CmsXmlSitemapCache.INSTANCE.getFolder());
+        String index = null;
+        if (parts.size() > 1) {
+            CmsXmlSeoConfiguration config = new CmsXmlSeoConfiguration();
+            config.load(cms, seoFile);
+            String link = CmsXmlSitemapGenerator.replaceServerUri(
+                OpenCms.getLinkManager().getOnlineLink(cms, cms.getSitePath(seoFile)),
+                config.getServerUrl());
+            StringWriter out = new StringWriter();
+            CmsXmlSitemapGenerator.writeSitemapIndex(out, getPartLinks(link, parts.size()));
+            index = out.toString();
+        }
+        return new CmsXmlSitemapCacheEntry(
+            parts,
+            index,
+            generator.getBaseFolderRootPath(),
+            generator.getDetailTypes());
+    }
+
     /**
      * Constructs an XML sitemap generator given an XML sitemap configuration file.<p>
      *
@@ -158,30 +246,54 @@ public class CmsXmlSitemapActionElement extends CmsJspActionElement {
             showRobotsTxt();
         } else {
             boolean updateCache = Boolean.parseBoolean(getRequest().getParameter("updateCache"));
-            String value = "";
+            String partParam = getRequest().getParameter(PARAM_PART);
+            CmsXmlSitemapCacheEntry entry = null;
             if (updateCache && m_configuration.usesCache()) {
                 // update request, and caching is configured -> update the cache
                 CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
-                value = generator.renderSitemap();
-                CmsXmlSitemapCache.INSTANCE.put(seoFile.getRootPath(), value);
+                entry = generateSitemap(cms, seoFile, generator);
+                CmsXmlSitemapCache.INSTANCE.put(seoFile.getRootPath(), entry);
             } else if (!updateCache && m_configuration.usesCache()) {
                 // normal request, and caching is configured -> look in the cache first, and if not found, calculate sitemap and store it in cache
-                String cachedValue = CmsXmlSitemapCache.INSTANCE.get(seoFile.getRootPath());
-                if (cachedValue != null) {
-                    value = cachedValue;
-                } else {
+                entry = CmsXmlSitemapCache.INSTANCE.getEntry(seoFile.getRootPath());
+                if (entry == null) {
                     CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
-                    value = generator.renderSitemap();
-                    CmsXmlSitemapCache.INSTANCE.put(seoFile.getRootPath(), value);
+                    entry = generateSitemap(cms, seoFile, generator);
+                    CmsXmlSitemapCache.INSTANCE.put(seoFile.getRootPath(), entry);
                 }
             } else if (!updateCache && !m_configuration.usesCache()) {
-                // normal request, caching is not configured -> always generate a fresh sitemap
-                CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
-                value = generator.renderSitemap();
+                // normal request, caching is not configured -> generate a fresh sitemap, unless the files of a
+                // sitemap consisting of more than one file have just been generated for the sitemap index
+                entry = CmsXmlSitemapCache.INSTANCE.getTransientEntry(seoFile.getRootPath());
+                if (entry == null) {
+                    CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
+                    List<CmsXmlSitemapUrlBean> urlBeans = generator.generateSitemapBeans();
+                    if (CmsXmlSitemapGenerator.getPartCount(urlBeans.size()) == 1) {
+                        // a single file is written directly to the response
+                        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(partParam) && !"1".equals(partParam.trim())) {
+                            getResponse().sendError(HttpServletResponse.SC_NOT_FOUND);
+                        } else {
+                            generator.writeUrlSet(getResponse().getWriter(), urlBeans);
+                        }
+                        return;
+                    }
+                    entry = generateSitemap(cms, seoFile, generator, urlBeans);
+                    CmsXmlSitemapCache.INSTANCE.putTransient(seoFile.getRootPath(), entry);
+                }
             } else if (updateCache && !m_configuration.usesCache()) {
                 // update request with no caching configured -> ignore
             }
-            getResponse().getWriter().print(value);
+            if (entry != null) {
+                if (!writeEntry(entry, partParam)) {
+                    // the files may have been deleted because the entry has just been replaced, so try the new entry
+                    CmsXmlSitemapCacheEntry newEntry = m_configuration.usesCache()
+                    ? CmsXmlSitemapCache.INSTANCE.getEntry(seoFile.getRootPath())
+                    : CmsXmlSitemapCache.INSTANCE.getTransientEntry(seoFile.getRootPath());
+                    if ((newEntry == null) || (newEntry == entry) || !writeEntry(newEntry, partParam)) {
+                        getResponse().sendError(HttpServletResponse.SC_NOT_FOUND);
+                    }
+                }
+            }
         }
 
     }
@@ -225,4 +337,26 @@ public class CmsXmlSitemapActionElement extends CmsJspActionElement {
         getResponse().getWriter().print(buffer.toString());
     }
 
+    /**
+     * Writes the sitemap index or the requested sitemap file of the given entry to the response.<p>
+     *
+     * @param entry the sitemap files
+     * @param partParam the value of the 'part' request parameter, may be null
+     *
+     * @return false if the requested sitemap file does not exist
+     *
+     * @throws IOException if writing to the response fails
+     */
+    private boolean writeEntry(CmsXmlSitemapCacheEntry entry, String partParam) throws IOException {
+
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(partParam)) {
+            return entry.writeDocument(getResponse().getWriter());
+        }
+        try {
+            return entry.writePart(Integer.parseInt(partParam.trim()), getResponse().getWriter());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
 }
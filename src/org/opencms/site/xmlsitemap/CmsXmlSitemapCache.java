@@ -25,18 +25,54 @@
  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
  */
 
+
 package org.opencms.site.xmlsitemap;
 
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.loader.CmsLoaderException;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Cache for XML sitemaps.<p>
+ *
+ * Sitemaps cached together with their base folder are marked as stale when resources below the base folder,
+ * or resources of one of their detail page types, are published. Stale sitemaps are still delivered until
+ * they are regenerated, e.g. by the {@link CmsUpdateXmlSitemapCacheJob}.<p>
+ *
+ * The cache also keeps the files of sitemaps which are configured without caching, but consist of more than one
+ * file, for {@link #TRANSIENT_ENTRY_TIMEOUT} milliseconds. This way the sitemap files requested after the sitemap
+ * index are not generated again for every request.<p>
+ *
+ * The sitemap files are stored in the RFS folder {@link #FOLDER_SITEMAP_CACHE} below <code>WEB-INF</code>.<p>
  */
-public class CmsXmlSitemapCache {
+public class CmsXmlSitemapCache implements I_CmsEventListener {
+
+    /** The RFS folder below WEB-INF for the sitemap files. */
+    public static final String FOLDER_SITEMAP_CACHE = "sitemapcache";
+
+    /** The time in milliseconds the files of sitemaps configured without caching are kept. */
+    public static final long TRANSIENT_ENTRY_TIMEOUT = 10 * 60 * 1000;
 
     /** The logger for this class. */
     private static final Log LOG = CmsLog.getLog(CmsXmlSitemapCache.class);
@@ -45,37 +81,247 @@ public class CmsXmlSitemapCache {
     public static final CmsXmlSitemapCache INSTANCE = new CmsXmlSitemapCache();
 
     /** The map for storing the cached sitemaps. */
-    private ConcurrentHashMap<String, String> m_cache = new ConcurrentHashMap<String, String>();
+    private ConcurrentHashMap<String, CmsXmlSitemapCacheEntry> m_cache =
+        new ConcurrentHashMap<String, CmsXmlSitemapCacheEntry>();
+
+    /** The RFS folder for the sitemap files, <code>null</code> if not initialized yet. */
+    private File m_folder;
+
+    /** Flag which indicates whether the cache is registered for publish events. */
+    private boolean m_listening;
+
+    /** The map for storing the files of sitemaps configured without caching. */
+    private ConcurrentHashMap<String, CmsXmlSitemapCacheEntry> m_transient =
+        new ConcurrentHashMap<String, CmsXmlSitemapCacheEntry>();
 
     /**
      * Clears the cache.<p>
      */
     public void clear() {
 
-        m_cache.clear();
+        for (Iterator<CmsXmlSitemapCacheEntry> it = m_cache.values().iterator(); it.hasNext();) {
+            it.next().delete();
+            it.remove();
+        }
+        for (Iterator<CmsXmlSitemapCacheEntry> it = m_transient.values().iterator(); it.hasNext();) {
+            it.next().delete();
+            it.remove();
+        }
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        if (event.getType() != I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            return;
+        }
+        String publishIdStr = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+        if (!CmsUUID.isValidUUID(publishIdStr)) {
+            markAllStale();
+            return;
+        }
+        List<CmsPublishedResource> publishedResources;
+        try {
+            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+            publishedResources = cms.readPublishedResources(new CmsUUID(publishIdStr));
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            markAllStale();
+            return;
+        }
+        for (CmsPublishedResource pubRes : publishedResources) {
+            if (pubRes.isMoved()) {
+                // the original location of a moved resource is not known
+                markAllStale();
+                return;
+            }
+            String typeName = null;
+            try {
+                typeName = OpenCms.getResourceManager().getResourceType(pubRes.getType()).getTypeName();
+            } catch (CmsLoaderException e) {
+                // unknown type, only the path is checked
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+            for (Map.Entry<String, CmsXmlSitemapCacheEntry> entry : m_cache.entrySet()) {
+                if (!entry.getValue().isStale() && entry.getValue().isAffectedBy(pubRes.getRootPath(), typeName)) {
+                    LOG.info("Sitemap " + entry.getKey() + " affected by publishing " + pubRes.getRootPath());
+                    entry.getValue().markStale();
+                }
+            }
+        }
     }
 
     /**
      * Gets the cached entry for the given key (the key will normally be the root path of a sitemap.xml file).<p>
      *
+     * For sitemaps consisting of more than one file, the sitemap index is returned.<p>
+     *
      * @param key the key
      * @return the cached XML sitemap, or null if no cached value exists
      */
     public String get(String key) {
 
+        CmsXmlSitemapCacheEntry entry = m_cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        StringWriter out = new StringWriter();
+        try {
+            if (entry.writeDocument(out)) {
+                return out.toString();
+            }
+        } catch (IOException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the cached sitemap files for the given key.<p>
+     *
+     * @param key the key
+     * @return the cached XML sitemap files, or null if no cached value exists
+     */
+    public CmsXmlSitemapCacheEntry getEntry(String key) {
+
         return m_cache.get(key);
     }
 
+    /**
+     * Returns the RFS folder for the sitemap files.<p>
+     *
+     * Files left over from earlier runs are deleted when the folder is first used.<p>
+     *
+     * @return the RFS folder for the sitemap files
+     */
+    public synchronized File getFolder() {
+
+        if (m_folder == null) {
+            File folder = new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(FOLDER_SITEMAP_CACHE));
+            if (folder.exists()) {
+                CmsFileUtil.purgeDirectory(folder);
+            }
+            folder.mkdirs();
+            m_folder = folder;
+        }
+        return m_folder;
+    }
+
+    /**
+     * Gets the files of a sitemap configured without caching, if they have been generated recently.<p>
+     *
+     * @param key the key
+     * @return the sitemap files, or null if they have not been generated in the last {@link #TRANSIENT_ENTRY_TIMEOUT} milliseconds
+     */
+    public CmsXmlSitemapCacheEntry getTransientEntry(String key) {
+
+        CmsXmlSitemapCacheEntry entry = m_transient.get(key);
+        if ((entry != null) && ((System.currentTimeMillis() - entry.getDateCreated()) > TRANSIENT_ENTRY_TIMEOUT)) {
+            if (m_transient.remove(key, entry)) {
+                entry.delete();
+            }
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Checks if the sitemap with the given key has to be generated, because it is not cached or stale.<p>
+     *
+     * @param key the XML sitemap key (usually the root path of the sitemap.xml)
+     *
+     * @return <code>true</code> if the sitemap has to be generated
+     */
+    public boolean needsUpdate(String key) {
+
+        CmsXmlSitemapCacheEntry entry = m_cache.get(key);
+        return (entry == null) || entry.isStale();
+    }
+
     /**
      * Stores an XML sitemap in the cache.<p>
      *
+     * Sitemaps stored with this method are not invalidated by publish events.<p>
+     *
      * @param key the XML sitemap key (usually the root path of the sitemap.xml)
      * @param value the XML sitemap content
      */
     public void put(String key, String value) {
 
-        LOG.info("Caching sitemap for key " + key + ", size = " + value.length());
-        m_cache.put(key, value);
+        File file = new File(getFolder(), new CmsUUID().getStringValue() + ".xml");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(value.getBytes(StandardCharsets.UTF_8));
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            file.delete();
+            return;
+        }
+        put(key, new CmsXmlSitemapCacheEntry(Collections.singletonList(file), null, null, null));
+    }
+
+    /**
+     * Stores the files of an XML sitemap in the cache.<p>
+     *
+     * @param key the XML sitemap key (usually the root path of the sitemap.xml)
+     * @param entry the XML sitemap files
+     */
+    public void put(String key, CmsXmlSitemapCacheEntry entry) {
+
+        LOG.info(
+            "Caching sitemap for key " + key + ", files = " + entry.getPartCount() + ", size = " + entry.getSize());
+        registerListener();
+        CmsXmlSitemapCacheEntry oldEntry = m_cache.put(key, entry);
+        if ((oldEntry != null) && (oldEntry != entry)) {
+            oldEntry.delete();
+        }
+    }
+
+    /**
+     * Stores the files of a sitemap configured without caching for {@link #TRANSIENT_ENTRY_TIMEOUT} milliseconds.<p>
+     *
+     * Expired files of other sitemaps are deleted.<p>
+     *
+     * @param key the XML sitemap key (usually the root path of the sitemap.xml)
+     * @param entry the XML sitemap files
+     */
+    public void putTransient(String key, CmsXmlSitemapCacheEntry entry) {
+
+        CmsXmlSitemapCacheEntry oldEntry = m_transient.put(key, entry);
+        if ((oldEntry != null) && (oldEntry != entry)) {
+            oldEntry.delete();
+        }
+        for (String transientKey : m_transient.keySet()) {
+            // removes the entry if it has expired
+            getTransientEntry(transientKey);
+        }
+    }
+
+    /**
+     * Marks all cached sitemaps as stale.<p>
+     */
+    private void markAllStale() {
+
+        for (CmsXmlSitemapCacheEntry entry : m_cache.values()) {
+            entry.markStale();
+        }
+    }
+
+    /**
+     * Registers this cache for publish events, if not done yet.<p>
+     */
+    private synchronized void registerListener() {
+
+        if (!m_listening) {
+            OpenCms.addCmsEventListener(this, new int[] {I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+            m_listening = true;
+        }
     }
 
 }
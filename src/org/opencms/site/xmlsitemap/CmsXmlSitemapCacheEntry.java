@@ -0,0 +1,248 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.site.xmlsitemap;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A cached XML sitemap, consisting of one or more sitemap files and, for more than one file, a sitemap index.<p>
+ *
+ * The sitemap files are stored in the RFS and copied to the response when they are requested, so large sitemaps
+ * are not held in memory. Only the sitemap index is kept in memory.<p>
+ *
+ * Entries which know the base folder and detail types of their sitemap are marked as stale when
+ * relevant resources are published, so they can be regenerated without regenerating unaffected sitemaps.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsXmlSitemapCacheEntry {
+
+    /** The root path of the base folder of the sitemap, <code>null</code> if unknown. */
+    private String m_baseFolderRootPath;
+
+    /** The time this entry was created. */
+    private long m_dateCreated;
+
+    /** The names of the detail page types of the sitemap. */
+    private Set<String> m_detailTypes;
+
+    /** The sitemap index, <code>null</code> if the sitemap consists of a single file. */
+    private String m_index;
+
+    /** The sitemap files. */
+    private List<File> m_parts;
+
+    /** Flag which indicates whether resources relevant for the sitemap have been published since it was generated. */
+    private volatile boolean m_stale;
+
+    /**
+     * Creates a new cache entry.<p>
+     *
+     * @param parts the sitemap files
+     * @param index the sitemap index, or <code>null</code> if there is only one sitemap file
+     * @param baseFolderRootPath the root path of the base folder of the sitemap, or <code>null</code> if unknown
+     * @param detailTypes the names of the detail page types of the sitemap
+     */
+    public CmsXmlSitemapCacheEntry(List<File> parts, String index, String baseFolderRootPath, Set<String> detailTypes) {
+
+        m_parts = Collections.unmodifiableList(parts);
+        m_index = index;
+        m_baseFolderRootPath = baseFolderRootPath;
+        m_detailTypes = detailTypes != null ? detailTypes : Collections.<String> emptySet();
+        m_dateCreated = System.currentTimeMillis();
+    }
+
+    /**
+     * Deletes the sitemap files of this entry.<p>
+     *
+     * Requests which are already copying a file to the response are not affected.<p>
+     */
+    public void delete() {
+
+        for (File part : m_parts) {
+            part.delete();
+        }
+    }
+
+    /**
+     * Returns the root path of the base folder of the sitemap.<p>
+     *
+     * @return the root path of the base folder, or <code>null</code> if unknown
+     */
+    public String getBaseFolderRootPath() {
+
+        return m_baseFolderRootPath;
+    }
+
+    /**
+     * Returns the time this entry was created.<p>
+     *
+     * @return the time this entry was created
+     */
+    public long getDateCreated() {
+
+        return m_dateCreated;
+    }
+
+    /**
+     * Returns the names of the detail page types of the sitemap.<p>
+     *
+     * @return the names of the detail page types
+     */
+    public Set<String> getDetailTypes() {
+
+        return m_detailTypes;
+    }
+
+    /**
+     * Returns the number of sitemap files.<p>
+     *
+     * @return the number of sitemap files
+     */
+    public int getPartCount() {
+
+        return m_parts.size();
+    }
+
+    /**
+     * Returns the total size of the sitemap files and the sitemap index in bytes.<p>
+     *
+     * @return the size of the sitemap
+     */
+    public long getSize() {
+
+        long size = m_index != null ? m_index.length() : 0;
+        for (File part : m_parts) {
+            size += part.length();
+        }
+        return size;
+    }
+
+    /**
+     * Checks if a published resource may change this sitemap.<p>
+     *
+     * Entries with unknown base folder are never affected, they are only replaced by the update job.<p>
+     *
+     * @param rootPath the root path of the published resource
+     * @param typeName the type name of the published resource, may be <code>null</code>
+     *
+     * @return <code>true</code> if the published resource may change the sitemap
+     */
+    public boolean isAffectedBy(String rootPath, String typeName) {
+
+        if (m_baseFolderRootPath == null) {
+            return false;
+        }
+        String baseFolder = m_baseFolderRootPath.endsWith("/") ? m_baseFolderRootPath : m_baseFolderRootPath + "/";
+        return rootPath.startsWith(baseFolder)
+            || baseFolder.startsWith(rootPath)
+            || ((typeName != null) && m_detailTypes.contains(typeName));
+    }
+
+    /**
+     * Checks if resources relevant for the sitemap have been published since it was generated.<p>
+     *
+     * @return <code>true</code> if the sitemap should be regenerated
+     */
+    public boolean isStale() {
+
+        return m_stale;
+    }
+
+    /**
+     * Marks this sitemap as stale.<p>
+     */
+    public void markStale() {
+
+        m_stale = true;
+    }
+
+    /**
+     * Writes the document to deliver for the sitemap itself, i.e. the sitemap index if there is one,
+     * or the only sitemap file otherwise.<p>
+     *
+     * @param out the writer to write the document to
+     *
+     * @return <code>false</code> if the sitemap file has already been deleted
+     *
+     * @throws IOException if writing the document fails
+     */
+    public boolean writeDocument(Writer out) throws IOException {
+
+        if (m_index != null) {
+            out.write(m_index);
+            return true;
+        }
+        return writePart(1, out);
+    }
+
+    /**
+     * Writes the sitemap file with the given number.<p>
+     *
+     * @param part the number of the sitemap file, starting with 1
+     * @param out the writer to write the sitemap file to
+     *
+     * @return <code>false</code> if there is no sitemap file with this number, or if it has already been deleted
+     *
+     * @throws IOException if writing the sitemap file fails
+     */
+    public boolean writePart(int part, Writer out) throws IOException {
+
+        if ((part < 1) || (part > m_parts.size())) {
+            return false;
+        }
+        Reader in;
+        try {
+            in = new InputStreamReader(new FileInputStream(m_parts.get(part - 1)), StandardCharsets.UTF_8);
+        } catch (FileNotFoundException e) {
+            // the entry has been replaced and its files have been deleted
+            return false;
+        }
+        try {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return true;
+    }
+}
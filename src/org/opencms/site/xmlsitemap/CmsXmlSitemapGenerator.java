@@ -42,6 +42,7 @@ import org.opencms.file.types.CmsResourceTypeHtmlRedirect;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.gwt.shared.alias.CmsAliasMode;
+import org.opencms.i18n.CmsEncoder;
 import org.opencms.jsp.CmsJspNavBuilder;
 import org.opencms.jsp.CmsJspNavElement;
 import org.opencms.loader.CmsLoaderException;
@@ -58,8 +59,16 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -140,6 +149,12 @@ public class CmsXmlSitemapGenerator {
     /** Sitemap attribute to exclude empty detail pages relevant for settings only. */
     public static final String ATTR_DETAIL_SETTINGS_PAGE_EXCLUDE = "template.detailsettingspage.exclude";
 
+    /** The maximum number of URLs in a single sitemap file, as defined by the sitemap protocol. */
+    public static final int MAX_URLS_PER_SITEMAP = 50000;
+
+    /** The namespace of sitemap and sitemap index files. */
+    public static final String SITEMAP_NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsXmlSitemapGenerator.class);
 
@@ -207,6 +222,38 @@ public class CmsXmlSitemapGenerator {
             m_siteGuestCms.getRequestContext().removeSiteRoot(m_baseFolderRootPath));
     }
 
+    /**
+     * Returns the sitemap entries of the sitemap file with the given number.<p>
+     *
+     * @param <T> the type of the sitemap entries
+     * @param urlBeans all sitemap entries
+     * @param part the number of the sitemap file, starting with 1
+     *
+     * @return the sitemap entries of the file, or <code>null</code> if there is no file with this number
+     */
+    public static <T> List<T> getPart(List<T> urlBeans, int part) {
+
+        if ((part < 1) || (part > getPartCount(urlBeans.size()))) {
+            return null;
+        }
+        int start = (part - 1) * MAX_URLS_PER_SITEMAP;
+        return urlBeans.subList(start, Math.min(start + MAX_URLS_PER_SITEMAP, urlBeans.size()));
+    }
+
+    /**
+     * Returns the number of sitemap files needed for the given number of URLs.<p>
+     *
+     * Each file contains at most {@link #MAX_URLS_PER_SITEMAP} URLs. An empty sitemap consists of one file.<p>
+     *
+     * @param urlCount the number of URLs
+     *
+     * @return the number of sitemap files
+     */
+    public static int getPartCount(int urlCount) {
+
+        return Math.max(1, ((urlCount + MAX_URLS_PER_SITEMAP) - 1) / MAX_URLS_PER_SITEMAP);
+    }
+
     /**
      * Replaces the protocol/host/port of a link with the ones from the given server URI, if it's not empty.<p>
      *
@@ -239,6 +286,26 @@ public class CmsXmlSitemapGenerator {
 
     }
 
+    /**
+     * Writes a sitemap index referencing the given sitemap files.<p>
+     *
+     * @param out the writer to write the sitemap index to
+     * @param sitemapUrls the URLs of the sitemap files
+     *
+     * @throws IOException if writing fails
+     */
+    public static void writeSitemapIndex(Writer out, List<String> sitemapUrls) throws IOException {
+
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<sitemapindex xmlns=\"" + SITEMAP_NAMESPACE + "\">\n");
+        for (String url : sitemapUrls) {
+            out.write("<sitemap><loc>");
+            out.write(CmsEncoder.escapeXml(url));
+            out.write("</loc></sitemap>\n");
+        }
+        out.write("</sitemapindex>");
+    }
+
     /**
      * Gets the change frequency for a sitemap entry from a list of properties.<p>
      *
@@ -358,6 +425,28 @@ public class CmsXmlSitemapGenerator {
         return result;
     }
 
+    /**
+     * Returns the root path of the base folder of the sitemap.<p>
+     *
+     * @return the root path of the base folder
+     */
+    public String getBaseFolderRootPath() {
+
+        return m_baseFolderRootPath;
+    }
+
+    /**
+     * Returns the names of the resource types for which detail pages were found while generating the sitemap.<p>
+     *
+     * Publishing a resource of one of these types may change the detail page URLs of the sitemap.<p>
+     *
+     * @return the names of the detail page types
+     */
+    public Set<String> getDetailTypes() {
+
+        return new HashSet<String>(m_detailTypesByPage.values());
+    }
+
     /**
      * Gets the include/exclude configuration of this XML sitemap generator.<p>
      *
@@ -377,16 +466,14 @@ public class CmsXmlSitemapGenerator {
      */
     public String renderSitemap() throws CmsException {
 
-        StringBuffer buffer = new StringBuffer();
-        List<CmsXmlSitemapUrlBean> urlBeans = generateSitemapBeans();
-        buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-        buffer.append(getUrlSetOpenTag() + "\n");
-        for (CmsXmlSitemapUrlBean bean : urlBeans) {
-            buffer.append(getXmlForEntry(bean));
-            buffer.append("\n");
+        StringWriter out = new StringWriter();
+        try {
+            writeUrlSet(out, generateSitemapBeans());
+        } catch (IOException e) {
+            // can not happen when writing to a string
+            LOG.error(e.getLocalizedMessage(), e);
         }
-        buffer.append("</urlset>");
-        return buffer.toString();
+        return out.toString();
     }
 
     /**
@@ -411,6 +498,66 @@ public class CmsXmlSitemapGenerator {
         m_serverUrl = serverUrl;
     }
 
+    /**
+     * Writes the given sitemap entries to files with at most {@link #MAX_URLS_PER_SITEMAP} URLs each.<p>
+     *
+     * Each file is written entry by entry, so the XML data of a file is never held in memory as a whole.<p>
+     *
+     * @param urlBeans the sitemap entries
+     * @param folder the folder to write the files to
+     *
+     * @return the written files, at least one
+     *
+     * @throws IOException if writing the files fails
+     */
+    public List<File> writeSitemapParts(List<CmsXmlSitemapUrlBean> urlBeans, File folder) throws IOException {
+
+        // the intermediate data is not needed for writing the files
+        m_resultMap.clear();
+        m_detailResources.clear();
+        List<File> files = new ArrayList<File>();
+        try {
+            for (int part = 1; part <= getPartCount(urlBeans.size()); part++) {
+                File file = new File(folder, new CmsUUID().getStringValue() + ".xml");
+                files.add(file);
+                Writer out = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+                try {
+                    writeUrlSet(out, getPart(urlBeans, part));
+                } finally {
+                    out.close();
+                }
+            }
+        } catch (IOException e) {
+            for (File file : files) {
+                file.delete();
+            }
+            throw e;
+        }
+        return files;
+    }
+
+    /**
+     * Writes an urlset document for the given sitemap entries.<p>
+     *
+     * The entries are written one by one, without building the complete document in memory.<p>
+     *
+     * @param out the writer to write the urlset document to
+     * @param urlBeans the sitemap entries
+     *
+     * @throws IOException if writing fails
+     */
+    public void writeUrlSet(Writer out, List<CmsXmlSitemapUrlBean> urlBeans) throws IOException {
+
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write(getUrlSetOpenTag() + "\n");
+        for (CmsXmlSitemapUrlBean bean : urlBeans) {
+            out.write(getXmlForEntry(bean));
+            out.write("\n");
+        }
+        out.write("</urlset>");
+    }
+
     /**
      * Adds the detail page links for a given page to the results.<p>
      *
@@ -662,7 +809,7 @@ public class CmsXmlSitemapGenerator {
      */
     protected String getUrlSetOpenTag() {
 
-        return "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">";
+        return "<urlset xmlns=\"" + SITEMAP_NAMESPACE + "\">";
     }
 
     /**
@@ -57,12 +57,20 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Implementation for the <code>{@link I_CmsStaticExportHandler}</code> interface.<p>
  *
@@ -110,8 +118,16 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         templatesFound = exportNonTemplateResources(cmsExportObject, resourcesToExport, report);
         LOG.warn("finished exporting non-template resources. ");
 
+        // get the exported template resources which were rendered from one of the published resources
+        Set<String> dependentResources = Collections.emptySet();
+        if (resources != null) {
+            dependentResources = readDependentResources(resourcesToExport);
+        }
+
         // export template resources (check "plainoptimization" setting)
-        if ((templatesFound) || (!OpenCms.getStaticExportManager().getQuickPlainExport())) {
+        if ((templatesFound)
+            || !dependentResources.isEmpty()
+            || (!OpenCms.getStaticExportManager().getQuickPlainExport())) {
             CmsStaticExportManager manager = OpenCms.getStaticExportManager();
 
             // build resource filter set
@@ -120,6 +136,10 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                 String rfsName = manager.getRfsName(cmsExportObject, pubResource.getRootPath());
                 resourceFilter.add(rfsName.substring(manager.getRfsPrefixForRfsName(rfsName).length()));
             }
+            for (String rootPath : dependentResources) {
+                String rfsName = manager.getRfsName(cmsExportObject, rootPath);
+                resourceFilter.add(rfsName.substring(manager.getRfsPrefixForRfsName(rfsName).length()));
+            }
 
             long timestamp = 0;
             List<String> publishedTemplateResources;
@@ -273,10 +293,46 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
             // do the export
             doExportAfterPublish(publishedResources, report);
+            OpenCms.getStaticExportManager().getDependencyIndex().save();
         }
 
     }
 
+    /**
+     * Exports a single non template resource specified by its export data.<p>
+     *
+     * @param cms the current cms object
+     * @param exportData the export data
+     *
+     * @return the status of the export, or -1 if the resource could not be exported
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    protected int exportNonTemplateResource(CmsObject cms, CmsStaticExportData exportData)
+    throws CmsException, IOException, ServletException {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXPORT_FILE_2,
+                    exportData.getVfsName(),
+                    exportData.getRfsName()));
+        }
+        int status = -1;
+        try {
+            status = OpenCms.getStaticExportManager().export(null, null, cms, exportData);
+        } catch (CmsStaticExportException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+        }
+        if (LOG.isInfoEnabled()) {
+            Object[] arguments = new Object[] {exportData.getVfsName(), exportData.getRfsName(), Integer.valueOf(status)};
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+        }
+        return status;
+    }
+
     /**
      * Exports all non template resources found in a list of published resources.<p>
      *
@@ -311,63 +367,45 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         List<CmsStaticExportData> resourcesToExport = new ArrayList<CmsStaticExportData>();
         boolean templatesFound = readNonTemplateResourcesToExport(cms, publishedResources, resourcesToExport);
 
-        int count = 1;
         int size = resourcesToExport.size();
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, Integer.valueOf(size)));
         }
-        // now do the export
-        Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
-        while (i.hasNext()) {
-            CmsStaticExportData exportData = i.next();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_EXPORT_FILE_2,
-                        exportData.getVfsName(),
-                        exportData.getRfsName()));
-            }
-
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_2,
-                    Integer.valueOf(count++),
-                    Integer.valueOf(size)),
+        int workers = manager.getExportWorkers().intValue();
+        if ((workers > 1) && (size > 1)) {
+            // export the resources concurrently, every worker uses its own copy of the cms context
+            report.println(
+                Messages.get().container(Messages.RPT_STATICEXPORT_WORKERS_1, Integer.valueOf(workers)),
                 I_CmsReport.FORMAT_NOTE);
-            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    exportData.getVfsName()));
-            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = -1;
-            try {
-                status = manager.export(null, null, cms, exportData);
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                }
-            } catch (CmsStaticExportException e) {
-                LOG.warn(e.getLocalizedMessage(), e);
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                    I_CmsReport.FORMAT_NOTE);
+            AtomicInteger count = new AtomicInteger(1);
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(size);
+            for (CmsStaticExportData exportData : resourcesToExport) {
+                tasks.add(() -> {
+                    CmsObject workerCms = OpenCms.initCmsObject(cms);
+                    long start = System.currentTimeMillis();
+                    int status = exportNonTemplateResource(workerCms, exportData);
+                    long duration = System.currentTimeMillis() - start;
+                    synchronized (report) {
+                        printExportItem(report, count.getAndIncrement(), size, exportData.getVfsName());
+                        printExportResult(report, status, duration, false);
+                    }
+                    return null;
+                });
             }
-
-            if (LOG.isInfoEnabled()) {
-                Object[] arguments = new Object[] {
-                    exportData.getVfsName(),
-                    exportData.getRfsName(),
-                    Integer.valueOf(status)};
-                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+            executeParallel(tasks, workers);
+        } else {
+            int count = 1;
+            // now do the export
+            Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
+            while (i.hasNext()) {
+                CmsStaticExportData exportData = i.next();
+                printExportItem(report, count++, size, exportData.getVfsName());
+                long start = System.currentTimeMillis();
+                int status = exportNonTemplateResource(cms, exportData);
+                printExportResult(report, status, System.currentTimeMillis() - start, false);
+                //don't lock up the CPU exclusively - allow other Threads to run as well
+                Thread.yield();
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
         }
 
         resourcesToExport = null;
@@ -619,7 +657,6 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         int size = publishedTemplateResources.size();
-        int count = 1;
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, Integer.valueOf(size)));
@@ -628,98 +665,108 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
-        StringBuffer cookies = new StringBuffer();
-        // now loop through all of them and request them from the server
-        Iterator<String> i = publishedTemplateResources.iterator();
-        while (i.hasNext()) {
-            String rfsName = i.next();
-            CmsStaticExportData data = null;
-            try {
-                data = manager.getVfsNameInternal(cms, rfsName);
-            } catch (CmsVfsResourceNotFoundException e) {
-                String rfsBaseName = rfsName;
-                int pos = rfsName.lastIndexOf('_');
-                if (pos >= 0) {
-                    rfsBaseName = rfsName.substring(0, pos);
-                }
-                try {
-                    data = manager.getVfsNameInternal(cms, rfsBaseName);
-                } catch (CmsVfsResourceNotFoundException e2) {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info(
-                            Messages.get().getBundle().key(
-                                Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
-                                new String[] {rfsName}));
+        int workers = manager.getExportWorkers().intValue();
+        if ((workers > 1) && (size > 1)) {
+            // request the resources concurrently, every worker keeps its own session cookies
+            report.println(
+                Messages.get().container(Messages.RPT_STATICEXPORT_WORKERS_1, Integer.valueOf(workers)),
+                I_CmsReport.FORMAT_NOTE);
+            AtomicInteger count = new AtomicInteger(1);
+            ThreadLocal<StringBuffer> workerCookies = ThreadLocal.withInitial(StringBuffer::new);
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(size);
+            for (String rfsName : publishedTemplateResources) {
+                tasks.add(() -> {
+                    CmsObject workerCms = OpenCms.initCmsObject(cms);
+                    CmsStaticExportData data = readTemplateExportData(workerCms, rfsName);
+                    if (data == null) {
+                        // no valid resource found for rfs name (already deleted), skip it
+                        return null;
                     }
-                }
-            }
-            if (data != null) {
-                data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        Integer.valueOf(count++),
-                        Integer.valueOf(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
-                // no valid resource found for rfs name (already deleted), skip it
-                continue;
+                    long start = System.currentTimeMillis();
+                    try {
+                        int status = exportTemplateResourceWithDetailPages(workerCms, data, workerCookies.get());
+                        long duration = System.currentTimeMillis() - start;
+                        synchronized (report) {
+                            printExportItem(report, count.getAndIncrement(), size, rfsName);
+                            printExportResult(report, status, duration, true);
+                        }
+                    } catch (IOException e) {
+                        synchronized (report) {
+                            printExportItem(report, count.getAndIncrement(), size, rfsName);
+                            report.println(e);
+                        }
+                    }
+                    return null;
+                });
             }
-
             try {
-                CmsResource resource = data.getResource();
-                try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
-                    for (String detailPageUri : detailPages) {
-                        String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
-                            data.getVfsName(),
-                            altRfsName,
-                            data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
-                    }
-                } catch (CmsException e) {
-                    LOG.error(e.getLocalizedMessage(), e);
+                executeParallel(tasks, workers);
+            } catch (Exception e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                report.println(e);
+            }
+        } else {
+            StringBuffer cookies = new StringBuffer();
+            int count = 1;
+            // now loop through all of them and request them from the server
+            Iterator<String> i = publishedTemplateResources.iterator();
+            while (i.hasNext()) {
+                String rfsName = i.next();
+                CmsStaticExportData data = readTemplateExportData(cms, rfsName);
+                if (data == null) {
+                    // no valid resource found for rfs name (already deleted), skip it
+                    continue;
                 }
-
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            Integer.valueOf(status)),
-                        I_CmsReport.FORMAT_OK);
+                printExportItem(report, count++, size, rfsName);
+                try {
+                    long start = System.currentTimeMillis();
+                    int status = exportTemplateResourceWithDetailPages(cms, data, cookies);
+                    printExportResult(report, status, System.currentTimeMillis() - start, true);
+                } catch (IOException e) {
+                    report.println(e);
                 }
-            } catch (IOException e) {
-                report.println(e);
+                //don't lock up the CPU exclusively - allow other Threads to run as well
+                Thread.yield();
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
         }
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
             I_CmsReport.FORMAT_HEADLINE);
     }
 
+    /**
+     * Exports a template resource together with all detail page variants of it.<p>
+     *
+     * @param cms the cms context, in the root site as Export user
+     * @param data the export data of the template resource
+     * @param cookies cookies to keep the session
+     *
+     * @return the status of the http request used to export the template resource itself
+     *
+     * @throws IOException if the http request fails
+     */
+    protected int exportTemplateResourceWithDetailPages(CmsObject cms, CmsStaticExportData data, StringBuffer cookies)
+    throws IOException {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        CmsResource resource = data.getResource();
+        try {
+            Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+            for (String detailPageUri : detailPages) {
+                String altRfsName = manager.getRfsName(cms, detailPageUri);
+                CmsStaticExportData detailData = new CmsStaticExportData(
+                    data.getVfsName(),
+                    altRfsName,
+                    data.getResource(),
+                    data.getParameters());
+                exportTemplateResource(detailData, cookies);
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        return exportTemplateResource(data, cookies);
+    }
+
     /**
      * @see org.opencms.staticexport.A_CmsStaticExportHandler#getRelatedFilesToPurge(java.lang.String, java.lang.String)
      */
@@ -825,6 +872,29 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         return siblings;
     }
 
+    /**
+     * Returns the root paths of all exported template resources that were rendered from
+     * one of the given published resources and have to be exported again.<p>
+     *
+     * Deleted resources are removed from the dependency index.<p>
+     *
+     * @param publishedResources the published resources
+     *
+     * @return the root paths of the exported template resources to export again
+     */
+    protected Set<String> readDependentResources(List<CmsPublishedResource> publishedResources) {
+
+        CmsStaticExportDependencyIndex index = OpenCms.getStaticExportManager().getDependencyIndex();
+        Set<String> result = index.getAffectedResources(publishedResources);
+        for (CmsPublishedResource pubResource : publishedResources) {
+            if (pubResource.getState().isDeleted()) {
+                index.remove(pubResource.getRootPath());
+                result.remove(pubResource.getRootPath());
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns all non template resources found in a list of published resources.<p>
      *
@@ -906,4 +976,143 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the export data for the given rfs name of a template resource.<p>
+     *
+     * If no resource is found for the rfs name, the name without the parameter
+     * suffix is tried.<p>
+     *
+     * @param cms the cms context, in the root site as Export user
+     * @param rfsName the rfs name of the template resource
+     *
+     * @return the export data, or <code>null</code> if no resource was found for the rfs name
+     */
+    protected CmsStaticExportData readTemplateExportData(CmsObject cms, String rfsName) {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        CmsStaticExportData data = null;
+        try {
+            data = manager.getVfsNameInternal(cms, rfsName);
+        } catch (CmsVfsResourceNotFoundException e) {
+            String rfsBaseName = rfsName;
+            int pos = rfsName.lastIndexOf('_');
+            if (pos >= 0) {
+                rfsBaseName = rfsName.substring(0, pos);
+            }
+            try {
+                data = manager.getVfsNameInternal(cms, rfsBaseName);
+            } catch (CmsVfsResourceNotFoundException e2) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
+                            new String[] {rfsName}));
+                }
+            }
+        }
+        if (data != null) {
+            data.setRfsName(rfsName);
+        }
+        return data;
+    }
+
+    /**
+     * Executes the given export tasks with a pool of parallel workers and waits until all of them are finished.<p>
+     *
+     * @param tasks the export tasks
+     * @param workers the number of parallel workers
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    private void executeParallel(List<Callable<Void>> tasks, int workers)
+    throws CmsException, IOException, ServletException {
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(workers, tasks.size()),
+            new ThreadFactoryBuilder().setNameFormat("static-export-worker-%d").setDaemon(true).build());
+        try {
+            List<Future<Void>> results = executor.invokeAll(tasks);
+            // all tasks are finished now, report the first failure the same way the sequential export would
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof CmsException) {
+                        throw (CmsException)cause;
+                    } else if (cause instanceof IOException) {
+                        throw (IOException)cause;
+                    } else if (cause instanceof ServletException) {
+                        throw (ServletException)cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException)cause;
+                    }
+                    throw new ServletException(cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_EXPORT_WORKERS_INTERRUPTED_0), e);
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Prints the report line prefix for a single exported resource.<p>
+     *
+     * @param report the report to print to
+     * @param count the number of the resource
+     * @param size the total number of resources
+     * @param name the name of the exported resource
+     */
+    private void printExportItem(I_CmsReport report, int count, int size, String name) {
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                Integer.valueOf(count),
+                Integer.valueOf(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, name));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+    }
+
+    /**
+     * Prints the time needed and the result status for a single exported resource.<p>
+     *
+     * @param report the report to print to
+     * @param status the export status
+     * @param duration the time needed to export the resource in milliseconds
+     * @param template <code>true</code> if the resource is a template resource
+     */
+    private void printExportResult(I_CmsReport report, int status, long duration, boolean template) {
+
+        report.print(
+            Messages.get().container(Messages.RPT_EXPORT_TIME_1, Long.valueOf(duration)),
+            I_CmsReport.FORMAT_NOTE);
+        if (status == HttpServletResponse.SC_OK) {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                I_CmsReport.FORMAT_OK);
+        } else if (!template || (status == HttpServletResponse.SC_SEE_OTHER)) {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                I_CmsReport.FORMAT_NOTE);
+        } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                I_CmsReport.FORMAT_NOTE);
+        } else {
+            report.println(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_ARGUMENT_1,
+                    Integer.valueOf(status)),
+                I_CmsReport.FORMAT_OK);
+        }
+    }
+}
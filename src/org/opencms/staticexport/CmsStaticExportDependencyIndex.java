@@ -0,0 +1,405 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Index of the VFS resources every statically exported template resource was rendered from.<p>
+ *
+ * The dependencies of a template resource are collected by the Flex controller while the
+ * resource is rendered for the static export. After a publish, only the exported resources
+ * that depend on a published resource have to be rendered again.<p>
+ *
+ * A resource depends on a published resource if
+ * <ul>
+ * <li>it has read the published resource itself,</li>
+ * <li>the published resource is a folder and it has read a resource below that folder
+ *     (this covers inherited properties), or</li>
+ * <li>the published resource is new, deleted or moved and it has read a resource of the same
+ *     parent folder or the parent folder itself (this covers navigations and lists).</li>
+ * </ul>
+ *
+ * Exported resources with unknown dependencies are always rendered again. Since not all
+ * resources a template resource depends on can be tracked (for example the resources read
+ * from caches), the index only adds resources to the after publish export. A published resource
+ * that matches no export rule still causes a full export.<p>
+ *
+ * The index is stored in a compact binary file in the RFS.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsStaticExportDependencyIndex {
+
+    /** The version of the index file format. */
+    private static final int FILE_VERSION = 2;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsStaticExportDependencyIndex.class);
+
+    /** The dependencies by root path of the exported resource. */
+    private Map<String, Set<String>> m_dependencies;
+
+    /** The exported resources by root path of the dependency, sorted to allow lookups by folder. */
+    private TreeMap<String, Set<String>> m_dependents;
+
+    /** Indicates if the index was modified since it was last written. */
+    private boolean m_dirty;
+
+    /** The file the index is stored in. */
+    private File m_file;
+
+    /** The exported resources by parent folder of the dependency. */
+    private Map<String, Set<String>> m_folderDependents;
+
+    /** The root paths of the exported resources with unknown dependencies. */
+    private Set<String> m_untracked;
+
+    /**
+     * Creates a new, empty dependency index.<p>
+     *
+     * @param file the file to store the index in, may be <code>null</code> if the index should not be stored
+     */
+    public CmsStaticExportDependencyIndex(File file) {
+
+        m_file = file;
+        m_dependencies = new HashMap<String, Set<String>>();
+        m_dependents = new TreeMap<String, Set<String>>();
+        m_folderDependents = new HashMap<String, Set<String>>();
+        m_untracked = new HashSet<String>();
+    }
+
+    /**
+     * Adds a value to the set stored under the given key in a map of sets.<p>
+     *
+     * @param map the map of sets
+     * @param key the key
+     * @param value the value to add
+     */
+    private static void addToSet(Map<String, Set<String>> map, String key, String value) {
+
+        Set<String> values = map.get(key);
+        if (values == null) {
+            values = new HashSet<String>();
+            map.put(key, values);
+        }
+        values.add(value);
+    }
+
+    /**
+     * Removes a value from the set stored under the given key in a map of sets.<p>
+     *
+     * @param map the map of sets
+     * @param key the key
+     * @param value the value to remove
+     */
+    private static void removeFromSet(Map<String, Set<String>> map, String key, String value) {
+
+        Set<String> values = map.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from this index.<p>
+     */
+    public synchronized void clear() {
+
+        m_dependencies.clear();
+        m_dependents.clear();
+        m_folderDependents.clear();
+        m_untracked.clear();
+        m_dirty = true;
+    }
+
+    /**
+     * Returns the root paths of all exported resources that have to be exported again
+     * because of the given published resources.<p>
+     *
+     * The result also contains all exported resources with unknown dependencies.<p>
+     *
+     * @param publishedResources the published resources
+     *
+     * @return the root paths of the exported resources to export again
+     */
+    public synchronized Set<String> getAffectedResources(Collection<CmsPublishedResource> publishedResources) {
+
+        Set<String> result = new HashSet<String>(m_untracked);
+        for (CmsPublishedResource pubRes : publishedResources) {
+            String rootPath = pubRes.getRootPath();
+            Set<String> dependents = m_dependents.get(rootPath);
+            if (dependents != null) {
+                result.addAll(dependents);
+            }
+            if (pubRes.isFolder() || CmsResource.isFolder(rootPath)) {
+                // inherited properties of all resources below the folder may have changed
+                String folder = CmsResource.isFolder(rootPath) ? rootPath : rootPath + "/";
+                Map<String, Set<String>> subTree = m_dependents.subMap(folder, folder + Character.MAX_VALUE);
+                for (Set<String> folderDependents : subTree.values()) {
+                    result.addAll(folderDependents);
+                }
+            }
+            if (pubRes.getState().isNew() || pubRes.getState().isDeleted() || pubRes.isMoved()) {
+                // navigations and lists of the parent folder may have changed
+                String parentFolder = CmsResource.getParentFolder(rootPath);
+                if (parentFolder != null) {
+                    Set<String> siblingDependents = m_folderDependents.get(parentFolder);
+                    if (siblingDependents != null) {
+                        result.addAll(siblingDependents);
+                    }
+                    dependents = m_dependents.get(parentFolder);
+                    if (dependents != null) {
+                        result.addAll(dependents);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the recorded dependencies of the given exported resource.<p>
+     *
+     * @param rootPath the root path of the exported resource
+     *
+     * @return the root paths of the dependencies, or <code>null</code> if the dependencies are unknown
+     */
+    public synchronized Set<String> getDependencies(String rootPath) {
+
+        Set<String> dependencies = m_dependencies.get(rootPath);
+        return dependencies == null ? null : Collections.unmodifiableSet(new HashSet<String>(dependencies));
+    }
+
+    /**
+     * Returns the number of exported resources with known dependencies.<p>
+     *
+     * @return the number of exported resources with known dependencies
+     */
+    public synchronized int getSize() {
+
+        return m_dependencies.size();
+    }
+
+    /**
+     * Reads the index from its file, if the file exists.<p>
+     *
+     * If the file can not be read, the index remains empty.<p>
+     */
+    public synchronized void load() {
+
+        clear();
+        m_dirty = false;
+        if ((m_file == null) || !m_file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+            new GZIPInputStream(new BufferedInputStream(new FileInputStream(m_file))))) {
+            if (in.readInt() != FILE_VERSION) {
+                return;
+            }
+            int pathCount = in.readInt();
+            List<String> paths = new ArrayList<String>(pathCount);
+            for (int i = 0; i < pathCount; i++) {
+                paths.add(in.readUTF());
+            }
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String rootPath = paths.get(in.readInt());
+                int dependencyCount = in.readInt();
+                if (dependencyCount < 0) {
+                    setDependencies(rootPath, null);
+                } else {
+                    List<String> dependencies = new ArrayList<String>(dependencyCount);
+                    for (int j = 0; j < dependencyCount; j++) {
+                        dependencies.add(paths.get(in.readInt()));
+                    }
+                    setDependencies(rootPath, dependencies);
+                }
+            }
+            m_dirty = false;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_DEPENDENCY_INDEX_READ_FAILED_1,
+                    m_file.getAbsolutePath()),
+                e);
+            clear();
+            m_dirty = false;
+        }
+    }
+
+    /**
+     * Removes the given exported resource from the index.<p>
+     *
+     * @param rootPath the root path of the exported resource
+     */
+    public synchronized void remove(String rootPath) {
+
+        Set<String> dependencies = m_dependencies.remove(rootPath);
+        if (dependencies != null) {
+            for (String dependency : dependencies) {
+                removeFromSet(m_dependents, dependency, rootPath);
+                String parentFolder = CmsResource.getParentFolder(dependency);
+                if (parentFolder != null) {
+                    removeFromSet(m_folderDependents, parentFolder, rootPath);
+                }
+            }
+            m_dirty = true;
+        }
+        if (m_untracked.remove(rootPath)) {
+            m_dirty = true;
+        }
+    }
+
+    /**
+     * Writes the index to its file, if it was modified since it was last written.<p>
+     */
+    public synchronized void save() {
+
+        if (!m_dirty || (m_file == null)) {
+            return;
+        }
+        // build a table of all paths, so every path is only stored once
+        Map<String, Integer> pathIds = new HashMap<String, Integer>();
+        List<String> paths = new ArrayList<String>();
+        for (Map.Entry<String, Set<String>> entry : m_dependencies.entrySet()) {
+            addPathId(pathIds, paths, entry.getKey());
+            for (String dependency : entry.getValue()) {
+                addPathId(pathIds, paths, dependency);
+            }
+        }
+        for (String rootPath : m_untracked) {
+            addPathId(pathIds, paths, rootPath);
+        }
+        File tempFile = new File(m_file.getParentFile(), m_file.getName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))) {
+                out.writeInt(FILE_VERSION);
+                out.writeInt(paths.size());
+                for (String path : paths) {
+                    out.writeUTF(path);
+                }
+                out.writeInt(m_dependencies.size() + m_untracked.size());
+                for (Map.Entry<String, Set<String>> entry : m_dependencies.entrySet()) {
+                    out.writeInt(pathIds.get(entry.getKey()).intValue());
+                    out.writeInt(entry.getValue().size());
+                    for (String dependency : entry.getValue()) {
+                        out.writeInt(pathIds.get(dependency).intValue());
+                    }
+                }
+                for (String rootPath : m_untracked) {
+                    out.writeInt(pathIds.get(rootPath).intValue());
+                    out.writeInt(-1);
+                }
+            }
+            Files.move(tempFile.toPath(), m_file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            m_dirty = false;
+        } catch (IOException e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_DEPENDENCY_INDEX_WRITE_FAILED_1,
+                    m_file.getAbsolutePath()),
+                e);
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Sets the dependencies of an exported resource, replacing the previously recorded dependencies.<p>
+     *
+     * @param rootPath the root path of the exported resource
+     * @param dependencies the root paths of the resources it was rendered from, or <code>null</code> if unknown
+     */
+    public synchronized void setDependencies(String rootPath, Collection<String> dependencies) {
+
+        remove(rootPath);
+        if (dependencies == null) {
+            m_untracked.add(rootPath);
+        } else {
+            Set<String> dependencySet = new HashSet<String>(dependencies);
+            // an exported resource always depends on itself
+            dependencySet.add(rootPath);
+            m_dependencies.put(rootPath, dependencySet);
+            for (String dependency : dependencySet) {
+                addToSet(m_dependents, dependency, rootPath);
+                String parentFolder = CmsResource.getParentFolder(dependency);
+                if (parentFolder != null) {
+                    addToSet(m_folderDependents, parentFolder, rootPath);
+                }
+            }
+        }
+        m_dirty = true;
+    }
+
+    /**
+     * Adds a path to the path table used for writing the index file.<p>
+     *
+     * @param pathIds the ids of the paths already in the table
+     * @param paths the path table
+     * @param path the path to add
+     */
+    private void addPathId(Map<String, Integer> pathIds, List<String> paths, String path) {
+
+        if (!pathIds.containsKey(path)) {
+            pathIds.put(path, Integer.valueOf(paths.size()));
+            paths.add(path);
+        }
+    }
+}
@@ -37,6 +37,8 @@ import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.flex.CmsFlexController;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.i18n.CmsAcceptLanguageHeaderParser;
 import org.opencms.i18n.CmsI18nInfo;
 import org.opencms.i18n.CmsLocaleManager;
@@ -70,6 +72,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -100,6 +105,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Name for the default file. */
     public static final String DEFAULT_FILE = "index.html";
 
+    /** Name of the file the dependency index is stored in, relative to the WEB-INF folder. */
+    public static final String DEPENDENCY_INDEX_FILE = "staticexport-dependencies.dat";
+
     /** Marker for error message attribute. */
     public static final String EXPORT_ATTRIBUTE_ERROR_MESSAGE = "javax.servlet.error.message";
 
@@ -121,6 +129,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Name for the folder default index file. */
     public static final String EXPORT_DEFAULT_FILE = "index_export.html";
 
+    /** Default number of workers used for the after publish export. */
+    public static final Integer EXPORT_DEFAULT_WORKERS = Integer.valueOf(1);
+
     /** Name for the default work path. */
     public static final String EXPORT_DEFAULT_WORKPATH = CmsSystemInfo.FOLDER_WEBINF + "temp";
 
@@ -175,6 +186,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** OpenCms default locale header. */
     private String m_defaultAcceptLanguageHeader;
 
+    /** The index of the resources the exported template resources depend on. */
+    private CmsStaticExportDependencyIndex m_dependencyIndex;
+
     /** Matcher for  selecting those resources which should be part of the static export. */
     private CmsExportFolderMatcher m_exportFolderMatcher;
 
@@ -259,6 +273,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Indicates if the static export is enabled or disabled. */
     private boolean m_staticExportEnabled;
 
+    /** The number of parallel workers used for the after publish export. */
+    private Integer m_staticExportWorkers;
+
     /** The path to where the static export will be written. */
     private String m_staticExportPath;
 
@@ -656,6 +673,13 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             exportCms.getRequestContext().setUri(vfsName);
         }
 
+        // collect the resources the exported resource is rendered from
+        CmsFlexRequestContextInfo dependencies = null;
+        if ((req != null) && loader.isStaticExportProcessable()) {
+            dependencies = new CmsFlexRequestContextInfo(true);
+            req.setAttribute(CmsFlexController.ATTRIBUTE_DEPENDENCY_COLLECTOR, dependencies);
+        }
+
         // do the export
         int status = -1;
         List<Locale> locales = OpenCms.getLocaleManager().getDefaultLocales(exportCms, vfsName);
@@ -711,6 +735,10 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 writeResource(req, exportPath, rfsName, resource, content);
             }
         }
+        if (dependencies != null) {
+            req.removeAttribute(CmsFlexController.ATTRIBUTE_DEPENDENCY_COLLECTOR);
+            getDependencyIndex().setDependencies(resource.getRootPath(), dependencies.getDependencyPaths());
+        }
 
         if (exported) {
             // get the wrapper status that was set
@@ -763,6 +791,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
             cms.deleteAllStaticExportPublishedResources(EXPORT_LINK_WITHOUT_PARAMETER);
             cms.deleteAllStaticExportPublishedResources(EXPORT_LINK_WITH_PARAMETER);
+            // all template resources are rendered again, so their dependencies will be recorded again
+            getDependencyIndex().clear();
         }
 
         // do the export
@@ -770,6 +800,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         // export everything
         handler.doExportAfterPublish(null, report);
 
+        getDependencyIndex().save();
+
         // set export path to the original one
         m_staticExportPath = staticExportPathStore;
 
@@ -882,6 +914,20 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_defaultAcceptLanguageHeader;
     }
 
+    /**
+     * Returns the index of the resources the exported template resources were rendered from.<p>
+     *
+     * @return the dependency index
+     */
+    public CmsStaticExportDependencyIndex getDependencyIndex() {
+
+        if (m_dependencyIndex == null) {
+            // not initialized, use an index that is not stored
+            m_dependencyIndex = new CmsStaticExportDependencyIndex(null);
+        }
+        return m_dependencyIndex;
+    }
+
     /**
      * Returns the default prefix for exported links in the "real" file system.<p>
      *
@@ -1169,6 +1215,20 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_exportUrlPrefix;
     }
 
+    /**
+     * Returns the number of parallel workers used for the after publish export.<p>
+     *
+     * @return the number of parallel workers used for the after publish export
+     */
+    public Integer getExportWorkers() {
+
+        if (m_staticExportWorkers != null) {
+            return m_staticExportWorkers;
+        }
+        // if workers not configured set to default value
+        return EXPORT_DEFAULT_WORKERS;
+    }
+
     /**
      * Returns the export work path for the static export, that is the folder where the
      * static exported resources will be written to during the export process.<p>
@@ -1758,6 +1818,11 @@ public class CmsStaticExportManager implements I_CmsEventListener {
 
         m_exportFolderMatcher = new CmsExportFolderMatcher(m_exportFolders, m_testResource);
 
+        // read the dependencies of the exported resources
+        m_dependencyIndex = new CmsStaticExportDependencyIndex(
+            new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(DEPENDENCY_INDEX_FILE)));
+        m_dependencyIndex.load();
+
         // get the default accept-language header value
         m_defaultAcceptLanguageHeader = CmsAcceptLanguageHeaderParser.createLanguageHeader();
 
@@ -2248,6 +2313,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_exportUrlConfigured = url;
     }
 
+    /**
+     * Sets the number of parallel workers used for the after publish export.<p>
+     *
+     * @param workers the number of parallel workers
+     */
+    public void setExportWorkers(String workers) {
+
+        m_staticExportWorkers = Integer.valueOf(Math.max(1, Integer.parseInt(workers.trim())));
+    }
+
     /**
      * Sets the path where the static export is temporarily written.<p>
      *
@@ -2385,6 +2460,10 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             }
         }
 
+        if (m_dependencyIndex != null) {
+            m_dependencyIndex.save();
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SHUTDOWN_1, this.getClass().getName()));
         }
@@ -2957,11 +3036,27 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         createExportFolder(exportPath, rfsName);
         // generate export file instance and output stream
         File exportFile = new File(exportFileName);
-        // write new exported file content
+        // write the content to a temporary file in the same folder and rename it afterwards,
+        // so that the web server never delivers a partially written file
+        File tempFile = new File(
+            exportFile.getParentFile(),
+            "." + exportFile.getName() + "." + new CmsUUID().getStringValue() + ".tmp");
         try {
-            FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
+            FileOutputStream exportStream = new FileOutputStream(tempFile);
+            try {
+                exportStream.write(content);
+            } finally {
+                exportStream.close();
+            }
+            try {
+                Files.move(
+                    tempFile.toPath(),
+                    exportFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), exportFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
 
             // log export success
             if (LOG.isInfoEnabled()) {
@@ -2973,6 +3068,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             }
 
         } catch (Throwable t) {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
             throw new CmsStaticExportException(
                 Messages.get().container(Messages.ERR_OUTPUT_STREAM_1, exportFileName),
                 t);
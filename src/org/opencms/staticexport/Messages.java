@@ -154,6 +154,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DEL_MAIN_SE_FOLDER_1 = "LOG_DEL_MAIN_SE_FOLDER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCY_INDEX_READ_FAILED_1 = "LOG_DEPENDENCY_INDEX_READ_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCY_INDEX_WRITE_FAILED_1 = "LOG_DEPENDENCY_INDEX_WRITE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EVENT_PUBLISH_PROJECT_1 = "LOG_EVENT_PUBLISH_PROJECT_1";
 
@@ -175,6 +181,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORTING_NON_TEMPLATE_1 = "LOG_EXPORTING_NON_TEMPLATE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXPORT_WORKERS_INTERRUPTED_0 = "LOG_EXPORT_WORKERS_INTERRUPTED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FETCHING_SIBLINGS_FAILED_1 = "LOG_FETCHING_SIBLINGS_FAILED_1";
 
@@ -322,6 +331,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_EXPORTING_0 = "RPT_EXPORTING_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_EXPORT_TIME_1 = "RPT_EXPORT_TIME_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_BEGIN_0 = "RPT_STATICEXPORT_BEGIN_0";
 
@@ -340,6 +352,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0 = "RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_STATICEXPORT_WORKERS_1 = "RPT_STATICEXPORT_WORKERS_1";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.staticexport.messages";
 
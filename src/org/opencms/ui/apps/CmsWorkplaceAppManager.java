@@ -54,6 +54,7 @@ import org.opencms.ui.apps.dbmanager.CmsDbImportServerConfiguration;
 import org.opencms.ui.apps.dbmanager.CmsDbManagerConfiguration;
 import org.opencms.ui.apps.dbmanager.CmsDbManagerFolder;
 import org.opencms.ui.apps.dbmanager.CmsDbPropertiesAppConfiguration;
+import org.opencms.ui.apps.dbmanager.CmsDbQueryStatsConfiguration;
 import org.opencms.ui.apps.dbmanager.CmsDbRemovePubLocksConfiguration;
 import org.opencms.ui.apps.dbmanager.CmsDbStaticExportConfiguration;
 import org.opencms.ui.apps.dbmanager.CmsDbSynchronizationConfiguration;
@@ -826,6 +827,7 @@ public class CmsWorkplaceAppManager {
                 new CmsDbExportConfiguration(),
                 new CmsDbStaticExportConfiguration(),
                 new CmsSqlConsoleAppConfiguration(),
+                new CmsDbQueryStatsConfiguration(),
                 new CmsDbRemovePubLocksConfiguration(),
                 new CmsDbSynchronizationConfiguration(),
                 new CmsDbPropertiesAppConfiguration(),
@@ -1991,6 +1991,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_PUBLISH_BUTTON_TITLE_0 = "GUI_PUBLISH_BUTTON_TITLE_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_QUERYSTATS_APP_HELP_0 = "GUI_QUERYSTATS_APP_HELP_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_QUERYSTATS_APP_TITLE_0 = "GUI_QUERYSTATS_APP_TITLE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_QUERYSTATS_REFRESH_0 = "GUI_QUERYSTATS_REFRESH_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_QUERYSTATS_RESET_0 = "GUI_QUERYSTATS_RESET_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_QUICK_LAUNCH_EDITOR_AVAILABLE_0 = "GUI_QUICK_LAUNCH_EDITOR_AVAILABLE_0";
 
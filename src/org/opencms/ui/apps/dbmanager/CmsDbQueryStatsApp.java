@@ -0,0 +1,115 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.ui.apps.dbmanager;
+
+import org.opencms.db.timing.CmsSqlQueryStatistics;
+import org.opencms.ui.CmsVaadinUtils;
+import org.opencms.ui.apps.A_CmsWorkplaceApp;
+import org.opencms.ui.apps.Messages;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.TextArea;
+import com.vaadin.ui.VerticalLayout;
+
+/**
+ * App showing the statistics of the SQL queries executed by the database drivers.<p>
+ *
+ * @since 20.0.0
+ */
+public class CmsDbQueryStatsApp extends A_CmsWorkplaceApp {
+
+    /**
+     * @see org.opencms.ui.apps.A_CmsWorkplaceApp#getBreadCrumbForState(java.lang.String)
+     */
+    @Override
+    protected LinkedHashMap<String, String> getBreadCrumbForState(String state) {
+
+        LinkedHashMap<String, String> crumbs = new LinkedHashMap<String, String>();
+        crumbs.put("", CmsVaadinUtils.getMessageText(Messages.GUI_QUERYSTATS_APP_TITLE_0));
+        return crumbs;
+    }
+
+    /**
+     * @see org.opencms.ui.apps.A_CmsWorkplaceApp#getComponentForState(java.lang.String)
+     */
+    @Override
+    protected Component getComponentForState(String state) {
+
+        m_rootLayout.setMainHeightFull(true);
+        VerticalLayout layout = new VerticalLayout();
+        layout.setSizeFull();
+
+        TextArea report = new TextArea();
+        report.setSizeFull();
+        report.setWordWrap(false);
+        report.setValue(CmsSqlQueryStatistics.INSTANCE.getReport());
+        report.setReadOnly(true);
+
+        Button refresh = new Button(CmsVaadinUtils.getMessageText(Messages.GUI_QUERYSTATS_REFRESH_0));
+        refresh.addClickListener(event -> updateReport(report));
+        Button reset = new Button(CmsVaadinUtils.getMessageText(Messages.GUI_QUERYSTATS_RESET_0));
+        reset.addClickListener(event -> {
+            CmsSqlQueryStatistics.INSTANCE.reset();
+            updateReport(report);
+        });
+        HorizontalLayout buttons = new HorizontalLayout(refresh, reset);
+
+        layout.addComponent(buttons);
+        layout.addComponent(report);
+        layout.setExpandRatio(report, 1);
+        return layout;
+    }
+
+    /**
+     * @see org.opencms.ui.apps.A_CmsWorkplaceApp#getSubNavEntries(java.lang.String)
+     */
+    @Override
+    protected List<NavEntry> getSubNavEntries(String state) {
+
+        return null;
+    }
+
+    /**
+     * Updates the report text area with the current statistics.<p>
+     *
+     * @param report the report text area
+     */
+    private void updateReport(TextArea report) {
+
+        report.setReadOnly(false);
+        report.setValue(CmsSqlQueryStatistics.INSTANCE.getReport());
+        report.setReadOnly(true);
+    }
+
+}
@@ -34,9 +34,11 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.CmsClusterEventManager;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsClusterEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
@@ -60,11 +62,12 @@ import org.xml.sax.InputSource;
 /**
  * Resolves XML entities (e.g. external DTDs) in the OpenCms VFS.<p>
  *
- * Also provides a cache for XML content schema definitions.<p>
+ * Also provides a cache for XML content schema definitions. The cache also processes events replicated
+ * from other cluster nodes, which flush it completely if they concern single resources.<p>
  *
  * @since 6.0.0
  */
-public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener {
+public class CmsXmlEntityResolver implements EntityResolver, I_CmsClusterEventListener {
 
     /** Maximum size of the content definition cache. */
     public static final int CONTENT_DEFINITION_CACHE_SIZE = 2048;
@@ -316,11 +319,22 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                     // skip lock & unlock
                     return;
                 }
+                if (CmsClusterEventManager.isRemoteEvent(event)) {
+                    // the resource is not replicated from the other cluster node
+                    m_cacheTemporary.clear();
+                    m_cacheContentDefinitions.clear();
+                    break;
+                }
                 resource = (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE);
                 uncacheSystemId(resource.getRootPath());
                 break;
             case I_CmsEventListener.EVENT_RESOURCE_DELETED:
             case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+                if (CmsClusterEventManager.isRemoteEvent(event)) {
+                    m_cacheTemporary.clear();
+                    m_cacheContentDefinitions.clear();
+                    break;
+                }
                 List<CmsResource> resources = CmsCollectionsGenericWrapper.list(
                     event.getData().get(I_CmsEventListener.KEY_RESOURCES));
                 for (int i = 0; i < resources.size(); i++) {
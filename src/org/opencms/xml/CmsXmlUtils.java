@@ -42,6 +42,8 @@ import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.stream.Collectors;
 
 import javax.xml.parsers.SAXParserFactory;
@@ -65,6 +67,7 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXNotRecognizedException;
 import org.xml.sax.SAXNotSupportedException;
 import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 /**
@@ -102,9 +105,15 @@ public final class CmsXmlUtils {
         }
     }
 
+    /** The SAX property for the lexical handler. */
+    private static final String LEXICAL_HANDLER_KEY = "http://xml.org/sax/properties/lexical-handler";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsXmlUtils.class);
 
+    /** Handler set on reused XML readers, so they do not keep the last document alive. */
+    private static final DefaultHandler NO_HANDLER = new DefaultHandler();
+
     /** Key of the SAX parser configuration system property. */
     private static final String SAX_PARSER_CONFIG_KEY = "org.apache.xerces.xni.parser.XMLParserConfiguration";
 
@@ -114,6 +123,13 @@ public final class CmsXmlUtils {
     /** Key of the XML reader system property. */
     private static final String XML_READER_KEY = "org.xml.sax.driver";
 
+    /** The maximum number of non-validating XML readers kept for reuse. */
+    private static final int XML_READER_POOL_SIZE = 16;
+
+    /** The non-validating XML readers that are currently not in use. */
+    private static final BlockingQueue<XMLReader> XML_READERS = new ArrayBlockingQueue<XMLReader>(
+        XML_READER_POOL_SIZE);
+
     /**
      * Prevents instances of this class from being generated.<p>
      */
@@ -845,7 +861,13 @@ public final class CmsXmlUtils {
         }
 
         try {
-            SAXReader reader = new SAXReader();
+            // creating a new XML parser for each document is expensive, so the non-validating parsers are reused
+            XMLReader xmlReader = null;
+            if (!validate) {
+                // the parser is taken out of the pool while in use, a nested call will use another parser
+                xmlReader = XML_READERS.poll();
+            }
+            SAXReader reader = xmlReader != null ? new SAXReader(xmlReader) : new SAXReader();
             if (resolver != null) {
                 reader.setEntityResolver(resolver);
             }
@@ -857,7 +879,12 @@ public final class CmsXmlUtils {
             } else {
                 reader.setValidation(true);
             }
-            return reader.read(source);
+            Document document = reader.read(source);
+            if (!validate) {
+                // only parsers that completed successfully are reused
+                releaseXmlReader(reader.getXMLReader());
+            }
+            return document;
         } catch (DocumentException e) {
             String systemId = source != null ? source.getSystemId() : "???";
             throw new CmsXmlException(
@@ -1011,4 +1038,28 @@ public final class CmsXmlUtils {
             throw new CmsXmlException(Messages.get().container(Messages.ERR_XML_VALIDATION_1, out.toString()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a non-validating XML reader to the pool for reuse by the next document read.<p>
+     *
+     * All handlers set by the last read are removed, so the reader does not keep the parsed document alive.
+     * The readers are not kept per thread, so the threads of a container pool do not keep the
+     * classes of OpenCms alive after a redeploy. If the pool is full, the reader is dropped.<p>
+     *
+     * @param xmlReader the XML reader to reuse
+     */
+    private static void releaseXmlReader(XMLReader xmlReader) {
+
+        try {
+            xmlReader.setEntityResolver(NO_HANDLER);
+            xmlReader.setContentHandler(NO_HANDLER);
+            xmlReader.setDTDHandler(NO_HANDLER);
+            xmlReader.setErrorHandler(NO_HANDLER);
+            xmlReader.setProperty(LEXICAL_HANDLER_KEY, null);
+            XML_READERS.offer(xmlReader);
+        } catch (SAXException e) {
+            // the reader can not be reset, so it is not reused
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.opencms.xml.content.CmsXmlContent;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -67,6 +68,18 @@ public final class CmsADECache extends CmsVfsCache {
     /** Read-write lock to ensure that the cache maps aren't accessed while we iterate through them to remove invalid entries. */
     private ReadWriteLock m_lock = new ReentrantReadWriteLock(true);
 
+    /** The number of XML content cache hits. */
+    private AtomicLong m_xmlContentHits = new AtomicLong();
+
+    /** The number of XML content cache misses. */
+    private AtomicLong m_xmlContentMisses = new AtomicLong();
+
+    /** Cache for offline XML contents, <code>null</code> if disabled. */
+    private Map<String, CmsXmlContent> m_xmlContentsOffline;
+
+    /** Cache for online XML contents, <code>null</code> if disabled. */
+    private Map<String, CmsXmlContent> m_xmlContentsOnline;
+
     /**
      * Initializes the cache. Only intended to be called during startup.<p>
      *
@@ -119,6 +132,24 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Flushes the XML contents cache.<p>
+     *
+     * @param online if to flush the online or offline cache
+     */
+    public void flushXmlContents(boolean online) {
+
+        try {
+            m_lock.writeLock().lock();
+            Map<String, CmsXmlContent> cache = online ? m_xmlContentsOnline : m_xmlContentsOffline;
+            if (cache != null) {
+                cache.clear();
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Returns the cached container page under the given key and for the given project.<p>
      *
@@ -239,6 +270,111 @@ public final class CmsADECache extends CmsVfsCache {
         return structureId.toString() + "_" + keepEncoding;
     }
 
+    /**
+     * Returns the cached XML content under the given key and for the given project.<p>
+     *
+     * The returned instance is shared and must not be modified.<p>
+     *
+     * @param key the cache key
+     * @param online if cached in online or offline project
+     *
+     * @return the cached XML content or <code>null</code> if not found
+     */
+    public CmsXmlContent getCacheXmlContent(String key, boolean online) {
+
+        try {
+            m_lock.readLock().lock();
+            Map<String, CmsXmlContent> cache = online ? m_xmlContentsOnline : m_xmlContentsOffline;
+            if (cache == null) {
+                return null;
+            }
+            CmsXmlContent retValue = cache.get(key);
+            if (retValue == null) {
+                m_xmlContentMisses.incrementAndGet();
+            } else {
+                m_xmlContentHits.incrementAndGet();
+            }
+            if (LOG.isDebugEnabled()) {
+                if (retValue == null) {
+                    String message = online
+                    ? Messages.LOG_DEBUG_CACHE_MISSED_ONLINE_1
+                    : Messages.LOG_DEBUG_CACHE_MISSED_OFFLINE_1;
+                    LOG.debug(Messages.get().getBundle().key(message, new Object[] {key}));
+                } else {
+                    String message = online
+                    ? Messages.LOG_DEBUG_CACHE_MATCHED_ONLINE_2
+                    : Messages.LOG_DEBUG_CACHE_MATCHED_OFFLINE_2;
+                    LOG.debug(Messages.get().getBundle().key(message, new Object[] {key, retValue}));
+                }
+            }
+            return retValue;
+        } finally {
+            m_lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of XML content cache hits since startup.<p>
+     *
+     * @return the number of XML content cache hits
+     */
+    public long getXmlContentCacheHits() {
+
+        return m_xmlContentHits.get();
+    }
+
+    /**
+     * Returns the number of XML content cache misses since startup.<p>
+     *
+     * @return the number of XML content cache misses
+     */
+    public long getXmlContentCacheMisses() {
+
+        return m_xmlContentMisses.get();
+    }
+
+    /**
+     * Returns the number of XML contents currently cached.<p>
+     *
+     * @param online if to count the online or offline cache
+     *
+     * @return the number of cached XML contents
+     */
+    public int getXmlContentCacheSize(boolean online) {
+
+        Map<String, CmsXmlContent> cache = online ? m_xmlContentsOnline : m_xmlContentsOffline;
+        return cache == null ? 0 : cache.size();
+    }
+
+    /**
+     * Returns the XML content cache key for the given parameters.<p>
+     *
+     * Since the key contains the date of last modification, a changed content is never matched
+     * by a key of an older version.<p>
+     *
+     * @param structureId the XML content's structure id
+     * @param dateLastModified the date of last modification of the XML content
+     * @param encoding the encoding used for unmarshalling
+     *
+     * @return the cache key for the given XML content and parameters
+     */
+    public String getXmlContentCacheKey(CmsUUID structureId, long dateLastModified, String encoding) {
+
+        return structureId.toString() + "_" + dateLastModified + "_" + encoding;
+    }
+
+    /**
+     * Checks if the XML content cache is enabled for the given project.<p>
+     *
+     * @param online if to check the online or offline cache
+     *
+     * @return <code>true</code> if the XML content cache is enabled
+     */
+    public boolean isXmlContentCacheEnabled(boolean online) {
+
+        return (online ? m_xmlContentsOnline : m_xmlContentsOffline) != null;
+    }
+
     /**
      * Caches the given container page under the given key and for the given project.<p>
      *
@@ -307,6 +443,35 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Caches the given XML content under the given key and for the given project.<p>
+     *
+     * The XML content must not be modified after it has been cached.<p>
+     *
+     * @param key the cache key
+     * @param content the object to cache
+     * @param online if to cache in online or offline project
+     */
+    public void setCacheXmlContent(String key, CmsXmlContent content, boolean online) {
+
+        try {
+            m_lock.writeLock().lock();
+            Map<String, CmsXmlContent> cache = online ? m_xmlContentsOnline : m_xmlContentsOffline;
+            if (cache == null) {
+                return;
+            }
+            cache.put(key, content);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        online ? Messages.LOG_DEBUG_CACHE_SET_ONLINE_2 : Messages.LOG_DEBUG_CACHE_SET_OFFLINE_2,
+                        new Object[] {key, content}));
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Removes the container page identified by its structure id from the cache.<p>
      *
@@ -361,6 +526,7 @@ public final class CmsADECache extends CmsVfsCache {
             m_lock.writeLock().lock();
             flushContainerPages(online);
             flushGroupContainers(online);
+            flushXmlContents(online);
         } finally {
             m_lock.writeLock().unlock();
         }
@@ -383,6 +549,9 @@ public final class CmsADECache extends CmsVfsCache {
             } else {
                 removeCachedContent(resource, m_groupContainersOffline);
             }
+            if (m_xmlContentsOffline != null) {
+                removeCachedContent(resource, m_xmlContentsOffline);
+            }
         } finally {
             m_lock.writeLock().unlock();
         }
@@ -409,6 +578,16 @@ public final class CmsADECache extends CmsVfsCache {
 
         m_groupContainersOnline = CmsMemoryMonitor.createLRUCacheMap(cacheSettings.getGroupContainerOnlineSize());
         memMonitor.register(CmsADECache.class.getName() + ".groupContainersOnline", m_groupContainersOnline);
+
+        // XML content caches
+        if (cacheSettings.getXmlContentOfflineSize() > 0) {
+            m_xmlContentsOffline = CmsMemoryMonitor.createLRUCacheMap(cacheSettings.getXmlContentOfflineSize());
+            memMonitor.register(CmsADECache.class.getName() + ".xmlContentsOffline", m_xmlContentsOffline);
+        }
+        if (cacheSettings.getXmlContentOnlineSize() > 0) {
+            m_xmlContentsOnline = CmsMemoryMonitor.createLRUCacheMap(cacheSettings.getXmlContentOnlineSize());
+            memMonitor.register(CmsADECache.class.getName() + ".xmlContentsOnline", m_xmlContentsOnline);
+        }
     }
 
     /**
@@ -52,6 +52,18 @@ public class CmsADECacheSettings {
     /** The size of the group container online cache. */
     private int m_groupContainerOnlineSize;
 
+    /** Default size for the online XML content cache. */
+    private static final int DEFAULT_XML_CONTENT_ONLINE_SIZE = 512;
+
+    /** Default size for the offline XML content cache. */
+    private static final int DEFAULT_XML_CONTENT_OFFLINE_SIZE = 128;
+
+    /** The size of the XML content offline cache, -1 if not configured. */
+    private int m_xmlContentOfflineSize = -1;
+
+    /** The size of the XML content online cache, -1 if not configured. */
+    private int m_xmlContentOnlineSize = -1;
+
     /**
      * Default constructor.<p>
      */
@@ -132,6 +144,36 @@ public class CmsADECacheSettings {
         return m_groupContainerOnlineSize;
     }
 
+    /**
+     * Returns the size of the XML content offline cache.<p>
+     *
+     * A size of 0 disables the cache.<p>
+     *
+     * @return the size of the XML content offline cache
+     */
+    public int getXmlContentOfflineSize() {
+
+        if (m_xmlContentOfflineSize < 0) {
+            return DEFAULT_XML_CONTENT_OFFLINE_SIZE;
+        }
+        return m_xmlContentOfflineSize;
+    }
+
+    /**
+     * Returns the size of the XML content online cache.<p>
+     *
+     * A size of 0 disables the cache.<p>
+     *
+     * @return the size of the XML content online cache
+     */
+    public int getXmlContentOnlineSize() {
+
+        if (m_xmlContentOnlineSize < 0) {
+            return DEFAULT_XML_CONTENT_ONLINE_SIZE;
+        }
+        return m_xmlContentOnlineSize;
+    }
+
     /**
      * Sets the size of the cache for offline group containers.<p>
      *
@@ -152,6 +194,26 @@ public class CmsADECacheSettings {
         m_groupContainerOnlineSize = getIntValue(size, DEFAULT_GROUP_CONTAINER_SIZE);
     }
 
+    /**
+     * Sets the size of the cache for offline XML contents, 0 disables the cache.<p>
+     *
+     * @param size the size of the cache for offline XML contents
+     */
+    public void setXmlContentOfflineSize(String size) {
+
+        m_xmlContentOfflineSize = "0".equals(size) ? 0 : getIntValue(size, DEFAULT_XML_CONTENT_OFFLINE_SIZE);
+    }
+
+    /**
+     * Sets the size of the cache for online XML contents, 0 disables the cache.<p>
+     *
+     * @param size the size of the cache for online XML contents
+     */
+    public void setXmlContentOnlineSize(String size) {
+
+        m_xmlContentOnlineSize = "0".equals(size) ? 0 : getIntValue(size, DEFAULT_XML_CONTENT_ONLINE_SIZE);
+    }
+
     /**
      * Turns a string into an int.<p>
      *
@@ -31,8 +31,10 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeXmlAdeConfiguration;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.loader.CmsLoaderException;
 import org.opencms.main.CmsException;
@@ -211,31 +213,7 @@ public final class CmsXmlContentFactory {
 
         byte[] contentBytes = file.getContents();
         String filename = cms.getSitePath(file);
-
-        String encoding = null;
-        if (OpenCms.getResourceManager().hasResourceType(file.getTypeId())) {
-            if (OpenCms.getResourceManager().getResourceType(file) instanceof CmsResourceTypeXmlAdeConfiguration) {
-                encoding = "UTF-8";
-            }
-        }
-        if (encoding == null) {
-            try {
-                encoding = cms.readPropertyObject(
-                    file,
-                    CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
-                    true).getValue();
-            } catch (@SuppressWarnings("unused") CmsException e) {
-                // encoding will be null
-            }
-        }
-        if (encoding == null) {
-            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
-        } else {
-            encoding = CmsEncoder.lookupEncoding(encoding, null);
-            if (encoding == null) {
-                throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename));
-            }
-        }
+        String encoding = getEncoding(cms, file);
 
         CmsXmlContent content;
         if (contentBytes.length > 0) {
@@ -292,14 +270,30 @@ public final class CmsXmlContentFactory {
                 Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_TYPE_1, cms.getSitePath(resource)));
         }
 
+        // the content may be taken from the request or the cache without reading the file, so track it here
+        CmsFlexRequestContextInfo contextInfo = CmsFlexRequestContextInfo.getContextInfo(cms);
+        if (contextInfo != null) {
+            contextInfo.addDependency(resource);
+        }
+
         // try to get the requested content from the current request attribute
         // this is also necessary for historic versions that have been loaded
         CmsXmlContent content = (CmsXmlContent)req.getAttribute(rootPath);
 
         if (content == null) {
-            // unmarshal XML structure from the file content
-            CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
-            content = unmarshal(cms, file);
+            // try to get a copy of the content parsed by an earlier request
+            String cacheKey = getCacheKey(cms, resource);
+            if (cacheKey != null) {
+                content = getCache(cms, cacheKey);
+            }
+            if (content == null) {
+                // unmarshal XML structure from the file content
+                CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
+                content = unmarshal(cms, file);
+                if (cacheKey != null) {
+                    content = setCache(cms, cacheKey, content);
+                }
+            }
             // store the content as request attribute for future read requests
             req.setAttribute(rootPath, content);
         }
@@ -385,4 +379,117 @@ public final class CmsXmlContentFactory {
 
         return unmarshal(null, xmlData, encoding, resolver);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a copy of the cached XML content for the given cache key.<p>
+     *
+     * @param cms the current OpenCms context object
+     * @param cacheKey the cache key
+     *
+     * @return a copy of the cached XML content, or <code>null</code> if not cached
+     */
+    private static CmsXmlContent getCache(CmsObject cms, String cacheKey) {
+
+        boolean online = cms.getRequestContext().getCurrentProject().isOnlineProject();
+        CmsXmlContent cached = OpenCms.getADEManager().getCache().getCacheXmlContent(cacheKey, online);
+        if (cached == null) {
+            return null;
+        }
+        // the cached instance is shared, so hand out a copy that does not require parsing
+        CmsXmlContent content = cached.clone();
+        content.setFile((CmsFile)cached.getFile().clone());
+        return content;
+    }
+
+    /**
+     * Returns the key used to cache the parsed XML content of a resource across requests.<p>
+     *
+     * @param cms the current OpenCms context object
+     * @param resource the XML content resource
+     *
+     * @return the cache key, or <code>null</code> if the resource must not be cached
+     *
+     * @throws CmsXmlException if the encoding of the resource is invalid
+     */
+    private static String getCacheKey(CmsObject cms, CmsResource resource) throws CmsXmlException {
+
+        if ((resource instanceof CmsFile) || (resource instanceof I_CmsHistoryResource)) {
+            // the contents of a given file may have been changed without being written yet,
+            // and historic versions are not cached at all
+            return null;
+        }
+        if ((OpenCms.getADEManager() == null)
+            || !OpenCms.getADEManager().getCache().isXmlContentCacheEnabled(
+                cms.getRequestContext().getCurrentProject().isOnlineProject())) {
+            return null;
+        }
+        return OpenCms.getADEManager().getCache().getXmlContentCacheKey(
+            resource.getStructureId(),
+            resource.getDateLastModified(),
+            getEncoding(cms, resource));
+    }
+
+    /**
+     * Returns the encoding to use for unmarshalling an XML content resource.<p>
+     *
+     * @param cms the current OpenCms context object
+     * @param resource the XML content resource
+     *
+     * @return the encoding, as set in the content encoding property or the system default
+     *
+     * @throws CmsXmlException if the encoding set in the property is invalid
+     */
+    private static String getEncoding(CmsObject cms, CmsResource resource) throws CmsXmlException {
+
+        String encoding = null;
+        if (OpenCms.getResourceManager().hasResourceType(resource.getTypeId())) {
+            if (OpenCms.getResourceManager().getResourceType(resource) instanceof CmsResourceTypeXmlAdeConfiguration) {
+                encoding = "UTF-8";
+            }
+        }
+        if (encoding == null) {
+            try {
+                encoding = cms.readPropertyObject(
+                    resource,
+                    CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
+                    true).getValue();
+            } catch (@SuppressWarnings("unused") CmsException e) {
+                // encoding will be null
+            }
+        }
+        if (encoding == null) {
+            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
+        } else {
+            encoding = CmsEncoder.lookupEncoding(encoding, null);
+            if (encoding == null) {
+                throw new CmsXmlException(
+                    Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, cms.getSitePath(resource)));
+            }
+        }
+        return encoding;
+    }
+
+    /**
+     * Caches a freshly unmarshalled XML content for later requests.<p>
+     *
+     * @param cms the current OpenCms context object
+     * @param cacheKey the cache key
+     * @param content the unmarshalled XML content
+     *
+     * @return the XML content to use for the current request, which is not the cached instance
+     */
+    private static CmsXmlContent setCache(CmsObject cms, String cacheKey, CmsXmlContent content) {
+
+        if (content.hasInvalidatedBrokenLinks() || (content.getClass() != CmsXmlContent.class)) {
+            // broken links may be caused by missing permissions of the current user,
+            // and specialized contents like container pages have their own caches
+            return content;
+        }
+        boolean online = cms.getRequestContext().getCurrentProject().isOnlineProject();
+        OpenCms.getADEManager().getCache().setCacheXmlContent(cacheKey, content, online);
+        // the cached instance must not be changed, so the current request works on a copy
+        CmsXmlContent copy = content.clone();
+        copy.setFile((CmsFile)content.getFile().clone());
+        return copy;
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.TestCase;
+
+/**
+ * Test cases for the concurrent LRU cache, including a contention benchmark against {@link CmsLruCache}.<p>
+ */
+public class TestConcurrentLruCache extends TestCase {
+
+    /**
+     * Simple cache object for the tests.<p>
+     */
+    private static class TestCacheObject implements I_CmsLruCacheObject {
+
+        /** Set if the object is currently in the cache. */
+        protected volatile boolean m_cached;
+
+        /** The costs of this object. */
+        private int m_costs;
+
+        /** The name of this object. */
+        private String m_name;
+
+        /** The next object in the LRU list. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous object in the LRU list. */
+        private I_CmsLruCacheObject m_previous;
+
+        /**
+         * Creates a new test object.<p>
+         *
+         * @param name the name of the object
+         * @param costs the costs of the object
+         */
+        TestCacheObject(String name, int costs) {
+
+            m_name = name;
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            m_cached = true;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return m_name;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            m_cached = false;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /** Number of objects used in the contention benchmark. */
+    private static final int BENCHMARK_OBJECTS = 1000;
+
+    /** Number of operations per thread in the contention benchmark. */
+    private static final int BENCHMARK_OPERATIONS = 200000;
+
+    /** Number of threads in the contention benchmark. */
+    private static final int BENCHMARK_THREADS = 8;
+
+    /**
+     * Tests adding, removing and clearing objects.<p>
+     */
+    public void testAddRemoveClear() {
+
+        CmsConcurrentLruCache cache = new CmsConcurrentLruCache(1000, 500, 100);
+        TestCacheObject a = new TestCacheObject("a", 10);
+        TestCacheObject b = new TestCacheObject("b", 20);
+        assertTrue(cache.add(a));
+        assertTrue(cache.add(b));
+        // adding an object twice does not change the costs
+        assertTrue(cache.add(a));
+        assertEquals(2, cache.size());
+        assertEquals(30, cache.getObjectCosts());
+        assertTrue(a.m_cached);
+
+        assertSame(a, cache.remove(a));
+        assertFalse(a.m_cached);
+        assertNull(cache.remove(a));
+        assertFalse(cache.touch(a));
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.getObjectCosts());
+
+        cache.clear();
+        assertFalse(b.m_cached);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+
+        // objects that are too expensive are not cached
+        assertFalse(cache.add(new TestCacheObject("large", 101)));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that the cache stays consistent under concurrent adds, touches and removes.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentConsistency() throws Exception {
+
+        final CmsConcurrentLruCache cache = new CmsConcurrentLruCache(5000, 2500, 100);
+        final List<TestCacheObject> objects = new ArrayList<TestCacheObject>();
+        for (int i = 0; i < 500; i++) {
+            objects.add(new TestCacheObject("o" + i, 10 + (i % 10)));
+        }
+        runThreads(BENCHMARK_THREADS, new Runnable() {
+
+            public void run() {
+
+                Random random = new Random();
+                for (int i = 0; i < 20000; i++) {
+                    TestCacheObject obj = objects.get(random.nextInt(objects.size()));
+                    int op = random.nextInt(10);
+                    if (op == 0) {
+                        cache.remove(obj);
+                    } else if ((op < 3) || !cache.touch(obj)) {
+                        cache.add(obj);
+                    }
+                }
+            }
+        });
+
+        int costs = 0;
+        int count = 0;
+        for (TestCacheObject obj : objects) {
+            if (obj.m_cached) {
+                costs += obj.getLruCacheCosts();
+                count++;
+            }
+        }
+        assertEquals(count, cache.size());
+        assertEquals(costs, cache.getObjectCosts());
+        assertTrue(cache.getObjectCosts() <= cache.getMaxCacheCosts());
+    }
+
+    /**
+     * Benchmarks concurrent touches on the synchronized and the concurrent LRU cache.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testContention() throws Exception {
+
+        long syncTime = runContentionBenchmark(new CmsLruCache(Long.MAX_VALUE, Long.MAX_VALUE / 2, -1));
+        long concurrentTime = runContentionBenchmark(
+            new CmsConcurrentLruCache(Long.MAX_VALUE, Long.MAX_VALUE / 2, -1));
+        System.out.println(
+            "LRU cache contention ("
+                + BENCHMARK_THREADS
+                + " threads, "
+                + BENCHMARK_OPERATIONS
+                + " touches each): synchronized "
+                + syncTime
+                + " ms, concurrent "
+                + concurrentTime
+                + " ms");
+    }
+
+    /**
+     * Tests that the least recently used objects are evicted down to the average costs.<p>
+     */
+    public void testEviction() {
+
+        CmsConcurrentLruCache cache = new CmsConcurrentLruCache(100, 50, 20);
+        List<TestCacheObject> objects = new ArrayList<TestCacheObject>();
+        for (int i = 0; i < 10; i++) {
+            TestCacheObject obj = new TestCacheObject("o" + i, 10);
+            objects.add(obj);
+            assertTrue(cache.add(obj));
+        }
+        assertEquals(100, cache.getObjectCosts());
+
+        // touch the oldest object, the touch is applied before the next add evicts objects
+        assertTrue(cache.touch(objects.get(0)));
+        TestCacheObject last = new TestCacheObject("last", 10);
+        assertTrue(cache.add(last));
+
+        // costs exceeded the max. costs, so objects are removed until the costs are below the avg. costs
+        assertEquals(40, cache.getObjectCosts());
+        assertEquals(4, cache.size());
+        assertTrue(objects.get(0).m_cached);
+        assertTrue(objects.get(8).m_cached);
+        assertTrue(objects.get(9).m_cached);
+        assertTrue(last.m_cached);
+        assertFalse(objects.get(1).m_cached);
+        assertFalse(objects.get(7).m_cached);
+    }
+
+    /**
+     * Runs the contention benchmark on the given cache and returns the elapsed time.<p>
+     *
+     * @param cache the cache to benchmark
+     *
+     * @return the elapsed time in milliseconds
+     *
+     * @throws Exception if something goes wrong
+     */
+    private long runContentionBenchmark(final CmsLruCache cache) throws Exception {
+
+        final List<TestCacheObject> objects = new ArrayList<TestCacheObject>();
+        for (int i = 0; i < BENCHMARK_OBJECTS; i++) {
+            TestCacheObject obj = new TestCacheObject("o" + i, 1);
+            objects.add(obj);
+            cache.add(obj);
+        }
+        final AtomicLong touched = new AtomicLong();
+        long start = System.currentTimeMillis();
+        runThreads(BENCHMARK_THREADS, new Runnable() {
+
+            public void run() {
+
+                Random random = new Random();
+                long count = 0;
+                for (int i = 0; i < BENCHMARK_OPERATIONS; i++) {
+                    if (cache.touch(objects.get(random.nextInt(BENCHMARK_OBJECTS)))) {
+                        count++;
+                    }
+                }
+                touched.addAndGet(count);
+            }
+        });
+        long time = System.currentTimeMillis() - start;
+        assertEquals((long)BENCHMARK_THREADS * BENCHMARK_OPERATIONS, touched.get());
+        assertEquals(BENCHMARK_OBJECTS, cache.size());
+        return time;
+    }
+
+    /**
+     * Runs the given task in parallel in the given number of threads and waits until all are finished.<p>
+     *
+     * @param threads the number of threads
+     * @param task the task to run
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void runThreads(int threads, final Runnable task) throws Exception {
+
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(new Runnable() {
+
+                public void run() {
+
+                    try {
+                        startSignal.await();
+                        task.run();
+                    } catch (Throwable t) {
+                        synchronized (errors) {
+                            errors.add(t);
+                        }
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        startSignal.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (!errors.isEmpty()) {
+            fail(errors.get(0).toString());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cache;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Test cases for the off-heap content cache.<p>
+ */
+public class TestOffHeapContentCache extends TestCase {
+
+    /**
+     * Tests that a cache with size 0 is disabled.<p>
+     */
+    public void testDisabled() {
+
+        CmsOffHeapContentCache cache = new CmsOffHeapContentCache(0);
+        assertFalse(cache.isEnabled());
+        cache.put("a", new byte[] {1, 2, 3});
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMisses());
+    }
+
+    /**
+     * Tests that the least recently used contents are evicted when the size limit is exceeded.<p>
+     */
+    public void testEviction() {
+
+        CmsOffHeapContentCache cache = new CmsOffHeapContentCache(1000);
+        cache.put("a", new byte[100]);
+        cache.put("b", new byte[100]);
+        cache.put("c", new byte[100]);
+        // access "a", so "b" is the least recently used content
+        assertNotNull(cache.get("a"));
+        for (int i = 0; i < 7; i++) {
+            cache.put("x" + i, new byte[100]);
+        }
+        assertEquals(900, cache.getSize());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+
+        // contents larger than a tenth of the cache are not cached
+        cache.put("large", new byte[101]);
+        assertNull(cache.get("large"));
+
+        cache.remove("a");
+        assertEquals(800, cache.getSize());
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests reading and writing contents and the hit ratio.<p>
+     */
+    public void testReadWrite() {
+
+        CmsOffHeapContentCache cache = new CmsOffHeapContentCache(1024 * 1024);
+        byte[] content = "Some content to cache".getBytes();
+        cache.put("a", content);
+        assertNull(cache.get("b"));
+
+        byte[] result = cache.get("a");
+        assertTrue(Arrays.equals(content, result));
+        // the cache returns copies, changing them must not change the cached content
+        result[0] = 0;
+        assertTrue(Arrays.equals(content, cache.get("a")));
+
+        // replacing a content updates the byte usage
+        cache.put("a", new byte[5]);
+        assertEquals(5, cache.getSize());
+        assertEquals(1, cache.size());
+
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(66, cache.getHitRatio());
+    }
+}
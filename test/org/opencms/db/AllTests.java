@@ -65,6 +65,9 @@ public final class AllTests {
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
         suite.addTest(TestUrlNameMapping.suite());
+        suite.addTest(new TestSuite(TestRewriteAliasMatcher.class));
+        suite.addTest(new TestSuite(TestReadPoolRouting.class));
+        suite.addTest(new TestSuite(TestSqlQueryStatistics.class));
         // $JUnit-END$
         return suite;
     }
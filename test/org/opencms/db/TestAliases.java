@@ -132,6 +132,40 @@ public class TestAliases extends OpenCmsTestCase {
         assertTrue("At least 3 aliases", aliasManager.getAliasesForSite(cms, "").size() >= 3);
     }
 
+    /**
+     * Tests that cached rewrite alias matchers are updated when the rewrite aliases are saved.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testRewriteMatcherCache() throws Exception {
+
+        String siteRoot = "/sites/default";
+        CmsAliasManager aliasManager = OpenCms.getAliasManager();
+        CmsRewriteAlias alias = new CmsRewriteAlias(
+            new CmsUUID(),
+            siteRoot,
+            "/cached/(.*)",
+            "/first/$1",
+            CmsAliasMode.redirect);
+        aliasManager.saveRewriteAliases(getCmsObject(), siteRoot, Collections.singletonList(alias));
+        CmsRewriteAliasMatcher matcher = aliasManager.getRewriteAliasMatcher(getCmsObject(), siteRoot);
+        assertSame(matcher, aliasManager.getRewriteAliasMatcher(getCmsObject(), siteRoot));
+        assertEquals("/first/abc", matcher.match("/cached/abc").getNewPath());
+
+        CmsRewriteAlias alias2 = new CmsRewriteAlias(
+            new CmsUUID(),
+            siteRoot,
+            "/cached/(.*)",
+            "/second/$1",
+            CmsAliasMode.redirect);
+        aliasManager.saveRewriteAliases(getCmsObject(), siteRoot, Collections.singletonList(alias2));
+        matcher = aliasManager.getRewriteAliasMatcher(getCmsObject(), siteRoot);
+        assertEquals("/second/abc", matcher.match("/cached/abc").getNewPath());
+
+        aliasManager.saveRewriteAliases(getCmsObject(), siteRoot, Collections.<CmsRewriteAlias> emptyList());
+        assertNull(aliasManager.getRewriteAliasMatcher(getCmsObject(), siteRoot).match("/cached/abc"));
+    }
+
     /**
      * Tests reading/writing rewrite aliases.<p>
      *
@@ -0,0 +1,185 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.file.CmsProject;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the routing of online reads to the read pool of the generic SQL manager.<p>
+ */
+public class TestReadPoolRouting extends TestCase {
+
+    /** The URL of the primary test pool. */
+    private static final String PRIMARY_POOL_URL = "opencms:routingPrimary";
+
+    /** The URL of the read test pool. */
+    private static final String READ_POOL_URL = "opencms:routingReplica";
+
+    /**
+     * SQL manager which serves the test pools from two embedded HSQLDB databases.<p>
+     */
+    private static class TestSqlManager extends org.opencms.db.generic.CmsSqlManager {
+
+        /**
+         * @see org.opencms.db.CmsSqlManager#getConnectionByUrl(java.lang.String)
+         */
+        @Override
+        public Connection getConnectionByUrl(String dbPoolUrl) throws SQLException {
+
+            String name = dbPoolUrl.substring(CmsDbPoolV11.OPENCMS_URL_PREFIX.length());
+            return DriverManager.getConnection("jdbc:hsqldb:mem:" + name, "sa", "");
+        }
+    }
+
+    /**
+     * Tests that online reads use the primary pool until the read pool lag after a change of the online project has passed.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testLagAfterOnlineChange() throws Exception {
+
+        TestSqlManager sqlManager = createSqlManager(READ_POOL_URL);
+        sqlManager.setReadPoolLag(300);
+        sqlManager.markOnlineChange();
+        assertEquals(
+            "routingPrimary",
+            readDatabase(sqlManager.getReadConnection(new CmsDbContext(), CmsProject.ONLINE_PROJECT_ID)));
+        Thread.sleep(400);
+        assertEquals(
+            "routingReplica",
+            readDatabase(sqlManager.getReadConnection(new CmsDbContext(), CmsProject.ONLINE_PROJECT_ID)));
+
+        // without a lag, the read pool is used right after the change
+        sqlManager.setReadPoolLag(0);
+        sqlManager.markOnlineChange();
+        assertEquals(
+            "routingReplica",
+            readDatabase(sqlManager.getReadConnection(new CmsDbContext(), CmsProject.ONLINE_PROJECT_ID)));
+    }
+
+    /**
+     * Tests that a database context which has used the primary pool reads from the primary pool.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testPinnedAfterPrimaryUse() throws Exception {
+
+        TestSqlManager sqlManager = createSqlManager(READ_POOL_URL);
+        CmsDbContext dbc = new CmsDbContext();
+        assertEquals("routingReplica", readDatabase(sqlManager.getReadConnection(dbc, CmsProject.ONLINE_PROJECT_ID)));
+        readDatabase(sqlManager.getConnection(dbc));
+        assertEquals("routingPrimary", readDatabase(sqlManager.getReadConnection(dbc, CmsProject.ONLINE_PROJECT_ID)));
+        // a new context is not pinned
+        assertEquals(
+            "routingReplica",
+            readDatabase(sqlManager.getReadConnection(new CmsDbContext(), CmsProject.ONLINE_PROJECT_ID)));
+    }
+
+    /**
+     * Tests the routing of reads in the online and offline projects.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testReadRouting() throws Exception {
+
+        TestSqlManager sqlManager = createSqlManager(READ_POOL_URL);
+        assertEquals(
+            "routingReplica",
+            readDatabase(sqlManager.getReadConnection(new CmsDbContext(), CmsProject.ONLINE_PROJECT_ID)));
+        assertEquals("routingPrimary", readDatabase(sqlManager.getReadConnection(new CmsDbContext(), new CmsUUID())));
+
+        // without a read pool, all reads use the primary pool
+        sqlManager = createSqlManager(" ");
+        assertNull(sqlManager.getReadPoolUrl());
+        assertEquals(
+            "routingPrimary",
+            readDatabase(sqlManager.getReadConnection(new CmsDbContext(), CmsProject.ONLINE_PROJECT_ID)));
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        Class.forName("org.hsqldb.jdbcDriver");
+        TestSqlManager sqlManager = createSqlManager(READ_POOL_URL);
+        for (String poolUrl : new String[] {PRIMARY_POOL_URL, READ_POOL_URL}) {
+            try (Connection conn = sqlManager.getConnectionByUrl(poolUrl)) {
+                conn.createStatement().execute("CREATE TABLE IF NOT EXISTS DB_NAME (NAME VARCHAR(32))");
+                conn.createStatement().execute("DELETE FROM DB_NAME");
+                conn.createStatement().execute(
+                    "INSERT INTO DB_NAME VALUES ('"
+                        + poolUrl.substring(CmsDbPoolV11.OPENCMS_URL_PREFIX.length())
+                        + "')");
+            }
+        }
+    }
+
+    /**
+     * Creates a SQL manager for the test pools.<p>
+     *
+     * @param readPoolUrl the URL of the read pool
+     *
+     * @return the SQL manager
+     */
+    private TestSqlManager createSqlManager(String readPoolUrl) {
+
+        TestSqlManager sqlManager = new TestSqlManager();
+        sqlManager.init(I_CmsVfsDriver.DRIVER_TYPE_ID, PRIMARY_POOL_URL);
+        sqlManager.setReadPoolUrl(readPoolUrl);
+        return sqlManager;
+    }
+
+    /**
+     * Reads the name of the database a connection belongs to, and closes the connection.<p>
+     *
+     * @param conn the connection
+     *
+     * @return the database name
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private String readDatabase(Connection conn) throws SQLException {
+
+        try (Connection c = conn) {
+            ResultSet res = c.createStatement().executeQuery("SELECT NAME FROM DB_NAME");
+            assertTrue(res.next());
+            return res.getString(1);
+        }
+    }
+}
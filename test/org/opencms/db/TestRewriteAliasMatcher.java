@@ -0,0 +1,193 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.gwt.shared.alias.CmsAliasMode;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the rewrite alias matcher.<p>
+ */
+public class TestRewriteAliasMatcher extends TestCase {
+
+    /** The number of aliases used in the benchmark. */
+    private static final int BENCHMARK_ALIASES = 1000;
+
+    /** The number of paths matched in the benchmark. */
+    private static final int BENCHMARK_PATHS = 2000;
+
+    /**
+     * Creates a new rewrite alias.<p>
+     *
+     * @param pattern the pattern
+     * @param replacement the replacement
+     *
+     * @return the rewrite alias
+     */
+    private static CmsRewriteAlias alias(String pattern, String replacement) {
+
+        return new CmsRewriteAlias(new CmsUUID(), "/sites/default", pattern, replacement, CmsAliasMode.page);
+    }
+
+    /**
+     * Compares the matcher with matching all aliases by compiling their patterns for each path.<p>
+     */
+    public void testBenchmark() {
+
+        List<CmsRewriteAlias> aliases = new ArrayList<CmsRewriteAlias>();
+        for (int i = 0; i < BENCHMARK_ALIASES; i++) {
+            aliases.add(alias("/section" + i + "/article-([0-9]+)\\.html", "/content/" + i + "/$1.html"));
+        }
+        String[] paths = new String[BENCHMARK_PATHS];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = "/section" + ((i * 7) % (BENCHMARK_ALIASES * 2)) + "/article-" + i + ".html";
+        }
+
+        // warm up
+        CmsRewriteAliasMatcher matcher = new CmsRewriteAliasMatcher(aliases);
+        int expected = matchNaive(aliases, paths, 200);
+        assertEquals(expected, matchIndexed(matcher, paths, 200));
+
+        long start = System.nanoTime();
+        int naiveMatches = matchNaive(aliases, paths, paths.length);
+        long naiveTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        matcher = new CmsRewriteAliasMatcher(aliases);
+        int indexedMatches = matchIndexed(matcher, paths, paths.length);
+        long indexedTime = System.nanoTime() - start;
+
+        System.out.println(
+            "Matching "
+                + paths.length
+                + " paths against "
+                + aliases.size()
+                + " rewrite aliases: "
+                + (naiveTime / 1000000)
+                + " ms compiling each pattern, "
+                + (indexedTime / 1000000)
+                + " ms with the indexed matcher");
+        assertEquals(naiveMatches, indexedMatches);
+        assertTrue(indexedTime < naiveTime);
+    }
+
+    /**
+     * Tests the computation of literal prefixes of patterns.<p>
+     */
+    public void testLiteralPrefix() {
+
+        assertEquals("/foo/", CmsRewriteAliasMatcher.getLiteralPrefix("/foo/(.*)"));
+        assertEquals("/foo/", CmsRewriteAliasMatcher.getLiteralPrefix("^/foo/.*"));
+        assertEquals("/fo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo?/bar"));
+        assertEquals("/fo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo*"));
+        assertEquals("/fo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo{0,2}"));
+        assertEquals("/foo", CmsRewriteAliasMatcher.getLiteralPrefix("/foo+"));
+        assertEquals("/a.html", CmsRewriteAliasMatcher.getLiteralPrefix("/a\\.html"));
+        assertEquals("/a", CmsRewriteAliasMatcher.getLiteralPrefix("/a\\d+"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix("/foo|/bar"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix("(?i)/foo"));
+        assertEquals("", CmsRewriteAliasMatcher.getLiteralPrefix(".*\\.pdf"));
+    }
+
+    /**
+     * Tests matching paths against rewrite aliases.<p>
+     */
+    public void testMatch() {
+
+        List<CmsRewriteAlias> aliases = new ArrayList<CmsRewriteAlias>();
+        aliases.add(alias("/news/(.*)", "/archive/$1"));
+        aliases.add(alias(".*\\.pdf", "/documents/all.pdf"));
+        aliases.add(alias("/news/special/(.*)", "/special/$1"));
+        aliases.add(alias("/invalid/(", "/never"));
+        aliases.add(alias("/(foo|bar)/x", "/$1.html"));
+        CmsRewriteAliasMatcher matcher = new CmsRewriteAliasMatcher(aliases);
+
+        assertEquals("/archive/a.html", matcher.match("/news/a.html").getNewPath());
+        // the first matching alias wins, even if a later one has a longer literal prefix
+        assertEquals("/archive/special/a.html", matcher.match("/news/special/a.html").getNewPath());
+        assertSame(aliases.get(0), matcher.match("/news/special/a.html").getAlias());
+        assertEquals("/documents/all.pdf", matcher.match("/x/y.pdf").getNewPath());
+        assertEquals("/bar.html", matcher.match("/bar/x").getNewPath());
+        assertNull(matcher.match("/invalid/("));
+        assertNull(matcher.match("/other/a.html"));
+        assertNull(matcher.match(""));
+    }
+
+    /**
+     * Matches the given paths with the matcher.<p>
+     *
+     * @param matcher the matcher
+     * @param paths the paths to match
+     * @param count the number of paths to match
+     *
+     * @return the number of matched paths
+     */
+    private int matchIndexed(CmsRewriteAliasMatcher matcher, String[] paths, int count) {
+
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            if (matcher.match(paths[i]) != null) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Matches the given paths by compiling all alias patterns for each path.<p>
+     *
+     * @param aliases the aliases
+     * @param paths the paths to match
+     * @param count the number of paths to match
+     *
+     * @return the number of matched paths
+     */
+    private int matchNaive(List<CmsRewriteAlias> aliases, String[] paths, int count) {
+
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            for (CmsRewriteAlias alias : aliases) {
+                Matcher m = Pattern.compile(alias.getPatternString()).matcher(paths[i]);
+                if (m.matches()) {
+                    m.replaceFirst(alias.getReplacementString());
+                    result++;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
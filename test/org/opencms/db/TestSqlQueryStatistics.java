@@ -0,0 +1,216 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.timing.CmsSqlQueryStatistics;
+import org.opencms.db.timing.CmsSqlQueryStats;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the statistics of the SQL queries executed by the drivers.<p>
+ */
+public class TestSqlQueryStatistics extends TestCase {
+
+    /** The number of executions in the overhead test. */
+    private static final int OVERHEAD_EXECUTIONS = 20000;
+
+    /** The connection to the embedded test database. */
+    private Connection m_connection;
+
+    /**
+     * Compares the execution time of a query with and without statistics.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testOverhead() throws Exception {
+
+        CmsSqlQueryStatistics statistics = CmsSqlQueryStatistics.INSTANCE;
+        // warm up
+        runQueries(OVERHEAD_EXECUTIONS);
+        statistics.setEnabled(false);
+        runQueries(OVERHEAD_EXECUTIONS);
+
+        long plain = runQueries(OVERHEAD_EXECUTIONS);
+        statistics.setEnabled(true);
+        statistics.reset();
+        long measured = runQueries(OVERHEAD_EXECUTIONS);
+
+        System.out.println(
+            "Executed "
+                + OVERHEAD_EXECUTIONS
+                + " queries in "
+                + (plain / 1000000L)
+                + " ms without and "
+                + (measured / 1000000L)
+                + " ms with statistics");
+        CmsSqlQueryStats stats = statistics.getQueryStatistics().get(0);
+        assertEquals("TEST_SELECT", stats.getKey());
+        assertEquals(OVERHEAD_EXECUTIONS, stats.getCount());
+        assertEquals(OVERHEAD_EXECUTIONS * 3L, stats.getRows());
+    }
+
+    /**
+     * Tests the collected counts, rows and histogram.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testStatistics() throws Exception {
+
+        CmsSqlQueryStatistics statistics = CmsSqlQueryStatistics.INSTANCE;
+        statistics.setSlowQueryThreshold(1);
+        PreparedStatement stmt = prepare("TEST_UPDATE", "UPDATE TEST_DATA SET NAME = ? WHERE ID > ?");
+        stmt.setString(1, "changed");
+        stmt.setInt(2, 1);
+        assertEquals(2, stmt.executeUpdate());
+        stmt.close();
+        runQueries(1);
+
+        stmt = prepare("TEST_SELECT", "SELECT ID FROM TEST_DATA WHERE NAME = ?");
+        try {
+            // the parameter is not set
+            stmt.executeQuery();
+            fail("executing a query with a missing parameter should fail");
+        } catch (SQLException e) {
+            // expected
+        }
+        stmt.close();
+
+        CmsSqlQueryStats update = find("TEST_UPDATE");
+        assertEquals(1, update.getCount());
+        assertEquals(2, update.getRows());
+        assertEquals(0, update.getErrors());
+        CmsSqlQueryStats select = find("TEST_SELECT");
+        assertEquals(2, select.getCount());
+        assertEquals(3, select.getRows());
+        assertEquals(1, select.getErrors());
+        long histogramCount = 0;
+        for (long count : select.getHistogram()) {
+            histogramCount += count;
+        }
+        assertEquals(2, histogramCount);
+        assertNotNull(statistics.getReport());
+
+        // statements without query key
+        statistics.wrapStatement(m_connection.prepareStatement("SELECT 1 FROM TEST_DATA"), null, "").execute();
+        assertEquals(1, find(CmsSqlQueryStatistics.KEY_UNNAMED).getCount());
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        Class.forName("org.hsqldb.jdbcDriver");
+        m_connection = DriverManager.getConnection("jdbc:hsqldb:mem:querystats", "sa", "");
+        m_connection.createStatement().execute(
+            "CREATE TABLE IF NOT EXISTS TEST_DATA (ID INTEGER, NAME VARCHAR(32))");
+        m_connection.createStatement().execute("DELETE FROM TEST_DATA");
+        m_connection.createStatement().execute("INSERT INTO TEST_DATA VALUES (1, 'a'), (2, 'b'), (3, 'c')");
+        CmsSqlQueryStatistics.INSTANCE.setEnabled(true);
+        CmsSqlQueryStatistics.INSTANCE.setSlowQueryThreshold(0);
+        CmsSqlQueryStatistics.INSTANCE.reset();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        CmsSqlQueryStatistics.INSTANCE.setSlowQueryThreshold(0);
+        CmsSqlQueryStatistics.INSTANCE.reset();
+        m_connection.close();
+    }
+
+    /**
+     * Finds the statistics for a query key.<p>
+     *
+     * @param key the query key
+     *
+     * @return the statistics
+     */
+    private CmsSqlQueryStats find(String key) {
+
+        for (CmsSqlQueryStats stats : CmsSqlQueryStatistics.INSTANCE.getQueryStatistics()) {
+            if (stats.getKey().equals(key)) {
+                return stats;
+            }
+        }
+        fail("no statistics for " + key);
+        return null;
+    }
+
+    /**
+     * Prepares a statement for the test database.<p>
+     *
+     * @param key the query key
+     * @param sql the SQL
+     *
+     * @return the statement
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private PreparedStatement prepare(String key, String sql) throws SQLException {
+
+        return CmsSqlQueryStatistics.INSTANCE.wrapStatement(m_connection.prepareStatement(sql), key, sql);
+    }
+
+    /**
+     * Executes a query reading all rows of the test table and reads the result sets.<p>
+     *
+     * @param executions the number of executions
+     *
+     * @return the elapsed time in nanoseconds
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private long runQueries(int executions) throws SQLException {
+
+        long start = System.nanoTime();
+        for (int i = 0; i < executions; i++) {
+            PreparedStatement stmt = prepare("TEST_SELECT", "SELECT ID, NAME FROM TEST_DATA WHERE ID > ?");
+            stmt.setInt(1, 0);
+            ResultSet res = stmt.executeQuery();
+            while (res.next()) {
+                res.getString(2);
+            }
+            res.close();
+            stmt.close();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -27,10 +27,13 @@
 
 package org.opencms.file;
 
+import org.opencms.db.CmsDriverManager;
+import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
@@ -224,6 +227,8 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testCaseSensitiveProperties"));
         suite.addTest(new TestProperty("testReadResourcesWithProperty"));
         suite.addTest(new TestProperty("testReadLocalizedProperty"));
+        suite.addTest(new TestProperty("testInheritedPropertyInvalidation"));
+        suite.addTest(new TestProperty("testInheritedPropertyPerformance"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -487,6 +492,121 @@ public class TestProperty extends OpenCmsTestCase {
         assertTrue("Operation did not throw the required Exception", gotException);
     }
 
+    /**
+     * Tests that inherited properties are updated when a property of a parent folder changes.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testInheritedPropertyInvalidation() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the invalidation of inherited properties");
+
+        String folder = "/inheritance/";
+        String subFolder = folder + "sub/";
+        String file = subFolder + "file.txt";
+        String otherFile = "/inheritance_other.txt";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(subFolder, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(file, CmsResourceTypePlain.getStaticTypeId());
+        cms.createResource(otherFile, CmsResourceTypePlain.getStaticTypeId());
+        String key = CmsPropertyDefinition.PROPERTY_DESCRIPTION;
+
+        cms.writePropertyObject(folder, new CmsProperty(key, "folder", null));
+        assertEquals("folder", cms.readPropertyObject(file, key, true).getValue());
+        // the lists of the other file and the site root are cached now, and must not be affected
+        String otherValue = cms.readPropertyObject(otherFile, key, true).getValue();
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        String fileCacheKey = getInheritedPropertyListCacheKey(cms, file);
+        String otherCacheKey = getInheritedPropertyListCacheKey(cms, otherFile);
+        assertNotNull(monitor.getCachedPropertyList(fileCacheKey));
+        List<CmsProperty> otherList = monitor.getCachedPropertyList(otherCacheKey);
+        assertNotNull(otherList);
+
+        cms.writePropertyObject(subFolder, new CmsProperty(key, "subfolder", null));
+        // only the lists of the changed folder and its sub tree are removed from the cache
+        assertNull(monitor.getCachedPropertyList(fileCacheKey));
+        assertSame(otherList, monitor.getCachedPropertyList(otherCacheKey));
+        assertEquals("subfolder", cms.readPropertyObject(file, key, true).getValue());
+        assertEquals("folder", cms.readPropertyObject(folder, key, true).getValue());
+        assertEquals(otherValue, cms.readPropertyObject(otherFile, key, true).getValue());
+
+        cms.writePropertyObject(subFolder, new CmsProperty(key, CmsProperty.DELETE_VALUE, null));
+        assertEquals("folder", cms.readPropertyObject(file, key, true).getValue());
+
+        cms.writePropertyObject(file, new CmsProperty(key, "file", null));
+        assertEquals("file", cms.readPropertyObject(file, key, true).getValue());
+        assertEquals("folder", cms.readPropertyObject(subFolder, key, true).getValue());
+    }
+
+    /**
+     * Compares reading the inherited properties of a folder tree by merging the properties of all parent folders
+     * with reading them by merging the own properties into the cached list of the parent folder.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testInheritedPropertyPerformance() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Comparing the algorithms used to merge inherited properties");
+
+        String root = "/inheritance_performance/";
+        int depth = 6;
+        int files = 20;
+        List<String> resources = new ArrayList<String>();
+        String folder = root;
+        for (int i = 0; i < depth; i++) {
+            cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+            // every level overwrites one property and adds another one
+            cms.writePropertyObject(folder, new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, "d" + i, null));
+            cms.writePropertyObject(folder, new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS + i, "k", null));
+            resources.add(folder);
+            for (int j = 0; j < files; j++) {
+                String file = folder + "file" + j + ".txt";
+                cms.createResource(file, CmsResourceTypePlain.getStaticTypeId());
+                if ((j % 5) == 0) {
+                    cms.writePropertyObject(file, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, file, null));
+                }
+                resources.add(file);
+            }
+            folder += "level" + i + "/";
+        }
+
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        monitor.flushPropertyLists();
+        long start = System.currentTimeMillis();
+        List<Map<String, String>> parentMerged = new ArrayList<Map<String, String>>();
+        for (String resource : resources) {
+            parentMerged.add(CmsProperty.toMap(readInheritedPropertiesFromAllParents(cms, resource)));
+        }
+        long parentMergeTime = System.currentTimeMillis() - start;
+
+        monitor.flushPropertyLists();
+        start = System.currentTimeMillis();
+        List<Map<String, String>> cachedMerged = new ArrayList<Map<String, String>>();
+        for (String resource : resources) {
+            cachedMerged.add(CmsProperty.toMap(cms.readPropertyObjects(resource, true)));
+        }
+        long cachedMergeTime = System.currentTimeMillis() - start;
+
+        echo(
+            "Inherited properties of "
+                + resources.size()
+                + " resources: "
+                + parentMergeTime
+                + " ms merging all parent folders, "
+                + cachedMergeTime
+                + " ms merging the cached parent folder lists");
+        for (int i = 0; i < resources.size(); i++) {
+            assertEquals(resources.get(i), parentMerged.get(i), cachedMerged.get(i));
+        }
+        Map<String, String> deepest = cachedMerged.get(cachedMerged.size() - 1);
+        assertEquals("d" + (depth - 1), deepest.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION));
+        for (int i = 0; i < depth; i++) {
+            assertEquals("k", deepest.get(CmsPropertyDefinition.PROPERTY_KEYWORDS + i));
+        }
+    }
+
     /**
      * Tests the NULL_PROPERTY.<p>
      *
@@ -841,4 +961,47 @@ public class TestProperty extends OpenCmsTestCase {
         CmsProperty property10 = new CmsProperty("Title", "OpenCms", null);
         writeProperty(this, cms, "/folder2/", property10);
     }
+
+    /**
+     * Returns the key used to cache the inherited property list of a resource in the current project.<p>
+     *
+     * @param cms the cms context
+     * @param resource the site path of the resource
+     *
+     * @return the property list cache key
+     */
+    private String getInheritedPropertyListCacheKey(CmsObject cms, String resource) {
+
+        return CmsDriverManager.CACHE_ALL_PROPERTIES
+            + "+"
+            + (cms.getRequestContext().getCurrentProject().isOnlineProject() ? "+" : "-")
+            + cms.getRequestContext().addSiteRoot(resource);
+    }
+
+    /**
+     * Reads the inherited properties of a resource by merging the properties of the resource
+     * and of all its parent folders, without using the cached lists of the parent folders.<p>
+     *
+     * @param cms the cms context
+     * @param resource the site path of the resource
+     *
+     * @return the inherited properties of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsProperty> readInheritedPropertiesFromAllParents(CmsObject cms, String resource)
+    throws CmsException {
+
+        List<CmsProperty> properties = cms.readPropertyObjects(resource, false);
+        String parent = CmsResource.getParentFolder(resource);
+        while (parent != null) {
+            List<CmsProperty> parentProperties = cms.readPropertyObjects(parent, false);
+            // make sure properties from lower folders "overwrite" properties from upper folders
+            parentProperties.removeAll(properties);
+            parentProperties.addAll(properties);
+            properties = parentProperties;
+            parent = CmsResource.getParentFolder(parent);
+        }
+        return properties;
+    }
 }
\ No newline at end of file
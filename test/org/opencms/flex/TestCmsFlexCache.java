@@ -0,0 +1,400 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.db.CmsResourceState;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.jsp.CmsJspNavBuilder;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the FlexCache storage, including a concurrent get / put / clear benchmark.<p>
+ */
+public class TestCmsFlexCache extends OpenCmsTestCase {
+
+    /** The number of distinct resources used in the tests. */
+    private static final int RESOURCES = 500;
+
+    /** The number of variations per resource used in the tests. */
+    private static final int VARIATIONS = 10;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsFlexCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsFlexCache.class.getName());
+
+        suite.addTest(new TestCmsFlexCache("testPutGetClear"));
+        suite.addTest(new TestCmsFlexCache("testKeyEviction"));
+        suite.addTest(new TestCmsFlexCache("testConcurrentAccess"));
+        suite.addTest(new TestCmsFlexCache("testDependencyIndex"));
+        suite.addTest(new TestCmsFlexCache("testDependencyTracking"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Runs readers, writers and a clearing thread concurrently and reports the throughput.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentAccess() throws Exception {
+
+        final CmsFlexCache cache = createCache(10000);
+        final CmsFlexCacheKey[] keys = new CmsFlexCacheKey[RESOURCES];
+        for (int i = 0; i < RESOURCES; i++) {
+            keys[i] = createKey(i);
+            for (int j = 0; j < VARIATIONS; j++) {
+                cache.put(keys[i], createEntry(), "v" + j, null);
+            }
+        }
+
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        final long duration = 2000;
+        final AtomicLong reads = new AtomicLong();
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong writes = new AtomicLong();
+        final AtomicLong clears = new AtomicLong();
+        final List<Throwable> errors = new CopyOnWriteArrayList<Throwable>();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        for (int t = 0; t < threads; t++) {
+            final boolean writer = (t % 4) == 0;
+            final long seed = t;
+            executor.submit(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    long end = System.currentTimeMillis() + duration;
+                    while (System.currentTimeMillis() < end) {
+                        CmsFlexCacheKey key = keys[random.nextInt(RESOURCES)];
+                        String variation = "v" + random.nextInt(VARIATIONS);
+                        if (writer) {
+                            cache.put(key, createEntry(), variation, null);
+                            writes.incrementAndGet();
+                        } else {
+                            if (cache.get(key.getResource(), variation) != null) {
+                                hits.incrementAndGet();
+                            }
+                            reads.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+        executor.submit(() -> {
+            try {
+                start.await();
+                long end = System.currentTimeMillis() + duration;
+                while (System.currentTimeMillis() < end) {
+                    Thread.sleep(100);
+                    clearCache(cache, CmsFlexCache.CLEAR_ALL);
+                    clears.incrementAndGet();
+                }
+            } catch (Throwable e) {
+                errors.add(e);
+            }
+        });
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(duration * 10, TimeUnit.MILLISECONDS));
+        if (!errors.isEmpty()) {
+            throw new Exception(errors.get(0));
+        }
+        assertTrue(reads.get() > 0);
+        // entries put into a variation map that was detached by a concurrent clear must not stay in the LRU cache
+        clearCache(cache, CmsFlexCache.CLEAR_ALL);
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.size());
+        echo(
+            "FlexCache with "
+                + threads
+                + " threads: "
+                + ((reads.get() * 1000) / duration)
+                + " gets/s ("
+                + hits.get()
+                + " hits), "
+                + ((writes.get() * 1000) / duration)
+                + " puts/s, "
+                + clears.get()
+                + " full clears");
+    }
+
+    /**
+     * Tests the dependency index used for the selective invalidation of cache entries on publish.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testDependencyIndex() throws Exception {
+
+        CmsUUID structureId = new CmsUUID();
+        CmsUUID resourceId = new CmsUUID();
+        String path = "/sites/default/test/article.xml";
+
+        // collect the dependencies like a nested include would
+        CmsFlexRequestContextInfo parentInfo = new CmsFlexRequestContextInfo(true);
+        CmsFlexRequestContextInfo childInfo = new CmsFlexRequestContextInfo(true);
+        childInfo.addDependencies(Collections.singleton(path), Collections.singleton(structureId));
+        parentInfo.mergeDependencies(childInfo);
+        assertTrue(parentInfo.getDependencyPaths().contains(path));
+        assertFalse(new CmsFlexRequestContextInfo().isDependencyTracking());
+
+        CmsFlexCacheEntry dependent = createEntry();
+        dependent.setDependencies(parentInfo.getDependencyPaths(), parentInfo.getDependencyIds());
+        CmsFlexCacheEntry independent = createEntry();
+        independent.setDependencies(
+            Collections.singleton("/sites/default/other.xml"),
+            Collections.singleton(new CmsUUID()));
+        CmsFlexCacheEntry untracked = createEntry();
+        untracked.setDependencies(null, null);
+
+        CmsFlexCacheDependencyIndex index = new CmsFlexCacheDependencyIndex();
+        index.add(dependent);
+        index.add(independent);
+        index.add(untracked);
+
+        // match by structure id even if the resource was renamed
+        CmsPublishedResource pubRes = new CmsPublishedResource(
+            structureId,
+            resourceId,
+            1,
+            "/sites/default/test/renamed.xml",
+            1,
+            false,
+            CmsResourceState.STATE_CHANGED,
+            1);
+        Set<CmsFlexCacheEntry> affected = index.getDependentEntries(Collections.singletonList(pubRes));
+        assertTrue(affected.contains(dependent));
+        assertTrue(affected.contains(untracked));
+        assertFalse(affected.contains(independent));
+
+        index.remove(dependent);
+        index.remove(independent);
+        index.remove(untracked);
+        assertEquals(0, index.size());
+        assertTrue(index.getDependentEntries(Collections.singletonList(pubRes)).isEmpty());
+    }
+
+    /**
+     * Tests that the resources read through the security manager are tracked as dependencies of the request context.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testDependencyTracking() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo(true);
+        cms.getRequestContext().setAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED, info);
+
+        // the resource is read with another context, only its content is read with the tracked context
+        CmsResource page1 = getCmsObject().readResource("/folder1/page1.html");
+        cms.readFile(page1);
+        assertTrue(info.getDependencyIds().contains(page1.getStructureId()));
+
+        // searched properties depend on the resource and on all of its parent folders
+        CmsResource page2 = getCmsObject().readResource("/folder1/page2.html");
+        cms.readPropertyObjects(page2, true);
+        // read again, now the result is taken from the cache
+        cms.readPropertyObjects(page2, true);
+        Set<String> paths = info.getDependencyPaths();
+        assertTrue(paths.contains(page2.getRootPath()));
+        assertTrue(paths.contains("/sites/default/folder1/"));
+        assertTrue(paths.contains("/sites/default/"));
+        assertTrue(paths.contains("/"));
+
+        // copies of the context keep adding to the same context info
+        CmsObject copy = OpenCms.initCmsObject(cms);
+        CmsResource page3 = copy.readResource("/folder1/page3.html");
+        assertTrue(info.getDependencyPaths().contains(page3.getRootPath()));
+
+        // the navigation is read from a cache that is not tracked
+        new CmsJspNavBuilder(cms).getSiteNavigation("/folder1/", -1);
+        assertFalse(info.isDependencyTracking());
+    }
+
+    /**
+     * Tests that the least recently used keys are evicted when the maximum number of keys is exceeded.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testKeyEviction() throws Exception {
+
+        CmsFlexCache cache = createCache(100);
+        CmsFlexCacheKey first = createKey(0);
+        cache.put(first, createEntry(), "v", null);
+        for (int i = 1; i < 200; i++) {
+            // keep the first key in use
+            assertNotNull(cache.get(first.getResource(), "v"));
+            cache.put(createKey(i), createEntry(), "v", null);
+        }
+        assertTrue(cache.keySize() <= 100);
+        assertNotNull(cache.get(first.getResource(), "v"));
+        assertNull(cache.get(createKey(1).getResource(), "v"));
+    }
+
+    /**
+     * Tests basic put, get and clear operations.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testPutGetClear() throws Exception {
+
+        CmsFlexCache cache = createCache(1000);
+        CmsFlexCacheKey key = createKey(1);
+        CmsFlexCacheEntry entry = createEntry();
+        assertTrue(cache.put(key, entry, "v1", null));
+        assertSame(entry, cache.get(key.getResource(), "v1"));
+        assertNull(cache.get(key.getResource(), "v2"));
+        assertEquals(1, cache.size());
+
+        clearCache(cache, CmsFlexCache.CLEAR_ENTRIES);
+        assertNull(cache.get(key.getResource(), "v1"));
+        assertEquals(1, cache.keySize());
+        assertEquals(0, cache.size());
+
+        cache.put(key, createEntry(), "v1", null);
+        clearCache(cache, CmsFlexCache.CLEAR_ONLINE_ALL);
+        assertEquals(0, cache.keySize());
+        assertEquals(0, cache.size());
+
+        cache.put(key, createEntry(), "v1", null);
+        clearCache(cache, CmsFlexCache.CLEAR_ALL);
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Clears the given cache with the given action.<p>
+     *
+     * @param cache the cache
+     * @param action the clear action
+     */
+    private void clearCache(CmsFlexCache cache, int action) {
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(CmsFlexCache.CACHE_ACTION, Integer.valueOf(action));
+        cache.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR, data));
+    }
+
+    /**
+     * Creates a new enabled FlexCache.<p>
+     *
+     * @param maxKeys the maximum number of keys
+     *
+     * @return the new cache
+     */
+    private CmsFlexCache createCache(int maxKeys) {
+
+        CmsFlexCacheConfiguration config = new CmsFlexCacheConfiguration();
+        config.initialize("true", "false", "100000000", "50000000", "100000", String.valueOf(maxKeys));
+        return new CmsFlexCache(config);
+    }
+
+    /**
+     * Creates a completed cache entry.<p>
+     *
+     * @return the cache entry
+     */
+    private CmsFlexCacheEntry createEntry() {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add(new byte[256]);
+        entry.complete();
+        return entry;
+    }
+
+    /**
+     * Creates an online cache key for the test resource with the given number.<p>
+     *
+     * @param i the resource number
+     *
+     * @return the cache key
+     */
+    private CmsFlexCacheKey createKey(int i) {
+
+        return new CmsFlexCacheKey("/sites/default/test/element" + i + ".jsp", "always", true);
+    }
+}
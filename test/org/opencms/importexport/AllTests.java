@@ -59,6 +59,7 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTestSuite(TestCmsImport.class);
+        suite.addTestSuite(TestCmsImportContentPrefetcher.class);
         suite.addTest(TestCmsImportExport.suite());
         suite.addTest(TestCmsImportExportNonexistentUser.suite());
         //$JUnit-END$
@@ -0,0 +1,277 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.importexport;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the streaming of the manifest file entries and reading the file contents of an import ahead of time.<p>
+ */
+public class TestCmsImportContentPrefetcher extends TestCase {
+
+    /**
+     * Import helper which serves generated file contents and records where they are read.<p>
+     */
+    static class TestImportHelper extends CmsImportHelper {
+
+        /** The names of the files larger than {@link CmsImportContentPrefetcher#MAX_PREFETCH_SIZE}. */
+        private List<String> m_largeFiles = new ArrayList<String>();
+
+        /** The names of the threads which have read the files, by file name. */
+        private Map<String, List<String>> m_reads = new ConcurrentHashMap<String, List<String>>();
+
+        /**
+         * Creates a new import helper.<p>
+         */
+        TestImportHelper() {
+
+            super(null);
+        }
+
+        /**
+         * @see org.opencms.importexport.CmsImportHelper#getFileBytes(java.lang.String)
+         */
+        @Override
+        public byte[] getFileBytes(String filename) throws CmsImportExportException {
+
+            if (filename.startsWith("missing")) {
+                throw new CmsImportExportException(
+                    Messages.get().container(Messages.ERR_IMPORTEXPORT_ERROR_READING_FILE_1, filename));
+            }
+            m_reads.computeIfAbsent(filename, name -> new ArrayList<String>()).add(Thread.currentThread().getName());
+            return filename.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @see org.opencms.importexport.CmsImportHelper#getFileSize(java.lang.String)
+         */
+        @Override
+        public long getFileSize(String filename) {
+
+            if (filename.startsWith("missing")) {
+                return -1;
+            }
+            return m_largeFiles.contains(filename) ? CmsImportContentPrefetcher.MAX_PREFETCH_SIZE + 1 : 100;
+        }
+
+        /**
+         * Returns the names of the threads which have read the given file.<p>
+         *
+         * @param filename the file name
+         *
+         * @return the names of the threads which have read the file
+         */
+        List<String> getReads(String filename) {
+
+            List<String> reads = m_reads.get(filename);
+            return reads != null ? reads : new ArrayList<String>();
+        }
+
+        /**
+         * Marks a file as too large to be read ahead.<p>
+         *
+         * @param filename the file name
+         */
+        void setLarge(String filename) {
+
+            m_largeFiles.add(filename);
+        }
+    }
+
+    /**
+     * Returns the names of the files "f0", "f1", ... with an iterator counting the names taken.<p>
+     *
+     * @param count the number of file names
+     * @param taken the counter for the names taken from the iterator
+     *
+     * @return the iterator over the file names
+     */
+    private static Iterator<String> sources(int count, AtomicInteger taken) {
+
+        List<String> result = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            result.add("f" + i);
+        }
+        Iterator<String> it = result.iterator();
+        return new Iterator<String>() {
+
+            public boolean hasNext() {
+
+                return it.hasNext();
+            }
+
+            public String next() {
+
+                taken.incrementAndGet();
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * Tests that the files of skipped resources are discarded, and that the import may get ahead of the read ahead.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDiscard() throws Exception {
+
+        TestImportHelper helper = new TestImportHelper();
+        AtomicInteger taken = new AtomicInteger();
+        try (CmsImportContentPrefetcher prefetcher = new CmsImportContentPrefetcher(helper, sources(30, taken), 1)) {
+            assertEquals("f0", new String(prefetcher.getContent("f0"), StandardCharsets.UTF_8));
+            // f1 and f2 belong to skipped resources
+            assertEquals("f3", new String(prefetcher.getContent("f3"), StandardCharsets.UTF_8));
+            assertEquals(8, prefetcher.getPendingCount());
+            assertEquals(12, taken.get());
+
+            // f4 to f11 are read ahead, so the files up to f20 are skipped
+            assertEquals("f20", new String(prefetcher.getContent("f20"), StandardCharsets.UTF_8));
+            assertEquals(29, taken.get());
+            assertEquals(8, prefetcher.getPendingCount());
+            for (int i = 12; i < 20; i++) {
+                assertTrue(helper.getReads("f" + i).isEmpty());
+            }
+            // f20 was not read ahead, so it is read directly
+            assertEquals(Arrays.asList(Thread.currentThread().getName()), helper.getReads("f20"));
+
+            // a file requested out of order is read directly
+            assertEquals("f1", new String(prefetcher.getContent("f1"), StandardCharsets.UTF_8));
+            assertEquals(30, taken.get());
+            assertEquals(0, prefetcher.getPendingCount());
+            assertEquals("f29", new String(prefetcher.getContent("f29"), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Tests that large and missing files are not read ahead.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLargeAndMissingFiles() throws Exception {
+
+        TestImportHelper helper = new TestImportHelper();
+        helper.setLarge("f1");
+        List<String> sources = Arrays.asList("f0", "f1", "missing2", "f3");
+        try (CmsImportContentPrefetcher prefetcher = new CmsImportContentPrefetcher(helper, sources.iterator(), 2)) {
+            // only f0 and f3 are read ahead
+            assertEquals(2, prefetcher.getPendingCount());
+            assertEquals("f0", new String(prefetcher.getContent("f0"), StandardCharsets.UTF_8));
+            assertEquals("f1", new String(prefetcher.getContent("f1"), StandardCharsets.UTF_8));
+            assertEquals(Arrays.asList(Thread.currentThread().getName()), helper.getReads("f1"));
+            try {
+                prefetcher.getContent("missing2");
+                fail("missing file must not be found");
+            } catch (CmsImportExportException e) {
+                // expected
+            }
+            assertEquals("f3", new String(prefetcher.getContent("f3"), StandardCharsets.UTF_8));
+            assertEquals(1, helper.getReads("f3").size());
+            assertFalse(Thread.currentThread().getName().equals(helper.getReads("f3").get(0)));
+        }
+    }
+
+    /**
+     * Tests that the file entries of a manifest are streamed.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testManifestReader() throws Exception {
+
+        String manifest = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<!DOCTYPE export SYSTEM \"http://www.opencms.org/dtd/6.0/opencms-import.dtd\">\n"
+            + "<export>\n"
+            + "  <info><source>not a file</source></info>\n"
+            + "  <files>\n"
+            + "    <file><destination>folder</destination><type>folder</type>"
+            + "<uuidresource>00000000-0000-0000-0000-000000000001</uuidresource></file>\n"
+            + "    <file><source>folder/a &amp; b.txt</source><destination>folder/a &amp; b.txt</destination>"
+            + "<uuidresource>00000000-0000-0000-0000-000000000002</uuidresource>"
+            + "<properties><property><name>Title</name><value><![CDATA[A]]></value></property></properties></file>\n"
+            + "    <file><source> folder/c.txt </source>"
+            + "<uuidresource>00000000-0000-0000-0000-000000000003</uuidresource></file>\n"
+            + "  </files>\n"
+            + "</export>";
+
+        try (CmsImportManifestReader reader = new CmsImportManifestReader(
+            new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))) {
+            assertTrue(reader.nextFile());
+            assertNull(reader.getSource());
+            assertEquals("00000000-0000-0000-0000-000000000001", reader.getResourceId());
+            assertTrue(reader.nextFile());
+            assertEquals("folder/a & b.txt", reader.getSource());
+            assertEquals("00000000-0000-0000-0000-000000000002", reader.getResourceId());
+            assertTrue(reader.nextFile());
+            assertEquals("folder/c.txt", reader.getSource());
+            assertFalse(reader.nextFile());
+        }
+
+        try (CmsImportManifestReader reader = new CmsImportManifestReader(
+            new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))) {
+            List<String> sources = new ArrayList<String>();
+            reader.getSources().forEachRemaining(sources::add);
+            assertEquals(Arrays.asList("folder/a & b.txt", "folder/c.txt"), sources);
+        }
+    }
+
+    /**
+     * Tests that only a limited number of files are read ahead, by the worker threads.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReadAhead() throws Exception {
+
+        TestImportHelper helper = new TestImportHelper();
+        AtomicInteger taken = new AtomicInteger();
+        try (CmsImportContentPrefetcher prefetcher = new CmsImportContentPrefetcher(helper, sources(100, taken), 2)) {
+            // 8 files per worker
+            assertEquals(16, taken.get());
+            assertEquals(16, prefetcher.getPendingCount());
+            for (int i = 0; i < 100; i++) {
+                assertEquals("f" + i, new String(prefetcher.getContent("f" + i), StandardCharsets.UTF_8));
+                assertEquals(Math.min(100, i + 17), taken.get());
+            }
+            assertEquals(0, prefetcher.getPendingCount());
+        }
+        for (int i = 0; i < 100; i++) {
+            List<String> reads = helper.getReads("f" + i);
+            assertEquals(1, reads.size());
+            assertTrue(reads.get(0), reads.get(0).startsWith("import-content-reader-"));
+        }
+    }
+}
@@ -32,6 +32,7 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.CmsUser;
 import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypeImage;
 import org.opencms.file.types.CmsResourceTypeJsp;
@@ -54,6 +55,8 @@ import org.opencms.relations.CmsRelationFilter;
 import org.opencms.relations.CmsRelationType;
 import org.opencms.relations.I_CmsLinkParseable;
 import org.opencms.report.CmsShellReport;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsPermissionSet;
 import org.opencms.security.I_CmsPrincipal;
 import org.opencms.staticexport.CmsLinkTable;
 import org.opencms.test.OpenCmsTestCase;
@@ -61,6 +64,7 @@ import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceConfigurableFilter;
 import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsDateUtil;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsResourceTranslator;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.xml.CmsXmlEntityResolver;
@@ -73,9 +77,16 @@ import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -126,9 +137,12 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         suite.addTest(new TestCmsImportExport("testImportRecreatedSibling"));
         suite.addTest(new TestCmsImportExport("testImportMovedResource"));
         suite.addTest(new TestCmsImportExport("testImportChangedContent"));
+        suite.addTest(new TestCmsImportExport("testImportAccessControlEntries"));
+        suite.addTest(new TestCmsImportExport("testImportAccessControlEntriesFallback"));
         suite.addTest(new TestCmsImportExport("testImportRelations"));
         suite.addTest(new TestCmsImportExport("testImportContentIssue"));
         suite.addTest(new TestCmsImportExport("testExportType"));
+        suite.addTest(new TestCmsImportExport("testParallelExport"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -210,6 +224,66 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         assertEquals(typeId, content.getTypeId());
     }
 
+    /**
+     * Tests the bulk import of the access control entries of several resources.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testImportAccessControlEntries() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the bulk import of access control entries");
+        cms.getRequestContext().setSiteRoot("/");
+        CmsUser user = cms.readUser(OpenCms.getDefaultUsers().getUserGuest());
+
+        Map<CmsResource, List<CmsAccessControlEntry>> chunk = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            CmsResource res = cms.createResource("/aceBulk" + i + ".txt", CmsResourceTypePlain.getStaticTypeId());
+            chunk.put(res, Collections.singletonList(createImportedAce(user)));
+        }
+        CmsImportVersion10 imp = new CmsImportVersion10();
+        imp.m_cms = cms;
+        imp.m_report = new CmsShellReport(Locale.ENGLISH);
+        imp.importAccessControlEntryChunk(chunk);
+
+        assertFalse(imp.m_report.hasWarning());
+        for (CmsResource res : chunk.keySet()) {
+            assertImportedAce(cms, res, user);
+        }
+    }
+
+    /**
+     * Tests that the access control entries are imported resource by resource if the bulk import fails.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testImportAccessControlEntriesFallback() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the fallback for a failing bulk import of access control entries");
+        cms.getRequestContext().setSiteRoot("/");
+        CmsUser user = cms.readUser(OpenCms.getDefaultUsers().getUserGuest());
+
+        Map<CmsResource, List<CmsAccessControlEntry>> chunk = new LinkedHashMap<>();
+        List<CmsResource> resources = new ArrayList<CmsResource>();
+        for (int i = 0; i < 3; i++) {
+            CmsResource res = cms.createResource("/aceFallback" + i + ".txt", CmsResourceTypePlain.getStaticTypeId());
+            resources.add(res);
+            chunk.put(res, Collections.singletonList(createImportedAce(user)));
+        }
+        // the ACEs of an unlocked resource can not be written, so the bulk import of the chunk fails
+        cms.unlockResource(resources.get(1));
+        CmsImportVersion10 imp = new CmsImportVersion10();
+        imp.m_cms = cms;
+        imp.m_report = new CmsShellReport(Locale.ENGLISH);
+        imp.importAccessControlEntryChunk(chunk);
+
+        assertTrue(imp.m_report.hasWarning());
+        assertImportedAce(cms, resources.get(0), user);
+        assertTrue(cms.getAccessControlEntries(cms.getSitePath(resources.get(1)), false).isEmpty());
+        assertImportedAce(cms, resources.get(2), user);
+    }
+
     /**
      * Tests the import of a resource that has been edited.<p>
      *
@@ -2110,6 +2184,59 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Tests that an export with several workers produces the same output as a sequential export,
+     * and compares the time needed for both exports of the test data.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testParallelExport() throws Exception {
+
+        CmsObject cms = getCmsObject();
+
+        echo("Testing an export of VFS data with several workers.");
+        String sequentialFilename = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(
+            "packages/testParallelExport1.zip");
+        String parallelFilename = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(
+            "packages/testParallelExport4.zip");
+
+        try {
+            long sequentialTime = exportForBenchmark(cms, sequentialFilename, 1);
+            // the parallel export does not set the number of workers, so the configured default is used
+            OpenCms.getImportExportManager().setExportWorkers("4");
+            long parallelTime;
+            try {
+                parallelTime = exportForBenchmark(cms, parallelFilename, 0);
+            } finally {
+                OpenCms.getImportExportManager().setExportWorkers("1");
+            }
+            echo("Export with 1 worker took " + sequentialTime + " ms, with 4 workers " + parallelTime + " ms.");
+
+            ZipFile sequentialZip = new ZipFile(sequentialFilename);
+            ZipFile parallelZip = new ZipFile(parallelFilename);
+            try {
+                assertEquals(sequentialZip.size(), parallelZip.size());
+                Enumeration<? extends ZipEntry> entries = sequentialZip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    ZipEntry parallelEntry = parallelZip.getEntry(entry.getName());
+                    assertNotNull("Missing entry " + entry.getName(), parallelEntry);
+                    assertTrue(
+                        "Different content for " + entry.getName(),
+                        Arrays.equals(
+                            CmsFileUtil.readFully(sequentialZip.getInputStream(entry)),
+                            CmsFileUtil.readFully(parallelZip.getInputStream(parallelEntry))));
+                }
+            } finally {
+                sequentialZip.close();
+                parallelZip.close();
+            }
+        } finally {
+            new File(sequentialFilename).delete();
+            new File(parallelFilename).delete();
+        }
+    }
+
     /**
      * Tests the import of resources during setup.<p>
      *
@@ -2130,6 +2257,26 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         assertEquals(expectedDateLastModified, resource.getDateLastModified());
     }
 
+    /**
+     * Asserts that a resource has exactly the access control entry created by {@link #createImportedAce(CmsUser)}.<p>
+     *
+     * @param cms the CMS context
+     * @param res the resource
+     * @param user the user of the access control entry
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private void assertImportedAce(CmsObject cms, CmsResource res, CmsUser user) throws CmsException {
+
+        List<CmsAccessControlEntry> aces = cms.getAccessControlEntries(cms.getSitePath(res), false);
+        assertEquals(1, aces.size());
+        CmsAccessControlEntry ace = aces.get(0);
+        assertEquals(res.getResourceId(), ace.getResource());
+        assertEquals(user.getId(), ace.getPrincipal());
+        assertEquals(CmsPermissionSet.PERMISSION_READ, ace.getAllowedPermissions());
+        assertEquals(CmsPermissionSet.PERMISSION_WRITE, ace.getDeniedPermissions());
+    }
+
     /**
      * Compares imported and exported resources.<p>
      *
@@ -2182,4 +2329,61 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         }
         return value;
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates an access control entry as read from an import manifest, i.e. without a resource id.<p>
+     *
+     * @param user the user of the access control entry
+     *
+     * @return the access control entry
+     */
+    private CmsAccessControlEntry createImportedAce(CmsUser user) {
+
+        return new CmsAccessControlEntry(
+            null,
+            user.getId(),
+            CmsPermissionSet.PERMISSION_READ,
+            CmsPermissionSet.PERMISSION_WRITE,
+            CmsAccessControlEntry.ACCESS_FLAGS_USER);
+    }
+
+    /**
+     * Exports the complete site to a ZIP file and returns the time the export took.<p>
+     *
+     * @param cms the cms context
+     * @param zipExportFilename the file to export to
+     * @param workers the number of export workers, 0 for the configured default
+     *
+     * @return the time the export took in milliseconds
+     *
+     * @throws Exception if something goes wrong
+     */
+    private long exportForBenchmark(CmsObject cms, String zipExportFilename, int workers) throws Exception {
+
+        CmsVfsImportExportHandler vfsExportHandler = new CmsVfsImportExportHandler();
+        List<String> exportPaths = new ArrayList<String>(1);
+        exportPaths.add("/");
+        // the reduced mode does not write the export date, so both exports are comparable
+        CmsExportParameters params = new CmsExportParameters(
+            zipExportFilename,
+            null,
+            true,
+            false,
+            false,
+            exportPaths,
+            false,
+            true,
+            0,
+            true,
+            false,
+            ExportMode.REDUCED);
+        params.setExportWorkers(workers);
+        vfsExportHandler.setExportParams(params);
+        long start = System.currentTimeMillis();
+        OpenCms.getImportExportManager().exportData(
+            cms,
+            vfsExportHandler,
+            new CmsShellReport(cms.getRequestContext().getLocale()));
+        return System.currentTimeMillis() - start;
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.jsp;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the navigation builder and the navigation resource trees it reads from.<p>
+ */
+public class TestCmsJspNavBuilder extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspNavBuilder(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsJspNavBuilder.class.getName());
+
+        suite.addTest(new TestCmsJspNavBuilder("testLimitedNavigationDepth"));
+        suite.addTest(new TestCmsJspNavBuilder("testSharedOnlineNavigation"));
+        suite.addTest(new TestCmsJspNavBuilder("testSiteNavigationInvalidation"));
+        suite.addTest(new TestCmsJspNavBuilder("testSiteNavigationPerformance"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that a navigation with a limited depth only reads the folders it visits.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLimitedNavigationDepth() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the resources read for a navigation with a limited depth");
+
+        String folder = "/navdepth/";
+        String subFolder = folder + "a/";
+        String subSubFolder = subFolder + "b/";
+        createNavFolder(cms, folder, "Depth");
+        createNavFolder(cms, subFolder, "Depth a");
+        createNavFolder(cms, subSubFolder, "Depth b");
+
+        CmsJspNavBuilder navBuilder = new CmsJspNavBuilder(cms);
+        List<CmsJspNavElement> navigation = navBuilder.getSiteNavigation(
+            folder,
+            CmsResource.getPathLevel(folder) + 1);
+        assertEquals(1, navigation.size());
+        assertEquals(subFolder, navigation.get(0).getResourceName());
+
+        CmsJspNavResourceTree tree = CmsJspNavResourceTreeCache.getInstance().getTree(
+            cms,
+            folder,
+            CmsResourceFilter.DEFAULT);
+        assertFalse(tree.isShared());
+        assertTrue(tree.isFolderRead(cms.addSiteRoot(folder)));
+        assertFalse(tree.isFolderRead(cms.addSiteRoot(subFolder)));
+
+        // the complete navigation reads the complete subtree
+        navigation = navBuilder.getSiteNavigation(folder, -1);
+        assertEquals(2, navigation.size());
+        assertEquals(subSubFolder, navigation.get(1).getResourceName());
+        assertTrue(tree.isFolderRead(cms.addSiteRoot(subSubFolder)));
+    }
+
+    /**
+     * Tests that all users share the navigation resource tree of the online project, and that the
+     * permissions of the current user are still applied.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSharedOnlineNavigation() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the shared navigation resource tree of the online project");
+
+        String folder = "/navshared/";
+        String hiddenFolder = folder + "hidden/";
+        String visibleFolder = folder + "visible/";
+        createNavFolder(cms, folder, "Shared");
+        createNavFolder(cms, hiddenFolder, "Hidden");
+        createNavFolder(cms, visibleFolder, "Visible");
+        cms.chacc(hiddenFolder, I_CmsPrincipal.PRINCIPAL_USER, OpenCms.getDefaultUsers().getUserGuest(), "-r");
+        cms.unlockResource(folder);
+        OpenCms.getPublishManager().publishResource(cms, folder);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject adminCms = getCmsObject();
+        adminCms.getRequestContext().setCurrentProject(adminCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        CmsObject guestCms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+        guestCms.getRequestContext().setSiteRoot(adminCms.getRequestContext().getSiteRoot());
+
+        List<CmsJspNavElement> adminNavigation = new CmsJspNavBuilder(adminCms).getSiteNavigation(folder, -1);
+        List<CmsJspNavElement> guestNavigation = new CmsJspNavBuilder(guestCms).getSiteNavigation(folder, -1);
+        assertEquals(2, adminNavigation.size());
+        assertEquals(1, guestNavigation.size());
+        assertEquals(visibleFolder, guestNavigation.get(0).getResourceName());
+
+        CmsJspNavResourceTreeCache cache = CmsJspNavResourceTreeCache.getInstance();
+        CmsJspNavResourceTree tree = cache.getTree(adminCms, folder, CmsResourceFilter.DEFAULT);
+        assertTrue(tree.isShared());
+        assertSame(tree, cache.getTree(guestCms, folder, CmsResourceFilter.DEFAULT));
+
+        // publishing a resource inside the tree only reads the changed folder again
+        cms.lockResource(visibleFolder);
+        cms.writePropertyObject(
+            visibleFolder,
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, "Changed", null));
+        cms.unlockResource(visibleFolder);
+        OpenCms.getPublishManager().publishResource(cms, visibleFolder);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        assertSame(tree, cache.getTree(guestCms, folder, CmsResourceFilter.DEFAULT));
+        assertTrue(tree.isFolderRead(adminCms.addSiteRoot(hiddenFolder)));
+        guestNavigation = new CmsJspNavBuilder(guestCms).getSiteNavigation(folder, -1);
+        assertEquals(1, guestNavigation.size());
+        assertEquals("Changed", guestNavigation.get(0).getNavText());
+    }
+
+    /**
+     * Tests that the site navigation built from the cached resource tree reflects changes in the VFS.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSiteNavigationInvalidation() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the site navigation after changing the VFS");
+
+        CmsJspNavBuilder navBuilder = new CmsJspNavBuilder(cms);
+        int size = navBuilder.getSiteNavigation("/", -1).size();
+
+        String folder = "/navtest/";
+        List<CmsProperty> properties = new ArrayList<CmsProperty>();
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, "Navigation test", null));
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId(), null, properties);
+        List<CmsJspNavElement> navigation = navBuilder.getSiteNavigation("/", -1);
+        assertEquals(size + 1, navigation.size());
+        assertEquals("Navigation test", findNavElement(navigation, folder).getNavText());
+
+        cms.writePropertyObject(
+            folder,
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, "Changed navigation test", null));
+        navigation = navBuilder.getSiteNavigation("/", -1);
+        assertEquals("Changed navigation test", findNavElement(navigation, folder).getNavText());
+
+        cms.deleteResource(folder, CmsResource.DELETE_PRESERVE_SIBLINGS);
+        assertEquals(size, navBuilder.getSiteNavigation("/", -1).size());
+    }
+
+    /**
+     * Compares the time needed to build the complete site navigation with empty and with filled caches.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSiteNavigationPerformance() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the performance of building the site navigation");
+
+        CmsJspNavBuilder navBuilder = new CmsJspNavBuilder(cms);
+        OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>()));
+        long start = System.currentTimeMillis();
+        List<CmsJspNavElement> coldNavigation = navBuilder.getSiteNavigation("/", -1);
+        long coldTime = System.currentTimeMillis() - start;
+
+        int runs = 10;
+        start = System.currentTimeMillis();
+        List<CmsJspNavElement> warmNavigation = null;
+        for (int i = 0; i < runs; i++) {
+            warmNavigation = navBuilder.getSiteNavigation("/", -1);
+        }
+        long warmTime = (System.currentTimeMillis() - start) / runs;
+
+        echo(
+            "Site navigation with "
+                + coldNavigation.size()
+                + " entries: "
+                + coldTime
+                + " ms with empty caches, "
+                + warmTime
+                + " ms with filled caches");
+        assertEquals(coldNavigation.size(), warmNavigation.size());
+        for (int i = 0; i < coldNavigation.size(); i++) {
+            assertEquals(coldNavigation.get(i).getResourceName(), warmNavigation.get(i).getResourceName());
+        }
+    }
+
+    /**
+     * Creates a folder which is shown in the navigation.<p>
+     *
+     * @param cms the cms context
+     * @param folder the site path of the folder
+     * @param navText the navigation text of the folder
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createNavFolder(CmsObject cms, String folder, String navText) throws Exception {
+
+        List<CmsProperty> properties = new ArrayList<CmsProperty>();
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, navText, null));
+        properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVPOS, "1", null));
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId(), null, properties);
+    }
+
+    /**
+     * Returns the navigation element for the given resource name.<p>
+     *
+     * @param navigation the navigation elements
+     * @param resourceName the resource name to look for
+     *
+     * @return the navigation element
+     */
+    private CmsJspNavElement findNavElement(List<CmsJspNavElement> navigation, String resourceName) {
+
+        for (CmsJspNavElement element : navigation) {
+            if (resourceName.equals(element.getResourceName())) {
+                return element;
+            }
+        }
+        fail("No navigation element found for " + resourceName);
+        return null;
+    }
+}
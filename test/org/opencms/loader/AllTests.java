@@ -59,6 +59,8 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsImageScaler.class));
         suite.addTest(new TestSuite(TestCmsDefaultFileNameGenerator.class));
+        suite.addTest(new TestSuite(TestCmsDumpLoaderStreaming.class));
+        suite.addTest(new TestSuite(TestCmsImageLoader.class));
         //$JUnit-END$
         return suite;
     }
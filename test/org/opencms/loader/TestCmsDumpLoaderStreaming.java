@@ -0,0 +1,418 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbPoolV11;
+import org.opencms.db.I_CmsVfsDriver;
+import org.opencms.db.hsqldb.CmsVfsDriver;
+import org.opencms.file.CmsVfsResourceNotFoundException;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests the streaming delivery of binary contents in the dump loader.<p>
+ */
+public class TestCmsDumpLoaderStreaming extends OpenCmsTestCase {
+
+    /** Number of concurrent downloads in the memory benchmark. */
+    private static final int DOWNLOADS = 50;
+
+    /** Size of each download in the memory benchmark. */
+    private static final int DOWNLOAD_SIZE = 20 * 1024 * 1024;
+
+    /** The URL of the test pool. */
+    private static final String POOL_URL = "opencms:dumpLoaderStreaming";
+
+    /** The offline project used to read the contents. */
+    private static final CmsUUID PROJECT_ID = new CmsUUID();
+
+    /**
+     * SQL manager which serves the test pool from an embedded HSQLDB database and counts the open connections.<p>
+     */
+    static class TestSqlManager extends org.opencms.db.hsqldb.CmsSqlManager {
+
+        /** The number of open connections. */
+        AtomicInteger m_openConnections = new AtomicInteger();
+
+        /**
+         * @see org.opencms.db.CmsSqlManager#getConnectionByUrl(java.lang.String)
+         */
+        @Override
+        public Connection getConnectionByUrl(String dbPoolUrl) throws SQLException {
+
+            String name = dbPoolUrl.substring(CmsDbPoolV11.OPENCMS_URL_PREFIX.length());
+            final Connection conn = DriverManager.getConnection("jdbc:hsqldb:mem:" + name, "sa", "");
+            m_openConnections.incrementAndGet();
+            return (Connection)Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new InvocationHandler() {
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+                        if ("close".equals(method.getName()) && !conn.isClosed()) {
+                            m_openConnections.decrementAndGet();
+                        }
+                        try {
+                            return method.invoke(conn, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+        }
+    }
+
+    /**
+     * Synthetic input stream of a given size, which does not hold its content in memory.<p>
+     */
+    static class SyntheticInputStream extends InputStream {
+
+        /** The remaining number of bytes. */
+        private long m_remaining;
+
+        /**
+         * Creates a new synthetic stream.<p>
+         *
+         * @param size the size of the stream
+         */
+        SyntheticInputStream(long size) {
+
+            m_remaining = size;
+        }
+
+        /**
+         * @see java.io.InputStream#read()
+         */
+        @Override
+        public int read() {
+
+            if (m_remaining <= 0) {
+                return -1;
+            }
+            m_remaining--;
+            return (int)(m_remaining & 0x7f);
+        }
+
+        /**
+         * @see java.io.InputStream#read(byte[], int, int)
+         */
+        @Override
+        public int read(byte[] b, int off, int len) {
+
+            if (m_remaining <= 0) {
+                return -1;
+            }
+            int n = (int)Math.min(len, m_remaining);
+            m_remaining -= n;
+            return n;
+        }
+    }
+
+    /**
+     * Output stream which only counts the written bytes.<p>
+     */
+    static class CountingOutputStream extends OutputStream {
+
+        /** The number of written bytes. */
+        private long m_count;
+
+        /**
+         * Returns the number of written bytes.<p>
+         *
+         * @return the number of written bytes
+         */
+        public long getCount() {
+
+            return m_count;
+        }
+
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        @Override
+        public void write(byte[] b, int off, int len) {
+
+            m_count += len;
+        }
+
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        @Override
+        public void write(int b) {
+
+            m_count++;
+        }
+    }
+
+    /**
+     * Tests copying a range of a stream.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCopyRange() throws Exception {
+
+        byte[] content = "0123456789".getBytes("US-ASCII");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(4, CmsDumpLoader.copyRange(new ByteArrayInputStream(content), out, 2, 4));
+        assertEquals("2345", out.toString("US-ASCII"));
+
+        out = new ByteArrayOutputStream();
+        assertEquals(3, CmsDumpLoader.copyRange(new ByteArrayInputStream(content), out, 7, -1));
+        assertEquals("789", out.toString("US-ASCII"));
+
+        out = new ByteArrayOutputStream();
+        assertEquals(0, CmsDumpLoader.copyRange(new ByteArrayInputStream(content), out, 20, 5));
+        assertEquals(0, out.size());
+    }
+
+    /**
+     * Tests that the database connection is released before the content stream is read.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testContentStreamReleasesConnection() throws Exception {
+
+        TestSqlManager sqlManager = new TestSqlManager();
+        CmsVfsDriver driver = createDriver(sqlManager);
+        for (int size : new int[] {0, 100, (3 * 1024 * 1024) + 17}) {
+            byte[] content = new byte[size];
+            for (int i = 0; i < size; i++) {
+                content[i] = (byte)(i * 31);
+            }
+            CmsUUID resourceId = new CmsUUID();
+            createContent(sqlManager, resourceId, new ByteArrayInputStream(content), size);
+
+            InputStream in = driver.readContentStream(new CmsDbContext(), PROJECT_ID, resourceId);
+            assertEquals(0, sqlManager.m_openConnections.get());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CmsDumpLoader.copyRange(in, out, 0, -1);
+            in.close();
+            assertTrue("Content of size " + size + " differs", Arrays.equals(content, out.toByteArray()));
+        }
+
+        try {
+            driver.readContentStream(new CmsDbContext(), PROJECT_ID, new CmsUUID());
+            fail("Reading a missing content must fail");
+        } catch (CmsVfsResourceNotFoundException e) {
+            // expected
+        }
+        assertEquals(0, sqlManager.m_openConnections.get());
+    }
+
+    /**
+     * Tests the memory consumption of many concurrent large downloads read with the VFS driver.<p>
+     *
+     * All downloads first open their content streams concurrently, then the heap retained by the open streams
+     * is measured. It must stay far below the total size of all downloads, since large contents are spooled
+     * to temporary files and no database connection is held while the content is delivered.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testMemoryOfConcurrentDownloads() throws Exception {
+
+        final TestSqlManager sqlManager = new TestSqlManager();
+        final CmsVfsDriver driver = createDriver(sqlManager);
+        final CmsUUID resourceId = new CmsUUID();
+        createContent(sqlManager, resourceId, new SyntheticInputStream(DOWNLOAD_SIZE), DOWNLOAD_SIZE);
+
+        final Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        final long baseline = runtime.totalMemory() - runtime.freeMemory();
+        final AtomicLong transferred = new AtomicLong();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final InputStream[] streams = new InputStream[DOWNLOADS];
+        final CountDownLatch opened = new CountDownLatch(DOWNLOADS);
+        final CountDownLatch deliver = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < DOWNLOADS; i++) {
+            final int index = i;
+            Thread t = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        try {
+                            streams[index] = driver.readContentStream(new CmsDbContext(), PROJECT_ID, resourceId);
+                        } finally {
+                            opened.countDown();
+                        }
+                        deliver.await();
+                        CountingOutputStream out = new CountingOutputStream();
+                        try {
+                            CmsDumpLoader.copyRange(streams[index], out, 0, -1);
+                        } finally {
+                            streams[index].close();
+                        }
+                        transferred.addAndGet(out.getCount());
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            };
+            t.start();
+            threads.add(t);
+        }
+        long startTime = System.currentTimeMillis();
+        opened.await();
+        long openTime = System.currentTimeMillis() - startTime;
+        System.gc();
+        long retained = (runtime.totalMemory() - runtime.freeMemory()) - baseline;
+        int openConnections = sqlManager.m_openConnections.get();
+        deliver.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        long time = System.currentTimeMillis() - startTime;
+        if (error.get() != null) {
+            throw new Exception(error.get());
+        }
+
+        long total = (long)DOWNLOADS * DOWNLOAD_SIZE;
+        System.out.println(
+            DOWNLOADS
+                + " concurrent downloads of "
+                + (DOWNLOAD_SIZE / (1024 * 1024))
+                + " MB: "
+                + openTime
+                + " ms to read from the database, "
+                + time
+                + " ms in total, heap retained by the open streams "
+                + (retained / 1024)
+                + " KB for "
+                + (total / (1024 * 1024))
+                + " MB transferred");
+        assertEquals(0, openConnections);
+        assertEquals(total, transferred.get());
+        // far less than the content of the open streams
+        assertTrue("Heap retained by the open streams too large: " + retained, retained < (total / 10));
+    }
+
+    /**
+     * Tests parsing of HTTP "Range" headers.<p>
+     */
+    public void testParseRange() {
+
+        assertNull(CmsDumpLoader.parseRange(null, 100));
+        assertNull(CmsDumpLoader.parseRange("items=0-10", 100));
+        assertNull(CmsDumpLoader.parseRange("bytes=abc", 100));
+        assertNull(CmsDumpLoader.parseRange("bytes=0-10,20-30", 100));
+        assertNull(CmsDumpLoader.parseRange("bytes=50-10", 100));
+
+        assertRange(CmsDumpLoader.parseRange("bytes=0-9", 100), 0, 9);
+        assertRange(CmsDumpLoader.parseRange("bytes=90-", 100), 90, 99);
+        assertRange(CmsDumpLoader.parseRange("bytes=90-200", 100), 90, 99);
+        assertRange(CmsDumpLoader.parseRange("bytes=-10", 100), 90, 99);
+        assertRange(CmsDumpLoader.parseRange("bytes=-200", 100), 0, 99);
+
+        assertEquals(0, CmsDumpLoader.parseRange("bytes=100-", 100).length);
+        assertEquals(0, CmsDumpLoader.parseRange("bytes=-0", 100).length);
+    }
+
+    /**
+     * Checks a parsed range.<p>
+     *
+     * @param range the parsed range
+     * @param first the expected first byte position
+     * @param last the expected last byte position
+     */
+    private void assertRange(long[] range, long first, long last) {
+
+        assertNotNull(range);
+        assertEquals(2, range.length);
+        assertEquals(first, range[0]);
+        assertEquals(last, range[1]);
+    }
+
+    /**
+     * Writes a content into the offline contents table of the test database.<p>
+     *
+     * @param sqlManager the SQL manager
+     * @param resourceId the resource id
+     * @param content the content
+     * @param size the size of the content
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private void createContent(TestSqlManager sqlManager, CmsUUID resourceId, InputStream content, int size)
+    throws SQLException {
+
+        try (Connection conn = sqlManager.getConnectionByUrl(POOL_URL)) {
+            conn.createStatement().execute(
+                "CREATE TABLE IF NOT EXISTS CMS_OFFLINE_CONTENTS (RESOURCE_ID VARCHAR(36) NOT NULL, FILE_CONTENT BLOB)");
+            PreparedStatement stmt = conn.prepareStatement("INSERT INTO CMS_OFFLINE_CONTENTS VALUES (?, ?)");
+            stmt.setString(1, resourceId.toString());
+            stmt.setBinaryStream(2, content, size);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Creates a HSQLDB VFS driver reading from the test database.<p>
+     *
+     * @param sqlManager the SQL manager
+     *
+     * @return the VFS driver
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsVfsDriver createDriver(TestSqlManager sqlManager) throws Exception {
+
+        Class.forName("org.hsqldb.jdbcDriver");
+        sqlManager.init(I_CmsVfsDriver.DRIVER_TYPE_ID, POOL_URL);
+        CmsVfsDriver driver = new CmsVfsDriver();
+        driver.setSqlManager(sqlManager);
+        return driver;
+    }
+}
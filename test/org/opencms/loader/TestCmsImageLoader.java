@@ -0,0 +1,183 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeImage;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the scaling of images in the image loader.<p>
+ */
+public class TestCmsImageLoader extends OpenCmsTestCase {
+
+    /** The number of concurrent requests for the same image version. */
+    private static final int THREADS = 8;
+
+    /**
+     * Tests that concurrent requests for the same image version are coalesced into one scaling operation.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCoalescedScaling() throws Exception {
+
+        // read the image from the test directory, usually this would be from the VFS
+        String img01 = "org/opencms/loader/img_01.jpg";
+        byte[] content = CmsFileUtil.readFile(img01);
+        final CmsFile file = new CmsFile(
+            new CmsUUID(),
+            new CmsUUID(),
+            "/" + img01,
+            CmsResourceTypeImage.getStaticTypeId(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            System.currentTimeMillis(),
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            content.length,
+            System.currentTimeMillis(),
+            1,
+            content);
+        // the file already contains its content, so it is not read from the VFS
+        final CmsObject cms = new CmsObject(null, null);
+
+        final CmsImageScalingStatistics statistics = CmsImageScaler.getScalingStatistics();
+        final long coalescedBefore = statistics.getCoalescedCount();
+        long countBefore = statistics.getCount();
+        final AtomicInteger scalings = new AtomicInteger();
+        final CmsImageScaler scaler = new CmsImageScaler("w:200,h:150,t:1,q:80") {
+
+            @Override
+            public byte[] scaleImage(CmsFile scaledFile) {
+
+                scalings.incrementAndGet();
+                // keep the scaling operation running until all other requests wait for it
+                long timeout = System.currentTimeMillis() + 10000;
+                while (((statistics.getCoalescedCount() - coalescedBefore) < (THREADS - 1))
+                    && (System.currentTimeMillis() < timeout)) {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                return super.scaleImage(scaledFile);
+            }
+        };
+
+        File repository = Files.createTempDirectory("opencms-imagecache").toFile();
+        CmsVfsNameBasedDiskCache diskCache = CmsImageLoader.m_vfsDiskCache;
+        CmsImageLoader.m_vfsDiskCache = new CmsVfsNameBasedDiskCache(repository.getAbsolutePath(), "/images");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CmsImageLoader loader = new CmsImageLoader();
+            final String cacheName = CmsImageLoader.m_vfsDiskCache.getCacheName(file, scaler.toString());
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<byte[]>() {
+
+                    public byte[] call() throws Exception {
+
+                        start.await();
+                        return loader.getScaledContent(cms, file, scaler, cacheName);
+                    }
+                }));
+            }
+            start.countDown();
+
+            byte[] scaled = results.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<byte[]> result : results) {
+                assertTrue(Arrays.equals(scaled, result.get(30, TimeUnit.SECONDS)));
+            }
+            assertEquals("The image must be scaled only once", 1, scalings.get());
+            assertEquals(THREADS - 1, statistics.getCoalescedCount() - coalescedBefore);
+            assertEquals(1, statistics.getCount() - countBefore);
+            assertTrue(CmsImageLoader.m_scalingTasks.isEmpty());
+
+            CmsImageScaler scaledImage = new CmsImageScaler(scaled, img01);
+            assertEquals(200, scaledImage.getWidth());
+            assertEquals(150, scaledImage.getHeight());
+            assertTrue(Arrays.equals(scaled, CmsImageLoader.m_vfsDiskCache.getCacheContent(cacheName)));
+
+            // the next request reads the scaled version from the disk cache
+            assertTrue(Arrays.equals(scaled, loader.getScaledContent(cms, file, scaler, cacheName)));
+            assertEquals(1, scalings.get());
+            assertEquals(1, statistics.getCount() - countBefore);
+        } finally {
+            executor.shutdownNow();
+            CmsImageLoader.m_vfsDiskCache = diskCache;
+            CmsFileUtil.purgeDirectory(repository);
+        }
+    }
+
+    /**
+     * Tests the calculation of the image scaling statistics.<p>
+     */
+    public void testScalingStatistics() {
+
+        CmsImageScalingStatistics statistics = new CmsImageScalingStatistics();
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getAverageQueueTime());
+        assertEquals(0, statistics.getAverageScalingTime());
+
+        statistics.addScaling(TimeUnit.MILLISECONDS.toNanos(2), TimeUnit.MILLISECONDS.toNanos(10));
+        statistics.addScaling(TimeUnit.MILLISECONDS.toNanos(4), TimeUnit.MILLISECONDS.toNanos(20));
+        statistics.addCoalescedRequest();
+        assertEquals(2, statistics.getCount());
+        assertEquals(1, statistics.getCoalescedCount());
+        assertEquals(3, statistics.getAverageQueueTime());
+        assertEquals(15, statistics.getAverageScalingTime());
+        assertEquals(4, statistics.getMaxQueueTime());
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.file.CmsProject;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+
+import junit.framework.TestCase;
+
+/**
+ * Test cases for the lock path index.<p>
+ */
+public class TestCmsLockPathIndex extends TestCase {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(TestCmsLockPathIndex.class);
+
+    /** The number of outstanding locks used for the throughput test. */
+    private static final int OUTSTANDING_LOCKS = 100000;
+
+    /** The dummy project used for the test locks. */
+    private CmsProject m_project = new CmsProject();
+
+    /** The dummy user id used for the test locks. */
+    private CmsUUID m_userId = new CmsUUID();
+
+    /**
+     * Tests that files and folders with the same name are kept apart.<p>
+     */
+    public void testFileAndFolder() {
+
+        CmsLockPathIndex index = new CmsLockPathIndex();
+        index.add(lock("/a/b/"));
+        index.add(lock("/a/b"));
+        index.add(lock("/a/bc"));
+        index.add(lock("/a/b/c.txt"));
+        assertEquals(paths("/a/b/", "/a/b/c.txt"), paths(index.getSubtreeLocks("/a/b/", true)));
+        assertEquals(paths("/a/b"), paths(index.getSubtreeLocks("/a/b", true)));
+        assertEquals(paths("/a/b/"), paths(index.getParentFolderLocks("/a/b/c.txt")));
+        assertEquals(4, index.size());
+    }
+
+    /**
+     * Tests the parent folder lookup.<p>
+     */
+    public void testParentFolderLocks() {
+
+        CmsLockPathIndex index = new CmsLockPathIndex();
+        index.add(lock("/"));
+        index.add(lock("/sites/"));
+        index.add(lock("/sites/default/folder/"));
+        index.add(lock("/sites/default/folder/index.html"));
+        index.add(lock("/system/"));
+        List<CmsLock> parents = index.getParentFolderLocks("/sites/default/folder/index.html");
+        assertEquals(3, parents.size());
+        assertEquals("/", parents.get(0).getResourceName());
+        assertEquals("/sites/", parents.get(1).getResourceName());
+        assertEquals("/sites/default/folder/", parents.get(2).getResourceName());
+        assertTrue(index.getParentFolderLocks("/").isEmpty());
+        assertEquals(paths("/", "/sites/"), paths(index.getParentFolderLocks("/sites/other/a.txt")));
+    }
+
+    /**
+     * Tests removing locks, including the pruning of empty nodes.<p>
+     */
+    public void testRemove() {
+
+        CmsLockPathIndex index = new CmsLockPathIndex();
+        index.add(lock("/a/b/c/d.txt"));
+        index.add(lock("/a/"));
+        index.remove("/a/b/c/d.txt");
+        assertNull(index.get("/a/b/c/d.txt"));
+        assertEquals(paths("/a/"), paths(index.getSubtreeLocks("/", true)));
+        index.remove("/a/");
+        index.remove("/not/indexed/");
+        assertEquals(0, index.size());
+        assertTrue(index.getSubtreeLocks("/", true).isEmpty());
+    }
+
+    /**
+     * Tests the subtree lookup.<p>
+     */
+    public void testSubtreeLocks() {
+
+        CmsLockPathIndex index = new CmsLockPathIndex();
+        index.add(lock("/sites/default/"));
+        index.add(lock("/sites/default/a/"));
+        index.add(lock("/sites/default/a/b.html"));
+        index.add(lock("/sites/default/c.html"));
+        index.add(lock("/sites/defaultother/d.html"));
+        assertEquals(
+            paths("/sites/default/a/", "/sites/default/a/b.html", "/sites/default/c.html"),
+            paths(index.getSubtreeLocks("/sites/default/", false)));
+        assertEquals(
+            paths("/sites/default/", "/sites/default/a/", "/sites/default/a/b.html", "/sites/default/c.html"),
+            paths(index.getSubtreeLocks("/sites/default/", true)));
+        assertTrue(index.getSubtreeLocks("/sites/missing/", true).isEmpty());
+    }
+
+    /**
+     * Measures lock/unlock throughput with many outstanding locks, compared to a linear scan over all locks.<p>
+     */
+    public void testThroughputWithOutstandingLocks() {
+
+        CmsLockPathIndex index = new CmsLockPathIndex();
+        ConcurrentHashMap<String, CmsLock> flat = new ConcurrentHashMap<String, CmsLock>();
+        for (int i = 0; i < OUTSTANDING_LOCKS; i++) {
+            CmsLock lock = lock(testPath(i));
+            index.add(lock);
+            flat.put(lock.getResourceName(), lock);
+        }
+        assertEquals(OUTSTANDING_LOCKS, index.size());
+
+        int operations = 1000;
+        // lock + parent lookup + subtree lookup + unlock, as done by the lock manager for a folder lock
+        long start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < operations; i++) {
+            String folder = "/sites/default/bench/f" + (i % 100) + "/extra" + i + "/";
+            index.add(lock(folder));
+            found += index.getParentFolderLocks(folder + "x.html").size();
+            found += index.getSubtreeLocks(folder, false).size();
+            index.remove(folder);
+        }
+        long indexTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int scanFound = 0;
+        for (int i = 0; i < operations; i++) {
+            String folder = "/sites/default/bench/f" + (i % 100) + "/extra" + i + "/";
+            flat.put(folder, lock(folder));
+            String child = folder + "x.html";
+            for (CmsLock lock : new ArrayList<CmsLock>(flat.values())) {
+                String name = lock.getResourceName();
+                if (name.endsWith("/") && child.startsWith(name) && !child.equals(name)) {
+                    scanFound++;
+                }
+            }
+            for (CmsLock lock : new ArrayList<CmsLock>(flat.values())) {
+                String name = lock.getResourceName();
+                if (name.startsWith(folder) && !name.equals(folder)) {
+                    scanFound++;
+                }
+            }
+            flat.remove(folder);
+        }
+        long scanTime = System.nanoTime() - start;
+
+        assertEquals(scanFound, found);
+        assertEquals(OUTSTANDING_LOCKS, index.size());
+        LOG.info(
+            "Lock index with "
+                + OUTSTANDING_LOCKS
+                + " outstanding locks: "
+                + ((operations * 1000000000L) / Math.max(1, indexTime))
+                + " lock/unlock cycles/s (index) vs. "
+                + ((operations * 1000000000L) / Math.max(1, scanTime))
+                + " lock/unlock cycles/s (linear scan)");
+    }
+
+    /**
+     * Creates a test lock for the given path.<p>
+     *
+     * @param path the root path
+     *
+     * @return the lock
+     */
+    private CmsLock lock(String path) {
+
+        return new CmsLock(path, m_userId, m_project, CmsLockType.EXCLUSIVE);
+    }
+
+    /**
+     * Returns the resource names of the given locks as a set.<p>
+     *
+     * @param locks the locks
+     *
+     * @return the set of resource names
+     */
+    private Set<String> paths(List<CmsLock> locks) {
+
+        Set<String> result = new HashSet<String>();
+        for (CmsLock lock : locks) {
+            result.add(lock.getResourceName());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the given paths as a set.<p>
+     *
+     * @param paths the paths
+     *
+     * @return the set of paths
+     */
+    private Set<String> paths(String... paths) {
+
+        Set<String> result = new HashSet<String>();
+        for (String path : paths) {
+            result.add(path);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a test path for the lock with the given number.<p>
+     *
+     * @param i the lock number
+     *
+     * @return the test path
+     */
+    private String testPath(int i) {
+
+        return "/sites/default/bench/f" + (i % 100) + "/g" + ((i / 100) % 100) + "/r" + i + ".html";
+    }
+}
@@ -66,6 +66,7 @@ public final class AllTests {
         suite.addTest(TestOpenCmsSingleton.suite());
         suite.addTest(TestCmsEvents.suite());
         suite.addTest(TestCmsSystemInfo.suite());
+        suite.addTest(new TestSuite(TestClusterEventTransport.class));
         // $JUnit-END$
         return suite;
     }
@@ -0,0 +1,336 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import org.opencms.cache.CmsVfsCache;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the replication of events between cluster nodes.<p>
+ */
+public class TestClusterEventTransport extends TestCase {
+
+    /**
+     * Transport which records the sent batches and can be switched to fail.<p>
+     */
+    public static class TestTransport implements I_CmsClusterEventTransport {
+
+        /** The configuration. */
+        private CmsParameterConfiguration m_configuration = new CmsParameterConfiguration();
+
+        /** Indicates if sending fails. */
+        private boolean m_fail;
+
+        /** The batches sent successfully. */
+        private List<List<CmsEvent>> m_sent = new ArrayList<List<CmsEvent>>();
+
+        /**
+         * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+         */
+        public void addConfigurationParameter(String paramName, String paramValue) {
+
+            m_configuration.add(paramName, paramValue);
+        }
+
+        /**
+         * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+         */
+        public CmsParameterConfiguration getConfiguration() {
+
+            return m_configuration;
+        }
+
+        /**
+         * Returns the batches sent successfully.<p>
+         *
+         * @return the batches sent successfully
+         */
+        public List<List<CmsEvent>> getSent() {
+
+            return m_sent;
+        }
+
+        /**
+         * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+         */
+        public void initConfiguration() {
+
+            // nothing to configure
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsClusterEventTransport#receive()
+         */
+        public List<CmsEvent> receive() {
+
+            return Collections.emptyList();
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsClusterEventTransport#send(java.util.List)
+         */
+        public void send(List<CmsEvent> events) throws IOException {
+
+            if (m_fail) {
+                throw new IOException("Sending failed as intended");
+            }
+            m_sent.add(events);
+        }
+
+        /**
+         * Sets if sending fails.<p>
+         *
+         * @param fail <code>true</code> if sending should fail
+         */
+        public void setFail(boolean fail) {
+
+            m_fail = fail;
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsClusterEventTransport#shutDown()
+         */
+        public void shutDown() {
+
+            // nothing to shut down
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsClusterEventTransport#start(java.lang.String)
+         */
+        public void start(String nodeId) {
+
+            // nothing to start
+        }
+    }
+
+    /**
+     * Tests encoding and decoding of event data.<p>
+     */
+    public void testEncodeDecode() {
+
+        CmsUUID id = new CmsUUID("01234567-89ab-cdef-0123-456789abcdef");
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("string", "a:b=c");
+        data.put("boolean", Boolean.TRUE);
+        data.put("integer", Integer.valueOf(42));
+        data.put("long", Long.valueOf(4711L));
+        data.put("uuid", id);
+        data.put("object", new Object());
+
+        Map<String, Object> decoded = CmsClusterEventManager.decodeData(CmsClusterEventManager.encodeData(data));
+        assertEquals("a:b=c", decoded.get("string"));
+        assertEquals(Boolean.TRUE, decoded.get("boolean"));
+        assertEquals(Integer.valueOf(42), decoded.get("integer"));
+        assertEquals(Long.valueOf(4711L), decoded.get("long"));
+        assertEquals(id, decoded.get("uuid"));
+        // values that can not be encoded are dropped
+        assertFalse(decoded.containsKey("object"));
+        assertEquals(5, decoded.size());
+    }
+
+    /**
+     * Tests exchanging events between two nodes through a journal directory.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testFileTransport() throws Exception {
+
+        File directory = Files.createTempDirectory("opencms-cluster").toFile();
+        try {
+            CmsFileClusterEventTransport nodeA = createTransport(directory, "node-a");
+            CmsFileClusterEventTransport nodeB = createTransport(directory, "node-b");
+
+            Map<String, Object> data = new HashMap<String, Object>(
+                CmsClusterEventManager.encodeData(
+                    Collections.singletonMap(I_CmsEventListener.KEY_PUBLISHID, "4711")));
+            List<CmsEvent> events = new ArrayList<CmsEvent>();
+            events.add(new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, data));
+            events.add(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, null));
+            nodeA.send(events);
+
+            // the sending node does not receive its own events
+            assertTrue(nodeA.receive().isEmpty());
+
+            List<CmsEvent> received = nodeB.receive();
+            assertEquals(2, received.size());
+            assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, received.get(0).getType());
+            assertEquals(
+                "4711",
+                CmsClusterEventManager.decodeData(received.get(0).getData()).get(I_CmsEventListener.KEY_PUBLISHID));
+            assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, received.get(1).getType());
+
+            // events are only received once
+            assertTrue(nodeB.receive().isEmpty());
+
+            // nodes started later do not receive older events
+            Thread.sleep(5);
+            CmsFileClusterEventTransport nodeC = createTransport(directory, "node-c");
+            assertTrue(nodeC.receive().isEmpty());
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * Tests the parsing of configured event types.<p>
+     */
+    public void testParseEventType() {
+
+        assertEquals(
+            Integer.valueOf(I_CmsEventListener.EVENT_PUBLISH_PROJECT),
+            CmsClusterEventManager.parseEventType("EVENT_PUBLISH_PROJECT"));
+        assertEquals(
+            Integer.valueOf(I_CmsEventListener.EVENT_CLEAR_CACHES),
+            CmsClusterEventManager.parseEventType(" CLEAR_CACHES "));
+        assertEquals(Integer.valueOf(4711), CmsClusterEventManager.parseEventType("4711"));
+        assertNull(CmsClusterEventManager.parseEventType("NO_SUCH_EVENT"));
+    }
+
+    /**
+     * Tests that VFS caches flush the offline cache for resource events replicated from other nodes.<p>
+     */
+    public void testRemoteResourceEvent() {
+
+        final List<String> calls = new ArrayList<String>();
+        CmsVfsCache cache = new CmsVfsCache() {
+
+            @Override
+            protected void flush(boolean online) {
+
+                calls.add("flush " + online);
+            }
+
+            @Override
+            protected void uncacheResource(CmsResource resource) {
+
+                calls.add("uncache " + resource);
+            }
+        };
+
+        // the changed resources are not replicated, so the offline cache is flushed
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_CLUSTER_NODE, "node-b");
+        cache.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data));
+        cache.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_RESOURCES_MODIFIED, data));
+        assertEquals(Arrays.asList("flush false", "flush false"), calls);
+
+        // published resources are read from the database, so replicated publish events only flush the online cache
+        calls.clear();
+        cache.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, data));
+        assertEquals(Arrays.asList("flush true"), calls);
+
+        // local events still uncache the single resources
+        calls.clear();
+        cache.cmsEvent(
+            new CmsEvent(
+                I_CmsEventListener.EVENT_RESOURCES_MODIFIED,
+                Collections.<String, Object> singletonMap(
+                    I_CmsEventListener.KEY_RESOURCES,
+                    Collections.singletonList(null))));
+        assertEquals(Arrays.asList("uncache null"), calls);
+    }
+
+    /**
+     * Tests that events are not lost if the transport fails to send them.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testTransportFailure() throws Exception {
+
+        CmsClusterEventManager manager = new CmsClusterEventManager();
+        manager.addConfigurationParameter(CmsClusterEventManager.PARAM_TRANSPORT, TestTransport.class.getName());
+        manager.addConfigurationParameter(CmsClusterEventManager.PARAM_EVENTS, "PUBLISH_PROJECT,CLEAR_CACHES");
+        manager.initConfiguration();
+        TestTransport transport = (TestTransport)manager.getTransport();
+
+        transport.setFail(true);
+        manager.fireEvent(
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            new HashMap<String, Object>(Collections.singletonMap(I_CmsEventListener.KEY_PUBLISHID, "4711")));
+        manager.exchangeEvents();
+        assertTrue(transport.getSent().isEmpty());
+
+        // the failed batch is sent again together with the new events, without duplicates
+        transport.setFail(false);
+        manager.fireEvent(
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            new HashMap<String, Object>(Collections.singletonMap(I_CmsEventListener.KEY_PUBLISHID, "4711")));
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.exchangeEvents();
+        assertEquals(1, transport.getSent().size());
+        List<CmsEvent> sent = transport.getSent().get(0);
+        assertEquals(2, sent.size());
+        assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, sent.get(0).getType());
+        assertEquals(
+            "4711",
+            CmsClusterEventManager.decodeData(sent.get(0).getData()).get(I_CmsEventListener.KEY_PUBLISHID));
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, sent.get(1).getType());
+
+        // sent events are not sent again
+        manager.exchangeEvents();
+        assertEquals(1, transport.getSent().size());
+    }
+
+    /**
+     * Creates and starts a file transport for the given node.<p>
+     *
+     * @param directory the journal directory
+     * @param nodeId the node id
+     *
+     * @return the started transport
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsFileClusterEventTransport createTransport(File directory, String nodeId) throws Exception {
+
+        CmsFileClusterEventTransport transport = new CmsFileClusterEventTransport();
+        transport.addConfigurationParameter(CmsFileClusterEventTransport.PARAM_DIRECTORY, directory.getAbsolutePath());
+        transport.initConfiguration();
+        transport.start(nodeId);
+        return transport;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.publish;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the conflict detection used to decide which publish jobs may run concurrently.<p>
+ */
+public class TestCmsPublishConflictSet extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsPublishConflictSet(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that publish jobs with unrelated resources do not conflict.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testDisjointResources() throws Exception {
+
+        CmsPublishConflictSet first = createSet(createResource("/sites/default/a/index.html", new CmsUUID()));
+        CmsPublishConflictSet second = createSet(
+            createResource("/sites/default/b/index.html", new CmsUUID()),
+            createResource("/sites/default/ab/index.html", new CmsUUID()));
+        assertFalse(first.conflictsWith(second));
+        assertFalse(second.conflictsWith(first));
+    }
+
+    /**
+     * Tests that a publish job conflicts with a publish job publishing one of the parent folders.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testParentFolder() throws Exception {
+
+        CmsPublishConflictSet folder = createSet(createResource("/sites/default/a/", new CmsUUID()));
+        CmsPublishConflictSet file = createSet(createResource("/sites/default/a/b/index.html", new CmsUUID()));
+        assertTrue(folder.conflictsWith(file));
+        assertTrue(file.conflictsWith(folder));
+    }
+
+    /**
+     * Tests that publish jobs with the same resource or siblings of the same resource conflict.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSameResourceAndSiblings() throws Exception {
+
+        CmsUUID resourceId = new CmsUUID();
+        CmsPublishConflictSet first = createSet(createResource("/sites/default/a/index.html", resourceId));
+        CmsPublishConflictSet second = createSet(createResource("/sites/default/b/sibling.html", resourceId));
+        CmsPublishConflictSet third = createSet(createResource("/sites/default/a/index.html", new CmsUUID()));
+        assertTrue(first.conflictsWith(second));
+        assertTrue(first.conflictsWith(third));
+    }
+
+    /**
+     * Creates a dummy resource.<p>
+     *
+     * @param rootPath the root path
+     * @param resourceId the resource id
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(String rootPath, CmsUUID resourceId) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            resourceId,
+            rootPath,
+            0,
+            CmsResource.isFolder(rootPath),
+            0,
+            null,
+            null,
+            0,
+            null,
+            0,
+            null,
+            0,
+            0,
+            0,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Creates a conflict set for the given resources.<p>
+     *
+     * @param resources the resources
+     *
+     * @return the conflict set
+     */
+    private CmsPublishConflictSet createSet(CmsResource... resources) {
+
+        return new CmsPublishConflictSet(Arrays.asList(resources));
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.search.solr;
+
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsShellReport;
+import org.opencms.search.I_CmsSearchIndex;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.io.File;
+import java.util.Locale;
+
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.core.CoreContainer;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the rebuild of a Solr index in a shadow core.<p>
+ *
+ * @since 20.0.0
+ */
+public class TestSolrShadowRebuild extends OpenCmsTestCase {
+
+    /** The name of the index used for the tests. */
+    private static final String INDEX_SHADOW = "Test shadow rebuild";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestSolrShadowRebuild(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestSolrShadowRebuild.class.getName());
+
+        suite.addTest(new TestSolrShadowRebuild("testShadowRebuildSwapsCores"));
+        suite.addTest(new TestSolrShadowRebuild("testFailedShadowRebuildKeepsLiveCore"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/", "/../org/opencms/search/solr");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that a failed shadow rebuild leaves the live core and its data directory untouched.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailedShadowRebuildKeepsLiveCore() throws Exception {
+
+        echo("Testing that a failed shadow rebuild keeps the live core");
+        CmsSolrIndex index = getShadowIndex();
+        String liveDataDir = index.getDataDir();
+        long numFound = index.search(getCmsObject(), "q=*:*").getNumFound();
+        assertTrue("The live core must contain documents", numFound > 0);
+
+        // block the data directory of the shadow core with a plain file, so the shadow core can not be created
+        File blocker = new File(index.getShadowDataDir());
+        assertTrue(blocker.createNewFile());
+        try {
+            try {
+                OpenCms.getSearchManager().rebuildIndex(INDEX_SHADOW, new CmsShellReport(Locale.ENGLISH));
+                fail("Rebuilding the index in a blocked shadow core must fail");
+            } catch (Exception e) {
+                // expected
+            }
+            assertEquals(liveDataDir, index.getDataDir());
+            assertFalse(getCoreContainer(index).getAllCoreNames().contains(index.getShadowCoreName()));
+            assertEquals(numFound, index.search(getCmsObject(), "q=*:*").getNumFound());
+        } finally {
+            blocker.delete();
+        }
+
+        // the next rebuild must work again
+        OpenCms.getSearchManager().rebuildIndex(INDEX_SHADOW, new CmsShellReport(Locale.ENGLISH));
+        assertFalse(liveDataDir.equals(index.getDataDir()));
+        assertEquals(numFound, index.search(getCmsObject(), "q=*:*").getNumFound());
+    }
+
+    /**
+     * Tests that a shadow rebuild swaps the cores and removes the former live core afterwards.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testShadowRebuildSwapsCores() throws Exception {
+
+        echo("Testing the rebuild of an index in a shadow core");
+        CmsSolrIndex index = getShadowIndex();
+        assertTrue(index.isShadowRebuild());
+        CoreContainer container = getCoreContainer(index);
+
+        String firstDataDir = index.getDataDir();
+        long numFound = index.search(getCmsObject(), "q=*:*").getNumFound();
+        assertTrue("The live core must contain documents", numFound > 0);
+
+        // first rebuild: the shadow core becomes the live core
+        String secondDataDir = index.getShadowDataDir();
+        assertFalse(firstDataDir.equals(secondDataDir));
+        OpenCms.getSearchManager().rebuildIndex(INDEX_SHADOW, new CmsShellReport(Locale.ENGLISH));
+        assertEquals(secondDataDir, index.getDataDir());
+        assertEquals(
+            new File(secondDataDir).getAbsolutePath(),
+            container.getCoreDescriptor(index.getCoreName()).getDataDir());
+        assertFalse(
+            "The former live core must be removed",
+            container.getAllCoreNames().contains(index.getShadowCoreName()));
+        assertFalse("The data of the former live core must be removed", new File(firstDataDir).exists());
+        assertEquals(numFound, index.search(getCmsObject(), "q=*:*").getNumFound());
+
+        // second rebuild: the cores alternate back to the first data directory
+        assertEquals(firstDataDir, index.getShadowDataDir());
+        OpenCms.getSearchManager().rebuildIndex(INDEX_SHADOW, new CmsShellReport(Locale.ENGLISH));
+        assertEquals(firstDataDir, index.getDataDir());
+        assertFalse(container.getAllCoreNames().contains(index.getShadowCoreName()));
+        assertFalse(new File(secondDataDir).exists());
+        assertEquals(numFound, index.search(getCmsObject(), "q=*:*").getNumFound());
+    }
+
+    /**
+     * Returns the core container of the given embedded index.<p>
+     *
+     * @param index the index
+     *
+     * @return the core container
+     */
+    private CoreContainer getCoreContainer(CmsSolrIndex index) {
+
+        return ((EmbeddedSolrServer)index.m_solr).getCoreContainer();
+    }
+
+    /**
+     * Returns the index used for the tests, creating and filling it if required.<p>
+     *
+     * @return the index used for the tests
+     *
+     * @throws Exception if creating the index fails
+     */
+    private CmsSolrIndex getShadowIndex() throws Exception {
+
+        CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(INDEX_SHADOW);
+        if (index == null) {
+            index = new CmsSolrIndex(INDEX_SHADOW);
+            index.setProject("Offline");
+            index.setLocale(Locale.ENGLISH);
+            index.setRebuildMode(I_CmsSearchIndex.REBUILD_MODE_AUTO);
+            index.setFieldConfigurationName("solr_fields");
+            index.addSourceName("solr_source");
+            index.addConfigurationParameter(CmsSolrIndex.SOLR_SHADOW_REBUILD, "true");
+            index.addConfigurationParameter(CmsSolrIndex.SOLR_SHADOW_REBUILD_THREADS, "2");
+            OpenCms.getSearchManager().addSearchIndex(index);
+            OpenCms.getSearchManager().rebuildIndex(INDEX_SHADOW, new CmsShellReport(Locale.ENGLISH));
+        }
+        return index;
+    }
+}
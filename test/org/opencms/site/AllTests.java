@@ -27,6 +27,7 @@
 
 package org.opencms.site;
 
+import org.opencms.site.xmlsitemap.TestCmsXmlSitemapParts;
 import org.opencms.test.OpenCmsTestProperties;
 
 import junit.framework.Test;
@@ -60,6 +61,8 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(TestCmsSiteConfiguration.suite());
         suite.addTestSuite(TestSiteConfigSerialization.class);
+        suite.addTestSuite(TestCmsSitePathIndex.class);
+        suite.addTestSuite(TestCmsXmlSitemapParts.class);
         //$JUnit-END$
         return suite;
     }
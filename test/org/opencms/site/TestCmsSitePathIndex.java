@@ -0,0 +1,208 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.site;
+
+import org.opencms.util.CmsStringUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the index of site roots used for resolving the site of a root path.<p>
+ */
+public class TestCmsSitePathIndex extends TestCase {
+
+    /** The number of sites used in the benchmark. */
+    private static final int BENCHMARK_SITES = 1000;
+
+    /** The number of lookups in the benchmark. */
+    private static final int BENCHMARK_LOOKUPS = 20000;
+
+    /**
+     * Creates a site with the given site root.<p>
+     *
+     * @param siteRoot the site root
+     *
+     * @return the site
+     */
+    private static CmsSite site(String siteRoot) {
+
+        return new CmsSite(siteRoot, "http://" + siteRoot.replace('/', '-').substring(1) + ".example.org");
+    }
+
+    /**
+     * Compares the index with a linear search over all site roots.<p>
+     */
+    public void testBenchmark() {
+
+        List<CmsSite> sites = new ArrayList<CmsSite>();
+        CmsSitePathIndex index = new CmsSitePathIndex();
+        for (int i = 0; i < BENCHMARK_SITES; i++) {
+            CmsSite site;
+            if ((i % 10) == 0) {
+                // some sites outside of the "/sites/" folder
+                site = site("/shared/customers/site" + i);
+                index.add(site.getSiteRoot(), site, CmsSitePathIndex.KIND_ADDITIONAL);
+            } else {
+                site = site("/sites/site" + i);
+                index.add(site.getSiteRoot(), site, CmsSitePathIndex.KIND_SITES_FOLDER);
+            }
+            sites.add(site);
+        }
+        String[] paths = new String[BENCHMARK_LOOKUPS];
+        for (int i = 0; i < paths.length; i++) {
+            int site = (i * 31) % (BENCHMARK_SITES + 100);
+            String base = (site % 10) == 0 ? "/shared/customers/site" : "/sites/site";
+            paths[i] = base + site + "/folder" + (i % 7) + "/page" + i + ".html/";
+        }
+
+        // warm up
+        int expected = lookupLinear(sites, paths, 1000);
+        assertEquals(expected, lookupIndexed(index, paths, 1000));
+
+        long start = System.nanoTime();
+        int linear = lookupLinear(sites, paths, paths.length);
+        long linearTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int indexed = lookupIndexed(index, paths, paths.length);
+        long indexedTime = System.nanoTime() - start;
+
+        System.out.println(
+            "Resolving "
+                + paths.length
+                + " root paths with "
+                + sites.size()
+                + " sites: "
+                + (linearTime / 1000000)
+                + " ms with linear search, "
+                + (indexedTime / 1000000)
+                + " ms with the index");
+        assertEquals(linear, indexed);
+        assertTrue(indexedTime < linearTime);
+    }
+
+    /**
+     * Tests that the deepest site root wins within the same kind.<p>
+     */
+    public void testDeepestMatch() {
+
+        CmsSite outer = site("/shared/outer");
+        CmsSite inner = site("/shared/outer/inner");
+
+        CmsSitePathIndex index = new CmsSitePathIndex();
+        index.add(outer.getSiteRoot(), outer, CmsSitePathIndex.KIND_ADDITIONAL);
+        index.add(inner.getSiteRoot(), inner, CmsSitePathIndex.KIND_ADDITIONAL);
+
+        assertSame(outer, index.getSiteForRootPath("/shared/outer/"));
+        assertSame(outer, index.getSiteForRootPath("/shared/outer/x/"));
+        assertSame(inner, index.getSiteForRootPath("/shared/outer/inner/x/"));
+    }
+
+    /**
+     * Tests the order in which the kinds of sites are checked.<p>
+     */
+    public void testKinds() {
+
+        CmsSite parent = site("/sites/parent");
+        CmsSite nested = site("/sites/parent/nested");
+        CmsSite deep = site("/sites/parent/sub/deep");
+        CmsSite other = site("/other");
+        CmsSite alternative = site("/sites/parent/alt");
+
+        CmsSitePathIndex index = new CmsSitePathIndex();
+        index.add(parent.getSiteRoot(), parent, CmsSitePathIndex.KIND_SITES_FOLDER);
+        index.add(nested.getSiteRoot(), nested, CmsSitePathIndex.KIND_NESTED);
+        index.add(deep.getSiteRoot(), deep, CmsSitePathIndex.KIND_ADDITIONAL);
+        index.add(other.getSiteRoot(), other, CmsSitePathIndex.KIND_ADDITIONAL);
+        index.add(alternative.getSiteRoot() + "/", alternative, CmsSitePathIndex.KIND_ALTERNATIVE);
+
+        assertSame(parent, index.getSiteForRootPath("/sites/parent/"));
+        assertSame(parent, index.getSiteForRootPath("/sites/parent/index.html/"));
+        // nested sites win over their parent site
+        assertSame(nested, index.getSiteForRootPath("/sites/parent/nested/"));
+        assertSame(nested, index.getSiteForRootPath("/sites/parent/nested/a/b/"));
+        // sites directly below the "/sites/" folder win over additional and alternative sites
+        assertSame(parent, index.getSiteForRootPath("/sites/parent/sub/deep/x/"));
+        assertSame(parent, index.getSiteForRootPath("/sites/parent/alt/x/"));
+        assertSame(other, index.getSiteForRootPath("/other/x/"));
+        assertSame(alternative, index.getSiteForRootPath("/sites/parent/alt/"));
+
+        assertNull(index.getSiteForRootPath("/sites/parentx/"));
+        assertNull(index.getSiteForRootPath("/sites/parent"));
+        assertNull(index.getSiteForRootPath("/othe/"));
+        assertNull(index.getSiteForRootPath(""));
+        assertNull(index.getSiteForRootPath("/"));
+    }
+
+    /**
+     * Resolves the given paths with the index.<p>
+     *
+     * @param index the index
+     * @param paths the paths
+     * @param count the number of paths to resolve
+     *
+     * @return the number of resolved paths
+     */
+    private int lookupIndexed(CmsSitePathIndex index, String[] paths, int count) {
+
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            if (index.getSiteForRootPath(paths[i]) != null) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the given paths with a linear search over all sites.<p>
+     *
+     * @param sites the sites
+     * @param paths the paths
+     * @param count the number of paths to resolve
+     *
+     * @return the number of resolved paths
+     */
+    private int lookupLinear(List<CmsSite> sites, String[] paths, int count) {
+
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            for (CmsSite site : sites) {
+                if (CmsStringUtil.isPrefixPath(site.getSiteRoot(), paths[i])) {
+                    result++;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.site.xmlsitemap;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the splitting of large XML sitemaps into several files and the sitemap cache entries.<p>
+ */
+public class TestCmsXmlSitemapParts extends TestCase {
+
+    /**
+     * Writes a file with the given content.<p>
+     *
+     * @param folder the folder
+     * @param name the file name
+     * @param content the file content
+     *
+     * @return the file
+     *
+     * @throws IOException if writing the file fails
+     */
+    private static File writeFile(File folder, String name, String content) throws IOException {
+
+        File file = new File(folder, name);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * Tests that the cache entry writes the index and its files, and deletes them.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testEntryFiles() throws Exception {
+
+        File folder = File.createTempFile("sitemap", "");
+        folder.delete();
+        folder.mkdirs();
+        try {
+            File part1 = writeFile(folder, "part1.xml", "<urlset>1</urlset>");
+            File part2 = writeFile(folder, "part2.xml", "<urlset>\u00e4</urlset>");
+            String index = "<sitemapindex/>";
+            CmsXmlSitemapCacheEntry entry = new CmsXmlSitemapCacheEntry(
+                Arrays.asList(part1, part2),
+                index,
+                "/sites/default",
+                null);
+            assertEquals(2, entry.getPartCount());
+            assertEquals(part1.length() + part2.length() + index.length(), entry.getSize());
+
+            StringWriter out = new StringWriter();
+            assertTrue(entry.writeDocument(out));
+            assertEquals(index, out.toString());
+            out = new StringWriter();
+            assertTrue(entry.writePart(2, out));
+            assertEquals("<urlset>\u00e4</urlset>", out.toString());
+            assertFalse(entry.writePart(0, new StringWriter()));
+            assertFalse(entry.writePart(3, new StringWriter()));
+
+            entry.delete();
+            assertFalse(part1.exists());
+            assertFalse(part2.exists());
+            // a deleted entry is treated like a missing file
+            assertFalse(entry.writePart(1, new StringWriter()));
+
+            // without an index, the single file is the document
+            File single = writeFile(folder, "single.xml", "<urlset/>");
+            entry = new CmsXmlSitemapCacheEntry(Collections.singletonList(single), null, null, null);
+            out = new StringWriter();
+            assertTrue(entry.writeDocument(out));
+            assertEquals("<urlset/>", out.toString());
+            entry.delete();
+        } finally {
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    /**
+     * Tests the generated sitemap index.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testIndex() throws Exception {
+
+        List<String> links = CmsXmlSitemapActionElement.getPartLinks("http://www.example.org/sitemap.xml", 3);
+        assertEquals(
+            Arrays.asList(
+                "http://www.example.org/sitemap.xml?part=1",
+                "http://www.example.org/sitemap.xml?part=2",
+                "http://www.example.org/sitemap.xml?part=3"),
+            links);
+        links = CmsXmlSitemapActionElement.getPartLinks("http://www.example.org/sitemap.xml?__locale=de", 2);
+        assertEquals("http://www.example.org/sitemap.xml?__locale=de&part=2", links.get(1));
+
+        StringWriter out = new StringWriter();
+        CmsXmlSitemapGenerator.writeSitemapIndex(out, links);
+        assertTrue(out.toString().contains("<loc>http://www.example.org/sitemap.xml?__locale=de&amp;part=1</loc>"));
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(
+            new ByteArrayInputStream(out.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals("sitemapindex", document.getDocumentElement().getLocalName());
+        assertEquals(CmsXmlSitemapGenerator.SITEMAP_NAMESPACE, document.getDocumentElement().getNamespaceURI());
+        NodeList locs = document.getElementsByTagNameNS(CmsXmlSitemapGenerator.SITEMAP_NAMESPACE, "loc");
+        assertEquals(2, locs.getLength());
+        assertEquals(links.get(0), locs.item(0).getTextContent());
+        assertEquals(links.get(1), locs.item(1).getTextContent());
+    }
+
+    /**
+     * Tests which changes make a cached sitemap stale.<p>
+     */
+    public void testIsAffectedBy() {
+
+        CmsXmlSitemapCacheEntry entry = new CmsXmlSitemapCacheEntry(
+            Collections.<File> emptyList(),
+            null,
+            "/sites/default/de",
+            new HashSet<String>(Arrays.asList("article")));
+        assertTrue(entry.isAffectedBy("/sites/default/de", "folder"));
+        assertTrue(entry.isAffectedBy("/sites/default/de/news/index.html", "containerpage"));
+        // detail contents may be stored anywhere
+        assertTrue(entry.isAffectedBy("/sites/shared/.content/article/a_00001.xml", "article"));
+        // the parent folder may change the navigation
+        assertTrue(entry.isAffectedBy("/sites/default", "folder"));
+        assertFalse(entry.isAffectedBy("/sites/default/den/x.html", "containerpage"));
+        assertFalse(entry.isAffectedBy("/sites/other/de/x.html", "containerpage"));
+        assertFalse(entry.isAffectedBy("/sites/shared/.content/blog/b_00001.xml", "blog"));
+
+        CmsXmlSitemapCacheEntry unknown = new CmsXmlSitemapCacheEntry(
+            Collections.<File> emptyList(),
+            null,
+            null,
+            null);
+        assertFalse(unknown.isAffectedBy("/sites/default/de", "folder"));
+    }
+
+    /**
+     * Tests the splitting of the URLs into sitemap files.<p>
+     */
+    public void testPartSplitting() {
+
+        int max = CmsXmlSitemapGenerator.MAX_URLS_PER_SITEMAP;
+        assertEquals(1, CmsXmlSitemapGenerator.getPartCount(0));
+        assertEquals(1, CmsXmlSitemapGenerator.getPartCount(1));
+        assertEquals(1, CmsXmlSitemapGenerator.getPartCount(max));
+        assertEquals(2, CmsXmlSitemapGenerator.getPartCount(max + 1));
+        assertEquals(3, CmsXmlSitemapGenerator.getPartCount(3 * max));
+
+        List<Integer> urls = new ArrayList<Integer>();
+        for (int i = 0; i < ((2 * max) + 1); i++) {
+            urls.add(Integer.valueOf(i));
+        }
+        assertEquals(3, CmsXmlSitemapGenerator.getPartCount(urls.size()));
+        List<Integer> part1 = CmsXmlSitemapGenerator.getPart(urls, 1);
+        List<Integer> part2 = CmsXmlSitemapGenerator.getPart(urls, 2);
+        List<Integer> part3 = CmsXmlSitemapGenerator.getPart(urls, 3);
+        assertEquals(max, part1.size());
+        assertEquals(max, part2.size());
+        assertEquals(1, part3.size());
+        assertEquals(Integer.valueOf(0), part1.get(0));
+        assertEquals(Integer.valueOf(max), part2.get(0));
+        assertEquals(Integer.valueOf(2 * max), part3.get(0));
+        assertNull(CmsXmlSitemapGenerator.getPart(urls, 0));
+        assertNull(CmsXmlSitemapGenerator.getPart(urls, 4));
+
+        // an empty sitemap still consists of one (empty) file
+        assertEquals(0, CmsXmlSitemapGenerator.getPart(new ArrayList<Integer>(), 1).size());
+        assertNull(CmsXmlSitemapGenerator.getPart(new ArrayList<Integer>(), 2));
+    }
+}
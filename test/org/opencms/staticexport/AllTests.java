@@ -64,6 +64,7 @@ public final class AllTests {
         suite.addTest(TestSecure.suite());
         suite.addTest(TestCmsExternalLinksValidator.suite());
         suite.addTest(TestExportScaledImage.suite());
+        suite.addTestSuite(TestCmsStaticExportDependencyIndex.class);
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,205 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.db.CmsResourceState;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the index of the resources statically exported template resources depend on.<p>
+ */
+public class TestCmsStaticExportDependencyIndex extends TestCase {
+
+    /**
+     * Creates a published resource.<p>
+     *
+     * @param rootPath the root path
+     * @param state the resource state
+     *
+     * @return the published resource
+     */
+    private static CmsPublishedResource published(String rootPath, CmsResourceState state) {
+
+        return new CmsPublishedResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            1,
+            rootPath,
+            1,
+            CmsResource.isFolder(rootPath),
+            state,
+            1);
+    }
+
+    /**
+     * Tests that changed resources only affect the exported resources that depend on them.<p>
+     */
+    public void testChangedResources() {
+
+        CmsStaticExportDependencyIndex index = createIndex(null);
+
+        assertEquals(
+            Collections.singleton("/sites/default/a.html"),
+            index.getAffectedResources(
+                Collections.singletonList(published("/sites/default/a.html", CmsResource.STATE_CHANGED))));
+        assertEquals(
+            set("/sites/default/a.html", "/sites/default/b.html"),
+            index.getAffectedResources(
+                Collections.singletonList(published("/sites/default/shared/footer.xml", CmsResource.STATE_CHANGED))));
+        assertEquals(
+            Collections.emptySet(),
+            index.getAffectedResources(
+                Collections.singletonList(published("/sites/default/other.html", CmsResource.STATE_CHANGED))));
+    }
+
+    /**
+     * Tests that changed folders affect all exported resources that depend on a resource below the folder.<p>
+     */
+    public void testChangedFolder() {
+
+        CmsStaticExportDependencyIndex index = createIndex(null);
+
+        assertEquals(
+            set("/sites/default/a.html", "/sites/default/b.html"),
+            index.getAffectedResources(
+                Collections.singletonList(published("/sites/default/shared/", CmsResource.STATE_CHANGED))));
+        assertEquals(
+            set("/sites/default/c.html"),
+            index.getAffectedResources(
+                Collections.singletonList(published("/sites/default/news/", CmsResource.STATE_CHANGED))));
+    }
+
+    /**
+     * Tests that new resources affect the exported resources that depend on resources in the same folder.<p>
+     */
+    public void testNewResource() {
+
+        CmsStaticExportDependencyIndex index = createIndex(null);
+
+        assertEquals(
+            set("/sites/default/c.html"),
+            index.getAffectedResources(
+                Collections.singletonList(published("/sites/default/news/n3.xml", CmsResource.STATE_NEW))));
+    }
+
+    /**
+     * Tests that exported resources with unknown dependencies are always affected.<p>
+     */
+    public void testUntracked() {
+
+        CmsStaticExportDependencyIndex index = createIndex(null);
+        index.setDependencies("/sites/default/d.html", null);
+
+        assertNull(index.getDependencies("/sites/default/d.html"));
+        assertEquals(
+            set("/sites/default/d.html"),
+            index.getAffectedResources(
+                Collections.singletonList(published("/sites/default/other.html", CmsResource.STATE_CHANGED))));
+
+        // replacing the dependencies removes the old ones
+        index.setDependencies("/sites/default/a.html", Collections.<String> emptyList());
+        index.remove("/sites/default/d.html");
+        assertEquals(
+            set("/sites/default/b.html"),
+            index.getAffectedResources(
+                Collections.singletonList(published("/sites/default/shared/footer.xml", CmsResource.STATE_CHANGED))));
+    }
+
+    /**
+     * Tests writing and reading the index file.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSaveAndLoad() throws Exception {
+
+        File file = File.createTempFile("dependencies", ".dat");
+        try {
+            CmsStaticExportDependencyIndex index = createIndex(file);
+            index.setDependencies("/sites/default/d.html", null);
+            index.save();
+
+            CmsStaticExportDependencyIndex loaded = new CmsStaticExportDependencyIndex(file);
+            loaded.load();
+            assertEquals(index.getSize(), loaded.getSize());
+            assertEquals(index.getDependencies("/sites/default/c.html"), loaded.getDependencies("/sites/default/c.html"));
+            assertNull(loaded.getDependencies("/sites/default/d.html"));
+            assertEquals(
+                set("/sites/default/a.html", "/sites/default/b.html", "/sites/default/d.html"),
+                loaded.getAffectedResources(
+                    Collections.singletonList(
+                        published("/sites/default/shared/footer.xml", CmsResource.STATE_CHANGED))));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Creates an index with some dependencies.<p>
+     *
+     * @param file the index file
+     *
+     * @return the index
+     */
+    private CmsStaticExportDependencyIndex createIndex(File file) {
+
+        CmsStaticExportDependencyIndex index = new CmsStaticExportDependencyIndex(file);
+        index.setDependencies(
+            "/sites/default/a.html",
+            Arrays.asList("/system/modules/template/page.jsp", "/sites/default/shared/footer.xml"));
+        index.setDependencies(
+            "/sites/default/b.html",
+            Arrays.asList("/system/modules/template/page.jsp", "/sites/default/shared/footer.xml"));
+        index.setDependencies(
+            "/sites/default/c.html",
+            Arrays.asList("/sites/default/news/n1.xml", "/sites/default/news/n2.xml"));
+        return index;
+    }
+
+    /**
+     * Creates a set of strings.<p>
+     *
+     * @param values the values
+     *
+     * @return the set
+     */
+    private Set<String> set(String... values) {
+
+        return new HashSet<String>(Arrays.asList(values));
+    }
+}
@@ -27,20 +27,28 @@
 
 package org.opencms.staticexport;
 
+import org.opencms.db.CmsPublishList;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.main.OpenCms;
+import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.xml.CmsXmlEntityResolver;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import junit.extensions.TestSetup;
@@ -81,6 +89,7 @@ public class TestCmsStaticExportManager extends OpenCmsTestCase {
 
         suite.addTest(new TestCmsStaticExportManager("testExportJspLinkGeneration"));
         suite.addTest(new TestCmsStaticExportManager("testDefaultSuffixLinkGeneration"));
+        suite.addTest(new TestCmsStaticExportManager("testDependentResourcesAfterPublish"));
         suite.addTest(new TestCmsStaticExportManager("testSiteExport"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -102,6 +111,63 @@ public class TestCmsStaticExportManager extends OpenCmsTestCase {
         return wrapper;
     }
 
+    /**
+     * Tests that a page listing a content is exported again after a change of the content is published.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDependentResourcesAfterPublish() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the after publish export of a page listing a changed content");
+
+        String content = "/depcontents/article.txt";
+        String listPage = "/deppages/list.html";
+        String otherPage = "/deppages/other.html";
+        cms.createResource("/depcontents/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(content, CmsResourceTypePlain.getStaticTypeId(), "Article".getBytes(), null);
+        cms.createResource("/deppages/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(listPage, CmsResourceTypePlain.getStaticTypeId());
+        cms.createResource(otherPage, CmsResourceTypePlain.getStaticTypeId());
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        // render the list page with a tracked context, like the static export does;
+        // the formatter gets the listed content from a collector and reads it with a copy of the context
+        CmsObject renderCms = getCmsObject();
+        CmsFlexRequestContextInfo dependencies = new CmsFlexRequestContextInfo(true);
+        renderCms.getRequestContext().setAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED, dependencies);
+        CmsResource listedResource = getCmsObject().readResource(content);
+        CmsObject formatterCms = OpenCms.initCmsObject(renderCms);
+        formatterCms.readFile(listedResource);
+        formatterCms.readPropertyObject(listedResource, CmsPropertyDefinition.PROPERTY_TITLE, false);
+
+        CmsStaticExportDependencyIndex index = OpenCms.getStaticExportManager().getDependencyIndex();
+        index.setDependencies(cms.addSiteRoot(listPage), dependencies.getDependencyPaths());
+        index.setDependencies(cms.addSiteRoot(otherPage), Collections.<String> emptySet());
+
+        // publish a change of the content
+        cms.lockResource(content);
+        cms.writePropertyObject(content, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Changed", null));
+        cms.unlockResource(content);
+        CmsPublishList publishList = OpenCms.getPublishManager().getPublishList(
+            cms,
+            cms.readResource(content),
+            false);
+        OpenCms.getPublishManager().publishProject(
+            cms,
+            new CmsShellReport(cms.getRequestContext().getLocale()),
+            publishList);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        List<CmsPublishedResource> publishedResources = cms.readPublishedResources(
+            publishList.getPublishHistoryId());
+        Set<String> exportAgain = new CmsAfterPublishStaticExportHandler().readDependentResources(
+            publishedResources);
+        assertTrue(exportAgain.contains(cms.addSiteRoot(listPage)));
+        assertFalse(exportAgain.contains(cms.addSiteRoot(otherPage)));
+    }
+
     /**
      * Tests the link generation for statically exported files by default suffix.<p>
      *
@@ -28,6 +28,8 @@
 package org.opencms.staticexport;
 
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
@@ -36,6 +38,12 @@ import org.opencms.util.CmsFileUtil;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -69,6 +77,8 @@ public class TestExportFile extends OpenCmsTestCase {
         suite.setName(TestExportFile.class.getName());
 
         suite.addTest(new TestExportFile("testStaticexportFile"));
+        suite.addTest(new TestExportFile("testParallelExport"));
+        suite.addTest(new TestExportFile("testWriteResourceAtomic"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -88,6 +98,61 @@ public class TestExportFile extends OpenCmsTestCase {
         return wrapper;
     }
 
+    /**
+     * Tests that the parallel export after publishing writes the same files as the sequential export.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testParallelExport() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing parallel file export");
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        manager.setHandler("org.opencms.staticexport.CmsAfterPublishStaticExportHandler");
+
+        String folder = "/parallelexport/";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        for (int i = 0; i < 40; i++) {
+            StringBuffer content = new StringBuffer();
+            for (int j = 0; j <= i; j++) {
+                content.append("content of file " + i + " line " + j + "\n");
+            }
+            cms.createResource(
+                folder + "file" + i + ".txt",
+                CmsResourceTypePlain.getStaticTypeId(),
+                content.toString().getBytes(),
+                null);
+        }
+        cms.unlockResource(folder);
+
+        String rootPath = cms.getRequestContext().addSiteRoot(folder);
+        File exportFolder = new File(CmsFileUtil.normalizePath(manager.getExportPath(rootPath) + rootPath));
+
+        // export sequentially
+        manager.setExportWorkers("1");
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        Map<String, String> sequential = readExportFolder(exportFolder);
+        assertEquals(40, sequential.size());
+
+        // export the same resources again in parallel
+        CmsFileUtil.purgeDirectory(exportFolder);
+        assertFalse(exportFolder.exists());
+        cms.lockResource(folder);
+        cms.setDateLastModified(folder, System.currentTimeMillis(), true);
+        cms.unlockResource(folder);
+        manager.setExportWorkers("4");
+        try {
+            OpenCms.getPublishManager().publishProject(cms);
+            OpenCms.getPublishManager().waitWhileRunning();
+        } finally {
+            manager.setExportWorkers("1");
+        }
+        Map<String, String> parallel = readExportFolder(exportFolder);
+        assertEquals(sequential, parallel);
+    }
+
     /**
      * Tests the file export.<p>
      *
@@ -130,4 +195,91 @@ public class TestExportFile extends OpenCmsTestCase {
 
         assertContent(cms, resourcename, exportContent);
     }
+
+    /**
+     * Tests that a file written by the static export is never visible with partial content.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testWriteResourceAtomic() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that exported files are replaced atomically");
+
+        final CmsResource resource = cms.readResource("/file1.txt");
+        final CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        final File exportFolder = Files.createTempDirectory("opencms-export").toFile();
+        final String exportPath = exportFolder.getAbsolutePath() + "/";
+        final String rfsName = "/atomic/large.bin";
+        File exportFile = new File(exportFolder, "atomic/large.bin");
+
+        try {
+            final byte[] oldContent = new byte[1024 * 1024];
+            Arrays.fill(oldContent, (byte)'o');
+            manager.writeResource(null, exportPath, rfsName, resource, oldContent);
+            assertTrue(Arrays.equals(oldContent, CmsFileUtil.readFile(exportFile)));
+
+            final byte[] newContent = new byte[32 * 1024 * 1024];
+            Arrays.fill(newContent, (byte)'n');
+            final AtomicBoolean finished = new AtomicBoolean();
+            final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+            Thread writer = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        manager.writeResource(null, exportPath, rfsName, resource, newContent);
+                    } catch (Throwable t) {
+                        error.set(t);
+                    } finally {
+                        finished.set(true);
+                    }
+                }
+            };
+            writer.start();
+
+            // read the export file while it is written, it must always contain either the old or the new content
+            int reads = 0;
+            while (!finished.get()) {
+                byte[] content = CmsFileUtil.readFile(exportFile);
+                if (content.length == oldContent.length) {
+                    assertTrue(Arrays.equals(oldContent, content));
+                } else {
+                    assertTrue(
+                        "Partially written content of " + content.length + " bytes found",
+                        Arrays.equals(newContent, content));
+                }
+                reads++;
+            }
+            writer.join();
+            assertNull(error.get());
+            echo("Read the export file " + reads + " times while it was written");
+
+            assertTrue(Arrays.equals(newContent, CmsFileUtil.readFile(exportFile)));
+            // the temporary file has been renamed
+            assertEquals(1, exportFile.getParentFile().list().length);
+        } finally {
+            CmsFileUtil.purgeDirectory(exportFolder);
+        }
+    }
+
+    /**
+     * Reads the contents of all files in the given export folder.<p>
+     *
+     * @param exportFolder the export folder
+     *
+     * @return the contents of the exported files, keyed by file name
+     *
+     * @throws Exception if reading the files fails
+     */
+    private Map<String, String> readExportFolder(File exportFolder) throws Exception {
+
+        Map<String, String> result = new TreeMap<String, String>();
+        for (File file : exportFolder.listFiles()) {
+            assertFalse("Temporary file " + file.getName() + " left over", file.getName().endsWith(".tmp"));
+            result.put(file.getName(), new String(CmsFileUtil.readFile(file)));
+        }
+        return result;
+    }
 }
\ No newline at end of file
@@ -31,7 +31,9 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.security.Principal;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
@@ -56,6 +58,9 @@ import javax.servlet.http.Part;
  */
 public class OpenCmsTestServletRequest implements HttpServletRequest {
 
+    /** The request attributes. */
+    private Map<String, Object> m_attributes = new HashMap<String, Object>();
+
     /**
      * Constructor for test implementation.<p>
      */
@@ -79,7 +84,7 @@ public class OpenCmsTestServletRequest implements HttpServletRequest {
      */
     public Object getAttribute(String arg0) {
 
-        throw new RuntimeException("Not implemented");
+        return m_attributes.get(arg0);
     }
 
     /**
@@ -87,7 +92,7 @@ public class OpenCmsTestServletRequest implements HttpServletRequest {
      */
     public Enumeration getAttributeNames() {
 
-        throw new RuntimeException("Not implemented");
+        return Collections.enumeration(m_attributes.keySet());
     }
 
     /**
@@ -535,7 +540,7 @@ public class OpenCmsTestServletRequest implements HttpServletRequest {
      */
     public void removeAttribute(String arg0) {
 
-        throw new RuntimeException("Not implemented");
+        m_attributes.remove(arg0);
     }
 
     /**
@@ -543,7 +548,7 @@ public class OpenCmsTestServletRequest implements HttpServletRequest {
      */
     public void setAttribute(String arg0, Object arg1) {
 
-        throw new RuntimeException("Not implemented");
+        m_attributes.put(arg0, arg1);
     }
 
     /**
@@ -0,0 +1,341 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (https://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: https://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: https://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.test.performance;
+
+import org.opencms.db.CmsPublishList;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.db.generic.CmsProjectDriver;
+import org.opencms.db.generic.Messages;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsLogReport;
+import org.opencms.report.CmsShellReport;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.List;
+import java.util.Locale;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Publish throughput benchmark.<p>
+ *
+ * Generates a number of new resources, publishes them and reports the publish throughput in resources per second.<p>
+ *
+ * The benchmarks with 10,000 and more resources only run if the system property
+ * <code>{@link #PROP_LARGE_TESTS}</code> is set to <code>true</code>.<p>
+ */
+public class TestPublishThroughput extends OpenCmsTestCase {
+
+    /**
+     * Report which fails the publish process of a single resource after its rows have been written.<p>
+     */
+    private static class FailingReport extends CmsShellReport {
+
+        /** The name of the file to fail. */
+        private String m_failedFileName;
+
+        /** Indicates if the report has failed publishing the file. */
+        private boolean m_hasFailed;
+
+        /** The key of the last printed message. */
+        private String m_lastKey;
+
+        /** Indicates if the file to fail is currently being published. */
+        private boolean m_publishingFailedFile;
+
+        /**
+         * Creates a new report.<p>
+         *
+         * @param locale the locale for the output language
+         * @param failedFileName the name of the file to fail
+         */
+        FailingReport(Locale locale, String failedFileName) {
+
+            super(locale);
+            m_failedFileName = failedFileName;
+        }
+
+        /**
+         * Returns if the report has failed publishing the file.<p>
+         *
+         * @return <code>true</code> if the report has failed publishing the file
+         */
+        public boolean hasFailed() {
+
+            return m_hasFailed;
+        }
+
+        /**
+         * @see org.opencms.report.CmsShellReport#print(org.opencms.i18n.CmsMessageContainer)
+         */
+        @Override
+        public void print(CmsMessageContainer container) {
+
+            checkPublishedFile(container);
+            super.print(container);
+        }
+
+        /**
+         * @see org.opencms.report.CmsShellReport#print(org.opencms.i18n.CmsMessageContainer, int)
+         */
+        @Override
+        public void print(CmsMessageContainer container, int format) {
+
+            checkPublishedFile(container);
+            super.print(container, format);
+        }
+
+        /**
+         * @see org.opencms.report.CmsShellReport#println(org.opencms.i18n.CmsMessageContainer, int)
+         */
+        @Override
+        public void println(CmsMessageContainer container, int format) {
+
+            if (m_publishingFailedFile && (format == FORMAT_OK)) {
+                // the file has been written to the online project, and its publish history entry has been collected
+                m_publishingFailedFile = false;
+                m_hasFailed = true;
+                throw new RuntimeException("Publishing " + m_failedFileName + " failed as intended");
+            }
+            super.println(container, format);
+        }
+
+        /**
+         * Checks if the given message starts publishing the file to fail.<p>
+         *
+         * @param container the message
+         */
+        private void checkPublishedFile(CmsMessageContainer container) {
+
+            Object[] args = container.getArgs();
+            if (!m_hasFailed
+                && Messages.RPT_PUBLISH_FILE_0.equals(m_lastKey)
+                && (args != null)
+                && (args.length == 1)
+                && String.valueOf(args[0]).endsWith(m_failedFileName)) {
+                m_publishingFailedFile = true;
+            }
+            m_lastKey = container.getKey();
+        }
+    }
+
+    /** System property to enable the benchmarks with 10,000 and more resources. */
+    public static final String PROP_LARGE_TESTS = "test.performance.large";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestPublishThroughput(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestPublishThroughput.class.getName());
+
+        suite.addTest(new TestPublishThroughput("testPublish1000"));
+        suite.addTest(new TestPublishThroughput("testPublishWithFailedResource"));
+        if (Boolean.parseBoolean(System.getProperty(PROP_LARGE_TESTS))) {
+            suite.addTest(new TestPublishThroughput("testPublish10000"));
+            suite.addTest(new TestPublishThroughput("testPublish50000"));
+        }
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Measures the publish throughput for 1,000 resources.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublish1000() throws Throwable {
+
+        publishResources(1000);
+    }
+
+    /**
+     * Measures the publish throughput for 10,000 resources.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublish10000() throws Throwable {
+
+        publishResources(10000);
+    }
+
+    /**
+     * Measures the publish throughput for 50,000 resources.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublish50000() throws Throwable {
+
+        publishResources(50000);
+    }
+
+    /**
+     * Tests that a resource which fails to publish is rolled back, while all other resources are published,
+     * including those committed in earlier chunks and those published after the failure.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishWithFailedResource() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing with a resource that fails to publish");
+
+        // use more files than the default batch size, so that at least one chunk is committed during publishing
+        int numberOfFiles = CmsProjectDriver.DEFAULT_PUBLISH_BATCH_SIZE + 100;
+        String folder = "/publishFailure/";
+        cms.createResource(folder, CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        for (int i = 0; i < numberOfFiles; i++) {
+            cms.createResource(getFileName(folder, i), CmsResourceTypePlain.getStaticTypeId());
+        }
+        String failedFile = getFileName(folder, CmsProjectDriver.DEFAULT_PUBLISH_BATCH_SIZE + 50);
+
+        CmsPublishList publishList = OpenCms.getPublishManager().getPublishList(cms);
+        int size = publishList.size();
+        FailingReport report = new FailingReport(
+            cms.getRequestContext().getLocale(),
+            CmsResource.getName(failedFile));
+        CmsUUID publishId = OpenCms.getPublishManager().publishProject(cms, report, publishList);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertTrue(report.hasFailed());
+
+        // the publish history contains all resources except the failed one
+        List<CmsPublishedResource> publishedResources = cms.readPublishedResources(publishId);
+        assertEquals(size - 1, publishedResources.size());
+        for (CmsPublishedResource pubRes : publishedResources) {
+            assertFalse(pubRes.getRootPath().equals(cms.addSiteRoot(failedFile)));
+        }
+
+        // the online rows of the failed file have been rolled back, it is still new in the offline project
+        CmsObject onlineCms = getCmsObject();
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertFalse(onlineCms.existsResource(failedFile));
+        assertEquals(CmsResource.STATE_NEW, cms.readResource(failedFile).getState());
+
+        // the files before and after the failed file are published
+        for (int i : new int[] {0, CmsProjectDriver.DEFAULT_PUBLISH_BATCH_SIZE + 49, numberOfFiles - 1}) {
+            String fileName = getFileName(folder, i);
+            assertTrue(onlineCms.existsResource(fileName));
+            assertEquals(CmsResource.STATE_UNCHANGED, cms.readResource(fileName).getState());
+        }
+    }
+
+    /**
+     * Returns the name of a generated file.<p>
+     *
+     * @param folder the parent folder
+     * @param index the index of the file
+     *
+     * @return the name of the file
+     */
+    private String getFileName(String folder, int index) {
+
+        return folder + "file" + String.format("%05d", Integer.valueOf(index)) + ".txt";
+    }
+
+    /**
+     * Generates the given number of new files, publishes them and reports the throughput.<p>
+     *
+     * @param numberOfFiles the number of files to generate
+     *
+     * @throws Throwable if something goes wrong
+     */
+    private void publishResources(int numberOfFiles) throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publish throughput for " + numberOfFiles + " resources");
+
+        String folder = "/publishThroughput" + numberOfFiles + "/";
+        cms.createResource(folder, CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        int generated = generateContent(cms, folder, numberOfFiles, 0.2);
+        echo("" + generated + " files have been generated");
+
+        CmsPublishList publishList = OpenCms.getPublishManager().getPublishList(cms);
+        int size = publishList.size();
+
+        long t = System.currentTimeMillis();
+        CmsUUID publishId = OpenCms.getPublishManager().publishProject(
+            cms,
+            new CmsLogReport(cms.getRequestContext().getLocale(), getClass()),
+            publishList);
+        OpenCms.getPublishManager().waitWhileRunning();
+        t = System.currentTimeMillis() - t;
+
+        echo(
+            ""
+                + size
+                + " resources have been published in "
+                + t
+                + " msecs ("
+                + ((size * 1000L) / Math.max(t, 1))
+                + " resources/second)");
+
+        // every published resource must have its publish history entry
+        assertEquals(size, cms.readPublishedResources(publishId).size());
+    }
+}
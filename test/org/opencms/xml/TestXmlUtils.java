@@ -28,6 +28,15 @@
 package org.opencms.xml;
 
 import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.dom4j.Document;
+import org.dom4j.io.SAXReader;
+import org.xml.sax.InputSource;
 
 /**
  * @since 6.0.0
@@ -93,4 +102,88 @@ public class TestXmlUtils extends OpenCmsTestCase {
         assertEquals("Title", CmsXmlUtils.simplifyXpath("Title/"));
         assertEquals("Title", CmsXmlUtils.simplifyXpath("/Title/"));
     }
+
+    /**
+     * Compares parse time and allocated bytes of the unmarshal helper with reading each document
+     * with a new SAX reader, for a small, a medium and a large XML content.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testUnmarshalPerformance() throws Exception {
+
+        String[] files = {
+            "org/opencms/xml/content/xmlcontent-8.xml",
+            "org/opencms/xml/content/xmlcontent-4.xml",
+            "org/opencms/xml/content/xmlcontent-1-mod7.xml"};
+        int runs = 2000;
+        for (String file : files) {
+            byte[] xmlData = CmsFileUtil.readFile(file);
+            // both ways must produce the same document
+            Document expected = readWithNewReader(xmlData);
+            assertEquals(expected.asXML(), CmsXmlUtils.unmarshalHelper(xmlData, null).asXML());
+
+            long bytes = getAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                readWithNewReader(xmlData);
+            }
+            long newReaderTime = (System.nanoTime() - start) / runs;
+            long newReaderBytes = (getAllocatedBytes() - bytes) / runs;
+
+            bytes = getAllocatedBytes();
+            start = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                CmsXmlUtils.unmarshalHelper(xmlData, null);
+            }
+            long helperTime = (System.nanoTime() - start) / runs;
+            long helperBytes = (getAllocatedBytes() - bytes) / runs;
+
+            System.out.println(
+                file
+                    + " ("
+                    + xmlData.length
+                    + " bytes): new reader "
+                    + newReaderTime
+                    + " ns / "
+                    + newReaderBytes
+                    + " bytes allocated, unmarshal helper "
+                    + helperTime
+                    + " ns / "
+                    + helperBytes
+                    + " bytes allocated per document");
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread, or 0 if not supported by the JVM.<p>
+     *
+     * @return the number of bytes allocated by the current thread
+     */
+    private long getAllocatedBytes() {
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Reads a document with a new SAX reader, like the unmarshal helper did before parsers were reused.<p>
+     *
+     * @param xmlData the XML data
+     *
+     * @return the document
+     *
+     * @throws Exception in case reading fails
+     */
+    private Document readWithNewReader(byte[] xmlData) throws Exception {
+
+        SAXReader reader = new SAXReader();
+        reader.setMergeAdjacentText(true);
+        reader.setStripWhitespaceText(true);
+        reader.setValidation(false);
+        reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        return reader.read(new InputSource(new ByteArrayInputStream(xmlData)));
+    }
 }
@@ -48,10 +48,12 @@ import org.opencms.relations.CmsRelationType;
 import org.opencms.staticexport.CmsLinkTable;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.widgets.CmsCheckboxWidget;
 import org.opencms.widgets.CmsHtmlWidget;
 import org.opencms.widgets.I_CmsWidget;
+import org.opencms.xml.containerpage.CmsADECache;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 import org.opencms.xml.CmsXmlUtils;
@@ -172,6 +174,7 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         suite.addTest(new TestCmsXmlContentWithVfs("testMacros"));
         suite.addTest(new TestCmsXmlContentWithVfs("testAddFileReference"));
         suite.addTest(new TestCmsXmlContentWithVfs("testXmlContentCreate"));
+        suite.addTest(new TestCmsXmlContentWithVfs("testSharedContentCache"));
         suite.addTest(new TestCmsXmlContentWithVfs("testVarLinkPreservePercentEncodingForSpecialCharacters"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -2271,6 +2274,44 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         assertEquals("Der Autor ist JETZT", messagesDEde.key("label.newauthor"));
     }
 
+    /**
+     * Tests that parsed XML contents are shared between requests and invalidated on modification.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    public void testSharedContentCache() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the parsed XML content cache shared between requests");
+
+        String filename = "/xmlcontent-cache.html";
+        CmsResource res = cms.createResource(filename, OpenCmsTestCase.ARTICLE_TYPEID);
+        CmsADECache cache = OpenCms.getADEManager().getCache();
+
+        CmsXmlContent first = CmsXmlContentFactory.unmarshal(cms, res, new OpenCmsTestServletRequest());
+        long hits = cache.getXmlContentCacheHits();
+        CmsXmlContent second = CmsXmlContentFactory.unmarshal(cms, res, new OpenCmsTestServletRequest());
+        assertEquals(hits + 1, cache.getXmlContentCacheHits());
+        assertNotSame(first, second);
+        assertNotSame(first.getFile(), second.getFile());
+
+        // changing the copy handed out must not affect later requests
+        second.getValue("Author", Locale.ENGLISH).setStringValue(cms, "Changed in request");
+        CmsXmlContent third = CmsXmlContentFactory.unmarshal(cms, res, new OpenCmsTestServletRequest());
+        assertEquals(
+            first.getValue("Author", Locale.ENGLISH).getStringValue(cms),
+            third.getValue("Author", Locale.ENGLISH).getStringValue(cms));
+
+        // writing the file must invalidate the cached content
+        CmsFile file = cms.readFile(res);
+        third.getValue("Author", Locale.ENGLISH).setStringValue(cms, "Alkacon Software GmbH & Co. KG");
+        file.setContents(third.marshal());
+        cms.writeFile(file);
+        res = cms.readResource(filename);
+        CmsXmlContent fourth = CmsXmlContentFactory.unmarshal(cms, res, new OpenCmsTestServletRequest());
+        assertEquals("Alkacon Software GmbH & Co. KG", fourth.getValue("Author", Locale.ENGLISH).getStringValue(cms));
+    }
+
     /**
      * Test the validation of the value elements.<p>
      *